@@ -0,0 +1,35 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+create table if not exists `data_sync_outbox`
+(
+    id         integer primary key autoincrement,
+    d_type     varchar(256)                       not null, -- entity class of the change
+    action     varchar(16)                        not null, -- create|update|remove
+    data       text                               not null, -- entity json
+    gmt_create datetime default CURRENT_TIMESTAMP not null
+);
+
+create table if not exists `data_sync_outbox_dead`
+(
+    id         integer primary key autoincrement,
+    outbox_id  integer                            not null, -- id of the row in data_sync_outbox
+    d_type     varchar(256)                       not null, -- entity class of the change
+    action     varchar(16)                        not null, -- create|update|remove
+    data       text                               not null, -- entity json
+    error      text,                                        -- why the row can't be read
+    gmt_create datetime default CURRENT_TIMESTAMP not null
+);
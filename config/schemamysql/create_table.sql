@@ -357,6 +357,7 @@ create table if not exists `edge_data_sync_log`
 (
     `table_name`       varchar(64) not null,
     `last_update_time` varchar(64) not null,
+    `last_id`          bigint,
     primary key (`table_name`)
 );
 
@@ -689,3 +690,23 @@ create table if not exists `project_schedule_job`
 );
 create unique index if not exists `upk_project_schedule_job_id` on project_schedule_job (`project_id`, `job_id`);
 create unique index if not exists `upk_schedule_job_id` on project_schedule_job (`job_id`); -- Kuscia，Job unique
+
+create table if not exists `data_sync_outbox`
+(
+    `id`         bigint auto_increment primary key,
+    `d_type`     varchar(256)                       not null, -- entity class of the change
+    `action`     varchar(16)                        not null, -- create|update|remove
+    `data`       longtext                           not null, -- entity json
+    `gmt_create` datetime default CURRENT_TIMESTAMP not null
+);
+
+create table if not exists `data_sync_outbox_dead`
+(
+    `id`         bigint auto_increment primary key,
+    `outbox_id`  bigint                             not null, -- id of the row in data_sync_outbox
+    `d_type`     varchar(256)                       not null, -- entity class of the change
+    `action`     varchar(16)                        not null, -- create|update|remove
+    `data`       longtext                           not null, -- entity json
+    `error`      text,                                        -- why the row can't be read
+    `gmt_create` datetime default CURRENT_TIMESTAMP not null
+);
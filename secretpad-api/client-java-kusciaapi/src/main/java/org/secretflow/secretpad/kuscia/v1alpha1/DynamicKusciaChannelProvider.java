@@ -20,11 +20,13 @@ import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaProtocolEnum;
 import org.secretflow.secretpad.kuscia.v1alpha1.event.RegisterKusciaEvent;
 import org.secretflow.secretpad.kuscia.v1alpha1.event.UnRegisterKusciaEvent;
 import org.secretflow.secretpad.kuscia.v1alpha1.factory.KusciaApiChannelFactory;
+import org.secretflow.secretpad.kuscia.v1alpha1.factory.KusciaApiStubRegistry;
 import org.secretflow.secretpad.kuscia.v1alpha1.factory.impl.GrpcKusciaApiChannelFactory;
 import org.secretflow.secretpad.kuscia.v1alpha1.model.DynamicKusciaGrpcConfig;
 import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaGrpcConfig;
 
 import io.grpc.stub.AbstractStub;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import jakarta.annotation.Resource;
@@ -32,8 +34,8 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.jetbrains.annotations.NotNull;
-import org.secretflow.v1alpha1.kusciaapi.*;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
@@ -52,7 +54,6 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
 
 /**
  * @author yutu
@@ -60,13 +61,10 @@ import java.util.concurrent.TimeUnit;
  */
 @Slf4j
 @Service
-@SuppressWarnings({"unchecked"})
 public class DynamicKusciaChannelProvider {
 
     private static final Map<String, KusciaApiChannelFactory> CHANNEL_FACTORIES = new ConcurrentHashMap<>();
-    private final static int BLOCKING_TIMEOUT_MILLISECOND = 5000;
-    private final static int FUTURE_TIMEOUT_MILLISECOND = 5000;
-    private final static int StubSCRIPTION_TIMEOUT_DAY = 365;
+    private static final Map<String, KusciaApiStubRegistry> STUB_REGISTRIES = new ConcurrentHashMap<>();
     private final Object lock = new Object();
     private volatile boolean isInitialized = false;
     @Resource
@@ -76,6 +74,9 @@ public class DynamicKusciaChannelProvider {
     @Resource
     private ApplicationEventPublisher publisher;
 
+    @Autowired
+    private ObjectProvider<MeterRegistry> meterRegistry;
+
     @Value("${secretpad.node-id}")
     @Setter
     private String nodeId;
@@ -83,17 +84,6 @@ public class DynamicKusciaChannelProvider {
     @Value("${secretpad.kuscia-path:./config/kuscia/}")
     private String kusciaPath;
 
-    private static <T> @NotNull String getServiceName(Class<T> clazz) {
-        String serviceName;
-        try {
-            serviceName = String.valueOf(clazz.getDeclaredField("SERVICE_NAME").get(null));
-            Assert.notNull(serviceName, "SERVICE_NAME must not be null");
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Unsupported class type: " + clazz.getName(), e);
-        }
-        return serviceName;
-    }
-
     @PostConstruct
     public void init() {
         isInitialized = true;
@@ -118,7 +108,7 @@ public class DynamicKusciaChannelProvider {
     }
 
     public <T extends AbstractStub<T>> T currentStub(Class<T> clazz) {
-        log.info("The nodeId received by kuscia is: {}", nodeId);
+        log.debug("The nodeId received by kuscia is: {}", nodeId);
         return createStub(nodeId, clazz);
     }
 
@@ -132,7 +122,8 @@ public class DynamicKusciaChannelProvider {
         if (isInitialized || dynamicKusciaGrpcConfig.getNodes().add(config)) {
             log.info("Register kuscia node success, config={}", config);
             synchronized (lock) {
-                registerChannelFactory(config.getDomainId(), new GrpcKusciaApiChannelFactory(config));
+                registerChannelFactory(config.getDomainId(), new GrpcKusciaApiChannelFactory(config,
+                        dynamicKusciaGrpcConfig.getPool(), meterRegistry == null ? null : meterRegistry.getIfAvailable()));
                 if (!ObjectUtils.isEmpty(publisher)) {
                     publisher.publishEvent(new RegisterKusciaEvent(this, config));
                 }
@@ -147,6 +138,7 @@ public class DynamicKusciaChannelProvider {
         if (isInitialized || CHANNEL_FACTORIES.containsKey(config.getDomainId())) {
             log.info("Unregister kuscia node success, config={}", config);
             synchronized (lock) {
+                STUB_REGISTRIES.remove(config.getDomainId());
                 KusciaApiChannelFactory remove = CHANNEL_FACTORIES.remove(config.getDomainId());
                 if (remove != null) {
                     remove.shutdown();
@@ -172,6 +164,7 @@ public class DynamicKusciaChannelProvider {
     }
 
     private void registerChannelFactory(String name, KusciaApiChannelFactory channelFactory) {
+        STUB_REGISTRIES.put(name, new KusciaApiStubRegistry(channelFactory, dynamicKusciaGrpcConfig.getDeadline()));
         KusciaApiChannelFactory factory = CHANNEL_FACTORIES.put(name, channelFactory);
         if (factory != null) {
             log.warn("The channel factory {} has been registered, shutdown and replace", name);
@@ -180,148 +173,11 @@ public class DynamicKusciaChannelProvider {
     }
 
     public <T extends AbstractStub<T>> T createStub(String domainId, Class<T> clazz) {
-        checkChannelFactoryExist(domainId);
-        String serviceName = getServiceName(clazz.getEnclosingClass());
-        AbstractStub<?> t = null;
-
-        switch (serviceName) {
-            case DomainServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(DomainServiceGrpc.DomainServiceBlockingStub.class)) {
-                    t = DomainServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(DomainServiceGrpc.DomainServiceStub.class)) {
-                    t = DomainServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(DomainServiceGrpc.DomainServiceFutureStub.class)) {
-                    t = DomainServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-
-            case DomainDataServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(DomainDataServiceGrpc.DomainDataServiceBlockingStub.class)) {
-                    t = DomainDataServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(DomainDataServiceGrpc.DomainDataServiceStub.class)) {
-                    t = DomainDataServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(DomainDataServiceGrpc.DomainDataServiceFutureStub.class)) {
-                    t = DomainDataServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-
-            case DomainRouteServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(DomainRouteServiceGrpc.DomainRouteServiceBlockingStub.class)) {
-                    t = DomainRouteServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(DomainRouteServiceGrpc.DomainRouteServiceStub.class)) {
-                    t = DomainRouteServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(DomainRouteServiceGrpc.DomainRouteServiceFutureStub.class)) {
-                    t = DomainRouteServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-            case DomainDataSourceServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(DomainDataSourceServiceGrpc.DomainDataSourceServiceBlockingStub.class)) {
-                    t = DomainDataSourceServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(DomainDataSourceServiceGrpc.DomainDataSourceServiceStub.class)) {
-                    t = DomainDataSourceServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(DomainDataSourceServiceGrpc.DomainDataSourceServiceFutureStub.class)) {
-
-                    t = DomainDataSourceServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-            case DomainDataGrantServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(DomainDataGrantServiceGrpc.DomainDataGrantServiceBlockingStub.class)) {
-
-                    t = DomainDataGrantServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(DomainDataGrantServiceGrpc.DomainDataGrantServiceStub.class)) {
-                    t = DomainDataGrantServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(DomainDataGrantServiceGrpc.DomainDataGrantServiceFutureStub.class)) {
-                    t = DomainDataGrantServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-
-            case JobServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(JobServiceGrpc.JobServiceBlockingStub.class)) {
-                    t = JobServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(JobServiceGrpc.JobServiceStub.class)) {
-                    t = JobServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel());
-                }
-                if (clazz.equals(JobServiceGrpc.JobServiceFutureStub.class)) {
-                    t = JobServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-
-            case ServingServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(ServingServiceGrpc.ServingServiceBlockingStub.class)) {
-                    t = ServingServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(ServingServiceGrpc.ServingServiceStub.class)) {
-                    t = ServingServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(ServingServiceGrpc.ServingServiceFutureStub.class)) {
-                    t = ServingServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-
-            case HealthServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(HealthServiceGrpc.HealthServiceBlockingStub.class)) {
-                    t = HealthServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(HealthServiceGrpc.HealthServiceStub.class)) {
-                    t = HealthServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(HealthServiceGrpc.HealthServiceFutureStub.class)) {
-                    t = HealthServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-
-            case CertificateServiceGrpc.SERVICE_NAME -> {
-                if (clazz.equals(CertificateServiceGrpc.CertificateServiceBlockingStub.class)) {
-                    t = CertificateServiceGrpc.newBlockingStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(BLOCKING_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-                if (clazz.equals(CertificateServiceGrpc.CertificateServiceStub.class)) {
-                    t = CertificateServiceGrpc.newStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(StubSCRIPTION_TIMEOUT_DAY, TimeUnit.DAYS);
-                }
-                if (clazz.equals(CertificateServiceGrpc.CertificateServiceFutureStub.class)) {
-                    t = CertificateServiceGrpc.newFutureStub(CHANNEL_FACTORIES.get(domainId).getChannel())
-                            .withDeadlineAfter(FUTURE_TIMEOUT_MILLISECOND, TimeUnit.MILLISECONDS);
-                }
-            }
-
-            default -> throw new IllegalArgumentException("Unsupported class type: " + clazz.getName());
+        KusciaApiStubRegistry stubRegistry = STUB_REGISTRIES.get(domainId);
+        if (stubRegistry == null) {
+            throw new IllegalArgumentException("No such kuscia instance domain id: " + domainId);
         }
-        return (T) t;
+        return stubRegistry.getStub(clazz);
     }
 
     /**
@@ -332,12 +188,6 @@ public class DynamicKusciaChannelProvider {
     }
 
 
-    private void checkChannelFactoryExist(String domainId) {
-        if (!CHANNEL_FACTORIES.containsKey(domainId)) {
-            throw new IllegalArgumentException("No such kuscia instance domain id: " + domainId);
-        }
-    }
-
     public String getProtocolByDomainId(String domainId) {
         String protocol = KusciaProtocolEnum.TLS.name().toLowerCase(Locale.ROOT);
         if (CollectionUtils.isEmpty(dynamicKusciaGrpcConfig.getNodes())) {
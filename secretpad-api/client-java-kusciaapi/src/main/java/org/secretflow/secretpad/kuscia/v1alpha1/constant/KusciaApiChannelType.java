@@ -26,6 +26,10 @@ public enum KusciaApiChannelType {
      * Blocking channel
      */
     BLOCKING,
+    /**
+     * future channel
+     */
+    FUTURE,
     /**
      * streaming channel
      */
@@ -16,8 +16,11 @@
 
 package org.secretflow.secretpad.kuscia.v1alpha1.factory;
 
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
 import io.grpc.ConnectivityState;
 import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
 
 /**
  * @author yutu
@@ -27,6 +30,13 @@ public interface KusciaApiChannelFactory {
 
     ManagedChannel getChannel();
 
+    /**
+     * start a call on a channel picked for the method
+     */
+    default <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+        return getChannel().newCall(method, callOptions);
+    }
+
     void shutdownNow();
 
     void shutdown();
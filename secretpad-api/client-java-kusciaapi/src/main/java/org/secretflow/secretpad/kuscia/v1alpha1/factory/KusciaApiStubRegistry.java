@@ -0,0 +1,127 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.kuscia.v1alpha1.factory;
+
+import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaApiChannelType;
+import org.secretflow.secretpad.kuscia.v1alpha1.interceptor.KusciaDeadlineClientInterceptor;
+import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaDeadlineConfig;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptors;
+import io.grpc.MethodDescriptor;
+import io.grpc.stub.AbstractStub;
+import org.secretflow.v1alpha1.kusciaapi.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Stubs of every kuscia api service of one kuscia domain, created once when the domain is registered.
+ * <p>
+ * Stubs are bound to the channel factory rather than one of its channels, so every call is placed on a channel
+ * picked by the factory and survives a channel rebuilt after shutdown, and deadlines are set per call by
+ * {@link KusciaDeadlineClientInterceptor}.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@SuppressWarnings({"unchecked"})
+public class KusciaApiStubRegistry {
+
+    private static final Map<Class<?>, StubFactory> STUB_FACTORIES = new HashMap<>();
+
+    static {
+        register(DomainServiceGrpc.DomainServiceBlockingStub.class, DomainServiceGrpc::newBlockingStub, KusciaApiChannelType.BLOCKING);
+        register(DomainServiceGrpc.DomainServiceFutureStub.class, DomainServiceGrpc::newFutureStub, KusciaApiChannelType.FUTURE);
+        register(DomainServiceGrpc.DomainServiceStub.class, DomainServiceGrpc::newStub, KusciaApiChannelType.ASYNC);
+        register(DomainDataServiceGrpc.DomainDataServiceBlockingStub.class, DomainDataServiceGrpc::newBlockingStub, KusciaApiChannelType.BLOCKING);
+        register(DomainDataServiceGrpc.DomainDataServiceFutureStub.class, DomainDataServiceGrpc::newFutureStub, KusciaApiChannelType.FUTURE);
+        register(DomainDataServiceGrpc.DomainDataServiceStub.class, DomainDataServiceGrpc::newStub, KusciaApiChannelType.ASYNC);
+        register(DomainRouteServiceGrpc.DomainRouteServiceBlockingStub.class, DomainRouteServiceGrpc::newBlockingStub, KusciaApiChannelType.BLOCKING);
+        register(DomainRouteServiceGrpc.DomainRouteServiceFutureStub.class, DomainRouteServiceGrpc::newFutureStub, KusciaApiChannelType.FUTURE);
+        register(DomainRouteServiceGrpc.DomainRouteServiceStub.class, DomainRouteServiceGrpc::newStub, KusciaApiChannelType.ASYNC);
+        register(DomainDataSourceServiceGrpc.DomainDataSourceServiceBlockingStub.class, DomainDataSourceServiceGrpc::newBlockingStub, KusciaApiChannelType.BLOCKING);
+        register(DomainDataSourceServiceGrpc.DomainDataSourceServiceFutureStub.class, DomainDataSourceServiceGrpc::newFutureStub, KusciaApiChannelType.FUTURE);
+        register(DomainDataSourceServiceGrpc.DomainDataSourceServiceStub.class, DomainDataSourceServiceGrpc::newStub, KusciaApiChannelType.ASYNC);
+        register(DomainDataGrantServiceGrpc.DomainDataGrantServiceBlockingStub.class, DomainDataGrantServiceGrpc::newBlockingStub, KusciaApiChannelType.BLOCKING);
+        register(DomainDataGrantServiceGrpc.DomainDataGrantServiceFutureStub.class, DomainDataGrantServiceGrpc::newFutureStub, KusciaApiChannelType.FUTURE);
+        register(DomainDataGrantServiceGrpc.DomainDataGrantServiceStub.class, DomainDataGrantServiceGrpc::newStub, KusciaApiChannelType.ASYNC);
+        register(JobServiceGrpc.JobServiceBlockingStub.class, JobServiceGrpc::newBlockingStub, KusciaApiChannelType.BLOCKING);
+        register(JobServiceGrpc.JobServiceFutureStub.class, JobServiceGrpc::newFutureStub, KusciaApiChannelType.FUTURE);
+        register(JobServiceGrpc.JobServiceStub.class, JobServiceGrpc::newStub, KusciaApiChannelType.ASYNC);
+        register(ServingServiceGrpc.ServingServiceBlockingStub.class, ServingServiceGrpc::newBlockingStub, KusciaApiChannelType.BLOCKING);
+        register(ServingServiceGrpc.ServingServiceFutureStub.class, ServingServiceGrpc::newFutureStub, KusciaApiChannelType.FUTURE);
+        register(ServingServiceGrpc.ServingServiceStub.class, ServingServiceGrpc::newStub, KusciaApiChannelType.ASYNC);
+        register(HealthServiceGrpc.HealthServiceBlockingStub.class, HealthServiceGrpc::newBlockingStub, KusciaApiChannelType.BLOCKING);
+        register(HealthServiceGrpc.HealthServiceFutureStub.class, HealthServiceGrpc::newFutureStub, KusciaApiChannelType.FUTURE);
+        register(HealthServiceGrpc.HealthServiceStub.class, HealthServiceGrpc::newStub, KusciaApiChannelType.ASYNC);
+        register(CertificateServiceGrpc.CertificateServiceBlockingStub.class, CertificateServiceGrpc::newBlockingStub, KusciaApiChannelType.BLOCKING);
+        register(CertificateServiceGrpc.CertificateServiceFutureStub.class, CertificateServiceGrpc::newFutureStub, KusciaApiChannelType.FUTURE);
+        register(CertificateServiceGrpc.CertificateServiceStub.class, CertificateServiceGrpc::newStub, KusciaApiChannelType.ASYNC);
+    }
+
+    private final Map<Class<?>, AbstractStub<?>> stubs;
+
+    public KusciaApiStubRegistry(KusciaApiChannelFactory channelFactory, KusciaDeadlineConfig deadlineConfig) {
+        Channel channel = ClientInterceptors.intercept(new FactoryChannel(channelFactory), new KusciaDeadlineClientInterceptor(deadlineConfig));
+        Map<Class<?>, AbstractStub<?>> created = new HashMap<>();
+        STUB_FACTORIES.forEach((clazz, factory) -> created.put(clazz,
+                factory.create().apply(channel).withOption(KusciaDeadlineClientInterceptor.CHANNEL_TYPE, factory.type())));
+        this.stubs = Map.copyOf(created);
+    }
+
+    private static <T extends AbstractStub<T>> void register(Class<T> clazz, Function<Channel, T> create, KusciaApiChannelType type) {
+        STUB_FACTORIES.put(clazz, new StubFactory(create::apply, type));
+    }
+
+    public <T extends AbstractStub<T>> T getStub(Class<T> clazz) {
+        AbstractStub<?> stub = stubs.get(clazz);
+        if (stub == null) {
+            throw new IllegalArgumentException("Unsupported class type: " + clazz.getName());
+        }
+        return (T) stub;
+    }
+
+    private record StubFactory(Function<Channel, AbstractStub<?>> create, KusciaApiChannelType type) {
+    }
+
+    /**
+     * channel handing every call to the factory
+     */
+    private static class FactoryChannel extends Channel {
+
+        private final KusciaApiChannelFactory channelFactory;
+
+        FactoryChannel(KusciaApiChannelFactory channelFactory) {
+            this.channelFactory = channelFactory;
+        }
+
+        @Override
+        public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> methodDescriptor, CallOptions callOptions) {
+            return channelFactory.newCall(methodDescriptor, callOptions);
+        }
+
+        @Override
+        public String authority() {
+            return channelFactory.getChannel().authority();
+        }
+    }
+}
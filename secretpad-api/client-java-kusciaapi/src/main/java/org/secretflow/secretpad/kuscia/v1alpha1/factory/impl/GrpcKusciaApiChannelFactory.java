@@ -21,27 +21,35 @@ import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaProtocolEnum;
 import org.secretflow.secretpad.kuscia.v1alpha1.factory.KusciaApiChannelFactory;
 import org.secretflow.secretpad.kuscia.v1alpha1.interceptor.KusciaGrpcLoggingInterceptor;
 import org.secretflow.secretpad.kuscia.v1alpha1.interceptor.TokenAuthClientInterceptor;
-import org.secretflow.secretpad.kuscia.v1alpha1.listener.ManagedChannelStateListener;
+import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaChannelPoolConfig;
 import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaGrpcConfig;
 
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
 import io.grpc.ClientInterceptor;
 import io.grpc.ConnectivityState;
 import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
 import io.grpc.netty.shaded.io.grpc.netty.GrpcSslContexts;
 import io.grpc.netty.shaded.io.grpc.netty.NettyChannelBuilder;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslContext;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslContextBuilder;
 import io.grpc.netty.shaded.io.netty.handler.ssl.SslProvider;
 import io.grpc.netty.shaded.io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.util.Assert;
 
 import javax.net.ssl.SSLException;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Pool of channels to one kuscia domain, unary calls and streaming calls each on channels of their own.
+ *
  * @author yutu
  * @date 2024/06/12
  */
@@ -50,58 +58,110 @@ public class GrpcKusciaApiChannelFactory implements KusciaApiChannelFactory {
 
 
     private final static int MAX_INBOUND_MESSAGE_SIZE = 256 * 1024 * 1024;
-    private final AtomicReference<ConnectivityState> state = new AtomicReference<>(ConnectivityState.SHUTDOWN);
     private final KusciaGrpcConfig kusciaGrpcConfig;
+    private final KusciaChannelPoolConfig.Selection selection;
     private final ClientInterceptor loggingInterceptor;
     private final ClientInterceptor tokenAuthClientInterceptor;
-    private ManagedChannel channel;
+    private final List<PooledKusciaChannel> unaryChannels;
+    private final List<PooledKusciaChannel> streamingChannels;
+    private final AtomicInteger next = new AtomicInteger();
 
 
     public GrpcKusciaApiChannelFactory(KusciaGrpcConfig kusciaGrpcConfig) {
+        this(kusciaGrpcConfig, new KusciaChannelPoolConfig(), null);
+    }
+
+    public GrpcKusciaApiChannelFactory(KusciaGrpcConfig kusciaGrpcConfig, KusciaChannelPoolConfig poolConfig, MeterRegistry meterRegistry) {
         Assert.notNull(kusciaGrpcConfig, "KusciaGrpcConfig must not be null");
+        Assert.notNull(poolConfig, "KusciaChannelPoolConfig must not be null");
         kusciaGrpcConfig.validateAndProcess();
         this.kusciaGrpcConfig = kusciaGrpcConfig;
+        this.selection = poolConfig.getSelection();
         this.loggingInterceptor = new KusciaGrpcLoggingInterceptor(kusciaGrpcConfig.getDomainId());
         this.tokenAuthClientInterceptor = new TokenAuthClientInterceptor(kusciaGrpcConfig.getToken(), kusciaGrpcConfig.getDomainId());
+        this.unaryChannels = createPool("unary", Math.max(1, poolConfig.getSize()), meterRegistry);
+        this.streamingChannels = poolConfig.getStreamingSize() > 0
+                ? createPool("streaming", poolConfig.getStreamingSize(), meterRegistry) : unaryChannels;
     }
 
+    /**
+     * first unary channel, calls made through {@link #newCall} are spread over the whole pool
+     */
     @Override
     public ManagedChannel getChannel() {
-        synchronized (this) {
-            if (!state.get().equals(ConnectivityState.SHUTDOWN)) {
-                return channel;
-            }
-            assertInitialized();
-            initChannel();
-            return channel;
-        }
+        return unaryChannels.get(0).getChannel();
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+        List<PooledKusciaChannel> pool = method.getType() == MethodDescriptor.MethodType.UNARY ? unaryChannels : streamingChannels;
+        return select(pool).newCall(method, callOptions);
     }
 
     @Override
     public void shutdownNow() {
-        if (channel != null && !channel.isShutdown()) {
-            channel.shutdownNow();
-        }
+        channels().forEach(channel -> channel.shutdown(true));
+        channels().forEach(PooledKusciaChannel::removeMeters);
     }
 
     @Override
     public void shutdown() {
-        if (channel != null && !channel.isShutdown()) {
-            channel.shutdown();
-        }
+        channels().forEach(channel -> channel.shutdown(false));
+        channels().forEach(PooledKusciaChannel::removeMeters);
     }
 
+    /**
+     * READY if any unary channel is, the state of the first unary channel otherwise
+     */
     @Override
     public ConnectivityState getState() {
-        return state.get();
+        for (PooledKusciaChannel channel : unaryChannels) {
+            if (channel.getState() == ConnectivityState.READY) {
+                return ConnectivityState.READY;
+            }
+        }
+        return unaryChannels.get(0).getState();
     }
 
     @Override
     public boolean isAvailable() {
-        return state.get().equals(ConnectivityState.READY);
+        return getState().equals(ConnectivityState.READY);
     }
 
-    private void initChannel() {
+    private PooledKusciaChannel select(List<PooledKusciaChannel> pool) {
+        int size = pool.size();
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        if (size == 1 || selection == KusciaChannelPoolConfig.Selection.ROUND_ROBIN) {
+            return pool.get(start);
+        }
+        PooledKusciaChannel selected = pool.get(start);
+        for (int i = 1; i < size && selected.inFlight() > 0; i++) {
+            PooledKusciaChannel channel = pool.get((start + i) % size);
+            if (channel.inFlight() < selected.inFlight()) {
+                selected = channel;
+            }
+        }
+        return selected;
+    }
+
+    private List<PooledKusciaChannel> channels() {
+        if (streamingChannels == unaryChannels) {
+            return unaryChannels;
+        }
+        List<PooledKusciaChannel> channels = new ArrayList<>(unaryChannels);
+        channels.addAll(streamingChannels);
+        return channels;
+    }
+
+    private List<PooledKusciaChannel> createPool(String type, int size, MeterRegistry meterRegistry) {
+        List<PooledKusciaChannel> pool = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            pool.add(new PooledKusciaChannel(kusciaGrpcConfig.getDomainId(), type, i, this::buildChannel, meterRegistry));
+        }
+        return List.copyOf(pool);
+    }
+
+    private ManagedChannel buildChannel() {
         NettyChannelBuilder nettyChannelBuilder = NettyChannelBuilder
                 .forAddress(kusciaGrpcConfig.getHost(), kusciaGrpcConfig.getPort())
                 .intercept(loggingInterceptor)
@@ -132,16 +192,6 @@ public class GrpcKusciaApiChannelFactory implements KusciaApiChannelFactory {
                     .intercept(tokenAuthClientInterceptor)
                     .useTransportSecurity();
         }
-        channel = nettyChannelBuilder.build();
-        new ManagedChannelStateListener(channel, kusciaGrpcConfig.getDomainId(), state);
-    }
-
-
-    private void assertInitialized() {
-        ConnectivityState current = state.get();
-        if (ConnectivityState.SHUTDOWN.equals(current)) {
-            return;
-        }
-        throw new IllegalStateException(String.format("GrpcKusciaApiChannelFactory is %s", current));
+        return nettyChannelBuilder.build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.kuscia.v1alpha1.factory.impl;
+
+import org.secretflow.secretpad.kuscia.v1alpha1.listener.ManagedChannelStateListener;
+
+import io.grpc.*;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * One channel of the pool of a kuscia domain, built on first use and rebuilt once shut down,
+ * counting the calls in flight on it.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+class PooledKusciaChannel {
+
+    private final String domainId;
+    private final Supplier<ManagedChannel> channelBuilder;
+    private final AtomicReference<ConnectivityState> state = new AtomicReference<>(ConnectivityState.SHUTDOWN);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+    private final Tags tags;
+    private final List<Meter> meters;
+    /**
+     * call timers registered by this channel, by method and status
+     */
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private ManagedChannel channel;
+
+    PooledKusciaChannel(String domainId, String type, int index, Supplier<ManagedChannel> channelBuilder, MeterRegistry meterRegistry) {
+        this.domainId = domainId;
+        this.channelBuilder = channelBuilder;
+        this.meterRegistry = meterRegistry;
+        this.tags = Tags.of("domain", domainId, "type", type);
+        if (meterRegistry == null) {
+            this.meters = List.of();
+        } else {
+            Tags channelTags = tags.and("channel", String.valueOf(index));
+            this.meters = List.of(
+                    Gauge.builder("kuscia.channel.in.flight", inFlight, AtomicInteger::get)
+                            .description("kuscia api calls in flight on the channel")
+                            .tags(channelTags)
+                            .register(meterRegistry),
+                    Gauge.builder("kuscia.channel.ready", state, s -> s.get() == ConnectivityState.READY ? 1 : 0)
+                            .description("whether the channel is connected")
+                            .tags(channelTags)
+                            .register(meterRegistry));
+        }
+    }
+
+    synchronized ManagedChannel getChannel() {
+        if (channel == null || channel.isShutdown()) {
+            channel = channelBuilder.get();
+            state.set(ConnectivityState.IDLE);
+            new ManagedChannelStateListener(channel, domainId, state);
+        }
+        return channel;
+    }
+
+    ConnectivityState getState() {
+        return state.get();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+        ClientCall<ReqT, RespT> call = getChannel().newCall(method, callOptions);
+        return new ForwardingClientCall.SimpleForwardingClientCall<>(call) {
+            @Override
+            public void start(Listener<RespT> responseListener, Metadata headers) {
+                long startNanos = System.nanoTime();
+                inFlight.incrementAndGet();
+                try {
+                    super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+                        @Override
+                        public void onClose(Status status, Metadata trailers) {
+                            inFlight.decrementAndGet();
+                            record(method, status, startNanos);
+                            super.onClose(status, trailers);
+                        }
+                    }, headers);
+                } catch (RuntimeException e) {
+                    inFlight.decrementAndGet();
+                    throw e;
+                }
+            }
+        };
+    }
+
+    synchronized void shutdown(boolean now) {
+        if (channel != null && !channel.isShutdown()) {
+            if (now) {
+                channel.shutdownNow();
+            } else {
+                channel.shutdown();
+            }
+        }
+    }
+
+    void removeMeters() {
+        meters.forEach(meterRegistry::remove);
+        timers.values().forEach(meterRegistry::remove);
+        timers.clear();
+    }
+
+    private void record(MethodDescriptor<?, ?> method, Status status, long startNanos) {
+        if (meterRegistry != null) {
+            timers.computeIfAbsent(method.getFullMethodName() + "/" + status.getCode().name(), k -> Timer.builder("kuscia.channel.calls")
+                            .description("kuscia api calls by method and status")
+                            .tags(tags.and("method", method.getFullMethodName(), "status", status.getCode().name()))
+                            .register(meterRegistry))
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.kuscia.v1alpha1.interceptor;
+
+import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaApiChannelType;
+import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaDeadlineConfig;
+
+import io.grpc.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sets the configured deadline when a call starts, so that stubs can be shared across calls.
+ * A deadline set by the caller on the stub is kept.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+public class KusciaDeadlineClientInterceptor implements ClientInterceptor {
+
+    /**
+     * type of the stub making the call
+     */
+    public static final CallOptions.Key<KusciaApiChannelType> CHANNEL_TYPE =
+            CallOptions.Key.createWithDefault("kuscia-channel-type", KusciaApiChannelType.ASYNC);
+
+    private final KusciaDeadlineConfig deadlineConfig;
+
+    public KusciaDeadlineClientInterceptor(KusciaDeadlineConfig deadlineConfig) {
+        this.deadlineConfig = deadlineConfig;
+    }
+
+    @Override
+    public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+            MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next) {
+        if (callOptions.getDeadline() == null) {
+            Duration deadline = deadlineConfig.deadlineOf(method, callOptions.getOption(CHANNEL_TYPE));
+            if (deadline != null) {
+                callOptions = callOptions.withDeadlineAfter(deadline.toMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        return next.newCall(method, callOptions);
+    }
+}
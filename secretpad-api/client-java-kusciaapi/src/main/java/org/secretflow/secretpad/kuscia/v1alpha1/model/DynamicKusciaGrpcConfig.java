@@ -33,4 +33,6 @@ import java.util.concurrent.CopyOnWriteArraySet;
 @ConfigurationProperties(prefix = "kuscia")
 public class DynamicKusciaGrpcConfig {
     private CopyOnWriteArraySet<KusciaGrpcConfig> nodes;
+    private KusciaDeadlineConfig deadline = new KusciaDeadlineConfig();
+    private KusciaChannelPoolConfig pool = new KusciaChannelPoolConfig();
 }
\ No newline at end of file
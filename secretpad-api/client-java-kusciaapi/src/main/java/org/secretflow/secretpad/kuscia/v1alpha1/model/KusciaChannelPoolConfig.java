@@ -0,0 +1,51 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.kuscia.v1alpha1.model;
+
+import lombok.Data;
+
+/**
+ * Channels opened to each kuscia domain, bound from kuscia.pool.
+ * <p>
+ * Unary calls are spread over size channels, server streaming calls such as watchJob get streaming-size
+ * channels of their own so that long-lived watches don't take the concurrent streams of unary calls.
+ * A streaming-size of 0 shares the unary channels.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Data
+public class KusciaChannelPoolConfig {
+
+    private int size = 2;
+
+    private int streamingSize = 1;
+
+    private Selection selection = Selection.LEAST_IN_FLIGHT;
+
+    public enum Selection {
+        /**
+         * channels in turn
+         */
+        ROUND_ROBIN,
+        /**
+         * the channel with the fewest calls in flight
+         */
+        LEAST_IN_FLIGHT
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.kuscia.v1alpha1.model;
+
+import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaApiChannelType;
+
+import io.grpc.MethodDescriptor;
+import lombok.Data;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Deadlines of kuscia api calls, bound from kuscia.deadline.
+ * <p>
+ * A method listed in methods, keyed by its full name such as kuscia.proto.api.v1alpha1.kusciaapi.JobService/WatchJob,
+ * takes its own deadline; any other call takes the deadline of its stub type, server streaming calls the streaming one.
+ * A zero or negative duration means no deadline.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Data
+public class KusciaDeadlineConfig {
+
+    private Duration blocking = Duration.ofSeconds(5);
+
+    private Duration future = Duration.ofSeconds(5);
+
+    private Duration async = Duration.ofDays(365);
+
+    private Duration streaming = Duration.ZERO;
+
+    private Map<String, Duration> methods = new HashMap<>();
+
+    /**
+     * deadline of the call, null if it has none
+     */
+    public Duration deadlineOf(MethodDescriptor<?, ?> method, KusciaApiChannelType type) {
+        Duration deadline = methods.get(method.getFullMethodName());
+        if (deadline == null) {
+            if (method.getType() == MethodDescriptor.MethodType.SERVER_STREAMING) {
+                deadline = streaming;
+            } else {
+                deadline = switch (type) {
+                    case BLOCKING -> blocking;
+                    case FUTURE -> future;
+                    case STREAMING -> streaming;
+                    case ASYNC -> async;
+                };
+            }
+        }
+        return deadline == null || deadline.isZero() || deadline.isNegative() ? null : deadline;
+    }
+}
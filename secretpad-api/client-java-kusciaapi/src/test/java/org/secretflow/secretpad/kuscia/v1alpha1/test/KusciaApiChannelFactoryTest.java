@@ -19,14 +19,23 @@ package org.secretflow.secretpad.kuscia.v1alpha1.test;
 import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaModeEnum;
 import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaProtocolEnum;
 import org.secretflow.secretpad.kuscia.v1alpha1.factory.KusciaApiChannelFactory;
+import org.secretflow.secretpad.kuscia.v1alpha1.factory.KusciaApiStubRegistry;
 import org.secretflow.secretpad.kuscia.v1alpha1.factory.impl.GrpcKusciaApiChannelFactory;
 import org.secretflow.secretpad.kuscia.v1alpha1.mock.MockKusciaGrpcServer;
+import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaChannelPoolConfig;
+import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaDeadlineConfig;
 import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaGrpcConfig;
 
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.secretflow.v1alpha1.kusciaapi.DomainOuterClass;
+import org.secretflow.v1alpha1.kusciaapi.DomainServiceGrpc;
 
 /**
  * @author yutu
@@ -60,4 +69,34 @@ public class KusciaApiChannelFactoryTest {
         factory.getChannel();
         factory.shutdown();
     }
-}
\ No newline at end of file
+
+    @Test
+    void testPool() {
+        KusciaGrpcConfig config = new MockKusciaGrpcServer().buildKusciaGrpcConfig("alice");
+        KusciaChannelPoolConfig poolConfig = new KusciaChannelPoolConfig();
+        poolConfig.setSize(3);
+        poolConfig.setStreamingSize(1);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        KusciaApiChannelFactory factory = new GrpcKusciaApiChannelFactory(config, poolConfig, meterRegistry);
+        Assertions.assertSame(factory.getChannel(), factory.getChannel());
+        Assertions.assertEquals(3, meterRegistry.find("kuscia.channel.in.flight").tag("type", "unary").gauges().size());
+        Assertions.assertEquals(1, meterRegistry.find("kuscia.channel.in.flight").tag("type", "streaming").gauges().size());
+
+        DomainServiceGrpc.DomainServiceBlockingStub stub = new KusciaApiStubRegistry(factory, new KusciaDeadlineConfig())
+                .getStub(DomainServiceGrpc.DomainServiceBlockingStub.class);
+        for (int i = 0; i < 3; i++) {
+            try {
+                stub.queryDomain(DomainOuterClass.QueryDomainRequest.newBuilder().setDomainId("alice").build());
+            } catch (StatusRuntimeException e) {
+                log.info("query domain {}", e.getStatus());
+            }
+        }
+        long calls = meterRegistry.find("kuscia.channel.calls").tag("type", "unary").timers().stream().mapToLong(Timer::count).sum();
+        Assertions.assertEquals(3, calls);
+        meterRegistry.find("kuscia.channel.in.flight").gauges().forEach(gauge -> Assertions.assertEquals(0, gauge.value()));
+
+        factory.shutdownNow();
+        Assertions.assertTrue(meterRegistry.find("kuscia.channel.in.flight").gauges().isEmpty());
+        Assertions.assertTrue(meterRegistry.find("kuscia.channel.calls").timers().isEmpty());
+    }
+}
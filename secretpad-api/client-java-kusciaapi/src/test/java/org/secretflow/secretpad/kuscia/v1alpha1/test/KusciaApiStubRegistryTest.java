@@ -0,0 +1,99 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.kuscia.v1alpha1.test;
+
+import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaApiChannelType;
+import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaModeEnum;
+import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaProtocolEnum;
+import org.secretflow.secretpad.kuscia.v1alpha1.factory.KusciaApiStubRegistry;
+import org.secretflow.secretpad.kuscia.v1alpha1.factory.impl.GrpcKusciaApiChannelFactory;
+import org.secretflow.secretpad.kuscia.v1alpha1.interceptor.KusciaDeadlineClientInterceptor;
+import org.secretflow.secretpad.kuscia.v1alpha1.mock.MockKusciaGrpcServer;
+import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaDeadlineConfig;
+import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaGrpcConfig;
+
+import io.grpc.*;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.secretflow.v1alpha1.kusciaapi.DomainServiceGrpc;
+import org.secretflow.v1alpha1.kusciaapi.JobServiceGrpc;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * @author yutu
+ * @date 2024/11/20
+ */
+public class KusciaApiStubRegistryTest {
+
+    @Test
+    void testStubIsShared() {
+        KusciaGrpcConfig config = new KusciaGrpcConfig();
+        config.setHost(MockKusciaGrpcServer.HOST);
+        config.setPort(MockKusciaGrpcServer.PORT);
+        config.setProtocol(KusciaProtocolEnum.NOTLS);
+        config.setMode(KusciaModeEnum.P2P);
+        config.setDomainId("alice");
+        GrpcKusciaApiChannelFactory channelFactory = new GrpcKusciaApiChannelFactory(config);
+        KusciaApiStubRegistry registry = new KusciaApiStubRegistry(channelFactory, new KusciaDeadlineConfig());
+        DomainServiceGrpc.DomainServiceBlockingStub stub = registry.getStub(DomainServiceGrpc.DomainServiceBlockingStub.class);
+        Assertions.assertSame(stub, registry.getStub(DomainServiceGrpc.DomainServiceBlockingStub.class));
+        Assertions.assertNull(stub.getCallOptions().getDeadline());
+        Assertions.assertEquals(KusciaApiChannelType.BLOCKING, stub.getCallOptions().getOption(KusciaDeadlineClientInterceptor.CHANNEL_TYPE));
+        Assertions.assertEquals(KusciaApiChannelType.ASYNC,
+                registry.getStub(JobServiceGrpc.JobServiceStub.class).getCallOptions().getOption(KusciaDeadlineClientInterceptor.CHANNEL_TYPE));
+        channelFactory.shutdownNow();
+    }
+
+    @Test
+    void testDeadlinePerCall() {
+        KusciaDeadlineConfig deadlineConfig = new KusciaDeadlineConfig();
+        deadlineConfig.getMethods().put(DomainServiceGrpc.getBatchQueryDomainMethod().getFullMethodName(), Duration.ofSeconds(30));
+        KusciaDeadlineClientInterceptor interceptor = new KusciaDeadlineClientInterceptor(deadlineConfig);
+        AtomicReference<CallOptions> captured = new AtomicReference<>();
+        Channel channel = new Channel() {
+            @Override
+            public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+                captured.set(callOptions);
+                return null;
+            }
+
+            @Override
+            public String authority() {
+                return MockKusciaGrpcServer.HOST;
+            }
+        };
+        CallOptions blocking = CallOptions.DEFAULT.withOption(KusciaDeadlineClientInterceptor.CHANNEL_TYPE, KusciaApiChannelType.BLOCKING);
+
+        interceptor.interceptCall(DomainServiceGrpc.getQueryDomainMethod(), blocking, channel);
+        long remaining = captured.get().getDeadline().timeRemaining(TimeUnit.MILLISECONDS);
+        Assertions.assertTrue(remaining > 0 && remaining <= 5000);
+
+        interceptor.interceptCall(DomainServiceGrpc.getBatchQueryDomainMethod(), blocking, channel);
+        Assertions.assertTrue(captured.get().getDeadline().timeRemaining(TimeUnit.SECONDS) > 5);
+
+        Deadline own = Deadline.after(1, TimeUnit.MINUTES);
+        interceptor.interceptCall(DomainServiceGrpc.getQueryDomainMethod(), blocking.withDeadline(own), channel);
+        Assertions.assertSame(own, captured.get().getDeadline());
+
+        interceptor.interceptCall(JobServiceGrpc.getWatchJobMethod(), CallOptions.DEFAULT, channel);
+        Assertions.assertNull(captured.get().getDeadline());
+    }
+}
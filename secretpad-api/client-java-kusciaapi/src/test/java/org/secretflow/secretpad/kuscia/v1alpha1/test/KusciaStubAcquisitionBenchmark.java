@@ -0,0 +1,97 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.kuscia.v1alpha1.test;
+
+import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaModeEnum;
+import org.secretflow.secretpad.kuscia.v1alpha1.constant.KusciaProtocolEnum;
+import org.secretflow.secretpad.kuscia.v1alpha1.factory.KusciaApiStubRegistry;
+import org.secretflow.secretpad.kuscia.v1alpha1.factory.impl.GrpcKusciaApiChannelFactory;
+import org.secretflow.secretpad.kuscia.v1alpha1.mock.MockKusciaGrpcServer;
+import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaDeadlineConfig;
+import org.secretflow.secretpad.kuscia.v1alpha1.model.KusciaGrpcConfig;
+
+import io.grpc.stub.AbstractStub;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.secretflow.v1alpha1.kusciaapi.DomainDataServiceGrpc;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of acquiring a kuscia api stub for one call.
+ * <p>
+ * reflectiveCreate is the previous path, which looks up SERVICE_NAME reflectively and builds a new stub with its
+ * deadline on every call; registryLookup takes the stub created when the domain was registered.
+ * Run with, once the modules are installed with mvn install -DskipTests:
+ * mvn -pl secretpad-api/client-java-kusciaapi test-compile exec:java -Dexec.mainClass=org.secretflow.secretpad.kuscia.v1alpha1.test.KusciaStubAcquisitionBenchmark
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class KusciaStubAcquisitionBenchmark {
+
+    private GrpcKusciaApiChannelFactory channelFactory;
+    private KusciaApiStubRegistry registry;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(KusciaStubAcquisitionBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        KusciaGrpcConfig config = new KusciaGrpcConfig();
+        config.setHost(MockKusciaGrpcServer.HOST);
+        config.setPort(MockKusciaGrpcServer.PORT);
+        config.setProtocol(KusciaProtocolEnum.NOTLS);
+        config.setMode(KusciaModeEnum.P2P);
+        config.setDomainId("alice");
+        channelFactory = new GrpcKusciaApiChannelFactory(config);
+        channelFactory.getChannel();
+        registry = new KusciaApiStubRegistry(channelFactory, new KusciaDeadlineConfig());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        channelFactory.shutdownNow();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public AbstractStub<?> reflectiveCreate() throws ReflectiveOperationException {
+        Class<?> clazz = DomainDataServiceGrpc.DomainDataServiceBlockingStub.class;
+        String serviceName = String.valueOf(clazz.getEnclosingClass().getDeclaredField("SERVICE_NAME").get(null));
+        if (!DomainDataServiceGrpc.SERVICE_NAME.equals(serviceName)) {
+            throw new IllegalStateException(serviceName);
+        }
+        return DomainDataServiceGrpc.newBlockingStub(channelFactory.getChannel()).withDeadlineAfter(5000, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public AbstractStub<?> registryLookup() {
+        return registry.getStub(DomainDataServiceGrpc.DomainDataServiceBlockingStub.class);
+    }
+}
@@ -38,6 +38,11 @@ public class SyncDataDTO<T> implements Serializable {
 
     private String lastUpdateTime;
 
+    /**
+     * id of the last synced row at lastUpdateTime, rows at lastUpdateTime with a greater id are not synced yet
+     */
+    private Long lastId;
+
     private String action;
 
     private T data;
@@ -69,9 +69,22 @@ public class AsyncTaskExecutionUtils {
             Function<Request, Response> asyncOperation,
             String nodeId,
             Map<String, String> failedRecords) {
+        return executeUnDecoratedOperation(request, asyncOperation, nodeId, failedRecords, DEFAULT_SINGLE_TASK_TIME_OUT);
+    }
+
+    /**
+     * same as {@link #executeUnDecoratedOperation(Object, Function, String, Map)} with a timeout of the caller,
+     * the future completes with null once the timeout passes
+     */
+    public static <Request, Response> CompletableFuture<Response> executeUnDecoratedOperation(
+            Request request,
+            Function<Request, Response> asyncOperation,
+            String nodeId,
+            Map<String, String> failedRecords,
+            long timeoutMillis) {
 
         return CompletableFuture.supplyAsync(() -> asyncOperation.apply(request), kusciaApiFutureTaskThreadPool)
-                .completeOnTimeout(null, DEFAULT_SINGLE_TASK_TIME_OUT, DEFAULT_TIME_OUT_UNIT)
+                .completeOnTimeout(null, timeoutMillis, DEFAULT_TIME_OUT_UNIT)
                 .handle((response, ex) -> {
                     if (ex != null) {
                         String errorMsg = String.format("nodeId:%s execute async operation failed, error:%s", nodeId, ex.getMessage());
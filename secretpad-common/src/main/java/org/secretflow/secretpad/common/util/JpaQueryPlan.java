@@ -0,0 +1,229 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.common.util;
+
+import org.secretflow.secretpad.common.annotation.JpaQuery;
+
+import jakarta.persistence.criteria.*;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.util.CollectionUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * Compiled {@link JpaQuery} criteria of one query class.
+ * <p>
+ * Annotated fields are resolved once into getters and pre-split blurry, or and join paths, so building the predicate
+ * of a query only reads the field values. Plans are cached per query class by {@link JpaQueryHelper}.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+@SuppressWarnings("unchecked")
+public final class JpaQueryPlan {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Criterion[] criteria;
+
+    private JpaQueryPlan(Criterion[] criteria) {
+        this.criteria = criteria;
+    }
+
+    /**
+     * resolve the annotated fields of the query class and its super classes, in the order they are declared
+     */
+    public static JpaQueryPlan compile(Class<?> queryClass) {
+        List<Criterion> criteria = new ArrayList<>();
+        for (Field field : JpaQueryHelper.getAllFields(queryClass, new ArrayList<>())) {
+            JpaQuery q = field.getAnnotation(JpaQuery.class);
+            if (q == null || Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            criteria.add(new Criterion(field, q));
+        }
+        return new JpaQueryPlan(criteria.toArray(new Criterion[0]));
+    }
+
+    public <R> Predicate toPredicate(Root<R> root, Object query, CriteriaBuilder cb) {
+        List<Predicate> list = new ArrayList<>(criteria.length);
+        try {
+            Map<String, Join> joinKey = null;
+            for (Criterion c : criteria) {
+                Object val = c.get(query);
+                if (ObjectUtils.isEmpty(val) || "".equals(val)) {
+                    continue;
+                }
+                // inner like multiple fields
+                if (c.blurry != null) {
+                    Predicate[] orPredicate = new Predicate[c.blurry.length];
+                    for (int i = 0; i < c.blurry.length; i++) {
+                        orPredicate[i] = cb.like(root.get(c.blurry[i]).as(String.class), "%" + val + "%");
+                    }
+                    list.add(cb.or(orPredicate));
+                    continue;
+                }
+                // or multiple fields append by eq
+                if (c.or != null) {
+                    Predicate[] orPredicate = new Predicate[c.or.length];
+                    for (int i = 0; i < c.or.length; i++) {
+                        orPredicate[i] = cb.equal(root.get(c.or[i]).as(String.class), val.toString());
+                    }
+                    list.add(cb.or(orPredicate));
+                    continue;
+                }
+                Join join = null;
+                if (c.joinPath != null) {
+                    if (joinKey == null) {
+                        joinKey = new HashMap<>();
+                    }
+                    join = joinKey.get(c.joinName);
+                    if (join == null) {
+                        for (String name : c.joinPath) {
+                            join = join == null ? root.join(name, c.joinType) : join.join(name, c.joinType);
+                        }
+                        joinKey.put(c.joinName, join);
+                    }
+                }
+                c.addPredicate(list, root, join, val, cb);
+            }
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+        return cb.and(list.toArray(new Predicate[0]));
+    }
+
+    private static final class Criterion {
+        private final MethodHandle getter;
+        private final JpaQuery.Type type;
+        private final String attributeName;
+        private final Class<?> fieldType;
+        private final String[] blurry;
+        private final String[] or;
+        private final String joinName;
+        private final String[] joinPath;
+        private final JoinType joinType;
+
+        private Criterion(Field field, JpaQuery q) {
+            try {
+                field.setAccessible(true);
+                this.getter = MethodHandles.lookup().unreflectGetter(field).asType(GETTER_TYPE);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("can't access jpa query field " + field, e);
+            }
+            this.type = q.type();
+            this.attributeName = isBlank(q.propName()) ? field.getName() : q.propName();
+            this.fieldType = field.getType();
+            this.blurry = q.blurry().isEmpty() ? null : q.blurry().split(",");
+            this.or = q.or().isEmpty() ? null : q.or().split(",");
+            this.joinName = q.joinName();
+            this.joinPath = q.joinName().isEmpty() ? null : q.joinName().split(">");
+            this.joinType = switch (q.join()) {
+                case LEFT -> JoinType.LEFT;
+                case RIGHT -> JoinType.RIGHT;
+                case INNER -> JoinType.INNER;
+            };
+        }
+
+        private Object get(Object query) {
+            try {
+                return getter.invokeExact(query);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private <R> void addPredicate(List<Predicate> list, Root<R> root, Join join, Object val, CriteriaBuilder cb) {
+            switch (type) {
+                case EQUAL:
+                    list.add(cb.equal(expression(join, root).as((Class<? extends Comparable>) fieldType), val));
+                    break;
+                case GREATER_THAN:
+                    list.add(cb.greaterThanOrEqualTo(
+                            expression(join, root).as((Class<? extends Comparable>) fieldType), (Comparable) val));
+                    break;
+                case LESS_THAN:
+                    list.add(cb.lessThanOrEqualTo(
+                            expression(join, root).as((Class<? extends Comparable>) fieldType), (Comparable) val));
+                    break;
+                case LESS_THAN_NQ:
+                    list.add(cb.lessThan(
+                            expression(join, root).as((Class<? extends Comparable>) fieldType), (Comparable) val));
+                    break;
+                case INNER_LIKE:
+                    list.add(cb.like(expression(join, root).as(String.class), "%" + val + "%"));
+                    break;
+                case LEFT_LIKE:
+                    list.add(cb.like(expression(join, root).as(String.class), "%" + val));
+                    break;
+                case RIGHT_LIKE:
+                    list.add(cb.like(expression(join, root).as(String.class), val + "%"));
+                    break;
+                case IN:
+                    if (!CollectionUtils.isEmpty((Collection<Object>) val)) {
+                        list.add(expression(join, root).in((Collection<Object>) val));
+                    }
+                    break;
+                case NOT_IN:
+                    if (!CollectionUtils.isEmpty((Collection<Object>) val)) {
+                        list.add(expression(join, root).in((Collection<Object>) val).not());
+                    }
+                    break;
+                case NOT_EQUAL:
+                    list.add(cb.notEqual(expression(join, root), val));
+                    break;
+                case NOT_NULL:
+                    list.add(cb.isNotNull(expression(join, root)));
+                    break;
+                case IS_NULL:
+                    list.add(cb.isNull(expression(join, root)));
+                    break;
+                case BETWEEN:
+                    List<Object> between = new ArrayList<>((List<Object>) val);
+                    if (between.size() == 2) {
+                        list.add(cb.between(
+                                expression(join, root).as((Class<? extends Comparable>) between.get(0).getClass()),
+                                (Comparable) between.get(0), (Comparable) between.get(1)));
+                    }
+                    break;
+                case FIND_IN_SET:
+                    list.add(cb.greaterThan(cb.function("FIND_IN_SET", Integer.class,
+                            cb.literal(val.toString()), root.get(attributeName)), 0));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private <T, R> Expression<T> expression(Join join, Root<R> root) {
+            return join != null ? join.get(attributeName) : root.get(attributeName);
+        }
+
+        private static boolean isBlank(String s) {
+            return s == null || s.isBlank();
+        }
+    }
+}
@@ -38,6 +38,15 @@ public class SpringContextUtil implements ApplicationContextAware {
         return (T) ac.getBean(name);
     }
 
+    /**
+     * publish an event, ignored until the context is ready
+     */
+    public static void publishEvent(Object event) {
+        if (ac != null) {
+            ac.publishEvent(event);
+        }
+    }
+
     @Override
     public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
         ac = applicationContext;
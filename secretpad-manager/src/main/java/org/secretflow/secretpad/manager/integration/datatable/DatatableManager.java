@@ -22,6 +22,7 @@ import org.secretflow.secretpad.common.enums.DataTableTypeEnum;
 import org.secretflow.secretpad.common.enums.PlatformTypeEnum;
 import org.secretflow.secretpad.common.errorcode.DatatableErrorCode;
 import org.secretflow.secretpad.common.exception.SecretpadException;
+import org.secretflow.secretpad.common.util.AsyncTaskExecutionUtils;
 import org.secretflow.secretpad.common.util.JsonUtils;
 import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcClientAdapter;
 import org.secretflow.secretpad.manager.integration.model.DatatableDTO;
@@ -38,9 +39,15 @@ import org.springframework.util.CollectionUtils;
 
 import javax.annotation.Nullable;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -55,6 +62,7 @@ import static org.secretflow.secretpad.common.constant.Constants.STATUS_UNAVAILA
  */
 public class DatatableManager extends AbstractDatatableManager {
     private final static Logger LOGGER = LoggerFactory.getLogger(DatatableManager.class);
+    private static final int CACHE_SWEEP_SIZE = 1024;
     /**
      * Domain data service blocking stub
      */
@@ -66,6 +74,20 @@ public class DatatableManager extends AbstractDatatableManager {
     @Value("${secretpad.node-id}")
     private String localNodeId;
 
+    /**
+     * Timeout of the batch query of one node when several nodes are queried in parallel
+     */
+    @Value("${secretpad.datatable.query.timeout-ms:5000}")
+    private long queryTimeoutMillis;
+
+    /**
+     * Found domain data are read from memory within the ttl, 0 disables the cache
+     */
+    @Value("${secretpad.datatable.cache.ttl-seconds:5}")
+    private long cacheTtlSeconds;
+
+    private final Map<DatatableDTO.NodeDatatableId, CachedDomainData> domainDataCache = new ConcurrentHashMap<>();
+
     public DatatableManager(KusciaGrpcClientAdapter kusciaGrpcClientAdapter, FeatureTableRepository featureTableRepository) {
         this.featureTableRepository = featureTableRepository;
         this.kusciaGrpcClientAdapter = kusciaGrpcClientAdapter;
@@ -106,47 +128,15 @@ public class DatatableManager extends AbstractDatatableManager {
 
     @Override
     public List<Domaindata.DomainData> findByIdsBase(List<DatatableDTO.NodeDatatableId> nodeDatatableIds, SearchTargetNodeManager nodeService) {
-        final List<Domaindata.DomainData> domainDataList = new ArrayList<>();
         if (PlatformTypeEnum.AUTONOMY.equals(PlatformTypeEnum.valueOf(plaformType))) {
-            String targetNodeId = nodeService.getTargetNodeId(nodeDatatableIds.get(0).getNodeId(), null);
-            Domaindata.BatchQueryDomainDataRequest nodeRequest = Domaindata.BatchQueryDomainDataRequest.
-                    newBuilder().addAllData(
-                            nodeDatatableIds.stream().map(
-                                            it -> Domaindata.QueryDomainDataRequestData.newBuilder()
-                                                    .setDomainId(it.getNodeId())
-                                                    .setDomaindataId(it.getDatatableId())
-                                                    .build())
-                                    .collect(Collectors.toList()))
-                    .build();
-
-            Domaindata.BatchQueryDomainDataResponse responses = kusciaGrpcClientAdapter.batchQueryDomainData(nodeRequest, targetNodeId);
-            if (responses.getStatus().getCode() != 0) {
-                LOGGER.error("findByIds lock up from kusciaapi failed: code={}, message={}, request={}",
-                        responses.getStatus().getCode(), responses.getStatus().getMessage(), JsonUtils.toJSONString(nodeDatatableIds));
-                throw SecretpadException.of(DatatableErrorCode.QUERY_DATATABLE_FAILED);
-            }
-
-            if (!CollectionUtils.isEmpty(responses.getData().getDomaindataListList())) {
-                domainDataList.addAll(responses.getData().getDomaindataListList());
-            }
-
-        } else {
-            Domaindata.BatchQueryDomainDataRequest batchQueryDomainDataRequest = Domaindata.BatchQueryDomainDataRequest.newBuilder()
-                    .addAllData(nodeDatatableIds.stream().map(
-                            it -> Domaindata.QueryDomainDataRequestData.newBuilder()
-                                    .setDomainId(it.getNodeId()).setDomaindataId(it.getDatatableId()).build()).collect(Collectors.toList()))
-                    .build();
-            Domaindata.BatchQueryDomainDataResponse responses = kusciaGrpcClientAdapter.batchQueryDomainData(batchQueryDomainDataRequest);
-            if (responses.getStatus().getCode() != 0) {
-                LOGGER.error("findByIds lock up from kusciaapi failed: code={}, message={}, request={}",
-                        responses.getStatus().getCode(), responses.getStatus().getMessage(), JsonUtils.toJSONString(nodeDatatableIds));
-                throw SecretpadException.of(DatatableErrorCode.QUERY_DATATABLE_FAILED);
-            }
-
-            domainDataList.addAll(responses.getData().getDomaindataListList());
-            LOGGER.debug("request table  responses {} ", responses);
+            /* group by target node, the domain of each id stays as is */
+            Map<String, String> targetNodeIds = new HashMap<>();
+            Map<String, List<DatatableDTO.NodeDatatableId>> nodeIdMap = nodeDatatableIds.stream().collect(Collectors.groupingBy(
+                    it -> targetNodeIds.computeIfAbsent(it.getNodeId(), nodeId -> nodeService.getTargetNodeId(nodeId, null)),
+                    LinkedHashMap::new, Collectors.toList()));
+            return batchQueryDomainDataByNode(nodeIdMap);
         }
-        return domainDataList;
+        return batchQueryDomainData(nodeDatatableIds, null);
     }
 
     @Override
@@ -161,52 +151,112 @@ public class DatatableManager extends AbstractDatatableManager {
     }
 
     @Override
-    public  List<Domaindata.DomainData> findByIdGroup(List<DatatableDTO.NodeDatatableId> nodeDatatableIds , SearchTargetNodeManager searchManager){
-        final List<Domaindata.DomainData> domainDataList = new ArrayList<>();
+    public List<Domaindata.DomainData> findByIdGroup(List<DatatableDTO.NodeDatatableId> nodeDatatableIds, SearchTargetNodeManager searchManager) {
         if (PlatformTypeEnum.AUTONOMY.equals(PlatformTypeEnum.valueOf(plaformType))) {
             /* set target node  */
             nodeDatatableIds.forEach(it -> it.setNodeId(searchManager.getTargetNodeId(it.getNodeId(), null)));
             /* group by target node */
-            Map<String, List<DatatableDTO.NodeDatatableId>> nodeIdMap = nodeDatatableIds.stream().collect(Collectors.groupingBy(DatatableDTO.NodeDatatableId::getNodeId));
-            nodeIdMap.forEach((key, value) -> {
-                Domaindata.BatchQueryDomainDataRequest nodeRequest = Domaindata.BatchQueryDomainDataRequest.
-                        newBuilder().addAllData(value.stream().map(it -> Domaindata.QueryDomainDataRequestData.newBuilder()
-                                .setDomainId(it.getNodeId())
-                                .setDomaindataId(it.getDatatableId()).build()).collect(Collectors.toList()))
-                        .build();
+            Map<String, List<DatatableDTO.NodeDatatableId>> nodeIdMap = nodeDatatableIds.stream().collect(Collectors.groupingBy(
+                    DatatableDTO.NodeDatatableId::getNodeId, LinkedHashMap::new, Collectors.toList()));
+            return batchQueryDomainDataByNode(nodeIdMap);
+        }
+        return batchQueryDomainData(nodeDatatableIds, null);
+    }
 
-                Domaindata.BatchQueryDomainDataResponse responses = kusciaGrpcClientAdapter.batchQueryDomainData(nodeRequest, key);
-                if (responses.getStatus().getCode() != 0) {
-                    LOGGER.error("findByIds lock up from kusciaapi failed: code={}, message={}, request={}",
-                            responses.getStatus().getCode(), responses.getStatus().getMessage(), JsonUtils.toJSONString(nodeDatatableIds));
-                    throw SecretpadException.of(DatatableErrorCode.QUERY_DATATABLE_FAILED);
-                }
-
-                if (!CollectionUtils.isEmpty(responses.getData().getDomaindataListList())) {
-                    domainDataList.addAll(responses.getData().getDomaindataListList());
-                }
-            });
-        } else {
-            Domaindata.BatchQueryDomainDataRequest batchQueryDomainDataRequest = Domaindata.BatchQueryDomainDataRequest.newBuilder()
-                    .addAllData(nodeDatatableIds.stream().map(
-                            it -> Domaindata.QueryDomainDataRequestData.newBuilder()
-                                    .setDomainId(it.getNodeId()).setDomaindataId(it.getDatatableId()).build()).collect(Collectors.toList()))
-                    .build();
-            Domaindata.BatchQueryDomainDataResponse responses = kusciaGrpcClientAdapter.batchQueryDomainData(batchQueryDomainDataRequest);
-            if (responses.getStatus().getCode() != 0) {
-                LOGGER.error("findByIds lock up from kusciaapi failed: code={}, message={}, request={}",
-                        responses.getStatus().getCode(), responses.getStatus().getMessage(), JsonUtils.toJSONString(nodeDatatableIds));
-                throw SecretpadException.of(DatatableErrorCode.QUERY_DATATABLE_FAILED);
-            }
+    /**
+     * Query the batches of several target nodes in parallel on the kuscia api thread pool.
+     * <p>
+     * A node which fails or doesn't answer within the query timeout is left out of the result, the query only fails
+     * when every node has failed.
+     *
+     * @param nodeIdMap datatable ids grouped by target node
+     * @return domain data found on the nodes that answered
+     */
+    private List<Domaindata.DomainData> batchQueryDomainDataByNode(Map<String, List<DatatableDTO.NodeDatatableId>> nodeIdMap) {
+        if (nodeIdMap.size() <= 1) {
+            return nodeIdMap.entrySet().stream()
+                    .flatMap(entry -> batchQueryDomainData(entry.getValue(), entry.getKey()).stream())
+                    .collect(Collectors.toList());
+        }
+        Map<String, String> failedNodes = new ConcurrentHashMap<>();
+        List<CompletableFuture<List<Domaindata.DomainData>>> futures = nodeIdMap.entrySet().stream()
+                .map(entry -> AsyncTaskExecutionUtils.executeUnDecoratedOperation(entry.getValue(),
+                        (List<DatatableDTO.NodeDatatableId> ids) -> batchQueryDomainData(ids, entry.getKey()),
+                        entry.getKey(), failedNodes, queryTimeoutMillis))
+                .toList();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        if (failedNodes.size() == nodeIdMap.size()) {
+            LOGGER.error("findByIds lock up from kusciaapi failed on every node: {}", failedNodes);
+            throw SecretpadException.of(DatatableErrorCode.QUERY_DATATABLE_FAILED);
+        }
+        if (!failedNodes.isEmpty()) {
+            LOGGER.warn("findByIds lock up from kusciaapi failed on nodes {}, return datatables of the other nodes", failedNodes);
+        }
+        return futures.stream()
+                .map(CompletableFuture::join)
+                .filter(Objects::nonNull)
+                .flatMap(List::stream)
+                .collect(Collectors.toList());
+    }
 
-            domainDataList.addAll(responses.getData().getDomaindataListList());
-            LOGGER.debug("request table  responses {} ", responses);
+    /**
+     * Query one batch of domain data, found domain data is cached for the cache ttl
+     *
+     * @param nodeDatatableIds datatable ids
+     * @param targetNodeId     node whose kuscia is asked, null for the kuscia of center
+     * @return domain data found
+     */
+    private List<Domaindata.DomainData> batchQueryDomainData(List<DatatableDTO.NodeDatatableId> nodeDatatableIds, @Nullable String targetNodeId) {
+        final List<Domaindata.DomainData> domainDataList = new ArrayList<>();
+        List<DatatableDTO.NodeDatatableId> missing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (DatatableDTO.NodeDatatableId it : nodeDatatableIds) {
+            CachedDomainData cached = cacheTtlSeconds > 0 ? domainDataCache.get(cacheKey(it.getNodeId(), it.getDatatableId())) : null;
+            if (cached != null && cached.expireAt() > now) {
+                domainDataList.add(cached.domainData());
+            } else {
+                missing.add(it);
+            }
         }
+        if (missing.isEmpty()) {
+            return domainDataList;
+        }
+        Domaindata.BatchQueryDomainDataRequest request = Domaindata.BatchQueryDomainDataRequest.newBuilder()
+                .addAllData(missing.stream().map(
+                        it -> Domaindata.QueryDomainDataRequestData.newBuilder()
+                                .setDomainId(it.getNodeId()).setDomaindataId(it.getDatatableId()).build()).collect(Collectors.toList()))
+                .build();
+        Domaindata.BatchQueryDomainDataResponse responses = targetNodeId == null
+                ? kusciaGrpcClientAdapter.batchQueryDomainData(request)
+                : kusciaGrpcClientAdapter.batchQueryDomainData(request, targetNodeId);
+        if (responses.getStatus().getCode() != 0) {
+            LOGGER.error("findByIds lock up from kusciaapi failed: code={}, message={}, request={}",
+                    responses.getStatus().getCode(), responses.getStatus().getMessage(), JsonUtils.toJSONString(missing));
+            throw SecretpadException.of(DatatableErrorCode.QUERY_DATATABLE_FAILED);
+        }
+        LOGGER.debug("request table  responses {} ", responses);
+        List<Domaindata.DomainData> found = responses.getData().getDomaindataListList();
+        if (cacheTtlSeconds > 0 && !CollectionUtils.isEmpty(found)) {
+            cacheDomainData(found, now);
+        }
+        domainDataList.addAll(found);
         return domainDataList;
     }
 
+    private void cacheDomainData(List<Domaindata.DomainData> found, long now) {
+        if (domainDataCache.size() > CACHE_SWEEP_SIZE) {
+            domainDataCache.values().removeIf(it -> it.expireAt() <= now);
+        }
+        long expireAt = now + TimeUnit.SECONDS.toMillis(cacheTtlSeconds);
+        found.forEach(it -> domainDataCache.put(cacheKey(it.getDomainId(), it.getDomaindataId()), new CachedDomainData(it, expireAt)));
+    }
 
-
+    /**
+     * a copy as key, callers may reset the node of their ids
+     */
+    private static DatatableDTO.NodeDatatableId cacheKey(String nodeId, String datatableId) {
+        return DatatableDTO.NodeDatatableId.from(nodeId, datatableId);
+    }
 
     /***
      *  nodes a1 a2 b1 b2 in same project,show all data tables
@@ -321,6 +371,7 @@ public class DatatableManager extends AbstractDatatableManager {
 
     @Override
     public void deleteDataTable(DatatableDTO.NodeDatatableId nodeDatatableId) {
+        domainDataCache.remove(cacheKey(nodeDatatableId.getNodeId(), nodeDatatableId.getDatatableId()));
         Domaindata.DeleteDomainDataRequest.Builder builder = Domaindata.DeleteDomainDataRequest.newBuilder()
                 .setDomainId(nodeDatatableId.getNodeId())
                 .setDomaindataId(nodeDatatableId.getDatatableId());
@@ -379,5 +430,7 @@ public class DatatableManager extends AbstractDatatableManager {
                 it -> types.contains(it.getDatasourceType())
         ).collect(Collectors.toList());
     }
-}
 
+    private record CachedDomainData(Domaindata.DomainData domainData, long expireAt) {
+    }
+}
@@ -75,8 +75,10 @@ public class DatatableGrantManager extends AbstractDatatableGrantManager {
                     .setDomainId(nodeId).setDomaindatagrantId(domainDataGrantId);
             batchQueryDataList.add(builder.build());
         });
-        Domaindatagrant.BatchQueryDomainDataGrantResponse response = kusciaGrpcClientAdapter.batchQueryDomainDataGrant(
-                Domaindatagrant.BatchQueryDomainDataGrantRequest.newBuilder().addAllData(batchQueryDataList).build());
+        Domaindatagrant.BatchQueryDomainDataGrantRequest request = Domaindatagrant.BatchQueryDomainDataGrantRequest.newBuilder().addAllData(batchQueryDataList).build();
+        Domaindatagrant.BatchQueryDomainDataGrantResponse response = PlatformTypeEnum.AUTONOMY.name().equals(plaformType)
+                ? kusciaGrpcClientAdapter.batchQueryDomainDataGrant(request, nodeId)
+                : kusciaGrpcClientAdapter.batchQueryDomainDataGrant(request);
         if (response.getStatus().getCode() != 0) {
             LOGGER.error("batch query domain grant from kusciaapi failed: code={}, message={}, nodeId={}, domainDataGrantIds={}",
                     response.getStatus().getCode(), response.getStatus().getMessage(), nodeId, domainDataGrantIds);
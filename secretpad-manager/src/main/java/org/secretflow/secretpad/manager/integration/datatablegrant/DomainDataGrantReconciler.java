@@ -0,0 +1,210 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.manager.integration.datatablegrant;
+
+import org.secretflow.secretpad.manager.integration.model.DatatableGrantDTO;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Creates domain data grants in the background and confirms them once kuscia shows them.
+ * <p>
+ * Grants submitted for a domain are gathered for batch-delay-ms, then one round checks them with a single
+ * batch query and creates those not visible yet. Grants which are still missing are checked again after a
+ * backoff doubling from retry.initial-ms, a grant missing after retry.max-attempts rounds completes with false.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Component
+@RequiredArgsConstructor
+public class DomainDataGrantReconciler {
+
+    private final static Logger LOGGER = LoggerFactory.getLogger(DomainDataGrantReconciler.class);
+
+    private final DatatableGrantManager datatableGrantManager;
+
+    @Value("${secretpad.datatable.grant.batch-delay-ms:100}")
+    private long batchDelayMillis;
+    @Value("${secretpad.datatable.grant.retry.initial-ms:200}")
+    private long initialRetryMillis;
+    @Value("${secretpad.datatable.grant.retry.max-ms:5000}")
+    private long maxRetryMillis;
+    @Value("${secretpad.datatable.grant.retry.max-attempts:6}")
+    private int maxAttempts;
+
+    /**
+     * domain id -> domain data grant id -> grant waiting for confirmation, guarded by this
+     */
+    private final Map<String, Map<String, PendingGrant>> pending = new HashMap<>();
+    /**
+     * domain id -> time of the next round scheduled, guarded by this
+     */
+    private final Map<String, Long> rounds = new HashMap<>();
+    private ScheduledExecutorService executor;
+
+    @PostConstruct
+    public void init() {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "domain-data-grant-reconciler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * create the grant of the domain data unless kuscia has it already
+     *
+     * @param nodeId            domain owning the domain data
+     * @param grantNodeId       domain granted
+     * @param domainDataId      domain data id
+     * @param domainDataGrantId domain data grant id
+     * @return completes with true once the grant is visible, false when it never showed up
+     */
+    public synchronized CompletableFuture<Boolean> submit(String nodeId, String grantNodeId, String domainDataId, String domainDataGrantId) {
+        Map<String, PendingGrant> grants = pending.computeIfAbsent(nodeId, k -> new LinkedHashMap<>());
+        PendingGrant grant = grants.get(domainDataGrantId);
+        if (grant == null) {
+            grant = new PendingGrant(grantNodeId, domainDataId, domainDataGrantId);
+            grant.nextRoundAt = System.currentTimeMillis() + batchDelayMillis;
+            grants.put(domainDataGrantId, grant);
+            scheduleRound(nodeId, grant.nextRoundAt);
+        }
+        return grant.future;
+    }
+
+    private void scheduleRound(String nodeId, long at) {
+        Long scheduled = rounds.get(nodeId);
+        if (scheduled != null && scheduled <= at) {
+            return;
+        }
+        rounds.put(nodeId, at);
+        executor.schedule(() -> reconcile(nodeId, at), Math.max(0, at - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+    }
+
+    private void reconcile(String nodeId, long at) {
+        long now = System.currentTimeMillis();
+        List<PendingGrant> due;
+        synchronized (this) {
+            rounds.remove(nodeId, at);
+            // grants due within the next batch window join this round
+            due = pending.getOrDefault(nodeId, Map.of()).values().stream().filter(g -> g.nextRoundAt <= now + batchDelayMillis).toList();
+        }
+        if (!due.isEmpty()) {
+            Set<String> visible = queryVisible(nodeId, due);
+            List<PendingGrant> finished = new ArrayList<>();
+            for (PendingGrant grant : due) {
+                if (visible.contains(grant.domainDataGrantId)) {
+                    grant.future.complete(true);
+                    finished.add(grant);
+                } else if (grant.attempts >= maxAttempts) {
+                    LOGGER.error("domain data grant not visible after {} rounds, nodeId = {}, domainDataGrantId = {}", grant.attempts, nodeId, grant.domainDataGrantId);
+                    grant.future.complete(false);
+                    finished.add(grant);
+                } else {
+                    if (!grant.created) {
+                        grant.created = create(nodeId, grant);
+                    }
+                    grant.nextRoundAt = now + backoffMillis(grant.attempts++);
+                }
+            }
+            synchronized (this) {
+                Map<String, PendingGrant> grants = pending.get(nodeId);
+                finished.forEach(grant -> grants.remove(grant.domainDataGrantId));
+            }
+        }
+        synchronized (this) {
+            Map<String, PendingGrant> grants = pending.get(nodeId);
+            if (grants == null || grants.isEmpty()) {
+                pending.remove(nodeId);
+                return;
+            }
+            grants.values().stream().mapToLong(g -> g.nextRoundAt).min().ifPresent(next -> scheduleRound(nodeId, next));
+        }
+    }
+
+    private Set<String> queryVisible(String nodeId, List<PendingGrant> grants) {
+        try {
+            List<DatatableGrantDTO> found = datatableGrantManager.batchQueryDomainGrant(nodeId, grants.stream().map(g -> g.domainDataGrantId).toList());
+            return found.stream().map(DatatableGrantDTO::getDomainDataGrantId).collect(Collectors.toSet());
+        } catch (Exception e) {
+            LOGGER.warn("batch query domain data grant failed, nodeId = {}, size = {}: {}", nodeId, grants.size(), e.getMessage());
+            return Set.of();
+        }
+    }
+
+    private boolean create(String nodeId, PendingGrant grant) {
+        try {
+            datatableGrantManager.createDomainGrant(nodeId, grant.grantNodeId, grant.domainDataId, grant.domainDataGrantId);
+            return true;
+        } catch (Exception e) {
+            LOGGER.warn("create domain data grant failed, retry later, nodeId = {}, domainDataGrantId = {}: {}", nodeId, grant.domainDataGrantId, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * a random delay between half and whole of the backoff, which doubles per attempt up to retry.max-ms
+     */
+    private long backoffMillis(int attempt) {
+        long backoff = Math.min(maxRetryMillis, initialRetryMillis << Math.min(attempt, 30));
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private static final class PendingGrant {
+        private final String grantNodeId;
+        private final String domainDataId;
+        private final String domainDataGrantId;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+        private int attempts;
+        private boolean created;
+        private long nextRoundAt;
+
+        private PendingGrant(String grantNodeId, String domainDataId, String domainDataGrantId) {
+            this.grantNodeId = grantNodeId;
+            this.domainDataId = domainDataId;
+            this.domainDataGrantId = domainDataGrantId;
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.manager.integration.health;
+
+import org.secretflow.secretpad.common.constant.DomainConstants;
+import org.secretflow.secretpad.common.constant.DomainRouterConstants;
+import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcClientAdapter;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.secretflow.v1alpha1.kusciaapi.DomainOuterClass;
+import org.secretflow.v1alpha1.kusciaapi.DomainRoute;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Health of kuscia domains and domain routes, read from memory and refreshed in the background.
+ * <p>
+ * A ready domain or route is answered from the snapshot until it is older than the ttl, anything else is queried
+ * on demand. Queries are batched per kuscia channel with batchQueryDomain and batchQueryDomainRouteStatus, falling
+ * back to one query per domain or route when the batch fails, and a domain or route already being queried by another
+ * caller is waited for instead of queried again. Entries not read for the idle time are dropped.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class KusciaHealthSnapshot {
+
+    private static final String DEFAULT_CHANNEL = "";
+
+    private final KusciaGrpcClientAdapter kusciaGrpcClientAdapter;
+
+    private final Map<HealthKey, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<HealthKey, CompletableFuture<Boolean>> inflight = new ConcurrentHashMap<>();
+
+    @Value("${secretpad.kuscia.health.ttl-seconds:30}")
+    private long ttlSeconds;
+    @Value("${secretpad.kuscia.health.idle-seconds:600}")
+    private long idleSeconds;
+
+    public boolean isNodeReady(String nodeId) {
+        return nodesReady(List.of(nodeId)).get(nodeId);
+    }
+
+    /**
+     * readiness of the domains queried through the default kuscia channel
+     */
+    public Map<String, Boolean> nodesReady(Collection<String> nodeIds) {
+        Map<HealthKey, Boolean> ready = read(nodeIds.stream().distinct().map(nodeId -> HealthKey.domain(DEFAULT_CHANNEL, nodeId)).toList());
+        Map<String, Boolean> result = new HashMap<>();
+        ready.forEach((key, value) -> result.put(key.source(), value));
+        return result;
+    }
+
+    public boolean isRouteReady(String srcNodeId, String dstNodeId, String channelNodeId) {
+        DomainRoute.DomainRouteKey route = DomainRoute.DomainRouteKey.newBuilder().setSource(srcNodeId).setDestination(dstNodeId).build();
+        return routesReady(List.of(route), channelNodeId).get(route);
+    }
+
+    /**
+     * readiness of the domain routes queried through the kuscia channel of channelNodeId, the default one if blank
+     */
+    public Map<DomainRoute.DomainRouteKey, Boolean> routesReady(Collection<DomainRoute.DomainRouteKey> routes, String channelNodeId) {
+        String channel = StringUtils.defaultIfBlank(channelNodeId, DEFAULT_CHANNEL);
+        Map<HealthKey, Boolean> ready = read(routes.stream().distinct().map(route -> HealthKey.route(channel, route.getSource(), route.getDestination())).toList());
+        Map<DomainRoute.DomainRouteKey, Boolean> result = new HashMap<>();
+        ready.forEach((key, value) -> result.put(
+                DomainRoute.DomainRouteKey.newBuilder().setSource(key.source()).setDestination(key.destination()).build(), value));
+        return result;
+    }
+
+    public void evictNode(String nodeId) {
+        entries.keySet().removeIf(key -> !key.isRoute() && key.source().equals(nodeId));
+    }
+
+    public void evictRoute(String srcNodeId, String dstNodeId) {
+        entries.keySet().removeIf(key -> key.isRoute() && key.source().equals(srcNodeId) && key.destination().equals(dstNodeId));
+    }
+
+    /**
+     * reload what has been read lately, so that reads find it fresh
+     */
+    @Scheduled(fixedDelayString = "${secretpad.kuscia.health.refresh-interval-ms:10000}")
+    public void refresh() {
+        if (ttlSeconds <= 0 || entries.isEmpty()) {
+            return;
+        }
+        long idleBefore = System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(idleSeconds);
+        entries.entrySet().removeIf(e -> e.getValue().readAt < idleBefore);
+        try {
+            load(new ArrayList<>(entries.keySet()));
+        } catch (RuntimeException e) {
+            log.warn("refresh kuscia health snapshot error", e);
+        }
+    }
+
+    private Map<HealthKey, Boolean> read(List<HealthKey> keys) {
+        long now = System.currentTimeMillis();
+        long freshAfter = now - TimeUnit.SECONDS.toMillis(ttlSeconds);
+        Map<HealthKey, Boolean> result = new HashMap<>();
+        List<HealthKey> stale = new ArrayList<>();
+        for (HealthKey key : keys) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.ready && entry.loadedAt > freshAfter) {
+                entry.readAt = now;
+                result.put(key, true);
+            } else {
+                stale.add(key);
+            }
+        }
+        if (!stale.isEmpty()) {
+            result.putAll(load(stale));
+            stale.forEach(key -> {
+                Entry entry = entries.get(key);
+                if (entry != null) {
+                    entry.readAt = now;
+                }
+            });
+        }
+        return result;
+    }
+
+    private Map<HealthKey, Boolean> load(List<HealthKey> keys) {
+        Map<HealthKey, CompletableFuture<Boolean>> own = new HashMap<>();
+        Map<HealthKey, CompletableFuture<Boolean>> others = new HashMap<>();
+        for (HealthKey key : keys) {
+            CompletableFuture<Boolean> future = new CompletableFuture<>();
+            CompletableFuture<Boolean> running = inflight.putIfAbsent(key, future);
+            if (running == null) {
+                own.put(key, future);
+            } else {
+                others.put(key, running);
+            }
+        }
+        Map<HealthKey, Boolean> result = new HashMap<>();
+        if (!own.isEmpty()) {
+            Map<HealthKey, Boolean> loaded;
+            try {
+                loaded = query(own.keySet());
+            } catch (RuntimeException e) {
+                own.forEach((key, future) -> {
+                    inflight.remove(key, future);
+                    future.completeExceptionally(e);
+                });
+                throw e;
+            }
+            long now = System.currentTimeMillis();
+            own.forEach((key, future) -> {
+                boolean ready = loaded.getOrDefault(key, false);
+                Entry previous = entries.get(key);
+                entries.put(key, new Entry(ready, now, previous == null ? now : previous.readAt));
+                inflight.remove(key, future);
+                future.complete(ready);
+                result.put(key, ready);
+            });
+        }
+        others.forEach((key, future) -> {
+            try {
+                result.put(key, future.join());
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        });
+        return result;
+    }
+
+    private Map<HealthKey, Boolean> query(Set<HealthKey> keys) {
+        Map<HealthKey, Boolean> result = new HashMap<>();
+        Map<String, List<HealthKey>> domains = keys.stream().filter(key -> !key.isRoute()).collect(Collectors.groupingBy(HealthKey::channel));
+        Map<String, List<HealthKey>> routes = keys.stream().filter(HealthKey::isRoute).collect(Collectors.groupingBy(HealthKey::channel));
+        domains.forEach((channel, list) -> result.putAll(queryDomains(channel, list)));
+        routes.forEach((channel, list) -> result.putAll(queryRoutes(channel, list)));
+        return result;
+    }
+
+    private Map<HealthKey, Boolean> queryDomains(String channel, List<HealthKey> keys) {
+        Map<HealthKey, Boolean> result = new HashMap<>();
+        DomainOuterClass.BatchQueryDomainRequest request = DomainOuterClass.BatchQueryDomainRequest.newBuilder()
+                .addAllDomainIds(keys.stream().map(HealthKey::source).toList())
+                .build();
+        DomainOuterClass.BatchQueryDomainResponse response = StringUtils.isEmpty(channel)
+                ? kusciaGrpcClientAdapter.batchQueryDomain(request) : kusciaGrpcClientAdapter.batchQueryDomain(request, channel);
+        if (response != null && response.getStatus().getCode() == 0) {
+            Map<String, DomainOuterClass.Domain> domains = response.getData().getDomainsList().stream()
+                    .collect(Collectors.toMap(DomainOuterClass.Domain::getDomainId, domain -> domain, (a, b) -> a));
+            keys.forEach(key -> {
+                DomainOuterClass.Domain domain = domains.get(key.source());
+                result.put(key, domain != null && isReady(domain.getNodeStatusesList()));
+            });
+            return result;
+        }
+        log.debug("batch query domain failed, query one by one {}", keys);
+        for (HealthKey key : keys) {
+            DomainOuterClass.QueryDomainRequest queryRequest = DomainOuterClass.QueryDomainRequest.newBuilder().setDomainId(key.source()).build();
+            DomainOuterClass.QueryDomainResponse queryResponse = StringUtils.isEmpty(channel)
+                    ? kusciaGrpcClientAdapter.queryDomain(queryRequest) : kusciaGrpcClientAdapter.queryDomain(queryRequest, channel);
+            boolean ready = queryResponse != null && queryResponse.getStatus().getCode() == 0
+                    && isReady(queryResponse.getData().getNodeStatusesList());
+            if (!ready) {
+                log.warn("domain not ready {} {}", key.source(), queryResponse);
+            }
+            result.put(key, ready);
+        }
+        return result;
+    }
+
+    private Map<HealthKey, Boolean> queryRoutes(String channel, List<HealthKey> keys) {
+        Map<HealthKey, Boolean> result = new HashMap<>();
+        DomainRoute.BatchQueryDomainRouteStatusRequest request = DomainRoute.BatchQueryDomainRouteStatusRequest.newBuilder()
+                .addAllRouteKeys(keys.stream().map(key -> DomainRoute.DomainRouteKey.newBuilder()
+                        .setSource(key.source()).setDestination(key.destination()).build()).toList())
+                .build();
+        DomainRoute.BatchQueryDomainRouteStatusResponse response = StringUtils.isEmpty(channel)
+                ? kusciaGrpcClientAdapter.batchQueryDomainRouteStatus(request) : kusciaGrpcClientAdapter.batchQueryDomainRouteStatus(request, channel);
+        if (response != null && response.getStatus().getCode() == 0) {
+            Set<HealthKey> succeeded = response.getData().getRoutesList().stream()
+                    .filter(route -> isSucceeded(route.getStatus()))
+                    .map(route -> HealthKey.route(channel, route.getSource(), route.getDestination()))
+                    .collect(Collectors.toSet());
+            keys.forEach(key -> result.put(key, succeeded.contains(key)));
+            return result;
+        }
+        log.debug("batch query domain route status failed, query one by one {}", keys);
+        for (HealthKey key : keys) {
+            DomainRoute.QueryDomainRouteRequest queryRequest = DomainRoute.QueryDomainRouteRequest.newBuilder()
+                    .setSource(key.source()).setDestination(key.destination()).build();
+            DomainRoute.QueryDomainRouteResponse queryResponse = StringUtils.isEmpty(channel)
+                    ? kusciaGrpcClientAdapter.queryDomainRoute(queryRequest) : kusciaGrpcClientAdapter.queryDomainRoute(queryRequest, channel);
+            result.put(key, queryResponse != null && queryResponse.getStatus().getCode() == 0 && isSucceeded(queryResponse.getData().getStatus()));
+        }
+        return result;
+    }
+
+    private static boolean isReady(List<DomainOuterClass.NodeStatus> nodeStatuses) {
+        return nodeStatuses.stream().anyMatch(status -> DomainConstants.DomainStatusEnum.Ready.name().equals(status.getStatus()));
+    }
+
+    private static boolean isSucceeded(DomainRoute.RouteStatus status) {
+        return DomainRouterConstants.DomainRouterStatusEnum.Succeeded.name().equals(status.getStatus());
+    }
+
+    /**
+     * a domain if destination is null, a domain route otherwise
+     */
+    private record HealthKey(String channel, String source, String destination) {
+
+        static HealthKey domain(String channel, String domainId) {
+            return new HealthKey(channel, domainId, null);
+        }
+
+        static HealthKey route(String channel, String source, String destination) {
+            return new HealthKey(channel, source, destination);
+        }
+
+        boolean isRoute() {
+            return destination != null;
+        }
+    }
+
+    private static final class Entry {
+        private final boolean ready;
+        private final long loadedAt;
+        private volatile long readAt;
+
+        Entry(boolean ready, long loadedAt, long readAt) {
+            this.ready = ready;
+            this.loadedAt = loadedAt;
+            this.readAt = readAt;
+        }
+    }
+}
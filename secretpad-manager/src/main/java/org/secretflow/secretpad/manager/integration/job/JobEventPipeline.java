@@ -0,0 +1,247 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.manager.integration.job;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.secretflow.v1alpha1.kusciaapi.Job;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Pipeline applying kuscia job events off the grpc callback thread.
+ * <p>
+ * A job always maps to the same partition, whose worker applies its events in order. An event queued for a job
+ * of the same domain which has not been applied yet is replaced by the newer one, a job event carries the whole
+ * job status, so only the latest status of a job hits the repositories.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JobEventPipeline implements SmartLifecycle {
+
+    private static final String QUEUE_DEPTH_METRIC = "job.event.queue.depth";
+    private static final String WAIT_METRIC = "job.event.wait";
+    private static final String APPLY_METRIC = "job.event.apply";
+    private static final String COALESCED_METRIC = "job.event.coalesced";
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${secretpad.job.event.workers:4}")
+    private int workers;
+
+    private Partition[] partitions;
+    private Timer waitTimer;
+    private Timer applyTimer;
+    private Counter coalescedCounter;
+    private volatile boolean running;
+    private volatile boolean stopped;
+
+    @PostConstruct
+    public void init() {
+        partitions = new Partition[Math.max(1, workers)];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new Partition(i);
+        }
+        registerMetrics(meterRegistry.getIfAvailable());
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        stopped = false;
+        for (Partition partition : partitions) {
+            partition.start();
+        }
+        log.info("job event pipeline started with {} workers", partitions.length);
+    }
+
+    /**
+     * stop taking events and let the workers apply what has been queued
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        stopped = true;
+        for (Partition partition : partitions) {
+            partition.wakeUp();
+        }
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MS;
+        try {
+            for (Partition partition : partitions) {
+                partition.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Partition partition : partitions) {
+            if (partition.thread.isAlive()) {
+                log.warn("job event partition {} stopped with {} pending events", partition.index, partition.depth());
+                partition.thread.interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * queue the event of the domain, events arriving before start wait for it and events after stop are applied inline
+     *
+     * @param domainId domain of the watch stream
+     * @param event    job event
+     * @param apply    applies the event
+     */
+    public void submit(String domainId, Job.WatchJobEventResponse event, Consumer<Job.WatchJobEventResponse> apply) {
+        if (stopped) {
+            apply.accept(event);
+            return;
+        }
+        String jobId = event.getObject().getJobId();
+        partitions[Math.floorMod(jobId.hashCode(), partitions.length)]
+                .offer(domainId + "/" + jobId, new Pending(event, apply, System.nanoTime()));
+    }
+
+    /**
+     * events waiting in all partitions
+     */
+    public int depth() {
+        int depth = 0;
+        for (Partition partition : partitions) {
+            depth += partition.depth();
+        }
+        return depth;
+    }
+
+    private void registerMetrics(MeterRegistry registry) {
+        if (registry == null) {
+            return;
+        }
+        for (Partition partition : partitions) {
+            Gauge.builder(QUEUE_DEPTH_METRIC, partition, Partition::depth).tag("partition", String.valueOf(partition.index)).register(registry);
+        }
+        waitTimer = Timer.builder(WAIT_METRIC).description("time job events wait in the queue").register(registry);
+        applyTimer = Timer.builder(APPLY_METRIC).description("time applying job events").register(registry);
+        coalescedCounter = Counter.builder(COALESCED_METRIC).description("job events replaced by a newer one of the same job").register(registry);
+    }
+
+    private record Pending(Job.WatchJobEventResponse event, Consumer<Job.WatchJobEventResponse> apply, long enqueuedNanos) {
+    }
+
+    /**
+     * queue of the jobs mapped to one worker, keyed by domain and job for coalescing
+     */
+    private class Partition {
+        private final int index;
+        private final LinkedHashMap<String, Pending> queue = new LinkedHashMap<>();
+        private final Thread thread;
+
+        private Partition(int index) {
+            this.index = index;
+            this.thread = new Thread(this::run, "job-event-partition-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void start() {
+            thread.start();
+        }
+
+        private synchronized void offer(String key, Pending pending) {
+            Pending previous = queue.get(key);
+            if (previous != null) {
+                // keep the place and the wait of the event replaced
+                pending = new Pending(pending.event(), pending.apply(), previous.enqueuedNanos());
+                if (coalescedCounter != null) {
+                    coalescedCounter.increment();
+                }
+            }
+            queue.put(key, pending);
+            notifyAll();
+        }
+
+        private synchronized int depth() {
+            return queue.size();
+        }
+
+        private synchronized void wakeUp() {
+            notifyAll();
+        }
+
+        private synchronized Pending take() throws InterruptedException {
+            while (queue.isEmpty()) {
+                if (!running) {
+                    return null;
+                }
+                wait();
+            }
+            Iterator<Map.Entry<String, Pending>> iterator = queue.entrySet().iterator();
+            Pending pending = iterator.next().getValue();
+            iterator.remove();
+            return pending;
+        }
+
+        private void run() {
+            while (true) {
+                Pending pending;
+                try {
+                    pending = take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (pending == null) {
+                    return;
+                }
+                long start = System.nanoTime();
+                try {
+                    pending.apply().accept(pending.event());
+                } catch (Exception e) {
+                    log.error("job event partition {} apply error, jobId={}", index, pending.event().getObject().getJobId(), e);
+                }
+                if (waitTimer != null) {
+                    waitTimer.record(start - pending.enqueuedNanos(), TimeUnit.NANOSECONDS);
+                    applyTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+    }
+}
@@ -28,7 +28,8 @@ import org.secretflow.secretpad.common.util.ProtoUtils;
 import org.secretflow.secretpad.kuscia.v1alpha1.DynamicKusciaChannelProvider;
 import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcClientAdapter;
 import org.secretflow.secretpad.manager.integration.datatable.AbstractDatatableManager;
-import org.secretflow.secretpad.manager.integration.datatablegrant.DatatableGrantManager;
+import org.secretflow.secretpad.manager.integration.datatablegrant.DomainDataGrantReconciler;
+import org.secretflow.secretpad.manager.integration.job.event.JobStatusChangedEvent;
 import org.secretflow.secretpad.manager.integration.job.event.JobSyncErrorOrCompletedEvent;
 import org.secretflow.secretpad.manager.integration.model.DatatableDTO;
 import org.secretflow.secretpad.manager.integration.model.ModelExportDTO;
@@ -67,6 +68,10 @@ import org.springframework.util.CollectionUtils;
 import javax.annotation.Nonnull;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import static org.secretflow.secretpad.common.constant.ComponentConstants.*;
@@ -106,12 +111,18 @@ public class JobManager extends AbstractJobManager {
     @Setter
     @Value("${secretpad.node-id}")
     private String nodeId;
+    /**
+     * how long the result lookup waits for the grants of union outputs
+     */
+    @Setter
+    @Value("${secretpad.datatable.grant.wait-ms:5000}")
+    private long grantWaitMillis = 5000;
     @Resource
     private CacheManager cacheManager;
     @Resource
     private ApplicationEventPublisher applicationEventPublisher;
     @Resource
-    private DatatableGrantManager datatableGrantManager;
+    private DomainDataGrantReconciler domainDataGrantReconciler;
     @Resource
     private ProjectNodeRepository projectNodeRepository;
     @Resource
@@ -123,7 +134,10 @@ public class JobManager extends AbstractJobManager {
     private ProjectScheduleJobRepository projectScheduleJobRepository;
     @Resource
     private ProjectScheduleTaskRepository projectScheduleTaskRepository;
-    private volatile boolean scheduleJob = false;
+    @Resource
+    private JobWatchTracker jobWatchTracker;
+    @Resource
+    private JobEventPipeline jobEventPipeline;
 
     public JobManager(ProjectJobRepository projectJobRepository,
                       AbstractDatatableManager datatableManager,
@@ -229,22 +243,32 @@ public class JobManager extends AbstractJobManager {
     /**
      * Start synchronized job
      * <p>
+     * Events replayed on reconnect whose job status has been synced already are dropped, see {@link JobWatchTracker}
+     * <p>
      * TODO: can be refactor to void watch(type, handler) ?
      */
     @Override
     public void startSync() {
         LOGGER.info("startSync: nodeId={}", nodeId);
+        final String domainId = nodeId;
         try {
             JobServiceGrpc.JobServiceStub jobServiceAsyncStub = dynamicKusciaChannelProvider.createStub(nodeId, JobServiceGrpc.JobServiceStub.class);
             jobServiceAsyncStub.watchJob(Job.WatchJobRequest.newBuilder().build(), new StreamObserver<>() {
                         @Override
                         public void onNext(Job.WatchJobEventResponse responses) {
-                            LOGGER.info("starter jobEvent ... {},nodeId={}", responses, nodeId);
-                            try {
-                                syncJob(responses);
-                            } catch (Exception e) {
-                                LOGGER.error("syncJob exception: {} {}", responses, e.getMessage(), e);
+                            if (!jobWatchTracker.shouldSync(domainId, responses)) {
+                                LOGGER.debug("skip jobEvent, type={}, jobId={}, nodeId={}", responses.getType(), responses.getObject().getJobId(), domainId);
+                                return;
                             }
+                            jobEventPipeline.submit(domainId, responses, event -> {
+                                LOGGER.info("starter jobEvent ... {},nodeId={}", event, domainId);
+                                try {
+                                    syncJob(event);
+                                    jobWatchTracker.synced(domainId, event);
+                                } catch (Exception e) {
+                                    LOGGER.error("syncJob exception: {} {}", event, e.getMessage(), e);
+                                }
+                            });
 
                         }
 
@@ -290,7 +314,7 @@ public class JobManager extends AbstractJobManager {
             LOGGER.debug("model export job exist, sync model export job status");
             return;
         }
-        scheduleJob = false;
+        boolean scheduleJob = false;
         ProjectScheduleJobDO projectScheduleJob = null;
         Optional<ProjectJobDO> projectJobOpt = projectJobRepository.findByJobId(it.getObject().getJobId());
         if (projectJobOpt.isEmpty()) {
@@ -315,7 +339,7 @@ public class JobManager extends AbstractJobManager {
                 }
             }
         }
-        ProjectJobDO job = updateJob(it, projectJobOpt.get());
+        ProjectJobDO job = updateJob(it, projectJobOpt.get(), scheduleJob);
         if (scheduleJob) {
             ProjectScheduleJobDO projectScheduleJobDO = ProjectScheduleJobDO.convertFromProjectJobDO(job);
             projectScheduleJobDO.setOwner(projectScheduleJob.getOwner());
@@ -332,6 +356,7 @@ public class JobManager extends AbstractJobManager {
             });
         } else {
             projectJobRepository.save(job);
+            applicationEventPublisher.publishEvent(new JobStatusChangedEvent(this, job.getUpk().getProjectId(), job.getGraphId(), job.getUpk().getJobId()));
         }
     }
 
@@ -352,6 +377,7 @@ public class JobManager extends AbstractJobManager {
         }
         List<DatatableDTO.NodeDatatableId> nodeDatatableIds = new ArrayList<>();
         Map<String, ProjectTaskDO.UPK> domainDataMap = new HashMap<>();
+        List<CompletableFuture<Boolean>> grants = new ArrayList<>();
         ProjectGraphNodeDO graphNode = taskDO.getGraphNode();
         String jobId = taskDO.getUpk().getJobId();
         List<String> outputs = graphNode.getOutputs();
@@ -362,9 +388,10 @@ public class JobManager extends AbstractJobManager {
                 nodeDatatableIds.addAll(parties.stream().map(party ->
                         DatatableDTO.NodeDatatableId.from(party, domainDataId)).toList());
                 domainDataMap.put(domainDataId, taskDO.getUpk());
-                createDomainGrantByUnion(taskDO, domainDataId);
+                grants.addAll(createDomainGrantByUnion(taskDO, domainDataId));
             }
         }
+        awaitDomainDataGrants(jobId, grants);
         if (PlatformTypeEnum.EDGE.equals(getPlaformType())) {
             // remove other nodes' result
             nodeDatatableIds.removeIf(next -> !nodeId.equals(next.getNodeId()));
@@ -526,6 +553,18 @@ public class JobManager extends AbstractJobManager {
      * @return ProjectJobDO
      */
     public ProjectJobDO updateJob(Job.WatchJobEventResponse it, ProjectJobDO projectJob) {
+        return updateJob(it, projectJob, false);
+    }
+
+    /**
+     * Update project job data via job event response
+     *
+     * @param it
+     * @param projectJob
+     * @param scheduleJob the project job is a schedule job, task status transforms are published
+     * @return ProjectJobDO
+     */
+    public ProjectJobDO updateJob(Job.WatchJobEventResponse it, ProjectJobDO projectJob, boolean scheduleJob) {
         switch (it.getType()) {
             case DELETED:
                 projectJob.stop();
@@ -761,17 +800,21 @@ public class JobManager extends AbstractJobManager {
         return false;
     }
 
-    private void createDomainGrantByUnion(ProjectTaskDO taskDO, String domainDataId) {
+    /**
+     * @return the grants submitted, complete once kuscia shows them
+     */
+    private List<CompletableFuture<Boolean>> createDomainGrantByUnion(ProjectTaskDO taskDO, String domainDataId) {
+        List<CompletableFuture<Boolean>> grants = new ArrayList<>();
         String codeName = taskDO.getGraphNode().getCodeName();
         if (!DATA_PREP_UNION.equalsIgnoreCase(codeName) && !DATA_FILTER_EXPR_CONDITION_FILTER.equalsIgnoreCase(codeName)
                 && !DATA_FILTER_SAMPLE.equalsIgnoreCase(codeName)
         ) {
-            return;
+            return grants;
         }
         // Only one node and a union need to create a domain grant
         // Table synchronization is only required when sample tables are merged, and kuscia will complete the union tables
         if (taskDO.getParties().size() != 1) {
-            return;
+            return grants;
         }
         String projectId = taskDO.getUpk().getProjectId();
         List<String> nodeIdList;
@@ -782,38 +825,60 @@ public class JobManager extends AbstractJobManager {
             if (!CollectionUtils.isEmpty(nodeIdList)) {
                 nodeIdList.forEach(nodeId -> {
                     LOGGER.info("checkOrCreateDomainDataGrant: nodeId = {}, grantNodeId = {}, domainDataId = {}", taskDO.getParties().get(0), nodeId, domainDataId);
-                    checkOrCreateDomainDataGrant(taskDO.getParties().get(0), nodeId, domainDataId);
+                    CompletableFuture<Boolean> grant = submitDomainDataGrant(taskDO.getParties().get(0), nodeId, domainDataId);
+                    if (grant != null) {
+                        grants.add(grant);
+                    }
                 });
             }
         }
+        return grants;
     }
 
+    /**
+     * wait a bounded time for the grants so the result lookup sees the union outputs, a slow grant is left to the reconciler
+     */
+    private void awaitDomainDataGrants(String jobId, List<CompletableFuture<Boolean>> grants) {
+        if (grants.isEmpty()) {
+            return;
+        }
+        try {
+            CompletableFuture.allOf(grants.toArray(new CompletableFuture[0])).get(grantWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            LOGGER.warn("domain data grants of job {} not confirmed in {} ms, look up results anyway", jobId, grantWaitMillis);
+        } catch (ExecutionException e) {
+            LOGGER.error("domain data grants of job {} failed, look up results anyway", jobId, e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            LOGGER.warn("interrupted waiting for domain data grants of job {}", jobId);
+        }
+    }
 
+
+    /**
+     * Hand the domain data grant to the reconciler, which creates it unless it exists and confirms it in background
+     *
+     * @return whether the grant has been submitted
+     */
     public boolean checkOrCreateDomainDataGrant(String nodeId, String grantNodeId, String domainDataId) {
+        return submitDomainDataGrant(nodeId, grantNodeId, domainDataId) != null;
+    }
+
+    /**
+     * @return completes with whether the grant is visible, null if this node doesn't create the grant
+     */
+    private CompletableFuture<Boolean> submitDomainDataGrant(String nodeId, String grantNodeId, String domainDataId) {
         // kuscia Each namespace needs to ensure that domainDataId and domainDataGrantId are unique.
         String domainDataGrantId = domainDataId + "-" + grantNodeId;
-        try {
-            if (PlatformTypeEnum.CENTER.equals(getPlaformType())) {
-                datatableGrantManager.createDomainGrant(nodeId, grantNodeId, domainDataId, domainDataGrantId);
-                return true;
-            }
-            if (PlatformTypeEnum.AUTONOMY.equals(getPlaformType())) {
-                if (P2pDataSyncProducerTemplate.nodeIds.contains(nodeId)) {
-                    datatableGrantManager.createDomainGrant(nodeId, grantNodeId, domainDataId, domainDataGrantId);
-                    return true;
+        if (PlatformTypeEnum.CENTER.equals(getPlaformType())
+                || (PlatformTypeEnum.AUTONOMY.equals(getPlaformType()) && P2pDataSyncProducerTemplate.nodeIds.contains(nodeId))) {
+            return domainDataGrantReconciler.submit(nodeId, grantNodeId, domainDataId, domainDataGrantId).whenComplete((visible, e) -> {
+                if (!Boolean.TRUE.equals(visible)) {
+                    LOGGER.error("create domain data grant failed, nodeId = {}, domainDataGrantId = {}", nodeId, domainDataGrantId);
                 }
-            }
-        } catch (Exception ex) {
-            LOGGER.error("create domain data grant failed, nodeId = {}, domainDataGrantId = {}", nodeId, domainDataId, ex);
-        } finally {
-            //TODO: Unilateral tasks, data synchronization time difference, currently simply blocking 800ms to improve success rate
-            try {
-                Thread.sleep(600);
-            } catch (InterruptedException e) {
-                LOGGER.error("create domain data grant failed, nodeId = {}, domainDataGrantId = {}", nodeId, domainDataId, e);
-            }
+            });
         }
-        return false;
+        return null;
     }
 
     public List<DatatableDTO.TableColumnDTO> parse(String distData) {
@@ -0,0 +1,151 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.manager.integration.job;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.secretflow.v1alpha1.kusciaapi.Job;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * State of the kuscia watchJob streams per domain, kept across the job manager instances which open them.
+ * <p>
+ * Kuscia replays every job as an event when a watch is opened and the watch request carries no resource version
+ * to resume from, so the last applied status of each job is remembered instead and a replayed event whose status
+ * is unchanged is dropped. Reconnects of a domain are delayed by an exponential backoff with jitter, reset once
+ * the stream delivers again.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+@Component
+public class JobWatchTracker {
+
+    @Value("${secretpad.job.watch.backoff.initial-ms:1000}")
+    private long initialBackoffMillis;
+    @Value("${secretpad.job.watch.backoff.max-ms:60000}")
+    private long maxBackoffMillis;
+
+    /**
+     * domain id -> job id -> job status applied last, the whole status as the sync reads more than the states,
+     * e.g. end time, progress, error messages and party status
+     */
+    private final Map<String, Map<String, Job.JobStatus>> applied = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> attempts = new ConcurrentHashMap<>();
+    private final Map<String, ScheduledFuture<?>> reconnects = new ConcurrentHashMap<>();
+    private ScheduledExecutorService reconnectExecutor;
+
+    @PostConstruct
+    public void init() {
+        reconnectExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "kuscia-job-watch-reconnect");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (reconnectExecutor != null) {
+            reconnectExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * whether the event has to be synced, the stream of the domain is known to be healthy again
+     *
+     * @param domainId domain of the stream
+     * @param event    job event
+     * @return false for heartbeats, errors and jobs whose status has been applied already
+     */
+    public boolean shouldSync(String domainId, Job.WatchJobEventResponse event) {
+        attempts.remove(domainId);
+        switch (event.getType()) {
+            case HEARTBEAT, ERROR, UNRECOGNIZED -> {
+                return false;
+            }
+            case DELETED -> {
+                jobs(domainId).remove(event.getObject().getJobId());
+                return true;
+            }
+            default -> {
+                Job.JobStatus last = jobs(domainId).get(event.getObject().getJobId());
+                return last == null || !last.equals(event.getObject());
+            }
+        }
+    }
+
+    /**
+     * remember the status of the event once it has been synced, a failed sync is retried on the next replay
+     */
+    public void synced(String domainId, Job.WatchJobEventResponse event) {
+        if (event.getType() != Job.EventType.DELETED) {
+            jobs(domainId).put(event.getObject().getJobId(), event.getObject());
+        }
+    }
+
+    /**
+     * reconnect the stream of the domain after the backoff, a reconnect already pending is kept
+     *
+     * @param domainId  domain of the stream
+     * @param reconnect opens the stream again
+     */
+    public void scheduleReconnect(String domainId, Runnable reconnect) {
+        long delay = nextBackoffMillis(domainId);
+        reconnects.compute(domainId, (k, pending) -> {
+            if (pending != null && !pending.isDone()) {
+                return pending;
+            }
+            log.info("watchJob of {} reconnects in {} ms", domainId, delay);
+            return reconnectExecutor.schedule(() -> {
+                // a reconnect failing right away schedules the next one
+                reconnects.remove(domainId);
+                try {
+                    reconnect.run();
+                } catch (Exception e) {
+                    log.error("watchJob reconnect of {} failed: {}", domainId, e.getMessage(), e);
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        });
+    }
+
+    /**
+     * a random delay between half and whole of the backoff, which doubles per attempt up to max-ms
+     */
+    long nextBackoffMillis(String domainId) {
+        int attempt = attempts.computeIfAbsent(domainId, k -> new AtomicInteger()).getAndIncrement();
+        long backoff = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt, 30));
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private Map<String, Job.JobStatus> jobs(String domainId) {
+        return applied.computeIfAbsent(domainId, k -> new ConcurrentHashMap<>());
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.manager.integration.job.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Status of a project job and its tasks has been synced from kuscia
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Getter
+public class JobStatusChangedEvent extends ApplicationEvent {
+
+    private final String projectId;
+    private final String graphId;
+    private final String jobId;
+
+    public JobStatusChangedEvent(Object source, String projectId, String graphId, String jobId) {
+        super(source);
+        this.projectId = projectId;
+        this.graphId = graphId;
+        this.jobId = jobId;
+    }
+}
@@ -20,6 +20,7 @@ import org.secretflow.secretpad.common.constant.SystemConstants;
 import org.secretflow.secretpad.common.dto.UserContextDTO;
 import org.secretflow.secretpad.common.util.UserContext;
 import org.secretflow.secretpad.manager.integration.job.AbstractJobManager;
+import org.secretflow.secretpad.manager.integration.job.JobWatchTracker;
 
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
@@ -49,15 +50,21 @@ public class JobSyncErrorOrCompletedEventListener {
     @Resource
     private Environment env;
 
+    @Resource
+    private JobWatchTracker jobWatchTracker;
+
     @EventListener
     public void onJobSyncEvent(JobSyncErrorOrCompletedEvent event) {
         log.info("JobSyncErrorOrCompletedEventListener onJobSyncEvent {}", event.getNodeId());
         UserContext.setBaseUser(UserContextDTO.builder().ownerId(nodeId).build());
         String[] activeProfiles = env.getActiveProfiles();
         if (!Arrays.asList(activeProfiles).contains(SystemConstants.TEST)) {
-            AbstractJobManager jobManager = applicationContext.getBean("jobManager", AbstractJobManager.class);
-            log.info("JobSyncErrorOrCompletedEventListener onJobSyncEvent {} start again...", event.getNodeId());
-            jobManager.startSync(event.getNodeId());
+            jobWatchTracker.scheduleReconnect(event.getNodeId(), () -> {
+                UserContext.setBaseUser(UserContextDTO.builder().ownerId(nodeId).build());
+                AbstractJobManager jobManager = applicationContext.getBean("jobManager", AbstractJobManager.class);
+                log.info("JobSyncErrorOrCompletedEventListener onJobSyncEvent {} start again...", event.getNodeId());
+                jobManager.startSync(event.getNodeId());
+            });
         }
     }
 }
@@ -18,7 +18,9 @@ package org.secretflow.secretpad.manager.integration.node;
 
 import org.secretflow.secretpad.manager.integration.model.*;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -153,6 +155,14 @@ public abstract class AbstractNodeManager {
      */
     public abstract NodeDTO getNode(String nodeId);
 
+    /**
+     * Get information of several nodes, the nodes are read with one query and filled from kuscia concurrently
+     *
+     * @param nodeIds nodeIds
+     * @return NodeDTO by nodeId
+     */
+    public abstract Map<String, NodeDTO> getNodes(Collection<String> nodeIds);
+
     /**
      * Get node cert
      *
@@ -187,6 +197,14 @@ public abstract class AbstractNodeManager {
      */
     public abstract boolean checkNodeReady(String nodeId);
 
+    /**
+     * Check nodes ready at once, from the kuscia health snapshot
+     *
+     * @param nodeIds nodeIds
+     * @return nodeId to whether the node is ready
+     */
+    public abstract Map<String, Boolean> checkNodesReady(Collection<String> nodeIds);
+
     /**
      * List tee nodes
      *
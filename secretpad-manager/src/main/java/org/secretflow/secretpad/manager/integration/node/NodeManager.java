@@ -24,6 +24,7 @@ import org.secretflow.secretpad.common.exception.SecretpadException;
 import org.secretflow.secretpad.common.util.*;
 import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcClientAdapter;
 import org.secretflow.secretpad.manager.integration.datasource.AbstractDatasourceManager;
+import org.secretflow.secretpad.manager.integration.health.KusciaHealthSnapshot;
 import org.secretflow.secretpad.manager.integration.model.*;
 import org.secretflow.secretpad.persistence.datasync.producer.p2p.P2pDataSyncProducerTemplate;
 import org.secretflow.secretpad.persistence.entity.*;
@@ -46,6 +47,8 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
@@ -88,6 +91,9 @@ public class NodeManager extends AbstractNodeManager {
     @Resource
     private AbstractDatasourceManager datasourceManager;
 
+    @Resource
+    private KusciaHealthSnapshot kusciaHealthSnapshot;
+
     private void check(String nodeId) {
         List<NodeDO> byType = nodeRepository.findByType(DomainConstants.DomainTypeEnum.embedded.name());
         byType.forEach(nodeDO -> {
@@ -563,6 +569,41 @@ public class NodeManager extends AbstractNodeManager {
         return getNodeDto(nodeDO);
     }
 
+    @Override
+    public Map<String, NodeDTO> getNodes(Collection<String> nodeIds) {
+        Set<String> distinctNodeIds = new HashSet<>(nodeIds);
+        Map<String, NodeDTO> result = new HashMap<>(distinctNodeIds.size());
+        if (distinctNodeIds.isEmpty()) {
+            return result;
+        }
+        Map<String, NodeDO> nodeDOMap = nodeRepository.findByNodeIdIn(distinctNodeIds).stream()
+                .collect(Collectors.toMap(NodeDO::getNodeId, nodeDO -> nodeDO, (a, b) -> a));
+        for (String nodeId : distinctNodeIds) {
+            if (!nodeDOMap.containsKey(nodeId)) {
+                LOGGER.error("Cannot find node by nodeId {}.", nodeId);
+                throw SecretpadException.of(NodeErrorCode.NODE_NOT_EXIST_ERROR);
+            }
+        }
+        if (nodeDOMap.size() == 1) {
+            NodeDO nodeDO = nodeDOMap.values().iterator().next();
+            result.put(nodeDO.getNodeId(), getNodeDto(nodeDO));
+            return result;
+        }
+        // kuscia is queried per node, a node failing or timing out is returned without kuscia information
+        Map<String, String> failedRecords = new ConcurrentHashMap<>();
+        Map<String, CompletableFuture<NodeDTO>> futures = new HashMap<>(nodeDOMap.size());
+        nodeDOMap.forEach((nodeId, nodeDO) -> futures.put(nodeId,
+                AsyncTaskExecutionUtils.executeUnDecoratedOperation(nodeDO, this::getNodeDto, nodeId, failedRecords)));
+        futures.forEach((nodeId, future) -> {
+            NodeDTO nodeDTO = future.join();
+            result.put(nodeId, nodeDTO != null ? nodeDTO : NodeDTO.fromDo(nodeDOMap.get(nodeId)));
+        });
+        if (!failedRecords.isEmpty()) {
+            LOGGER.warn("Query nodes from kuscia failed {}", failedRecords);
+        }
+        return result;
+    }
+
 
     @Override
     public String getCert(String nodeId) {
@@ -681,32 +722,13 @@ public class NodeManager extends AbstractNodeManager {
 
     private List<NodeDTO> addNodeStatusByGrpcBatchQuery(List<NodeDTO> nodeList) {
         Set<String> nodeIdSet = nodeList.stream().map(NodeDTO::getNodeId).collect(Collectors.toSet());
-        nodeIdSet.forEach(nodeId -> {
-
-            DomainOuterClass.BatchQueryDomainRequest domainIds =
-                    DomainOuterClass.BatchQueryDomainRequest.newBuilder().addDomainIds(nodeId).build();
-            DomainOuterClass.BatchQueryDomainResponse domainStatusResponse = kusciaGrpcClientAdapter.batchQueryDomain(domainIds);
-
-            if (domainStatusResponse.getStatus().getCode() == 0) {
-
-                List<DomainOuterClass.Domain> domainsList = domainStatusResponse.getData().getDomainsList();
-                Map<String, List<DomainOuterClass.NodeStatus>> domainId2StatusListMap = domainsList.stream().collect(Collectors.toMap(DomainOuterClass.Domain::getDomainId, DomainOuterClass.Domain::getNodeStatusesList));
-
-                nodeList.forEach(node -> {
-                    List<DomainOuterClass.NodeStatus> nodeStatusList = domainId2StatusListMap.getOrDefault(node.getNodeId(), Collections.emptyList());
-                    List<NodeInstanceDTO> nodeInstanceDTOList = nodeStatusList.stream().map(NodeInstanceDTO::formDomainNodeStatus).toList();
-
-                    nodeInstanceDTOList.forEach(s -> {
-                        if (Objects.equals(s.getStatus(), DomainConstants.DomainStatusEnum.Ready.name())) {
-                            node.setNodeStatus(s.getStatus());
-                        }
-                    });
-                });
+        Map<String, Boolean> ready = kusciaHealthSnapshot.nodesReady(nodeIdSet);
+        nodeList.forEach(node -> {
+            if (ready.getOrDefault(node.getNodeId(), false)) {
+                node.setNodeStatus(DomainConstants.DomainStatusEnum.Ready.name());
             }
-
         });
         return nodeList;
-
     }
 
     /**
@@ -738,27 +760,12 @@ public class NodeManager extends AbstractNodeManager {
 
     @Override
     public boolean checkNodeReady(String nodeId) {
-        DomainOuterClass.QueryDomainRequest request = DomainOuterClass.QueryDomainRequest.newBuilder()
-                .setDomainId(nodeId)
-                .build();
-        DomainOuterClass.QueryDomainResponse response = kusciaGrpcClientAdapter.queryDomain(request);
-        log.info("checkNodeReady response  {} {} ", nodeId, response);
-        if (response.getStatus().getCode() != 0) {
-            return false;
-        }
-        List<DomainOuterClass.NodeStatus> nodeStatusesList = response.getData().getNodeStatusesList();
-        log.info("checkNodeReady  {} {} ", nodeId, nodeStatusesList);
-        boolean flag = false;
-        for (DomainOuterClass.NodeStatus nodeStatus : nodeStatusesList) {
-            if (nodeStatus.getStatus().equals(DomainConstants.DomainStatusEnum.Ready.name())) {
-                flag = true;
-            }
-        }
-        if (!flag) {
-            log.warn("nodeStatus not ready {}", nodeStatusesList);
-            return false;
-        }
-        return true;
+        return kusciaHealthSnapshot.isNodeReady(nodeId);
+    }
+
+    @Override
+    public Map<String, Boolean> checkNodesReady(Collection<String> nodeIds) {
+        return kusciaHealthSnapshot.nodesReady(nodeIds);
     }
 
     @Override
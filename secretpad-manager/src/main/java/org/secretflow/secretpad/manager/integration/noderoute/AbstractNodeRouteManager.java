@@ -23,6 +23,9 @@ import org.secretflow.secretpad.persistence.entity.NodeRouteDO;
 
 import org.secretflow.v1alpha1.kusciaapi.DomainRoute;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * @author yutu
  * @date 2023/08/07
@@ -44,8 +47,15 @@ public abstract class AbstractNodeRouteManager {
 
     public abstract DomainRoute.RouteStatus getRouteStatus(String srcNodeId, String dstNodeId, String channelNodeId);
 
+    /**
+     * status of the domain routes with one batch query through the kuscia channel of channelNodeId, routes not found are absent
+     */
+    public abstract Map<DomainRoute.DomainRouteKey, DomainRoute.RouteStatus> getRouteStatuses(Collection<DomainRoute.DomainRouteKey> routes, String channelNodeId);
+
     public abstract boolean checkNodeRouteReady(String srcNodeId, String dstNodeId, String channelNodeId);
 
+    public abstract Map<DomainRoute.DomainRouteKey, Boolean> checkNodeRoutesReady(Collection<DomainRoute.DomainRouteKey> routes, String channelNodeId);
+
     public abstract void checkRouteNotExistInDB(String srcNodeId, String dstNodeId);
 
     public abstract boolean checkDomainRouterExistsInKuscia(String srcNodeId, String dstNodeId, String sourceNodeId);
@@ -22,6 +22,7 @@ import org.secretflow.secretpad.common.errorcode.NodeRouteErrorCode;
 import org.secretflow.secretpad.common.errorcode.SystemErrorCode;
 import org.secretflow.secretpad.common.exception.SecretpadException;
 import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcClientAdapter;
+import org.secretflow.secretpad.manager.integration.health.KusciaHealthSnapshot;
 import org.secretflow.secretpad.manager.integration.model.CreateNodeRouteParam;
 import org.secretflow.secretpad.manager.integration.model.NodeRouteDTO;
 import org.secretflow.secretpad.persistence.entity.NodeDO;
@@ -39,7 +40,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.net.URL;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.secretflow.secretpad.common.constant.Constants.PROTOCOL_HTTPS;
@@ -55,6 +59,7 @@ public class NodeRouteManager extends AbstractNodeRouteManager {
 
     private final NodeRouteRepository nodeRouteRepository;
     private final KusciaGrpcClientAdapter kusciaGrpcClientAdapter;
+    private final KusciaHealthSnapshot kusciaHealthSnapshot;
 
     @Value("${secretpad.platform-type}")
     private String platformType;
@@ -133,6 +138,7 @@ public class NodeRouteManager extends AbstractNodeRouteManager {
         DomainRoute.DeleteDomainRouteRequest request =
                 DomainRoute.DeleteDomainRouteRequest.newBuilder().setSource(sourceNodeId).setDestination(dstNodeId).build();
         DomainRoute.DeleteDomainRouteResponse deleteDomainRouteResponse = kusciaGrpcClientAdapter.deleteDomainRoute(request, channelNodeId);
+        kusciaHealthSnapshot.evictRoute(sourceNodeId, dstNodeId);
         if (deleteDomainRouteResponse.getStatus().getCode() != 0) {
             throw SecretpadException.of(NodeRouteErrorCode.NODE_ROUTE_DELETE_ERROR, deleteDomainRouteResponse.getStatus().getMessage());
         }
@@ -169,14 +175,40 @@ public class NodeRouteManager extends AbstractNodeRouteManager {
         return status;
     }
 
+    @Override
+    public Map<DomainRoute.DomainRouteKey, DomainRoute.RouteStatus> getRouteStatuses(Collection<DomainRoute.DomainRouteKey> routes, String channelNodeId) {
+        Map<DomainRoute.DomainRouteKey, DomainRoute.RouteStatus> result = new HashMap<>();
+        if (routes.isEmpty()) {
+            return result;
+        }
+        DomainRoute.BatchQueryDomainRouteStatusRequest request = DomainRoute.BatchQueryDomainRouteStatusRequest.newBuilder()
+                .addAllRouteKeys(routes.stream().distinct().toList()).build();
+        DomainRoute.BatchQueryDomainRouteStatusResponse response = StringUtils.isBlank(channelNodeId)
+                ? kusciaGrpcClientAdapter.batchQueryDomainRouteStatus(request) : kusciaGrpcClientAdapter.batchQueryDomainRouteStatus(request, channelNodeId);
+        if (response != null && response.getStatus().getCode() == 0) {
+            response.getData().getRoutesList().forEach(route -> result.put(
+                    DomainRoute.DomainRouteKey.newBuilder().setSource(route.getSource()).setDestination(route.getDestination()).build(), route.getStatus()));
+            return result;
+        }
+        log.info("batch query domain route status failed, query one by one {}", response);
+        routes.stream().distinct().forEach(route -> {
+            DomainRoute.RouteStatus status = getRouteStatus(route.getSource(), route.getDestination(), channelNodeId);
+            if (status != null) {
+                result.put(route, status);
+            }
+        });
+        return result;
+    }
+
 
     @Override
     public boolean checkNodeRouteReady(String srcNodeId, String dstNodeId, String channelNodeId) {
-        DomainRoute.QueryDomainRouteResponse response = queryDomainRouter(srcNodeId, dstNodeId, channelNodeId);
-        if (response.getStatus().getCode() != 0) {
-            return false;
-        }
-        return DomainRouterConstants.DomainRouterStatusEnum.Succeeded.name().equals(response.getData().getStatus().getStatus());
+        return kusciaHealthSnapshot.isRouteReady(srcNodeId, dstNodeId, channelNodeId);
+    }
+
+    @Override
+    public Map<DomainRoute.DomainRouteKey, Boolean> checkNodeRoutesReady(Collection<DomainRoute.DomainRouteKey> routes, String channelNodeId) {
+        return kusciaHealthSnapshot.routesReady(routes, channelNodeId);
     }
 
     private DomainRoute.TokenConfig buildTokenConfig() {
@@ -225,6 +257,7 @@ public class NodeRouteManager extends AbstractNodeRouteManager {
     public void deleteNodeInKuscia(String srcNodeId, String channelNodeId) {
         DomainOuterClass.DeleteDomainRequest request = DomainOuterClass.DeleteDomainRequest.newBuilder().setDomainId(srcNodeId).build();
         kusciaGrpcClientAdapter.deleteDomain(request, channelNodeId);
+        kusciaHealthSnapshot.evictNode(srcNodeId);
     }
 
     private void deleteDomainRouter(String srcNodeId, String dstNodeId, String channelNodeId) {
@@ -235,6 +268,7 @@ public class NodeRouteManager extends AbstractNodeRouteManager {
         } else {
             kusciaGrpcClientAdapter.deleteDomainRoute(request, channelNodeId);
         }
+        kusciaHealthSnapshot.evictRoute(srcNodeId, dstNodeId);
     }
 
     private void deleteDomainRouter(NodeRouteDO nodeRouteDO) {
@@ -245,6 +279,7 @@ public class NodeRouteManager extends AbstractNodeRouteManager {
         DomainRoute.DeleteDomainRouteRequest request =
                 DomainRoute.DeleteDomainRouteRequest.newBuilder().setSource(srcNodeId).setDestination(dstNodeId).build();
         DomainRoute.DeleteDomainRouteResponse response = kusciaGrpcClientAdapter.deleteDomainRoute(request);
+        kusciaHealthSnapshot.evictRoute(srcNodeId, dstNodeId);
         if (response.getStatus().getCode() == 11404) {
             log.warn("DeleteDomainRouteResponse 11404  srcNodeId = {} , dstNodeId = {}", srcNodeId, dstNodeId);
             nodeRouteRepository.deleteById(nodeRouteDO.getRouteId());
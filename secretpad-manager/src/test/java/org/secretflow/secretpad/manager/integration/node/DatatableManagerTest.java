@@ -0,0 +1,141 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.manager.integration.node;
+
+import org.secretflow.secretpad.common.exception.SecretpadException;
+import org.secretflow.secretpad.common.util.AsyncTaskExecutionUtils;
+import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcClientAdapter;
+import org.secretflow.secretpad.manager.integration.datatable.DatatableManager;
+import org.secretflow.secretpad.manager.integration.model.DatatableDTO;
+import org.secretflow.secretpad.persistence.repository.FeatureTableRepository;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.secretflow.v1alpha1.common.Common;
+import org.secretflow.v1alpha1.kusciaapi.Domaindata;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * DatatableManager test
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@ExtendWith(MockitoExtension.class)
+public class DatatableManagerTest {
+
+    private static ExecutorService executor;
+
+    @Mock
+    private KusciaGrpcClientAdapter kusciaGrpcClientAdapter;
+
+    @Mock
+    private FeatureTableRepository featureTableRepository;
+
+    private DatatableManager datatableManager;
+
+    @BeforeAll
+    public static void setUpExecutor() {
+        executor = Executors.newFixedThreadPool(2);
+        new AsyncTaskExecutionUtils().setRestTemplate(executor);
+    }
+
+    @AfterAll
+    public static void tearDownExecutor() {
+        executor.shutdownNow();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        datatableManager = new DatatableManager(kusciaGrpcClientAdapter, featureTableRepository);
+        ReflectionTestUtils.setField(datatableManager, "plaformType", "AUTONOMY");
+        ReflectionTestUtils.setField(datatableManager, "queryTimeoutMillis", 5000L);
+        ReflectionTestUtils.setField(datatableManager, "cacheTtlSeconds", 60L);
+    }
+
+    @Test
+    public void testFindByIdGroupPartialResult() {
+        when(kusciaGrpcClientAdapter.batchQueryDomainData(any(Domaindata.BatchQueryDomainDataRequest.class), eq("alice")))
+                .thenReturn(response(0, "alice", "t1"));
+        when(kusciaGrpcClientAdapter.batchQueryDomainData(any(Domaindata.BatchQueryDomainDataRequest.class), eq("bob")))
+                .thenReturn(response(1, null, null));
+
+        List<Domaindata.DomainData> domainData = datatableManager.findByIdGroup(ids("alice", "t1", "bob", "t2"), (nodeId, extra) -> nodeId);
+        Assertions.assertEquals(1, domainData.size());
+        Assertions.assertEquals("t1", domainData.get(0).getDomaindataId());
+    }
+
+    @Test
+    public void testFindByIdGroupAllFailed() {
+        when(kusciaGrpcClientAdapter.batchQueryDomainData(any(Domaindata.BatchQueryDomainDataRequest.class), any(String.class)))
+                .thenReturn(response(1, null, null));
+
+        Assertions.assertThrows(SecretpadException.class,
+                () -> datatableManager.findByIdGroup(ids("alice", "t1", "bob", "t2"), (nodeId, extra) -> nodeId));
+    }
+
+    @Test
+    public void testFindByIdsCached() {
+        when(kusciaGrpcClientAdapter.batchQueryDomainData(any(Domaindata.BatchQueryDomainDataRequest.class), eq("alice")))
+                .thenReturn(response(0, "alice", "t1"));
+
+        Map<DatatableDTO.NodeDatatableId, DatatableDTO> first = datatableManager.findByIds(ids("alice", "t1"), (nodeId, extra) -> nodeId);
+        Map<DatatableDTO.NodeDatatableId, DatatableDTO> second = datatableManager.findByIds(ids("alice", "t1"), (nodeId, extra) -> nodeId);
+        Assertions.assertEquals(first.keySet(), second.keySet());
+        verify(kusciaGrpcClientAdapter, times(1)).batchQueryDomainData(any(Domaindata.BatchQueryDomainDataRequest.class), eq("alice"));
+
+        when(kusciaGrpcClientAdapter.deleteDomainData(any(Domaindata.DeleteDomainDataRequest.class), eq("alice")))
+                .thenReturn(Domaindata.DeleteDomainDataResponse.newBuilder().setStatus(Common.Status.newBuilder().setCode(0)).build());
+        datatableManager.deleteDataTable(DatatableDTO.NodeDatatableId.from("alice", "t1"));
+        datatableManager.findByIds(ids("alice", "t1"), (nodeId, extra) -> nodeId);
+        verify(kusciaGrpcClientAdapter, times(2)).batchQueryDomainData(any(Domaindata.BatchQueryDomainDataRequest.class), eq("alice"));
+    }
+
+    private List<DatatableDTO.NodeDatatableId> ids(String... nodeAndDatatableIds) {
+        List<DatatableDTO.NodeDatatableId> ids = new ArrayList<>();
+        for (int i = 0; i < nodeAndDatatableIds.length; i += 2) {
+            ids.add(DatatableDTO.NodeDatatableId.from(nodeAndDatatableIds[i], nodeAndDatatableIds[i + 1]));
+        }
+        return ids;
+    }
+
+    private Domaindata.BatchQueryDomainDataResponse response(int code, String nodeId, String datatableId) {
+        Domaindata.BatchQueryDomainDataResponse.Builder builder = Domaindata.BatchQueryDomainDataResponse.newBuilder()
+                .setStatus(Common.Status.newBuilder().setCode(code));
+        if (nodeId != null) {
+            builder.setData(Domaindata.DomainDataList.newBuilder()
+                    .addDomaindataList(Domaindata.DomainData.newBuilder().setDomainId(nodeId).setAuthor(nodeId).setDomaindataId(datatableId).setType("table")));
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.manager.integration.node;
+
+import org.secretflow.secretpad.manager.integration.datatablegrant.DatatableGrantManager;
+import org.secretflow.secretpad.manager.integration.datatablegrant.DomainDataGrantReconciler;
+import org.secretflow.secretpad.manager.integration.model.DatatableGrantDTO;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * DomainDataGrantReconciler test
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@ExtendWith(MockitoExtension.class)
+public class DomainDataGrantReconcilerTest {
+
+    @Mock
+    private DatatableGrantManager datatableGrantManager;
+
+    private DomainDataGrantReconciler reconciler;
+
+    @BeforeEach
+    public void setUp() {
+        reconciler = new DomainDataGrantReconciler(datatableGrantManager);
+        ReflectionTestUtils.setField(reconciler, "batchDelayMillis", 10L);
+        ReflectionTestUtils.setField(reconciler, "initialRetryMillis", 10L);
+        ReflectionTestUtils.setField(reconciler, "maxRetryMillis", 20L);
+        ReflectionTestUtils.setField(reconciler, "maxAttempts", 3);
+        reconciler.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        reconciler.destroy();
+    }
+
+    @Test
+    public void testCreateAndConfirm() throws Exception {
+        when(datatableGrantManager.batchQueryDomainGrant(eq("alice"), anyList()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(grant("t1-bob"), grant("t1-carol")));
+
+        CompletableFuture<Boolean> bob = reconciler.submit("alice", "bob", "t1", "t1-bob");
+        CompletableFuture<Boolean> carol = reconciler.submit("alice", "carol", "t1", "t1-carol");
+        Assertions.assertSame(bob, reconciler.submit("alice", "bob", "t1", "t1-bob"));
+
+        Assertions.assertTrue(bob.get(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(carol.get(5, TimeUnit.SECONDS));
+        // both grants are checked by one batch query per round
+        verify(datatableGrantManager, times(2)).batchQueryDomainGrant(eq("alice"), anyList());
+        verify(datatableGrantManager).createDomainGrant("alice", "bob", "t1", "t1-bob");
+        verify(datatableGrantManager).createDomainGrant("alice", "carol", "t1", "t1-carol");
+    }
+
+    @Test
+    public void testRetryCreateUntilGivenUp() throws Exception {
+        when(datatableGrantManager.batchQueryDomainGrant(eq("alice"), anyList())).thenReturn(List.of());
+        when(datatableGrantManager.createDomainGrant(any(), any(), any(), any())).thenThrow(new RuntimeException("not synced"));
+
+        Assertions.assertFalse(reconciler.submit("alice", "bob", "t1", "t1-bob").get(5, TimeUnit.SECONDS));
+        verify(datatableGrantManager, times(3)).createDomainGrant("alice", "bob", "t1", "t1-bob");
+    }
+
+    private DatatableGrantDTO grant(String domainDataGrantId) {
+        return DatatableGrantDTO.builder().domainDataGrantId(domainDataGrantId).build();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.manager.integration.node;
+
+import org.secretflow.secretpad.manager.integration.job.JobEventPipeline;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.secretflow.v1alpha1.kusciaapi.Job;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * JobEventPipeline test
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+public class JobEventPipelineTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private JobEventPipeline pipeline;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+        when(provider.getIfAvailable()).thenReturn(meterRegistry);
+        pipeline = new JobEventPipeline(provider);
+        ReflectionTestUtils.setField(pipeline, "workers", 2);
+        pipeline.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        pipeline.stop();
+    }
+
+    @Test
+    public void testCoalesceAndApply() throws InterruptedException {
+        List<String> applied = new CopyOnWriteArrayList<>();
+        CountDownLatch latch = new CountDownLatch(3);
+        for (String state : List.of("Pending", "Running", "Succeeded")) {
+            pipeline.submit("alice", event("job-1", state), e -> {
+                applied.add(e.getObject().getJobId() + ":" + e.getObject().getStatus().getState());
+                latch.countDown();
+            });
+        }
+        pipeline.submit("bob", event("job-1", "Running"), e -> {
+            applied.add("bob:" + e.getObject().getStatus().getState());
+            latch.countDown();
+        });
+        pipeline.submit("alice", event("job-2", "Running"), e -> {
+            applied.add(e.getObject().getJobId() + ":" + e.getObject().getStatus().getState());
+            latch.countDown();
+        });
+        // not started yet, events of the same job and domain are coalesced
+        Assertions.assertEquals(3, pipeline.depth());
+        Assertions.assertEquals(2.0, meterRegistry.get("job.event.coalesced").counter().count());
+
+        pipeline.start();
+        Assertions.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assertions.assertTrue(applied.containsAll(List.of("job-1:Succeeded", "bob:Running", "job-2:Running")));
+        Assertions.assertEquals(3, applied.size());
+        Assertions.assertEquals(0, pipeline.depth());
+        // workers have recorded their last apply once stopped
+        pipeline.stop();
+        Assertions.assertEquals(3, meterRegistry.get("job.event.apply").timer().count());
+    }
+
+    @Test
+    public void testApplyInlineAfterStop() {
+        pipeline.start();
+        pipeline.stop();
+        List<String> applied = new CopyOnWriteArrayList<>();
+        pipeline.submit("alice", event("job-1", "Running"), e -> applied.add(e.getObject().getJobId()));
+        Assertions.assertEquals(List.of("job-1"), applied);
+    }
+
+    private Job.WatchJobEventResponse event(String jobId, String state) {
+        return Job.WatchJobEventResponse.newBuilder().setType(Job.EventType.MODIFIED)
+                .setObject(Job.JobStatus.newBuilder().setJobId(jobId)
+                        .setStatus(Job.JobStatusDetail.newBuilder().setState(state)))
+                .build();
+    }
+}
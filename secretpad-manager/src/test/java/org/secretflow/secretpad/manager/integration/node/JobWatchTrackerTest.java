@@ -0,0 +1,112 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.manager.integration.node;
+
+import org.secretflow.secretpad.manager.integration.job.JobWatchTracker;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.secretflow.v1alpha1.kusciaapi.Job;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * JobWatchTracker test
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+public class JobWatchTrackerTest {
+
+    private JobWatchTracker tracker;
+
+    @BeforeEach
+    public void setUp() {
+        tracker = new JobWatchTracker();
+        ReflectionTestUtils.setField(tracker, "initialBackoffMillis", 1000L);
+        ReflectionTestUtils.setField(tracker, "maxBackoffMillis", 8000L);
+    }
+
+    @Test
+    public void testReplayedEventDropped() {
+        Job.WatchJobEventResponse running = event(Job.EventType.ADDED, "job", "Running");
+        Assertions.assertTrue(tracker.shouldSync("alice", running));
+        tracker.synced("alice", running);
+        // replay after reconnect
+        Assertions.assertFalse(tracker.shouldSync("alice", event(Job.EventType.ADDED, "job", "Running")));
+        // other domain and changed status
+        Assertions.assertTrue(tracker.shouldSync("bob", running));
+        Assertions.assertTrue(tracker.shouldSync("alice", event(Job.EventType.MODIFIED, "job", "Succeeded")));
+        Assertions.assertFalse(tracker.shouldSync("alice", event(Job.EventType.HEARTBEAT, "", "")));
+
+        Job.WatchJobEventResponse deleted = event(Job.EventType.DELETED, "job", "Running");
+        Assertions.assertTrue(tracker.shouldSync("alice", deleted));
+        tracker.synced("alice", deleted);
+        Assertions.assertTrue(tracker.shouldSync("alice", running));
+    }
+
+    @Test
+    public void testTaskStateChangeSynced() {
+        Job.WatchJobEventResponse running = event(Job.EventType.MODIFIED, "job", "Running", "task-1", "Running");
+        tracker.synced("alice", running);
+        Assertions.assertFalse(tracker.shouldSync("alice", event(Job.EventType.ADDED, "job", "Running", "task-1", "Running")));
+        Assertions.assertTrue(tracker.shouldSync("alice", event(Job.EventType.MODIFIED, "job", "Running", "task-1", "Succeeded")));
+        Assertions.assertTrue(tracker.shouldSync("alice", event(Job.EventType.MODIFIED, "job", "Running", "task-2", "Running")));
+    }
+
+    @Test
+    public void testEndTimeSynced() {
+        Job.WatchJobEventResponse succeeded = event(Job.EventType.MODIFIED, "job", "Succeeded", "task-1", "Succeeded");
+        tracker.synced("alice", succeeded);
+        Job.WatchJobEventResponse ended = succeeded.toBuilder()
+                .setObject(succeeded.getObject().toBuilder()
+                        .setStatus(succeeded.getObject().getStatus().toBuilder().setEndTime("2024-11-20T00:00:00Z")))
+                .build();
+        Assertions.assertTrue(tracker.shouldSync("alice", ended));
+        tracker.synced("alice", ended);
+        Assertions.assertFalse(tracker.shouldSync("alice", ended));
+    }
+
+    @Test
+    public void testBackoff() {
+        long[] upper = {1000, 2000, 4000, 8000, 8000};
+        for (long max : upper) {
+            long delay = (long) ReflectionTestUtils.invokeMethod(tracker, "nextBackoffMillis", "alice");
+            Assertions.assertTrue(delay >= max / 2 && delay <= max, "delay " + delay + " out of " + max);
+        }
+        // an event resets the backoff
+        tracker.shouldSync("alice", event(Job.EventType.HEARTBEAT, "", ""));
+        long delay = (long) ReflectionTestUtils.invokeMethod(tracker, "nextBackoffMillis", "alice");
+        Assertions.assertTrue(delay <= 1000);
+    }
+
+    private Job.WatchJobEventResponse event(Job.EventType type, String jobId, String state, String taskId, String taskState) {
+        return Job.WatchJobEventResponse.newBuilder().setType(type)
+                .setObject(Job.JobStatus.newBuilder().setJobId(jobId)
+                        .setStatus(Job.JobStatusDetail.newBuilder().setState(state)
+                                .addTasks(Job.TaskStatus.newBuilder().setTaskId(taskId).setState(taskState))))
+                .build();
+    }
+
+    private Job.WatchJobEventResponse event(Job.EventType type, String jobId, String state) {
+        return Job.WatchJobEventResponse.newBuilder().setType(type)
+                .setObject(Job.JobStatus.newBuilder().setJobId(jobId)
+                        .setStatus(Job.JobStatusDetail.newBuilder().setState(state)))
+                .build();
+    }
+}
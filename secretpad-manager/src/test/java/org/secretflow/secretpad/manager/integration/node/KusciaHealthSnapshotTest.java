@@ -0,0 +1,123 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.manager.integration.node;
+
+import org.secretflow.secretpad.common.constant.DomainConstants;
+import org.secretflow.secretpad.common.constant.DomainRouterConstants;
+import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcClientAdapter;
+import org.secretflow.secretpad.manager.integration.health.KusciaHealthSnapshot;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.secretflow.v1alpha1.common.Common;
+import org.secretflow.v1alpha1.kusciaapi.DomainOuterClass;
+import org.secretflow.v1alpha1.kusciaapi.DomainRoute;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * KusciaHealthSnapshot test
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@ExtendWith(MockitoExtension.class)
+public class KusciaHealthSnapshotTest {
+
+    @Mock
+    private KusciaGrpcClientAdapter kusciaGrpcClientAdapter;
+
+    private KusciaHealthSnapshot snapshot;
+
+    @BeforeEach
+    public void setUp() {
+        snapshot = new KusciaHealthSnapshot(kusciaGrpcClientAdapter);
+        ReflectionTestUtils.setField(snapshot, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(snapshot, "idleSeconds", 600L);
+    }
+
+    @Test
+    public void testNodesReadyFromSnapshot() {
+        when(kusciaGrpcClientAdapter.batchQueryDomain(any(DomainOuterClass.BatchQueryDomainRequest.class))).thenReturn(
+                DomainOuterClass.BatchQueryDomainResponse.newBuilder()
+                        .setStatus(Common.Status.newBuilder().setCode(0))
+                        .setData(DomainOuterClass.BatchQueryDomainResponseData.newBuilder()
+                                .addDomains(domain("alice", DomainConstants.DomainStatusEnum.Ready.name()))
+                                .addDomains(domain("bob", DomainConstants.DomainStatusEnum.NotReady.name())))
+                        .build());
+
+        Map<String, Boolean> ready = snapshot.nodesReady(List.of("alice", "bob"));
+        Assertions.assertTrue(ready.get("alice"));
+        Assertions.assertFalse(ready.get("bob"));
+
+        // ready alice is read from memory, not ready bob is queried again
+        Assertions.assertTrue(snapshot.isNodeReady("alice"));
+        verify(kusciaGrpcClientAdapter, times(1)).batchQueryDomain(any(DomainOuterClass.BatchQueryDomainRequest.class));
+        Assertions.assertFalse(snapshot.isNodeReady("bob"));
+        verify(kusciaGrpcClientAdapter, times(2)).batchQueryDomain(any(DomainOuterClass.BatchQueryDomainRequest.class));
+
+        snapshot.evictNode("alice");
+        snapshot.isNodeReady("alice");
+        verify(kusciaGrpcClientAdapter, times(3)).batchQueryDomain(any(DomainOuterClass.BatchQueryDomainRequest.class));
+    }
+
+    @Test
+    public void testRoutesReadyFallback() {
+        when(kusciaGrpcClientAdapter.batchQueryDomainRouteStatus(any(), eq("alice"))).thenReturn(
+                DomainRoute.BatchQueryDomainRouteStatusResponse.newBuilder().setStatus(Common.Status.newBuilder().setCode(11404)).build());
+        when(kusciaGrpcClientAdapter.queryDomainRoute(any(), eq("alice"))).thenAnswer(invocation -> {
+            DomainRoute.QueryDomainRouteRequest request = invocation.getArgument(0);
+            String status = "bob".equals(request.getSource()) ? DomainRouterConstants.DomainRouterStatusEnum.Succeeded.name() : "Failed";
+            return DomainRoute.QueryDomainRouteResponse.newBuilder()
+                    .setStatus(Common.Status.newBuilder().setCode(0))
+                    .setData(DomainRoute.QueryDomainRouteResponseData.newBuilder().setStatus(DomainRoute.RouteStatus.newBuilder().setStatus(status)))
+                    .build();
+        });
+
+        DomainRoute.DomainRouteKey bobToAlice = route("bob", "alice");
+        DomainRoute.DomainRouteKey carolToAlice = route("carol", "alice");
+        Map<DomainRoute.DomainRouteKey, Boolean> ready = snapshot.routesReady(List.of(bobToAlice, carolToAlice), "alice");
+        Assertions.assertTrue(ready.get(bobToAlice));
+        Assertions.assertFalse(ready.get(carolToAlice));
+        verify(kusciaGrpcClientAdapter, times(2)).queryDomainRoute(any(), eq("alice"));
+
+        Assertions.assertTrue(snapshot.isRouteReady("bob", "alice", "alice"));
+        verify(kusciaGrpcClientAdapter, times(1)).batchQueryDomainRouteStatus(any(), eq("alice"));
+    }
+
+    private static DomainOuterClass.Domain domain(String domainId, String status) {
+        return DomainOuterClass.Domain.newBuilder()
+                .setDomainId(domainId)
+                .addNodeStatuses(DomainOuterClass.NodeStatus.newBuilder().setStatus(status))
+                .build();
+    }
+
+    private static DomainRoute.DomainRouteKey route(String source, String destination) {
+        return DomainRoute.DomainRouteKey.newBuilder().setSource(source).setDestination(destination).build();
+    }
+}
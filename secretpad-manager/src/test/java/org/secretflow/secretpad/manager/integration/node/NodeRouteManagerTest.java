@@ -20,6 +20,7 @@ import org.secretflow.secretpad.common.constant.DomainRouterConstants;
 import org.secretflow.secretpad.common.errorcode.NodeRouteErrorCode;
 import org.secretflow.secretpad.common.exception.SecretpadException;
 import org.secretflow.secretpad.kuscia.v1alpha1.service.impl.KusciaGrpcClientAdapter;
+import org.secretflow.secretpad.manager.integration.health.KusciaHealthSnapshot;
 import org.secretflow.secretpad.manager.integration.model.CreateNodeRouteParam;
 import org.secretflow.secretpad.manager.integration.noderoute.NodeRouteManager;
 import org.secretflow.secretpad.persistence.entity.NodeDO;
@@ -51,6 +52,9 @@ public class NodeRouteManagerTest {
     @Mock
     private KusciaGrpcClientAdapter kusciaGrpcClientAdapter;
 
+    @Mock
+    private KusciaHealthSnapshot kusciaHealthSnapshot;
+
     @InjectMocks
     private NodeRouteManager nodeRouteManager;
 
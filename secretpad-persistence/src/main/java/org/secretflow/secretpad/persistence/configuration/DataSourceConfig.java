@@ -17,13 +17,17 @@
 package org.secretflow.secretpad.persistence.configuration;
 
 import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.jdbc.DataSourceBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.sqlite.SQLiteConfig;
 
 import javax.sql.DataSource;
 
@@ -31,13 +35,18 @@ import javax.sql.DataSource;
  * @author yutu
  * @date 2024/08/23
  */
+@Slf4j
 @Configuration
 public class DataSourceConfig {
 
-    @Primary
-    @Bean(name = "defaultDataSource")
+    private static final String SQLITE_URL_PREFIX = "jdbc:sqlite:";
+
+    /**
+     * The only connection writing the default database
+     */
+    @Bean(name = "defaultWriteDataSource")
     @ConfigurationProperties("spring.datasource.default")
-    public DataSource defaultDataSource() {
+    public HikariDataSource defaultWriteDataSource() {
         HikariDataSource hikariDataSource = DataSourceBuilder.create().type(HikariDataSource.class).build();
         hikariDataSource.setMaximumPoolSize(1);
         hikariDataSource.setMinimumIdle(1);
@@ -46,6 +55,46 @@ public class DataSourceConfig {
         return hikariDataSource;
     }
 
+    /**
+     * Default database, sqlite in wal mode serves read only transactions from a pool of read only connections
+     * and everything else from the write connection; other databases are served by the write connection alone
+     */
+    @Primary
+    @Bean(name = "defaultDataSource")
+    public DataSource defaultDataSource(@Qualifier("defaultWriteDataSource") HikariDataSource writeDataSource,
+                                        @Value("${secretpad.datasource.sqlite.wal:true}") boolean wal,
+                                        @Value("${secretpad.datasource.sqlite.read-pool-size:4}") int readPoolSize,
+                                        @Value("${secretpad.datasource.sqlite.busy-timeout-ms:5000}") int busyTimeoutMillis,
+                                        @Value("${secretpad.datasource.sqlite.synchronous:FULL}") String synchronous) {
+        String jdbcUrl = writeDataSource.getJdbcUrl();
+        if (!wal || jdbcUrl == null || !jdbcUrl.startsWith(SQLITE_URL_PREFIX) || jdbcUrl.contains(":memory:")) {
+            return writeDataSource;
+        }
+        SQLiteConfig writeConfig = new SQLiteConfig();
+        writeConfig.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        // FULL syncs the wal on every commit. NORMAL only syncs it at checkpoints: the database stays consistent,
+        // but commits since the last checkpoint can be lost on power failure or os crash, not on process crash
+        writeConfig.setSynchronous(SQLiteConfig.SynchronousMode.valueOf(synchronous.trim().toUpperCase()));
+        writeConfig.setBusyTimeout(busyTimeoutMillis);
+        writeConfig.toProperties().forEach((k, v) -> writeDataSource.getDataSourceProperties().putIfAbsent(k, v));
+
+        SQLiteConfig readConfig = new SQLiteConfig();
+        readConfig.setReadOnly(true);
+        readConfig.setBusyTimeout(busyTimeoutMillis);
+        HikariDataSource readDataSource = new HikariDataSource();
+        readDataSource.setPoolName(writeDataSource.getPoolName() == null ? "default-read" : writeDataSource.getPoolName() + "-read");
+        readDataSource.setDriverClassName(writeDataSource.getDriverClassName());
+        readDataSource.setJdbcUrl(jdbcUrl);
+        readConfig.toProperties().forEach((k, v) -> readDataSource.getDataSourceProperties().put(k, v));
+        readDataSource.setMaximumPoolSize(readPoolSize);
+        readDataSource.setMinimumIdle(1);
+        readDataSource.setConnectionTimeout(20000);
+        readDataSource.setIdleTimeout(60000);
+        log.info("sqlite {} in wal mode, synchronous {}, {} read connections", jdbcUrl, synchronous, readPoolSize);
+        // the write connection switches the database to wal before any read connection is opened
+        return new SqliteWalDataSource(writeDataSource, readDataSource);
+    }
+
     @Bean(name = "quartzDataSource")
     @ConfigurationProperties("spring.datasource.quartz")
     public DataSource quartzDataSource() {
@@ -66,4 +115,23 @@ public class DataSourceConfig {
     public JdbcTemplate quartzJdbcTemplate(@Qualifier("quartzDataSource") DataSource dataSource) {
         return new JdbcTemplate(dataSource);
     }
+
+    /**
+     * Routes connections of read only transactions to the read pool, the read pool is closed with the bean
+     */
+    static class SqliteWalDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+        private final HikariDataSource readDataSource;
+
+        SqliteWalDataSource(DataSource writeDataSource, HikariDataSource readDataSource) {
+            super(writeDataSource);
+            this.readDataSource = readDataSource;
+            setReadOnlyDataSource(readDataSource);
+        }
+
+        @Override
+        public void close() {
+            readDataSource.close();
+        }
+    }
 }
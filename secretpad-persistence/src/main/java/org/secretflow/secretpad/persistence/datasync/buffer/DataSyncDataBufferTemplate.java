@@ -16,12 +16,11 @@
 
 package org.secretflow.secretpad.persistence.datasync.buffer;
 
-import org.secretflow.secretpad.common.util.UniqueLinkedBlockingQueue;
 import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
 import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
 
 import java.io.IOException;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
 
 /**
  * @author yutu
@@ -29,9 +28,6 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public abstract class DataSyncDataBufferTemplate {
 
-    protected static ConcurrentHashMap<String, UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>>>
-            QUEUE_MAP = new ConcurrentHashMap<>(16);
-
     /**
      * push data at end of buffer
      */
@@ -50,6 +46,13 @@ public abstract class DataSyncDataBufferTemplate {
 
     public abstract int size(String nodeId);
 
+    /**
+     * put polled data back at first of buffer in the given order, the buffer without order keeps them at end
+     */
+    public void requeue(String nodeId, List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events) {
+        events.forEach(this::push);
+    }
+
     public abstract void commit(String nodeId, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event);
 
     public abstract void endurance(String nodeId) throws IOException;
@@ -22,9 +22,9 @@ import org.secretflow.secretpad.persistence.datasync.event.P2pDataSyncSendEvent;
 import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
 import org.secretflow.secretpad.persistence.datasync.producer.p2p.P2pDataSyncProducerTemplate;
 import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
-import org.secretflow.secretpad.persistence.model.DbChangeAction;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
@@ -36,10 +36,21 @@ import org.springframework.util.ObjectUtils;
 import org.springframework.util.ResourceUtils;
 
 import java.io.*;
-import java.util.Iterator;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
+ * P2P data sync buffer, every node owns a queue in memory and an append-only segmented log on disk
+ *
  * @author yutu
  * @date 2023/12/10
  */
@@ -47,14 +58,27 @@ import java.util.List;
 @RequiredArgsConstructor
 public class P2PDataSyncDataBufferTemplate extends DataSyncDataBufferTemplate {
 
-    private final Object lock = new Object();
+    /**
+     * suffix of a legacy buffer file moved aside until migrated
+     */
+    private static final String LEGACY_SUFFIX = ".legacy";
+
+    private final Map<String, P2pDataSyncNodeQueue> queues = new ConcurrentHashMap<>(16);
+    private final Map<String, P2pDataSyncSegmentLog> segmentLogs = new ConcurrentHashMap<>(16);
     private final ApplicationEventPublisher applicationEventPublisher;
     @Value("${secretpad.sync-path:./config/sync/}")
     @Setter
     private String syncPath;
+    @Value("${secretpad.datasync.p2p-log.segment-max-bytes:16777216}")
+    @Setter
+    private long segmentMaxBytes = 16 * 1024 * 1024;
+    @Value("${secretpad.datasync.p2p-log.compact-interval-seconds:60}")
+    @Setter
+    private long compactIntervalSeconds = 60;
+    private ScheduledExecutorService compactExecutor;
 
     /**
-     * push data at end of buffer
+     * push data at end of buffer, every node gets its own copy of event
      *
      * @param event
      */
@@ -68,30 +92,13 @@ public class P2PDataSyncDataBufferTemplate extends DataSyncDataBufferTemplate {
             if (nodeId.equals(P2pDataSyncProducerTemplate.instId)) {
                 return;
             }
-            event.setDstNode(nodeId);
-            log.debug("p2pDayaSyncDataBufferTemplate push data {} {}", nodeId, event);
-            UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> queue = QUEUE_MAP.getOrDefault(nodeId, new UniqueLinkedBlockingQueue<>());
-            Iterator<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> iterator = queue.iterator();
-            while (iterator.hasNext()) {
-                EntityChangeListener.DbChangeEvent<BaseAggregationRoot> next = iterator.next();
-                BaseAggregationRoot nextSource = next.getSource();
-                BaseAggregationRoot eventSource = event.getSource();
-                if (ObjectUtils.isEmpty(nextSource.getId()) || ObjectUtils.isEmpty(eventSource.getId())) {
-                    continue;
-                }
-                if (next.getAction().equals(DbChangeAction.UPDATE.val) && next.getDType().equals(event.getDType()) && nextSource.getId().equals(eventSource.getId())) {
-                    iterator.remove();
-                    log.debug("data sync queue remove some update db action {}", iterator);
-                }
-            }
-            try {
-                queue.put(event);
-            } catch (InterruptedException e) {
-                log.error("p2pDayaSyncDataBufferTemplate push data error", e);
+            EntityChangeListener.DbChangeEvent<BaseAggregationRoot> nodeEvent = nodeId.equals(event.getDstNode()) ? event :
+                    new EntityChangeListener.DbChangeEvent<>(nodeId, event.getAction(), event.getDType(), event.getProjectId(), event.getNodeIds(), event.getSource());
+            log.debug("p2pDayaSyncDataBufferTemplate push data {} {}", nodeId, nodeEvent);
+            P2pDataSyncNodeQueue queue = queues.computeIfAbsent(nodeId, k -> new P2pDataSyncNodeQueue());
+            if (enqueue(queue, segmentLog(nodeId), nodeEvent, true)) {
+                applicationEventPublisher.publishEvent(new P2pDataSyncSendEvent(this, nodeId));
             }
-            QUEUE_MAP.put(nodeId, queue);
-            endurance(nodeId);
-            applicationEventPublisher.publishEvent(new P2pDataSyncSendEvent(this, nodeId));
         });
     }
 
@@ -100,8 +107,7 @@ public class P2PDataSyncDataBufferTemplate extends DataSyncDataBufferTemplate {
      */
     @Override
     public EntityChangeListener.DbChangeEvent<BaseAggregationRoot> peek(String nodeId) throws InterruptedException {
-        UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> queue =
-                QUEUE_MAP.getOrDefault(nodeId, null);
+        P2pDataSyncNodeQueue queue = queues.get(nodeId);
         return ObjectUtils.isEmpty(queue) ? null : queue.peek();
     }
 
@@ -112,38 +118,64 @@ public class P2PDataSyncDataBufferTemplate extends DataSyncDataBufferTemplate {
      */
     @Override
     public EntityChangeListener.DbChangeEvent<BaseAggregationRoot> poll(String nodeId) throws InterruptedException {
-        UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> queue =
-                QUEUE_MAP.getOrDefault(nodeId, null);
+        P2pDataSyncNodeQueue queue = queues.get(nodeId);
         return ObjectUtils.isEmpty(queue) ? null : queue.poll();
     }
 
     @Override
     public int size(String nodeId) {
-        UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> queue =
-                QUEUE_MAP.getOrDefault(nodeId, null);
+        P2pDataSyncNodeQueue queue = queues.get(nodeId);
         return ObjectUtils.isEmpty(queue) ? 0 : queue.size();
     }
 
+    /**
+     * put polled data back at first of buffer in the given order, folding with the data pushed meanwhile
+     */
+    @Override
+    public void requeue(String nodeId, List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        P2pDataSyncNodeQueue queue = queues.computeIfAbsent(nodeId, k -> new P2pDataSyncNodeQueue());
+        P2pDataSyncSegmentLog segmentLog = segmentLog(nodeId);
+        synchronized (queue) {
+            List<P2pDataSyncNodeQueue.Offer> offers = queue.requeue(events);
+            for (int i = 0; i < offers.size(); i++) {
+                P2pDataSyncNodeQueue.Offer offer = offers.get(i);
+                offer.superseded().forEach(superseded -> appendCommit(segmentLog, superseded));
+                // a polled event is still live in the log, only a folded one has to be logged
+                if (offer.added() != null && offer.added() != events.get(i)) {
+                    appendPush(segmentLog, offer.added());
+                }
+            }
+        }
+        log.info("{} requeue {} events", nodeId, events.size());
+    }
+
     @Override
     public void commit(String nodeId, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
-        UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> queue =
-                QUEUE_MAP.getOrDefault(nodeId, null);
-        queue.remove(event);
-        endurance(nodeId);
+        P2pDataSyncNodeQueue queue = queues.get(nodeId);
+        if (queue == null) {
+            return;
+        }
+        synchronized (queue) {
+            queue.remove(event);
+            appendCommit(segmentLog(nodeId), event);
+        }
         log.info("{} commit {}", nodeId, event);
     }
 
+    /**
+     * force the appended log records of node to disk
+     */
     @Override
     public void endurance(String nodeId) {
-        UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> queue =
-                QUEUE_MAP.getOrDefault(nodeId, null);
-        synchronized (lock) {
-            if (queue != null) {
-                try {
-                    serializableWrite(nodeId, queue);
-                } catch (Exception e) {
-                    log.error("serializableWrite error", e);
-                }
+        P2pDataSyncSegmentLog segmentLog = segmentLogs.get(nodeId);
+        if (segmentLog != null) {
+            try {
+                segmentLog.force();
+            } catch (IOException e) {
+                log.error("p2p data sync log force error", e);
             }
         }
     }
@@ -152,50 +184,175 @@ public class P2PDataSyncDataBufferTemplate extends DataSyncDataBufferTemplate {
     public void init() throws IOException {
         File file = ResourceUtils.getFile(syncPath);
         File[] files = file.listFiles();
-        if (files == null) {
-            return;
-        }
-        for (File f : files) {
-            if (f.isFile()) {
-                String nodeId = f.getName();
-                QUEUE_MAP.put(nodeId, serializableRead(nodeId));
+        if (files != null) {
+            Set<String> nodeIds = new LinkedHashSet<>();
+            for (File f : files) {
+                String name = f.getName();
+                if (f.isFile() && !name.endsWith(LEGACY_SUFFIX)) {
+                    // the legacy buffer has the name of the log directory of the node, move it aside until migrated
+                    Files.move(f.toPath(), f.toPath().resolveSibling(name + LEGACY_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+                }
+                nodeIds.add(name.endsWith(LEGACY_SUFFIX) ? name.substring(0, name.length() - LEGACY_SUFFIX.length()) : name);
+            }
+            for (String nodeId : nodeIds) {
+                P2pDataSyncSegmentLog segmentLog = segmentLog(nodeId);
+                P2pDataSyncNodeQueue queue = queues.computeIfAbsent(nodeId, k -> new P2pDataSyncNodeQueue());
+                if (segmentLog != null) {
+                    segmentLog.liveEvents().forEach(event -> enqueue(queue, segmentLog, event, false));
+                }
+                migrateLegacy(file.toPath().resolve(nodeId + LEGACY_SUFFIX), nodeId, queue, segmentLog);
                 applicationEventPublisher.publishEvent(new P2pDataSyncSendEvent(this, nodeId));
             }
         }
+        compactExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "p2p-data-sync-log-compact");
+            thread.setDaemon(true);
+            return thread;
+        });
+        compactExecutor.scheduleWithFixedDelay(this::compact, compactIntervalSeconds, compactIntervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (compactExecutor != null) {
+            compactExecutor.shutdownNow();
+        }
+        segmentLogs.forEach((nodeId, segmentLog) -> {
+            try {
+                segmentLog.force();
+                segmentLog.close();
+            } catch (IOException e) {
+                log.error("p2p data sync log close error {}", nodeId, e);
+            }
+        });
+    }
+
+    /**
+     * compact the log of every node in background
+     */
+    public void compact() {
+        segmentLogs.forEach((nodeId, segmentLog) -> {
+            try {
+                segmentLog.compactIfNeeded();
+            } catch (Exception e) {
+                log.error("p2p data sync log compact error {}", nodeId, e);
+            }
+        });
     }
 
-    public void serializableWrite(String nodeId, UniqueLinkedBlockingQueue queue) throws IOException {
-        log.info("serializableWrite ---{}", queue.size());
-        ObjectOutputStream os = null;
+    /**
+     * read the legacy whole queue snapshot written by ObjectOutputStream
+     *
+     * @return null if there is none or it can't be read
+     */
+    public UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> serializableRead(String nodeId) throws IOException {
         File file = ResourceUtils.getFile(syncPath + nodeId);
-        if (!file.exists() && file.getParentFile().mkdirs() && !file.createNewFile()) {
-            log.error("create serializableWrite file error");
+        if (!file.isFile()) {
+            return null;
+        }
+        return readLegacy(file);
+    }
+
+    /**
+     * append the events of the legacy buffer to the log of the node and delete the buffer once they are on disk,
+     * a buffer that can't be read or logged is kept and migrated again on next start
+     */
+    private void migrateLegacy(Path legacyPath, String nodeId, P2pDataSyncNodeQueue queue, P2pDataSyncSegmentLog segmentLog) {
+        if (!Files.isRegularFile(legacyPath)) {
+            return;
+        }
+        UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> legacy = readLegacy(legacyPath.toFile());
+        if (legacy == null) {
+            log.error("keep unreadable legacy p2p data sync buffer {}", legacyPath);
+            return;
+        }
+        log.info("migrate legacy p2p data sync buffer {} {}", nodeId, legacy.size());
+        legacy.forEach(event -> enqueue(queue, segmentLog, event, true));
+        if (segmentLog == null) {
+            log.error("keep legacy p2p data sync buffer {}, the log of the node can't be opened", legacyPath);
+            return;
         }
         try {
-            os = new ObjectOutputStream(new FileOutputStream(file));
-            os.writeObject(queue);
-        } finally {
-            IOUtils.closeQuietly(os);
+            segmentLog.force();
+            Files.delete(legacyPath);
+        } catch (IOException e) {
+            log.error("keep legacy p2p data sync buffer {}, migrated events are not on disk", legacyPath, e);
         }
     }
 
-    public UniqueLinkedBlockingQueue serializableRead(String nodeId) throws IOException {
+    /**
+     * @return null if the file can't be read
+     */
+    @SuppressWarnings("unchecked")
+    private UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> readLegacy(File file) {
         ObjectInputStream in = null;
-        UniqueLinkedBlockingQueue queue = new UniqueLinkedBlockingQueue();
-        File file = ResourceUtils.getFile(syncPath + nodeId);
-        if (!file.exists()) {
-            return null;
-        }
+        UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> queue;
         try {
             in = new ObjectInputStream(new FileInputStream(file));
-            queue = (UniqueLinkedBlockingQueue) in.readObject();
+            queue = (UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>>) in.readObject();
         } catch (Exception e) {
             log.error("serializableRead error ", e);
+            return null;
         } finally {
             IOUtils.closeQuietly(in);
         }
-        log.info("serializableRead ---{} {}", nodeId, queue.size());
+        log.info("serializableRead ---{} {}", file.getName(), queue.size());
         return queue;
     }
 
-}
\ No newline at end of file
+    /**
+     * offer event to queue of node and record the result in its log
+     *
+     * @param logPush whether the event itself needs a push record, false when replaying the log
+     * @return true if the event is queued
+     */
+    private boolean enqueue(P2pDataSyncNodeQueue queue, P2pDataSyncSegmentLog segmentLog,
+                            EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event, boolean logPush) {
+        synchronized (queue) {
+            P2pDataSyncNodeQueue.Offer offer = queue.offer(event);
+            offer.superseded().forEach(superseded -> {
+                log.debug("data sync queue fold {} into {}", superseded, offer.added());
+                appendCommit(segmentLog, superseded);
+            });
+            if (offer.added() != null && (logPush || offer.added() != event)) {
+                appendPush(segmentLog, offer.added());
+            }
+            return offer.added() != null;
+        }
+    }
+
+    private P2pDataSyncSegmentLog segmentLog(String nodeId) {
+        return segmentLogs.computeIfAbsent(nodeId, k -> {
+            try {
+                Path dir = ResourceUtils.getFile(syncPath).toPath().resolve(k);
+                return P2pDataSyncSegmentLog.open(dir, segmentMaxBytes);
+            } catch (IOException e) {
+                log.error("open p2p data sync log error {}", k, e);
+                return null;
+            }
+        });
+    }
+
+    private void appendPush(P2pDataSyncSegmentLog segmentLog, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        if (segmentLog == null) {
+            return;
+        }
+        try {
+            segmentLog.appendPush(event);
+        } catch (IOException e) {
+            log.error("p2p data sync log append push error", e);
+        }
+    }
+
+    private void appendCommit(P2pDataSyncSegmentLog segmentLog, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        if (segmentLog == null) {
+            return;
+        }
+        try {
+            segmentLog.appendCommit(event);
+        } catch (IOException e) {
+            log.error("p2p data sync log append commit error", e);
+        }
+    }
+
+}
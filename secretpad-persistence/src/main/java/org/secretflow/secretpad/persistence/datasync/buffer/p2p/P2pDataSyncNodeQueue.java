@@ -0,0 +1,225 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync.buffer.p2p;
+
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+
+import java.util.*;
+
+/**
+ * Pending events of one node in push order, indexed by (dType, entity id) so that a new event
+ * of an entity folds into the queued one in O(1):
+ * <ul>
+ *     <li>CREATE then UPDATE: the queued CREATE keeps its slot and carries the new data</li>
+ *     <li>otherwise, e.g. UPDATE then UPDATE or REMOVE: the queued event is dropped, the new event goes to the end</li>
+ *     <li>an event equal to the queued one is ignored</li>
+ * </ul>
+ * Entities without db id are indexed by source instance.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+public class P2pDataSyncNodeQueue {
+
+    private final LinkedHashMap<Long, Slot> slots = new LinkedHashMap<>();
+    private final Map<Object, Slot> index = new HashMap<>();
+    private long nextSeq;
+
+    /**
+     * offer an event at end of queue
+     *
+     * @return the result of folding, superseded events have left the queue
+     */
+    public synchronized Offer offer(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        Object key = key(event);
+        Slot prev = index.get(key);
+        if (prev == null) {
+            append(key, event);
+            return new Offer(event, List.of());
+        }
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> queued = prev.event;
+        if (queued == event || queued.equals(event)) {
+            return new Offer(null, List.of());
+        }
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> folded = fold(queued, event);
+        if (folded != null) {
+            prev.event = folded;
+            return new Offer(folded, List.of(queued));
+        }
+        // any other pair: the new event carries the latest state, unlink the queued one so no slot is orphaned
+        slots.remove(prev.seq);
+        index.remove(key);
+        append(key, event);
+        return new Offer(event, List.of(queued));
+    }
+
+    /**
+     * put polled events back at head of queue in the given order, e.g. batches which failed or were not acknowledged.
+     * An event of an entity queued meanwhile folds with the same rules as offer, the older event being the polled one.
+     *
+     * @return the result of folding of each event, in the given order
+     */
+    public synchronized List<Offer> requeue(List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events) {
+        LinkedHashMap<Long, Slot> head = new LinkedHashMap<>();
+        List<Offer> offers = new ArrayList<>(events.size());
+        for (EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event : events) {
+            Object key = key(event);
+            Slot queued = index.get(key);
+            if (queued == null) {
+                Slot slot = new Slot(nextSeq++, key, event);
+                head.put(slot.seq, slot);
+                index.put(key, slot);
+                offers.add(new Offer(event, List.of()));
+                continue;
+            }
+            // the queued event is older if it has been requeued by this call, newer otherwise
+            boolean queuedOlder = head.containsKey(queued.seq);
+            EntityChangeListener.DbChangeEvent<BaseAggregationRoot> older = queuedOlder ? queued.event : event;
+            EntityChangeListener.DbChangeEvent<BaseAggregationRoot> newer = queuedOlder ? event : queued.event;
+            if (older.equals(newer)) {
+                offers.add(new Offer(null, List.of(event)));
+                continue;
+            }
+            EntityChangeListener.DbChangeEvent<BaseAggregationRoot> folded = fold(older, newer);
+            if (folded != null) {
+                // the create keeps the position of the older event
+                if (queuedOlder) {
+                    queued.event = folded;
+                } else {
+                    slots.remove(queued.seq);
+                    Slot slot = new Slot(nextSeq++, key, folded);
+                    head.put(slot.seq, slot);
+                    index.put(key, slot);
+                }
+                offers.add(new Offer(folded, List.of(older, newer)));
+            } else if (queuedOlder) {
+                head.remove(queued.seq);
+                Slot slot = new Slot(nextSeq++, key, event);
+                head.put(slot.seq, slot);
+                index.put(key, slot);
+                offers.add(new Offer(event, List.of(older)));
+            } else {
+                offers.add(new Offer(null, List.of(event)));
+            }
+        }
+        head.putAll(slots);
+        slots.clear();
+        slots.putAll(head);
+        return offers;
+    }
+
+    public synchronized EntityChangeListener.DbChangeEvent<BaseAggregationRoot> peek() {
+        Iterator<Slot> iterator = slots.values().iterator();
+        return iterator.hasNext() ? iterator.next().event : null;
+    }
+
+    public synchronized EntityChangeListener.DbChangeEvent<BaseAggregationRoot> poll() {
+        Iterator<Slot> iterator = slots.values().iterator();
+        if (!iterator.hasNext()) {
+            return null;
+        }
+        Slot head = iterator.next();
+        iterator.remove();
+        index.remove(head.key, head);
+        return head.event;
+    }
+
+    /**
+     * remove the queued event, no-op if it has been polled or superseded
+     */
+    public synchronized boolean remove(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        Object key = key(event);
+        Slot slot = index.get(key);
+        if (slot == null || slot.event != event) {
+            return false;
+        }
+        slots.remove(slot.seq);
+        index.remove(key);
+        return true;
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    private void append(Object key, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        Slot slot = new Slot(nextSeq++, key, event);
+        slots.put(slot.seq, slot);
+        index.put(key, slot);
+    }
+
+    /**
+     * @return a create carrying the data of the newer event if the older one is a create it folds into, null otherwise
+     */
+    private static EntityChangeListener.DbChangeEvent<BaseAggregationRoot> fold(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> older,
+                                                                               EntityChangeListener.DbChangeEvent<BaseAggregationRoot> newer) {
+        String action = newer.getAction();
+        if (DbChangeAction.CREATE.val.equals(older.getAction())
+                && (DbChangeAction.UPDATE.val.equals(action) || DbChangeAction.CREATE.val.equals(action))) {
+            return new EntityChangeListener.DbChangeEvent<>(
+                    newer.getDstNode(), DbChangeAction.CREATE.val, newer.getDType(), newer.getProjectId(), newer.getNodeIds(), newer.getSource());
+        }
+        return null;
+    }
+
+    private static Object key(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        BaseAggregationRoot source = event.getSource();
+        if (source == null || source.getId() == null) {
+            return new SourceKey(event.getDType(), source);
+        }
+        return new EntityKey(event.getDType(), source.getId());
+    }
+
+    /**
+     * result of offer
+     *
+     * @param added      event queued by this offer, null if it is a duplicate
+     * @param superseded events dropped from queue by this offer
+     */
+    public record Offer(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> added,
+                        List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> superseded) {
+    }
+
+    private static final class Slot {
+        private final long seq;
+        private final Object key;
+        private EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event;
+
+        private Slot(long seq, Object key, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+            this.seq = seq;
+            this.key = key;
+            this.event = event;
+        }
+    }
+
+    private record EntityKey(String dType, Long id) {
+    }
+
+    private record SourceKey(String dType, Object source) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof SourceKey other && Objects.equals(dType, other.dType) && source == other.source;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(dType, System.identityHashCode(source));
+        }
+    }
+}
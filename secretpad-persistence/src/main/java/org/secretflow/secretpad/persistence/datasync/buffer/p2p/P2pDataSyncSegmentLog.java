@@ -0,0 +1,277 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync.buffer.p2p;
+
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only segmented write-ahead log of one node's p2p data sync buffer.
+ * <p>
+ * Every push appends a PUSH record carrying the serialized event, every commit appends a COMMIT record
+ * carrying the sequence of the pushed record. Replaying the segments in order restores the pending events.
+ * Record layout: length(int) crc(int) type(byte) seq(long) payload(bytes).
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+public class P2pDataSyncSegmentLog implements Closeable {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final byte PUSH = 1;
+    private static final byte COMMIT = 2;
+    private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES;
+    private static final int RECORD_META_SIZE = Byte.BYTES + Long.BYTES;
+
+    private final Path dir;
+    private final long segmentMaxBytes;
+    /**
+     * live records by seq, in push order
+     */
+    private final LinkedHashMap<Long, EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> live = new LinkedHashMap<>();
+    /**
+     * the same event instance may be pushed to many nodes and mutated, so it is tracked by identity
+     */
+    private final Map<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>, Long> seqByEvent = new IdentityHashMap<>();
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+
+    private FileChannel active;
+    private long activeId;
+    private long nextSeq;
+    private long totalRecords;
+
+    private P2pDataSyncSegmentLog(Path dir, long segmentMaxBytes) {
+        this.dir = dir;
+        this.segmentMaxBytes = segmentMaxBytes;
+    }
+
+    /**
+     * open the log of a node, replaying all segments found in dir
+     */
+    public static P2pDataSyncSegmentLog open(Path dir, long segmentMaxBytes) throws IOException {
+        P2pDataSyncSegmentLog segmentLog = new P2pDataSyncSegmentLog(dir, segmentMaxBytes);
+        Files.createDirectories(dir);
+        segmentLog.replay();
+        return segmentLog;
+    }
+
+    /**
+     * pending events in push order
+     */
+    public synchronized List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> liveEvents() {
+        return new ArrayList<>(live.values());
+    }
+
+    public synchronized void appendPush(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) throws IOException {
+        long seq = nextSeq++;
+        write(PUSH, seq, serialize(event));
+        live.put(seq, event);
+        seqByEvent.put(event, seq);
+    }
+
+    public synchronized void appendCommit(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) throws IOException {
+        Long seq = seqByEvent.remove(event);
+        if (seq == null) {
+            return;
+        }
+        live.remove(seq);
+        write(COMMIT, seq, new byte[0]);
+    }
+
+    /**
+     * flush appended records to the storage device
+     */
+    public synchronized void force() throws IOException {
+        if (active != null && active.isOpen()) {
+            active.force(false);
+        }
+    }
+
+    /**
+     * rewrite live records into a fresh segment and drop the older ones, once every record has been committed,
+     * or once more than one segment exists and committed records outnumber the pending ones
+     */
+    public synchronized boolean compactIfNeeded() throws IOException {
+        // all committed: the commits have passed the end of the active segment, which may never fill up
+        boolean drained = live.isEmpty() && totalRecords > 0;
+        if (!drained && (segments.size() < 2 || totalRecords - live.size() <= live.size())) {
+            return false;
+        }
+        Map<Long, Path> old = new TreeMap<>(segments);
+        rollSegment();
+        totalRecords = 0;
+        for (Map.Entry<Long, EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> entry : live.entrySet()) {
+            writeRecord(PUSH, entry.getKey(), serialize(entry.getValue()));
+        }
+        active.force(false);
+        for (Map.Entry<Long, Path> entry : old.entrySet()) {
+            Files.deleteIfExists(entry.getValue());
+            segments.remove(entry.getKey());
+        }
+        log.info("p2p data sync log {} compacted, {} live records", dir.getFileName(), live.size());
+        return true;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (active != null) {
+            active.close();
+        }
+    }
+
+    private void write(byte type, long seq, byte[] payload) throws IOException {
+        if (active == null || active.size() >= segmentMaxBytes) {
+            rollSegment();
+        }
+        writeRecord(type, seq, payload);
+    }
+
+    private void writeRecord(byte type, long seq, byte[] payload) throws IOException {
+        ByteBuffer body = ByteBuffer.allocate(RECORD_META_SIZE + payload.length);
+        body.put(type).putLong(seq).put(payload).flip();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(body.remaining()).putInt((int) crc.getValue()).flip();
+        ByteBuffer[] record = {header, body};
+        while (header.hasRemaining() || body.hasRemaining()) {
+            active.write(record);
+        }
+        totalRecords++;
+    }
+
+    private void rollSegment() throws IOException {
+        if (active != null) {
+            active.close();
+        }
+        activeId++;
+        Path segment = dir.resolve(String.format("%020d%s", activeId, SEGMENT_SUFFIX));
+        active = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segments.put(activeId, segment);
+    }
+
+    private void replay() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).forEach(p -> {
+                String name = p.getFileName().toString();
+                segments.put(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())), p);
+            });
+        }
+        for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+            replaySegment(entry.getValue());
+            activeId = entry.getKey();
+        }
+        for (Map.Entry<Long, EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> entry : live.entrySet()) {
+            seqByEvent.put(entry.getValue(), entry.getKey());
+        }
+        // never append behind a possibly torn tail, start a fresh segment instead
+        active = null;
+        log.info("p2p data sync log {} replayed, {} segments, {} live records", dir.getFileName(), segments.size(), live.size());
+    }
+
+    private void replaySegment(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (true) {
+                header.clear();
+                if (readFully(channel, header) < HEADER_SIZE) {
+                    return;
+                }
+                header.flip();
+                int length = header.getInt();
+                int checksum = header.getInt();
+                if (length < RECORD_META_SIZE || length > channel.size()) {
+                    log.warn("p2p data sync log {} corrupted record length {}, skip the rest", segment, length);
+                    return;
+                }
+                ByteBuffer body = ByteBuffer.allocate(length);
+                if (readFully(channel, body) < length) {
+                    log.warn("p2p data sync log {} torn record, skip the rest", segment);
+                    return;
+                }
+                body.flip();
+                CRC32 crc = new CRC32();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    log.warn("p2p data sync log {} checksum mismatch, skip the rest", segment);
+                    return;
+                }
+                applyRecord(body);
+            }
+        }
+    }
+
+    private void applyRecord(ByteBuffer body) {
+        byte type = body.get();
+        long seq = body.getLong();
+        nextSeq = Math.max(nextSeq, seq + 1);
+        totalRecords++;
+        if (type == COMMIT) {
+            live.remove(seq);
+            return;
+        }
+        byte[] payload = new byte[body.remaining()];
+        body.get(payload);
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = deserialize(payload);
+        if (event != null) {
+            live.put(seq, event);
+        }
+    }
+
+    private static int readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        int total = 0;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+
+    private static byte[] serialize(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (ObjectOutputStream os = new ObjectOutputStream(bytes)) {
+            os.writeObject(event);
+        }
+        return bytes.toByteArray();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static EntityChangeListener.DbChangeEvent<BaseAggregationRoot> deserialize(byte[] payload) {
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(payload))) {
+            return (EntityChangeListener.DbChangeEvent<BaseAggregationRoot>) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            log.error("p2p data sync log deserialize error, skip record", e);
+            return null;
+        }
+    }
+}
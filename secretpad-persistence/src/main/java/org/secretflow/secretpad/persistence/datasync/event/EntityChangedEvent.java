@@ -0,0 +1,45 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync.event;
+
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Local change of an entity, published by EntityChangeListener for every change including the ones applied from sync,
+ * so that in memory caches can be invalidated. Listeners run inside the transaction of the change.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@ToString
+@Getter
+public class EntityChangedEvent extends ApplicationEvent {
+
+    private final DbChangeAction action;
+
+    private final Object entity;
+
+    public EntityChangedEvent(Object source, DbChangeAction action, Object entity) {
+        super(source);
+        this.action = action;
+        this.entity = entity;
+    }
+}
@@ -18,12 +18,12 @@ package org.secretflow.secretpad.persistence.datasync.listener;
 
 import org.secretflow.secretpad.common.util.DataSyncConsumerContext;
 import org.secretflow.secretpad.common.util.SpringContextUtil;
-import org.secretflow.secretpad.persistence.datasync.producer.AbstractDataSyncProducerTemplate;
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.datasync.outbox.DataSyncOutbox;
 import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
 import org.secretflow.secretpad.persistence.entity.ProjectNodesInfo;
 import org.secretflow.secretpad.persistence.model.DbChangeAction;
 
-import jakarta.annotation.Resource;
 import jakarta.persistence.PostPersist;
 import jakarta.persistence.PostRemove;
 import jakarta.persistence.PostUpdate;
@@ -39,50 +39,58 @@ import java.util.List;
 
 /**
  * DataSyncProducerTemplate
+ * <p>
+ * Every change is published as {@link EntityChangedEvent}, changes of {@link BaseAggregationRoot} not applied from
+ * sync are recorded in the {@link DataSyncOutbox} within the transaction, and pushed to the producer after commit.
  *
  * @author yutu
  * @date 2023/12/06
  */
 @Slf4j
 @Component
-@DependsOn(value = {"springContextUtil", "dataSyncProducerTemplate"})
+@DependsOn(value = {"springContextUtil"})
 @SuppressWarnings(value = {"rawtypes"})
 public class EntityChangeListener {
-    @Resource
-    private AbstractDataSyncProducerTemplate dataSyncProducerTemplate;
+    /**
+     * looked up on first use, the outbox depends on the entity manager factory creating this listener
+     */
+    private DataSyncOutbox dataSyncOutbox;
 
     @PostUpdate
-    public void postUpdate(BaseAggregationRoot o) {
-        loadAbstractDataSyncProducerTemplate();
-        if (!DataSyncConsumerContext.sync()) {
+    public void postUpdate(Object o) {
+        SpringContextUtil.publishEvent(new EntityChangedEvent(this, DbChangeAction.UPDATE, o));
+        if (o instanceof BaseAggregationRoot root && !DataSyncConsumerContext.sync()) {
+            loadDataSyncOutbox();
             log.debug("************************ EntityChangeListener postUpdate {}", o.getClass().getName());
-            dataSyncProducerTemplate.push(DbChangeEvent.of(DbChangeAction.UPDATE, o));
+            dataSyncOutbox.append(DbChangeAction.UPDATE, root);
         }
     }
 
     @PostRemove
-    public void postRemove(BaseAggregationRoot o) {
-        loadAbstractDataSyncProducerTemplate();
-        if (!DataSyncConsumerContext.sync()) {
+    public void postRemove(Object o) {
+        SpringContextUtil.publishEvent(new EntityChangedEvent(this, DbChangeAction.REMOVE, o));
+        if (o instanceof BaseAggregationRoot root && !DataSyncConsumerContext.sync()) {
+            loadDataSyncOutbox();
             log.debug("************************ EntityChangeListener postRemove {}", o.getClass().getName());
-            dataSyncProducerTemplate.push(DbChangeEvent.of(DbChangeAction.REMOVE, o));
+            dataSyncOutbox.append(DbChangeAction.REMOVE, root);
         }
     }
 
     @PostPersist
-    public void postCreate(BaseAggregationRoot o) {
-        loadAbstractDataSyncProducerTemplate();
-        if (!DataSyncConsumerContext.sync()) {
+    public void postCreate(Object o) {
+        SpringContextUtil.publishEvent(new EntityChangedEvent(this, DbChangeAction.CREATE, o));
+        if (o instanceof BaseAggregationRoot root && !DataSyncConsumerContext.sync()) {
+            loadDataSyncOutbox();
             log.debug("************************ EntityChangeListener postCreate {}", o.getClass().getName());
-            dataSyncProducerTemplate.push(DbChangeEvent.of(DbChangeAction.CREATE, o));
+            dataSyncOutbox.append(DbChangeAction.CREATE, root);
         }
     }
 
-    private void loadAbstractDataSyncProducerTemplate() {
-        if (ObjectUtils.isEmpty(dataSyncProducerTemplate)) {
-            dataSyncProducerTemplate = SpringContextUtil.getBean(AbstractDataSyncProducerTemplate.class);
-            if (ObjectUtils.isEmpty(dataSyncProducerTemplate)) {
-                log.warn("*************************dataSyncProducerTemplate is null");
+    private void loadDataSyncOutbox() {
+        if (ObjectUtils.isEmpty(dataSyncOutbox)) {
+            dataSyncOutbox = SpringContextUtil.getBean(DataSyncOutbox.class);
+            if (ObjectUtils.isEmpty(dataSyncOutbox)) {
+                log.warn("*************************dataSyncOutbox is null");
             }
         }
     }
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync.outbox;
+
+import org.secretflow.secretpad.common.util.JsonUtils;
+import org.secretflow.secretpad.persistence.datasync.producer.AbstractDataSyncProducerTemplate;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Transactional outbox of entity changes to sync.
+ * <p>
+ * Changes are written to data_sync_outbox on the jdbc connection of the surrounding transaction, so rolled back
+ * writes never reach the sync buffers. Repeated changes of one entity within a transaction are coalesced into the
+ * latest one. {@link DataSyncOutboxRelay} is woken after commit and feeds the rows to the producer in order.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@SuppressWarnings(value = {"rawtypes"})
+public class DataSyncOutbox {
+
+    private static final String INSERT_SQL = "insert into data_sync_outbox (d_type, action, data) values (?, ?, ?)";
+    private static final String DELETE_SQL = "delete from data_sync_outbox where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<AbstractDataSyncProducerTemplate> dataSyncProducerTemplate;
+    private final DataSyncOutboxRelay dataSyncOutboxRelay;
+
+    /**
+     * record the change of entity, called from the jpa callbacks within the flush of the transaction
+     */
+    public void append(DbChangeAction action, BaseAggregationRoot entity) {
+        String dType = entity.getClass().getTypeName();
+        AbstractDataSyncProducerTemplate producer = dataSyncProducerTemplate.getIfAvailable();
+        if (producer == null || !producer.accept(dType)) {
+            return;
+        }
+        String data = JsonUtils.toJSONString(entity);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            insert(dType, action, data);
+            dataSyncOutboxRelay.wakeUp();
+            return;
+        }
+        TransactionRows rows = transactionRows();
+        String key = entityKey(dType, entity);
+        Long previous = key == null ? null : rows.ids.get(key);
+        if (previous != null) {
+            // keep the latest change only, at the position of the latest change
+            jdbcTemplate.update(DELETE_SQL, previous);
+            if (action == DbChangeAction.UPDATE && rows.actions.get(key) == DbChangeAction.CREATE) {
+                action = DbChangeAction.CREATE;
+            }
+        }
+        long id = insert(dType, action, data);
+        if (key != null) {
+            rows.ids.put(key, id);
+            rows.actions.put(key, action);
+        }
+    }
+
+    private long insert(String dType, DbChangeAction action, String data) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, dType);
+            ps.setString(2, action.getVal());
+            ps.setString(3, data);
+            return ps;
+        }, keyHolder);
+        Number key = keyHolder.getKey();
+        return key == null ? -1L : key.longValue();
+    }
+
+    /**
+     * key of the entity within the transaction, null if its identifier can't be resolved and the change is not coalesced
+     */
+    private String entityKey(String dType, BaseAggregationRoot entity) {
+        try {
+            Object identifier = entityManagerFactory.getPersistenceUnitUtil().getIdentifier(entity);
+            return identifier == null ? null : dType + "#" + JsonUtils.toJSONString(identifier);
+        } catch (Exception e) {
+            log.debug("data sync outbox can't resolve identifier of {}", dType, e);
+            return null;
+        }
+    }
+
+    /**
+     * rows written by the current transaction, kept in its synchronization so that an inner transaction which
+     * suspends the current one gets rows of its own
+     */
+    private TransactionRows transactionRows() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof TransactionRows rows && rows.outbox() == this) {
+                return rows;
+            }
+        }
+        TransactionRows rows = new TransactionRows();
+        TransactionSynchronizationManager.registerSynchronization(rows);
+        return rows;
+    }
+
+    private class TransactionRows implements TransactionSynchronization {
+        private final Map<String, Long> ids = new HashMap<>();
+        private final Map<String, DbChangeAction> actions = new HashMap<>();
+
+        private DataSyncOutbox outbox() {
+            return DataSyncOutbox.this;
+        }
+
+        @Override
+        public void afterCommit() {
+            dataSyncOutboxRelay.wakeUp();
+        }
+    }
+}
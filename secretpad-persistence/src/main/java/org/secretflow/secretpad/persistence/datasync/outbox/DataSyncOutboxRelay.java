@@ -0,0 +1,164 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync.outbox;
+
+import org.secretflow.secretpad.common.util.JsonUtils;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.datasync.producer.AbstractDataSyncProducerTemplate;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Relay of data_sync_outbox, reads committed changes in order and feeds them to the producer in batches.
+ * <p>
+ * Rows are deleted once pushed, a crash in between pushes them again on restart. Rows that can't be read are moved
+ * to data_sync_outbox_dead with the error instead, so they neither block the relay nor get lost. It is woken after
+ * each commit writing the outbox and polls as a fallback, e.g. for rows left from the last run.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@SuppressWarnings(value = {"rawtypes", "unchecked"})
+public class DataSyncOutboxRelay {
+
+    private static final String SELECT_SQL = "select id, d_type, action, data from data_sync_outbox order by id limit ?";
+    private static final String DELETE_SQL = "delete from data_sync_outbox where id = ?";
+    private static final String DEAD_LETTER_SQL = "insert into data_sync_outbox_dead (outbox_id, d_type, action, data, error) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectProvider<AbstractDataSyncProducerTemplate> dataSyncProducerTemplate;
+
+    @Value("${secretpad.datasync.outbox.batch-size:200}")
+    private int batchSize;
+    @Value("${secretpad.datasync.outbox.poll-interval-ms:1000}")
+    private long pollIntervalMs;
+
+    private final Semaphore signal = new Semaphore(0);
+    private volatile boolean running;
+    private Thread worker;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "data-sync-outbox-relay");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    public void wakeUp() {
+        if (signal.availablePermits() == 0) {
+            signal.release();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                signal.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                signal.drainPermits();
+                while (running && relay() == batchSize) {
+                    log.debug("data sync outbox has more rows, continue");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("data sync outbox relay error", e);
+            }
+        }
+    }
+
+    /**
+     * push one batch of rows
+     *
+     * @return rows read
+     */
+    public int relay() {
+        AbstractDataSyncProducerTemplate producer = dataSyncProducerTemplate.getIfAvailable();
+        if (producer == null) {
+            return 0;
+        }
+        List<OutboxRow> rows = jdbcTemplate.query(SELECT_SQL,
+                (rs, i) -> new OutboxRow(rs.getLong("id"), rs.getString("d_type"), rs.getString("action"), rs.getString("data")),
+                batchSize);
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events = new ArrayList<>(rows.size());
+        List<Object[]> pushed = new ArrayList<>(rows.size());
+        List<Object[]> dead = new ArrayList<>();
+        for (OutboxRow row : rows) {
+            try {
+                BaseAggregationRoot source = (BaseAggregationRoot) JsonUtils.toJavaObject(row.data(), Class.forName(row.dType()));
+                events.add(EntityChangeListener.DbChangeEvent.of(action(row.action()), source));
+                pushed.add(new Object[]{row.id()});
+            } catch (Exception e) {
+                log.error("data sync outbox row {} of {} can't be read, move to data_sync_outbox_dead", row.id(), row.dType(), e);
+                dead.add(new Object[]{row.id(), row.dType(), row.action(), row.data(), String.valueOf(e)});
+            }
+        }
+        if (!events.isEmpty()) {
+            producer.pushBatch(events);
+            jdbcTemplate.batchUpdate(DELETE_SQL, pushed);
+        }
+        if (!dead.isEmpty()) {
+            // a crash before the delete leaves a duplicate dead row, not a lost one
+            jdbcTemplate.batchUpdate(DEAD_LETTER_SQL, dead);
+            jdbcTemplate.batchUpdate(DELETE_SQL, dead.stream().map(row -> new Object[]{row[0]}).toList());
+        }
+        log.debug("data sync outbox relayed {} rows, {} dead", pushed.size(), dead.size());
+        return rows.size();
+    }
+
+    private static DbChangeAction action(String val) {
+        for (DbChangeAction action : DbChangeAction.values()) {
+            if (action.getVal().equals(val)) {
+                return action;
+            }
+        }
+        throw new IllegalArgumentException("unknown action " + val);
+    }
+
+    private record OutboxRow(long id, String dType, String action, String data) {
+    }
+}
@@ -26,6 +26,8 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 
+import java.util.List;
+
 /**
  * DataSyncProducerTemplate
  *
@@ -42,6 +44,16 @@ public abstract class AbstractDataSyncProducerTemplate {
     @Setter
     public String platformType;
 
+    /**
+     * whether changes of the data type are pushed on this platform at all, checked before they are recorded
+     *
+     * @param dType data type
+     * @return true if changes of the data type may be pushed
+     */
+    public boolean accept(String dType) {
+        return dataSyncConfig.getSync().contains(dType);
+    }
+
     /**
      * if return ture ignore db event to sync data to remote storage
      *
@@ -57,6 +69,15 @@ public abstract class AbstractDataSyncProducerTemplate {
      */
     public abstract void push(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event);
 
+    /**
+     * push db change events to queue in order, called by the outbox relay
+     *
+     * @param events db change events
+     */
+    public void pushBatch(List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events) {
+        events.forEach(this::push);
+    }
+
     /**
      * push db change event to queue which not filter
      *
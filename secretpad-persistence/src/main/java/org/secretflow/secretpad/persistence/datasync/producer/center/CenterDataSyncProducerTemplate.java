@@ -44,6 +44,11 @@ public class CenterDataSyncProducerTemplate extends AbstractDataSyncProducerTemp
     }
 
 
+    @Override
+    public boolean accept(String dType) {
+        return PlatformTypeEnum.valueOf(platformType).equals(PlatformTypeEnum.CENTER) && super.accept(dType);
+    }
+
     @Override
     public boolean filter(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
         log.debug("CenterDataSyncProducerTemplate  filter {}", event);
@@ -73,9 +73,26 @@ public class P2pDataSyncProducerTemplate extends AbstractDataSyncProducerTemplat
         };
     }
 
+    @Override
+    public boolean accept(String dType) {
+        return PlatformTypeEnum.valueOf(platformType).equals(PlatformTypeEnum.AUTONOMY) && super.accept(dType);
+    }
+
     @Async
     @Override
     public void push(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        pushInOrder(event);
+    }
+
+    /**
+     * the relay pushes in the order of the outbox, not asynchronously
+     */
+    @Override
+    public void pushBatch(List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events) {
+        events.forEach(this::pushInOrder);
+    }
+
+    private void pushInOrder(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
         try {
             List<String> sync = dataSyncConfig.getSync();
             String dType = event.getDType();
@@ -25,6 +25,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.service.annotation.HttpExchange;
 import org.springframework.web.service.annotation.PostExchange;
+import reactor.core.publisher.Mono;
 
 /**
  * @author yutu
@@ -35,4 +36,10 @@ import org.springframework.web.service.annotation.PostExchange;
 public interface P2pDataSyncRestService {
     @PostExchange("/api/v1alpha1/data/sync")
     SecretPadResponse<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> sync(@RequestHeader("kuscia-origin-source") String node, @RequestHeader("host") String nodeId, @RequestBody String p);
+
+    /**
+     * sync an ordered batch of events, the body is a json array of SyncDataDTO
+     */
+    @PostExchange("/api/v1alpha1/data/sync/batch")
+    Mono<SecretPadResponse<Integer>> syncBatch(@RequestHeader("kuscia-origin-source") String node, @RequestHeader("host") String nodeId, @RequestBody String p);
 }
\ No newline at end of file
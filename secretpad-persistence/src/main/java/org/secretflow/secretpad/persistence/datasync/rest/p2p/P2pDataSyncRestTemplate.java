@@ -25,12 +25,22 @@ import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.util.ObjectUtils;
 
 import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
@@ -44,8 +54,30 @@ public class P2pDataSyncRestTemplate extends DataSyncRestTemplate {
     Map<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>, AtomicInteger> retryTimes = new ConcurrentHashMap<>();
     static final int MAX_RETRY_TIMES = 3;
 
+    /**
+     * max events per request, 1 keeps the single event endpoint
+     */
+    @Value("${secretpad.datasync.p2p-batch.max-events:1}")
+    @Setter
+    private int batchMaxEvents = 1;
+    @Value("${secretpad.datasync.p2p-batch.max-bytes:1048576}")
+    @Setter
+    private int batchMaxBytes = 1024 * 1024;
+    /**
+     * batches sent to one peer before the oldest one is acknowledged
+     */
+    @Value("${secretpad.datasync.p2p-batch.max-in-flight:1}")
+    @Setter
+    private int batchMaxInFlight = 1;
+    @Value("${secretpad.datasync.p2p-batch.ack-timeout-seconds:30}")
+    @Setter
+    private long batchAckTimeoutSeconds = 30;
+
     @Override
     public EntityChangeListener.DbChangeEvent<BaseAggregationRoot> send(String node) throws InterruptedException {
+        if (batchMaxEvents > 1) {
+            return sendBatch(node);
+        }
         int size = dataSyncDataBufferTemplate.size(node);
         EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = null;
         while (size > 0) {
@@ -91,30 +123,154 @@ public class P2pDataSyncRestTemplate extends DataSyncRestTemplate {
         return event;
     }
 
+    /**
+     * drain the buffer of node into batches, keep up to batchMaxInFlight batches in flight
+     * and acknowledge them in send order, a failed batch is sent again before any later one
+     */
+    private EntityChangeListener.DbChangeEvent<BaseAggregationRoot> sendBatch(String node) throws InterruptedException {
+        Deque<P2pSyncBatch> inFlight = new ArrayDeque<>(batchMaxInFlight);
+        Deque<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> carry = new ArrayDeque<>(1);
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> last = null;
+        while (true) {
+            P2pSyncBatch batch = drainBatch(node, carry);
+            P2pSyncBatch failed = null;
+            // an empty batch means the buffer is drained, acknowledge all the batches left in flight
+            while (failed == null && !inFlight.isEmpty()
+                    && (batch.isEmpty() || inFlight.size() >= batchMaxInFlight || batch.conflicts(inFlight))) {
+                P2pSyncBatch first = inFlight.pollFirst();
+                if (!ackBatch(node, first)) {
+                    failed = first;
+                }
+            }
+            if (failed != null) {
+                requeue(node, failed, inFlight, batch, carry);
+                continue;
+            }
+            if (batch.isEmpty()) {
+                break;
+            }
+            sendBatch(node, batch);
+            inFlight.addLast(batch);
+            last = batch.getEvents().get(batch.size() - 1);
+        }
+        return last;
+    }
+
+    /**
+     * put the failed batch and everything polled after it back at first of buffer in send order,
+     * the batches in flight after it are not acknowledged so the peer never commits them ahead of it
+     */
+    private void requeue(String node, P2pSyncBatch failed, Deque<P2pSyncBatch> inFlight, P2pSyncBatch pending,
+                         Deque<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> carry) {
+        List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events = new ArrayList<>();
+        for (EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event : failed.getEvents()) {
+            if (retry(event)) {
+                events.add(event);
+            } else {
+                dataSyncDataBufferTemplate.commit(node, event);
+            }
+        }
+        for (P2pSyncBatch batch : inFlight) {
+            batch.getFuture().cancel(true);
+            events.addAll(batch.getEvents());
+        }
+        inFlight.clear();
+        events.addAll(pending.getEvents());
+        events.addAll(carry);
+        carry.clear();
+        dataSyncDataBufferTemplate.requeue(node, events);
+    }
+
+    private P2pSyncBatch drainBatch(String node, Deque<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> carry) throws InterruptedException {
+        P2pSyncBatch batch = new P2pSyncBatch();
+        while (batch.size() < batchMaxEvents) {
+            EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = carry.isEmpty() ? dataSyncDataBufferTemplate.poll(node) : carry.pollFirst();
+            if (ObjectUtils.isEmpty(event)) {
+                break;
+            }
+            String json = SyncDataDTO.builder()
+                    .tableName(event.getDType())
+                    .action(event.getAction())
+                    .data(event.getSource()).build().toJson();
+            if (!batch.isEmpty() && batch.getBytes() + json.length() > batchMaxBytes) {
+                carry.addLast(event);
+                break;
+            }
+            batch.add(event, json);
+        }
+        return batch;
+    }
+
+    private void sendBatch(String node, P2pSyncBatch batch) {
+        batch.setStartTime(System.currentTimeMillis());
+        try {
+            String routeId = p2pPaddingNodeService.turnInstToRouteId(node);
+            batch.setRouteId(routeId);
+            log.info("P2pDataSyncRestTemplate send batch, routeId:{} instId:{} size:{}", routeId, node, batch.size());
+            batch.setFuture(p2pDataSyncRestService.syncBatch(node, "secretpad." + routeId + ".svc", batch.toJson()).toFuture());
+        } catch (Exception e) {
+            log.error("P2pDataSyncRestTemplate send batch error", e);
+            batch.setFuture(CompletableFuture.failedFuture(e));
+        }
+    }
+
+    /**
+     * @return false if the batch failed, its events are left to the caller
+     */
+    private boolean ackBatch(String node, P2pSyncBatch batch) throws InterruptedException {
+        boolean acked = false;
+        String status;
+        try {
+            SecretPadResponse<Integer> syncResp = batch.getFuture().get(batchAckTimeoutSeconds, TimeUnit.SECONDS);
+            if (0 == syncResp.getStatus().getCode()) {
+                batch.getEvents().forEach(event -> onSuccess(node, event));
+                acked = true;
+                status = "success";
+            } else {
+                log.error("P2pDataSyncRestTemplate send batch error,{} {}"
+                        , syncResp.getStatus().getCode()
+                        , syncResp.getStatus().getMsg());
+                status = syncResp.getStatus().getMsg();
+            }
+        } catch (ExecutionException | TimeoutException e) {
+            log.error("P2pDataSyncRestTemplate send batch error", e);
+            batch.getFuture().cancel(true);
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            status = ObjectUtils.isEmpty(cause.getMessage()) ? cause.getClass().getName() : cause.getMessage();
+        }
+        long duration = System.currentTimeMillis() - batch.getStartTime();
+        recordMetrics(batch.getRouteId(), "batch", duration, status, batch.size());
+        return acked;
+    }
+
     @Override
     public void onError(String node, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
-        if (retryTimes.containsKey(event)) {
-            retryTimes.get(event).incrementAndGet();
-        } else {
-            retryTimes.put(event, new AtomicInteger(0));
-        }
-        int i = retryTimes.get(event).get();
-        if (i < MAX_RETRY_TIMES) {
-            log.warn("data sync send error, retry {} times", i);
-            dataSyncDataBufferTemplate.commit(node, event);
+        dataSyncDataBufferTemplate.commit(node, event);
+        if (retry(event)) {
             dataSyncDataBufferTemplate.push(event);
-        } else {
-            log.error("data sync send error, retry {} times, remove it", i);
-            dataSyncDataBufferTemplate.commit(node, event);
-            retryTimes.remove(event);
         }
     }
 
     @Override
     public void onSuccess(String node, EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        retryTimes.remove(event);
         dataSyncDataBufferTemplate.commit(node, event);
     }
 
+    /**
+     * @return false if the event is out of retries and has to be removed
+     */
+    private boolean retry(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        int i = retryTimes.computeIfAbsent(event, k -> new AtomicInteger(-1)).incrementAndGet();
+        if (i < MAX_RETRY_TIMES) {
+            log.warn("data sync send error, retry {} times", i);
+            return true;
+        }
+        log.error("data sync send error, retry {} times, remove it", i);
+        retryTimes.remove(event);
+        return false;
+    }
+
     private void recordMetrics(String target, String tableName, long duration, String status, int size) {
         log.info("recordMetrics target:{}, tableName:{}, duration:{}, status:{}, size:{}", target, tableName, duration, status, size);
         try {
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync.rest.p2p;
+
+import org.secretflow.secretpad.common.dto.SecretPadResponse;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An ordered batch of events sent to one peer in a single request
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Getter
+class P2pSyncBatch {
+
+    private final List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events = new ArrayList<>();
+    private final Set<String> keys = new HashSet<>();
+    private final StringJoiner body = new StringJoiner(",", "[", "]");
+    private int bytes;
+    @Setter
+    private String routeId = "";
+    @Setter
+    private long startTime;
+    @Setter
+    private CompletableFuture<SecretPadResponse<Integer>> future;
+
+    void add(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event, String json) {
+        events.add(event);
+        body.add(json);
+        bytes += json.length();
+        keys.add(key(event));
+    }
+
+    boolean isEmpty() {
+        return events.isEmpty();
+    }
+
+    int size() {
+        return events.size();
+    }
+
+    String toJson() {
+        return body.toString();
+    }
+
+    /**
+     * events of one entity must not be in flight in two batches, or the peer may apply them out of order
+     */
+    boolean conflicts(Collection<P2pSyncBatch> inFlight) {
+        for (P2pSyncBatch batch : inFlight) {
+            if (!Collections.disjoint(batch.keys, keys)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * without a db id the entity can't be told apart, so the whole table is treated as one key
+     */
+    private static String key(EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event) {
+        BaseAggregationRoot source = event.getSource();
+        if (source == null || source.getId() == null) {
+            return event.getDType();
+        }
+        return event.getDType() + ":" + source.getId();
+    }
+}
@@ -47,4 +47,10 @@ public class EdgeDataSyncLogDO implements Serializable {
 
     @Column(name = "last_update_time", nullable = false)
     private String lastUpdateTime;
+
+    /**
+     * tie-breaking id of the checkpoint, null if lastUpdateTime is not a checkpoint of applied data
+     */
+    @Column(name = "last_id")
+    private Long lastId;
 }
\ No newline at end of file
@@ -16,7 +16,10 @@
 
 package org.secretflow.secretpad.persistence.entity;
 
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+
 import jakarta.persistence.Column;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
 import lombok.Getter;
 import lombok.Setter;
@@ -35,6 +38,7 @@ import java.time.LocalDateTime;
 @Setter
 @MappedSuperclass
 @ToString
+@EntityListeners(EntityChangeListener.class)
 public class SuperBaseAggregationRoot<A extends AbstractAggregateRoot<A>> extends AbstractAggregateRoot<A> {
     /**
      * The id of the database is automatically added
@@ -25,5 +25,5 @@ import org.springframework.stereotype.Repository;
  * @date 2023/10/26
  */
 @Repository
-public interface EdgeDataSyncLogRepository extends BaseRepository<EdgeDataSyncLogDO, Long> {
+public interface EdgeDataSyncLogRepository extends BaseRepository<EdgeDataSyncLogDO, String> {
 }
\ No newline at end of file
@@ -17,11 +17,13 @@
 package org.secretflow.secretpad.persistence.repository;
 
 import org.secretflow.secretpad.persistence.entity.ProjectGraphDO;
+import org.secretflow.secretpad.persistence.projection.CountProjection;
 
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -60,4 +62,13 @@ public interface ProjectGraphRepository extends BaseRepository<ProjectGraphDO, P
      */
     @Query("select count(*) from ProjectGraphDO pd where pd.upk.projectId=:projectId")
     Integer countByProjectId(@Param("projectId") String projectId);
+
+    /**
+     * Count project graphs of each project
+     *
+     * @param projectIds target projectIds
+     * @return CountProjection list keyed by projectId, projects without graphs are absent
+     */
+    @Query("select new org.secretflow.secretpad.persistence.projection.CountProjection(pd.upk.projectId, count(*)) from ProjectGraphDO pd where pd.upk.projectId in :projectIds group by pd.upk.projectId")
+    List<CountProjection> countByProjectIds(@Param("projectIds") Collection<String> projectIds);
 }
\ No newline at end of file
@@ -25,6 +25,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -51,6 +52,10 @@ public interface ProjectInstRepository extends BaseRepository<ProjectInstDO, Pro
             + "on pi.upk.instId=i.instId and pi.upk.projectId= :projectId")
     List<ProjectInstProjection> findProjectionByProjectId(String projectId);
 
+    @Query("select new org.secretflow.secretpad.persistence.projection.ProjectInstProjection(pi, i.name) from ProjectInstDO pi join InstDO i "
+            + "on pi.upk.instId=i.instId and pi.upk.projectId in :projectIds")
+    List<ProjectInstProjection> findProjectionByProjectIds(@Param("projectIds") Collection<String> projectIds);
+
     /**
      * Query project results by instId
      *
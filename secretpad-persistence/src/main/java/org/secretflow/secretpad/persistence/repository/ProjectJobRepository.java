@@ -31,6 +31,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -101,6 +102,15 @@ public interface ProjectJobRepository extends BaseRepository<ProjectJobDO, Proje
     @Query("select count(*) from ProjectJobDO pj where pj.upk.projectId=:projectId")
     Integer countByProjectId(@Param("projectId") String projectId);
 
+    /**
+     * Count project jobs of each project
+     *
+     * @param projectIds target projectIds
+     * @return CountProjection list keyed by projectId, projects without jobs are absent
+     */
+    @Query("select new org.secretflow.secretpad.persistence.projection.CountProjection(pj.upk.projectId, count(*)) from ProjectJobDO pj where pj.upk.projectId in :projectIds group by pj.upk.projectId")
+    List<CountProjection> countByProjectIds(@Param("projectIds") Collection<String> projectIds);
+
     /**
      * Query CountProjection list in project task table by projectId and jobIds
      *
@@ -25,6 +25,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -46,6 +47,17 @@ public interface ProjectJobTaskRepository extends BaseRepository<ProjectTaskDO,
     @Query(value = "select t.* from project_job_task t join main.project_job j on t.job_id=j.job_id where t.project_id=:projectId and t.graph_node_id=:graphNodeId order by t.id desc limit 1", nativeQuery = true)
     Optional<ProjectTaskDO> findLatestTasks(@Param("projectId") String projectId, @Param("graphNodeId") String graphNodeId);
 
+    /**
+     * Query the latest project job task of each graph node in one query
+     *
+     * @param projectId    target projectId
+     * @param graphNodeIds target graphNodeIds
+     * @return the latest project job task of each graph node which has one
+     */
+    @Query(value = "select * from project_job_task where id in (select id from (select t.id, row_number() over (partition by t.graph_node_id order by t.id desc) as rn " +
+            "from project_job_task t join main.project_job j on t.job_id=j.job_id where t.project_id=:projectId and t.graph_node_id in (:graphNodeIds)) where rn = 1)", nativeQuery = true)
+    List<ProjectTaskDO> findLatestTasksByGraphNodeIds(@Param("projectId") String projectId, @Param("graphNodeIds") Collection<String> graphNodeIds);
+
     /**
      * Query the latest project job task result by projectId and graphNodeId
      *
@@ -25,6 +25,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -44,6 +45,15 @@ public interface ProjectNodeRepository extends BaseRepository<ProjectNodeDO, Pro
     @Query("from ProjectNodeDO pn where pn.upk.projectId=:projectId")
     List<ProjectNodeDO> findByProjectId(@Param("projectId") String projectId);
 
+    /**
+     * Query project node results by projectId list
+     *
+     * @param projectIds target projectId list
+     * @return project node results
+     */
+    @Query("from ProjectNodeDO pn where pn.upk.projectId in :projectIds")
+    List<ProjectNodeDO> findByProjectIds(@Param("projectIds") List<String> projectIds);
+
     /**
      * Query ProjectNodeProjection list in project node table by projectId
      *
@@ -54,6 +64,16 @@ public interface ProjectNodeRepository extends BaseRepository<ProjectNodeDO, Pro
             + "on pn.upk.nodeId=n.nodeId and pn.upk.projectId=:projectId")
     List<ProjectNodeProjection> findProjectionByProjectId(@Param("projectId") String projectId);
 
+    /**
+     * Query ProjectNodeProjection list in project node table by projectIds
+     *
+     * @param projectIds target projectIds
+     * @return ProjectNodeProjection list of all target projects
+     */
+    @Query("select new org.secretflow.secretpad.persistence.projection.ProjectNodeProjection(pn, n.name, n.type) from ProjectNodeDO pn join NodeDO n "
+            + "on pn.upk.nodeId=n.nodeId and pn.upk.projectId in :projectIds")
+    List<ProjectNodeProjection> findProjectionByProjectIds(@Param("projectIds") Collection<String> projectIds);
+
     /**
      * Query deleted projectNodeProjection list in project node table by projectId for p2p mode
      *
@@ -66,6 +86,15 @@ public interface ProjectNodeRepository extends BaseRepository<ProjectNodeDO, Pro
     @Query(value = "select distinct node_id from project_node where project_id=:projectId and is_deleted in (0,1)", nativeQuery = true)
     List<String> findProjectNodesByProjectId(@Param("projectId") String projectId);
 
+    /**
+     * Query project nodes of several projects, including the deleted ones as findProjectNodesByProjectId does
+     *
+     * @param projectIds target projectIds
+     * @return project node results
+     */
+    @Query(value = "select * from project_node where project_id in (:projectIds) and is_deleted in (0,1)", nativeQuery = true)
+    List<ProjectNodeDO> findProjectNodesByProjectIds(@Param("projectIds") Collection<String> projectIds);
+
     /**
      * Query project node results by nodeId
      *
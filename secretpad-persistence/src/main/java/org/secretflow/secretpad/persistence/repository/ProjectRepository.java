@@ -18,12 +18,15 @@ package org.secretflow.secretpad.persistence.repository;
 
 import org.secretflow.secretpad.persistence.entity.ProjectDO;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -44,6 +47,15 @@ public interface ProjectRepository extends BaseRepository<ProjectDO, String> {
     @Query("from ProjectDO pj where pj.status=:status")
     List<ProjectDO> findByStatus(@Param("status") Integer status);
 
+    /**
+     * Page projects by projectIds
+     *
+     * @param projectIds target projectIds
+     * @param pageable   page request
+     * @return project page
+     */
+    Page<ProjectDO> findByProjectIdIn(Collection<String> projectIds, Pageable pageable);
+
     @Query(nativeQuery = true, value = "delete from project")
     @Modifying
     @Transactional
@@ -23,6 +23,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 /**
@@ -62,4 +63,16 @@ public interface UserTokensRepository extends BaseRepository<TokensDO, String> {
     @Transactional
     void deleteByName(@Param("name") String name);
 
+    /**
+     * Refresh the time when user uses token, without loading the token record
+     *
+     * @param token    user token
+     * @param gmtToken the time when user uses token
+     * @return updated count
+     */
+    @Transactional
+    @Modifying
+    @Query("update TokensDO td set td.gmtToken=:gmtToken where td.token=:token and td.isDeleted=false")
+    int refreshGmtToken(@Param("token") String token, @Param("gmtToken") LocalDateTime gmtToken);
+
 }
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.persistence.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of concurrent read only queries on the default sqlite database while job events are being saved.
+ * <p>
+ * A writer thread keeps saving job events in transactions of 20 rows, as JobManager does when kuscia job events
+ * arrive in bursts. single is the previous pool of one connection, where every read waits for the write transaction
+ * holding it; wal serves the reads from the read pool next to the write connection.
+ * Run with, once the modules are installed with mvn install -DskipTests:
+ * mvn -pl secretpad-persistence test-compile exec:java -Dexec.mainClass=org.secretflow.secretpad.persistence.configuration.SqliteWalDataSourceBenchmark
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Threads(4)
+@Fork(1)
+public class SqliteWalDataSourceBenchmark {
+
+    private static final int ROWS = 10000;
+    private static final int EVENTS_PER_TRANSACTION = 20;
+
+    @Param({"single", "wal"})
+    private String mode;
+
+    private HikariDataSource writeDataSource;
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate readTemplate;
+    private volatile boolean writing;
+    private Thread writer;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SqliteWalDataSourceBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        writeDataSource = new HikariDataSource();
+        writeDataSource.setDriverClassName("org.sqlite.JDBC");
+        writeDataSource.setJdbcUrl("jdbc:sqlite:" + Files.createTempDirectory("sqlite-wal-bench").resolve("secretpad.sqlite"));
+        writeDataSource.setMaximumPoolSize(1);
+        writeDataSource.setMinimumIdle(1);
+        dataSource = new DataSourceConfig().defaultDataSource(writeDataSource, "wal".equals(mode), 4, 5000, "FULL");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table project_job (id integer primary key autoincrement, job_id varchar(64), status varchar(32))");
+        for (int i = 0; i < ROWS; i++) {
+            jdbcTemplate.update("insert into project_job (job_id, status) values (?, ?)", "job-" + i, "RUNNING");
+        }
+        jdbcTemplate.execute("create index idx_job_id on project_job (job_id)");
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readTemplate = new TransactionTemplate(transactionManager);
+        readTemplate.setReadOnly(true);
+        TransactionTemplate writeTemplate = new TransactionTemplate(transactionManager);
+        writing = true;
+        writer = new Thread(() -> {
+            while (writing) {
+                writeTemplate.executeWithoutResult(status -> {
+                    for (int i = 0; i < EVENTS_PER_TRANSACTION; i++) {
+                        jdbcTemplate.update("update project_job set status = ? where job_id = ?",
+                                ThreadLocalRandom.current().nextBoolean() ? "RUNNING" : "SUCCEED", "job-" + ThreadLocalRandom.current().nextInt(ROWS));
+                    }
+                });
+            }
+        }, "job-event-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Benchmark
+    public String read() {
+        return readTemplate.execute(status -> jdbcTemplate.queryForObject("select status from project_job where job_id = ?",
+                String.class, "job-" + ThreadLocalRandom.current().nextInt(ROWS)));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        writing = false;
+        writer.join();
+        if (dataSource instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+        writeDataSource.close();
+    }
+}
@@ -36,6 +36,7 @@ import org.secretflow.secretpad.persistence.repository.ProjectInstRepository;
 import org.secretflow.secretpad.persistence.repository.VoteRequestRepository;
 
 import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
@@ -43,6 +44,7 @@ import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.ApplicationEventPublisher;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -280,6 +282,46 @@ public class DataSyncJobTest {
         dataSyncJob.onApplicationEvent(new P2pDataSyncSendEvent(this, "alice"));
     }
 
+    @Test
+    void testBatchFailureResentInOrder() throws IOException {
+        P2pDataSyncProducerTemplate.instId = "instId";
+        SecretPadResponse<Integer> error = new SecretPadResponse<>();
+        error.setStatus(SecretPadResponse.SecretPadResponseStatus.builder().code(500).build());
+        List<String> bodies = new ArrayList<>();
+        // the first batch fails while the second one is in flight and would succeed
+        Mockito.when(p2pDataSyncRestService.syncBatch(Mockito.any(), Mockito.any(), Mockito.any())).thenAnswer(invocation -> {
+            bodies.add(invocation.getArgument(2));
+            return Mono.just(bodies.size() == 1 ? error : SecretPadResponse.success(1));
+        });
+
+        P2pDataSyncRestTemplate dataSyncRestTemplate = new P2pDataSyncRestTemplate();
+        dataSyncRestTemplate.setBatchMaxEvents(2);
+        dataSyncRestTemplate.setBatchMaxInFlight(2);
+        P2PDataSyncDataBufferTemplate dataSyncDataBufferTemplate = new P2PDataSyncDataBufferTemplate(applicationEventPublisher);
+        dataSyncDataBufferTemplate.setSyncPath("./config/test");
+        for (long i = 1; i <= 4; i++) {
+            EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = buildProjectDO();
+            event.getSource().setId(i);
+            ((ProjectDO) event.getSource()).setProjectId("project" + i);
+            event.setNodeIds(List.of("alice"));
+            dataSyncDataBufferTemplate.push(event);
+        }
+        P2pPaddingNodeServiceImpl p2pPaddingNodeService = new P2pPaddingNodeServiceImpl(projectInstRepository, projectApprovalConfigRepository, voteRequestRepository, cacheManager, nodeRepository);
+        dataSyncRestTemplate.setDataSyncDataBufferTemplate(dataSyncDataBufferTemplate);
+        dataSyncRestTemplate.setP2pPaddingNodeService(p2pPaddingNodeService);
+        dataSyncRestTemplate.setP2pDataSyncRestService(p2pDataSyncRestService);
+        DataSyncJob dataSyncJob = new DataSyncJob();
+        dataSyncJob.setDataSyncRestTemplate(dataSyncRestTemplate);
+        dataSyncJob.onApplicationEvent(new P2pDataSyncSendEvent(this, "alice"));
+
+        Assertions.assertEquals(4, bodies.size());
+        Assertions.assertEquals(bodies.get(0), bodies.get(2));
+        Assertions.assertEquals(bodies.get(1), bodies.get(3));
+        Assertions.assertTrue(bodies.get(2).contains("project1") && bodies.get(2).contains("project2"));
+        Assertions.assertTrue(bodies.get(3).contains("project3") && bodies.get(3).contains("project4"));
+        Assertions.assertEquals(0, dataSyncDataBufferTemplate.size("alice"));
+    }
+
     private EntityChangeListener.DbChangeEvent<BaseAggregationRoot> buildProjectDO() {
         EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = new EntityChangeListener.DbChangeEvent<>();
         event.setAction(DbChangeAction.CREATE.val);
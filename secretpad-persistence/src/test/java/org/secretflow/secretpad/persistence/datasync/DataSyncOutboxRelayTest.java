@@ -0,0 +1,119 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync;
+
+import org.secretflow.secretpad.common.util.JsonUtils;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.datasync.outbox.DataSyncOutboxRelay;
+import org.secretflow.secretpad.persistence.datasync.producer.AbstractDataSyncProducerTemplate;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * @author yutu
+ * @date 2024/11/20
+ */
+@SuppressWarnings(value = {"unchecked"})
+public class DataSyncOutboxRelayTest {
+
+    @Test
+    public void testRelayInOrder() throws Exception {
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        AbstractDataSyncProducerTemplate producer = Mockito.mock(AbstractDataSyncProducerTemplate.class);
+        ObjectProvider<AbstractDataSyncProducerTemplate> provider = Mockito.mock(ObjectProvider.class);
+        Mockito.when(provider.getIfAvailable()).thenReturn(producer);
+
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.when(rs.getLong("id")).thenReturn(1L, 2L);
+        Mockito.when(rs.getString("d_type")).thenReturn(ProjectDO.class.getTypeName());
+        Mockito.when(rs.getString("action")).thenReturn(DbChangeAction.CREATE.getVal(), DbChangeAction.REMOVE.getVal());
+        Mockito.when(rs.getString("data")).thenReturn(project("p1"), project("p2"));
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), Mockito.any(RowMapper.class), Mockito.<Object>any()))
+                .thenAnswer(invocation -> {
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    return List.of(mapper.mapRow(rs, 0), mapper.mapRow(rs, 1));
+                });
+
+        DataSyncOutboxRelay relay = new DataSyncOutboxRelay(jdbcTemplate, provider);
+        ReflectionTestUtils.setField(relay, "batchSize", 200);
+        Assertions.assertEquals(2, relay.relay());
+
+        ArgumentCaptor<List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(producer).pushBatch(captor.capture());
+        List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events = captor.getValue();
+        Assertions.assertEquals(2, events.size());
+        Assertions.assertEquals(DbChangeAction.CREATE.getVal(), events.get(0).getAction());
+        Assertions.assertEquals("p1", events.get(0).getProjectId());
+        Assertions.assertEquals(DbChangeAction.REMOVE.getVal(), events.get(1).getAction());
+        Mockito.verify(jdbcTemplate).batchUpdate(Mockito.anyString(), Mockito.<List<Object[]>>any());
+    }
+
+    @Test
+    public void testDeadLetterUnreadableRow() throws Exception {
+        JdbcTemplate jdbcTemplate = Mockito.mock(JdbcTemplate.class);
+        AbstractDataSyncProducerTemplate producer = Mockito.mock(AbstractDataSyncProducerTemplate.class);
+        ObjectProvider<AbstractDataSyncProducerTemplate> provider = Mockito.mock(ObjectProvider.class);
+        Mockito.when(provider.getIfAvailable()).thenReturn(producer);
+
+        ResultSet rs = Mockito.mock(ResultSet.class);
+        Mockito.when(rs.getLong("id")).thenReturn(1L, 2L);
+        Mockito.when(rs.getString("d_type")).thenReturn("org.secretflow.secretpad.persistence.entity.UnknownDO", ProjectDO.class.getTypeName());
+        Mockito.when(rs.getString("action")).thenReturn(DbChangeAction.CREATE.getVal());
+        Mockito.when(rs.getString("data")).thenReturn(project("p1"), project("p2"));
+        Mockito.when(jdbcTemplate.query(Mockito.anyString(), Mockito.any(RowMapper.class), Mockito.<Object>any()))
+                .thenAnswer(invocation -> {
+                    RowMapper<Object> mapper = invocation.getArgument(1);
+                    return List.of(mapper.mapRow(rs, 0), mapper.mapRow(rs, 1));
+                });
+
+        DataSyncOutboxRelay relay = new DataSyncOutboxRelay(jdbcTemplate, provider);
+        ReflectionTestUtils.setField(relay, "batchSize", 200);
+        Assertions.assertEquals(2, relay.relay());
+
+        ArgumentCaptor<List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>>> events = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(producer).pushBatch(events.capture());
+        Assertions.assertEquals(1, events.getValue().size());
+        Assertions.assertEquals("p2", events.getValue().get(0).getProjectId());
+
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<List<Object[]>> args = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(jdbcTemplate, Mockito.times(3)).batchUpdate(sql.capture(), args.capture());
+        Assertions.assertTrue(sql.getAllValues().get(0).startsWith("delete"));
+        Assertions.assertEquals(2L, args.getAllValues().get(0).get(0)[0]);
+        Assertions.assertTrue(sql.getAllValues().get(1).startsWith("insert into data_sync_outbox_dead"));
+        Assertions.assertEquals(1L, args.getAllValues().get(1).get(0)[0]);
+        Assertions.assertTrue(sql.getAllValues().get(2).startsWith("delete"));
+        Assertions.assertEquals(1L, args.getAllValues().get(2).get(0)[0]);
+    }
+
+    private String project(String projectId) {
+        return JsonUtils.toJSONString(ProjectDO.builder().projectId(projectId).name("test").description("test").build());
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync;
+
+import org.secretflow.secretpad.persistence.datasync.buffer.p2p.P2PDataSyncDataBufferTemplate;
+import org.secretflow.secretpad.persistence.datasync.buffer.p2p.P2pDataSyncNodeQueue;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Push throughput of the p2p data sync buffer with a large backlog of queued UPDATE events.
+ * <p>
+ * linearScan is the previous coalescing, which walks the whole queue on every push;
+ * indexedQueue is the keyed queue alone; bufferPush is the full push path including the segment log.
+ * Run with, once the modules are installed with mvn install -DskipTests:
+ * mvn -pl secretpad-persistence test-compile exec:java -Dexec.mainClass=org.secretflow.secretpad.persistence.datasync.P2PDataSyncDataBufferBenchmark
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class P2PDataSyncDataBufferBenchmark {
+
+    private static final String NODE_ID = "bob";
+
+    @Param({"10000", "100000"})
+    private int queued;
+
+    private LinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> linearQueue;
+    private P2pDataSyncNodeQueue indexedQueue;
+    private P2PDataSyncDataBufferTemplate bufferTemplate;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(P2PDataSyncDataBufferBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        linearQueue = new LinkedBlockingQueue<>();
+        indexedQueue = new P2pDataSyncNodeQueue();
+        bufferTemplate = new P2PDataSyncDataBufferTemplate(event -> {
+        });
+        bufferTemplate.setSyncPath(Files.createTempDirectory("p2p-sync-bench").toString() + "/");
+        for (long id = 0; id < queued; id++) {
+            linearQueue.add(buildEvent(id));
+            indexedQueue.offer(buildEvent(id));
+            bufferTemplate.push(buildEvent(id));
+        }
+    }
+
+    @Benchmark
+    public int linearScan() {
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = buildEvent(nextId());
+        Iterator<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> iterator = linearQueue.iterator();
+        while (iterator.hasNext()) {
+            EntityChangeListener.DbChangeEvent<BaseAggregationRoot> next = iterator.next();
+            if (next.getAction().equals(DbChangeAction.UPDATE.val) && next.getDType().equals(event.getDType())
+                    && next.getSource().getId().equals(event.getSource().getId())) {
+                iterator.remove();
+            }
+        }
+        linearQueue.add(event);
+        return linearQueue.size();
+    }
+
+    @Benchmark
+    public int indexedQueue() {
+        indexedQueue.offer(buildEvent(nextId()));
+        return indexedQueue.size();
+    }
+
+    @Benchmark
+    public int bufferPush() {
+        bufferTemplate.push(buildEvent(nextId()));
+        return bufferTemplate.size(NODE_ID);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        bufferTemplate.destroy();
+    }
+
+    private long nextId() {
+        return ThreadLocalRandom.current().nextLong(queued);
+    }
+
+    private static EntityChangeListener.DbChangeEvent<BaseAggregationRoot> buildEvent(long id) {
+        ProjectDO projectDO = ProjectDO.builder().projectId("projectId").build();
+        projectDO.setId(id);
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = new EntityChangeListener.DbChangeEvent<>();
+        event.setAction(DbChangeAction.UPDATE.val);
+        event.setDType(ProjectDO.class.getTypeName());
+        event.setNodeIds(List.of(NODE_ID));
+        event.setSource(projectDO);
+        return event;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync;
+
+import org.secretflow.secretpad.persistence.datasync.buffer.p2p.P2pDataSyncNodeQueue;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+/**
+ * @author yutu
+ * @date 2024/11/20
+ */
+class P2pDataSyncNodeQueueTest {
+
+    @Test
+    void foldUpdateIntoCreate() {
+        P2pDataSyncNodeQueue queue = new P2pDataSyncNodeQueue();
+        queue.offer(buildEvent(DbChangeAction.CREATE, 1L, "a"));
+        queue.offer(buildEvent(DbChangeAction.CREATE, 2L, "b"));
+        P2pDataSyncNodeQueue.Offer offer = queue.offer(buildEvent(DbChangeAction.UPDATE, 1L, "c"));
+        Assertions.assertEquals(1, offer.superseded().size());
+        Assertions.assertEquals(2, queue.size());
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> head = queue.poll();
+        Assertions.assertEquals(DbChangeAction.CREATE.val, head.getAction());
+        Assertions.assertEquals("c", ((ProjectDO) head.getSource()).getName());
+    }
+
+    @Test
+    void foldUpdateIntoUpdateAndRemove() {
+        P2pDataSyncNodeQueue queue = new P2pDataSyncNodeQueue();
+        queue.offer(buildEvent(DbChangeAction.UPDATE, 1L, "a"));
+        queue.offer(buildEvent(DbChangeAction.UPDATE, 2L, "b"));
+        queue.offer(buildEvent(DbChangeAction.UPDATE, 1L, "c"));
+        Assertions.assertEquals(2, queue.size());
+        queue.offer(buildEvent(DbChangeAction.REMOVE, 1L, "c"));
+        Assertions.assertEquals(2, queue.size());
+        Assertions.assertEquals(2L, queue.poll().getSource().getId());
+        Assertions.assertEquals(DbChangeAction.REMOVE.val, queue.poll().getAction());
+        Assertions.assertNull(queue.poll());
+    }
+
+    @Test
+    void replaceQueuedEventOfOtherAction() {
+        P2pDataSyncNodeQueue queue = new P2pDataSyncNodeQueue();
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> create = buildEvent(DbChangeAction.CREATE, 1L, "a");
+        queue.offer(create);
+        queue.offer(buildEvent(DbChangeAction.UPDATE, 2L, "b"));
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> remove = buildEvent(DbChangeAction.REMOVE, 1L, "a");
+        P2pDataSyncNodeQueue.Offer offer = queue.offer(remove);
+        Assertions.assertEquals(1, offer.superseded().size());
+        Assertions.assertSame(create, offer.superseded().get(0));
+        Assertions.assertEquals(2, queue.size());
+        Assertions.assertFalse(queue.remove(create));
+        Assertions.assertTrue(queue.remove(remove));
+        Assertions.assertEquals(1, queue.size());
+        Assertions.assertEquals(2L, queue.poll().getSource().getId());
+        Assertions.assertNull(queue.poll());
+    }
+
+    @Test
+    void ignoreDuplicate() {
+        P2pDataSyncNodeQueue queue = new P2pDataSyncNodeQueue();
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = buildEvent(DbChangeAction.REMOVE, null, "a");
+        queue.offer(event);
+        Assertions.assertNull(queue.offer(event).added());
+        Assertions.assertEquals(1, queue.size());
+        Assertions.assertTrue(queue.remove(event));
+        Assertions.assertEquals(0, queue.size());
+    }
+
+    @Test
+    void requeueAtHeadInOrder() {
+        P2pDataSyncNodeQueue queue = new P2pDataSyncNodeQueue();
+        queue.offer(buildEvent(DbChangeAction.CREATE, 1L, "a"));
+        queue.offer(buildEvent(DbChangeAction.UPDATE, 2L, "b"));
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> first = queue.poll();
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> second = queue.poll();
+        queue.offer(buildEvent(DbChangeAction.UPDATE, 3L, "c"));
+        queue.offer(buildEvent(DbChangeAction.UPDATE, 1L, "d"));
+        List<P2pDataSyncNodeQueue.Offer> offers = queue.requeue(List.of(first, second));
+        // the create polled before folds with the update pushed meanwhile and keeps its position
+        Assertions.assertEquals(2, offers.get(0).superseded().size());
+        Assertions.assertSame(second, offers.get(1).added());
+        Assertions.assertEquals(3, queue.size());
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> head = queue.poll();
+        Assertions.assertEquals(DbChangeAction.CREATE.val, head.getAction());
+        Assertions.assertEquals("d", ((ProjectDO) head.getSource()).getName());
+        Assertions.assertSame(second, queue.poll());
+        Assertions.assertEquals(3L, queue.poll().getSource().getId());
+        Assertions.assertNull(queue.poll());
+    }
+
+    private EntityChangeListener.DbChangeEvent<BaseAggregationRoot> buildEvent(DbChangeAction action, Long id, String name) {
+        ProjectDO projectDO = ProjectDO.builder().projectId("projectId").name(name).build();
+        projectDO.setId(id);
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = new EntityChangeListener.DbChangeEvent<>();
+        event.setAction(action.val);
+        event.setDType(ProjectDO.class.getTypeName());
+        event.setDstNode("alice");
+        event.setSource(projectDO);
+        return event;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.datasync;
+
+import org.secretflow.secretpad.common.util.UniqueLinkedBlockingQueue;
+import org.secretflow.secretpad.persistence.datasync.buffer.p2p.P2PDataSyncDataBufferTemplate;
+import org.secretflow.secretpad.persistence.datasync.buffer.p2p.P2pDataSyncSegmentLog;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * @author yutu
+ * @date 2024/11/20
+ */
+class P2pDataSyncSegmentLogTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void replayPendingEvents() throws IOException {
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> first = buildEvent(1L);
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> second = buildEvent(2L);
+        try (P2pDataSyncSegmentLog segmentLog = P2pDataSyncSegmentLog.open(dir, 1024)) {
+            segmentLog.appendPush(first);
+            segmentLog.appendPush(second);
+            segmentLog.appendCommit(first);
+        }
+        try (P2pDataSyncSegmentLog segmentLog = P2pDataSyncSegmentLog.open(dir, 1024)) {
+            List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events = segmentLog.liveEvents();
+            Assertions.assertEquals(1, events.size());
+            Assertions.assertEquals(2L, events.get(0).getSource().getId());
+        }
+    }
+
+    @Test
+    void compactCommittedSegments() throws IOException {
+        try (P2pDataSyncSegmentLog segmentLog = P2pDataSyncSegmentLog.open(dir, 256)) {
+            for (long i = 0; i < 20; i++) {
+                EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = buildEvent(i);
+                segmentLog.appendPush(event);
+                segmentLog.appendCommit(event);
+            }
+            segmentLog.appendPush(buildEvent(100L));
+            Assertions.assertTrue(segmentLog.compactIfNeeded());
+        }
+        try (P2pDataSyncSegmentLog segmentLog = P2pDataSyncSegmentLog.open(dir, 256)) {
+            List<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> events = segmentLog.liveEvents();
+            Assertions.assertEquals(1, events.size());
+            Assertions.assertEquals(100L, events.get(0).getSource().getId());
+        }
+    }
+
+    @Test
+    void compactCommittedActiveSegment() throws IOException {
+        try (P2pDataSyncSegmentLog segmentLog = P2pDataSyncSegmentLog.open(dir, 16 * 1024 * 1024)) {
+            EntityChangeListener.DbChangeEvent<BaseAggregationRoot> first = buildEvent(1L);
+            EntityChangeListener.DbChangeEvent<BaseAggregationRoot> second = buildEvent(2L);
+            segmentLog.appendPush(first);
+            segmentLog.appendPush(second);
+            segmentLog.appendCommit(first);
+            Assertions.assertFalse(segmentLog.compactIfNeeded());
+            segmentLog.appendCommit(second);
+            Assertions.assertTrue(segmentLog.compactIfNeeded());
+            Assertions.assertFalse(segmentLog.compactIfNeeded());
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            Assertions.assertEquals(0, files.mapToLong(file -> file.toFile().length()).sum());
+        }
+        try (P2pDataSyncSegmentLog segmentLog = P2pDataSyncSegmentLog.open(dir, 16 * 1024 * 1024)) {
+            Assertions.assertTrue(segmentLog.liveEvents().isEmpty());
+        }
+    }
+
+    @Test
+    void migrateLegacyBuffer() throws IOException {
+        UniqueLinkedBlockingQueue<EntityChangeListener.DbChangeEvent<BaseAggregationRoot>> legacy = new UniqueLinkedBlockingQueue<>();
+        legacy.add(buildEvent(1L));
+        legacy.add(buildEvent(2L));
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(dir.resolve("bob")))) {
+            out.writeObject(legacy);
+        }
+        P2PDataSyncDataBufferTemplate bufferTemplate = new P2PDataSyncDataBufferTemplate(event -> {
+        });
+        bufferTemplate.setSyncPath(dir + "/");
+        bufferTemplate.init();
+        Assertions.assertEquals(2, bufferTemplate.size("bob"));
+        Assertions.assertTrue(Files.isDirectory(dir.resolve("bob")));
+        Assertions.assertFalse(Files.exists(dir.resolve("bob.legacy")));
+        bufferTemplate.destroy();
+
+        // the migrated events are in the log of the node
+        P2PDataSyncDataBufferTemplate restarted = new P2PDataSyncDataBufferTemplate(event -> {
+        });
+        restarted.setSyncPath(dir + "/");
+        restarted.init();
+        Assertions.assertEquals(2, restarted.size("bob"));
+        restarted.destroy();
+    }
+
+    @Test
+    void keepUnreadableLegacyBuffer() throws IOException {
+        Files.writeString(dir.resolve("bob"), "not a serialized queue");
+        P2PDataSyncDataBufferTemplate bufferTemplate = new P2PDataSyncDataBufferTemplate(event -> {
+        });
+        bufferTemplate.setSyncPath(dir + "/");
+        bufferTemplate.init();
+        Assertions.assertEquals(0, bufferTemplate.size("bob"));
+        Assertions.assertTrue(Files.isRegularFile(dir.resolve("bob.legacy")));
+        bufferTemplate.destroy();
+    }
+
+    private EntityChangeListener.DbChangeEvent<BaseAggregationRoot> buildEvent(long id) {
+        ProjectDO projectDO = ProjectDO.builder().projectId("projectId").build();
+        projectDO.setId(id);
+        EntityChangeListener.DbChangeEvent<BaseAggregationRoot> event = new EntityChangeListener.DbChangeEvent<>();
+        event.setAction(DbChangeAction.UPDATE.val);
+        event.setDType(ProjectDO.class.getTypeName());
+        event.setDstNode("alice");
+        event.setSource(projectDO);
+        return event;
+    }
+}
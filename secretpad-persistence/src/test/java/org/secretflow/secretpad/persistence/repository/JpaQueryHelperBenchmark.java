@@ -0,0 +1,137 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.repository;
+
+import org.secretflow.secretpad.common.annotation.JpaQuery;
+import org.secretflow.secretpad.common.util.JpaQueryHelper;
+
+import jakarta.persistence.*;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Predicate construction of a paged list query through {@link JpaQueryHelper}.
+ * <p>
+ * reflective is the helper before plans were cached, kept as {@link LegacyJpaQueryHelper}; cached is the helper as
+ * every paged list endpoint calls it. Both include creating the
+ * criteria root, as each page query does.
+ * Run with, once the modules are installed with mvn install -DskipTests:
+ * mvn -pl secretpad-persistence test-compile exec:java -Dexec.mainClass=org.secretflow.secretpad.persistence.repository.JpaQueryHelperBenchmark
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class JpaQueryHelperBenchmark {
+
+    private SessionFactory sessionFactory;
+    private CriteriaBuilder cb;
+    private PageQuery query;
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JpaQueryHelperBenchmark.class.getSimpleName()).build()).run();
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sessionFactory = new Configuration()
+                .addAnnotatedClass(BenchOwner.class)
+                .addAnnotatedClass(BenchNode.class)
+                .setProperty("hibernate.connection.driver_class", "org.sqlite.JDBC")
+                .setProperty("hibernate.connection.url", "jdbc:sqlite::memory:")
+                .setProperty("hibernate.dialect", "org.hibernate.community.dialect.SQLiteDialect")
+                .buildSessionFactory();
+        cb = sessionFactory.getCriteriaBuilder();
+        query = new PageQuery();
+        query.search = "alice";
+        query.status = "Succeeded";
+        query.nodeIds = List.of("alice", "bob", "carol");
+        query.ownerName = "ant";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+    }
+
+    @Benchmark
+    public Predicate reflective() {
+        Root<BenchNode> root = cb.createQuery(BenchNode.class).from(BenchNode.class);
+        return LegacyJpaQueryHelper.getPredicate(root, query, cb);
+    }
+
+    @Benchmark
+    public Predicate cached() {
+        Root<BenchNode> root = cb.createQuery(BenchNode.class).from(BenchNode.class);
+        return JpaQueryHelper.getPredicate(root, query, cb);
+    }
+
+    public static class BasePageQuery {
+        private Integer page = 1;
+        private Integer size = 20;
+        private String sort;
+    }
+
+    public static class PageQuery extends BasePageQuery {
+        @JpaQuery(type = JpaQuery.Type.INNER_LIKE, blurry = "name,nodeId,netAddress")
+        private String search;
+        @JpaQuery
+        private String status;
+        @JpaQuery(type = JpaQuery.Type.IN, propName = "nodeId")
+        private List<String> nodeIds;
+        @JpaQuery(type = JpaQuery.Type.INNER_LIKE, propName = "name", joinName = "owner", join = JpaQuery.Join.INNER)
+        private String ownerName;
+        @JpaQuery(type = JpaQuery.Type.NOT_NULL, propName = "netAddress")
+        private Boolean hasAddress;
+    }
+
+    @Entity(name = "BenchOwner")
+    @Table(name = "bench_owner")
+    public static class BenchOwner {
+        @Id
+        private Long id;
+        private String name;
+    }
+
+    @Entity(name = "BenchNode")
+    @Table(name = "bench_node")
+    public static class BenchNode {
+        @Id
+        private Long id;
+        private String nodeId;
+        private String name;
+        private String netAddress;
+        private String status;
+        @ManyToOne(fetch = FetchType.LAZY)
+        private BenchOwner owner;
+    }
+}
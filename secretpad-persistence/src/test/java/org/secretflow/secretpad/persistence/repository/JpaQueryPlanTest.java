@@ -0,0 +1,224 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.persistence.repository;
+
+import org.secretflow.secretpad.common.annotation.JpaQuery;
+import org.secretflow.secretpad.common.util.JpaQueryHelper;
+import org.secretflow.secretpad.common.util.JpaQueryPlan;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Predicates built through {@link JpaQueryPlan} against {@link LegacyJpaQueryHelper}. The criteria builder and root
+ * record every call, so both must make the same calls in the same order and return the same predicate.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@SuppressWarnings(value = {"unchecked"})
+public class JpaQueryPlanTest {
+
+    @Test
+    void everyType() {
+        Set<JpaQuery.Type> types = EnumSet.noneOf(JpaQuery.Type.class);
+        for (Field field : JpaQueryHelper.getAllFields(TypeQuery.class, new ArrayList<>())) {
+            JpaQuery q = field.getAnnotation(JpaQuery.class);
+            if (q != null) {
+                types.add(q.type());
+            }
+        }
+        Assertions.assertEquals(EnumSet.allOf(JpaQuery.Type.class), types);
+
+        TypeQuery query = new TypeQuery();
+        query.status = "Succeeded";
+        query.minPort = 10;
+        query.maxPort = 20;
+        query.before = LocalDateTime.of(2024, 11, 20, 0, 0);
+        query.name = "alice";
+        query.description = "test";
+        query.leftName = "ice";
+        query.rightName = "ali";
+        query.nodeIds = List.of("alice", "bob");
+        query.excludeNodeIds = List.of("carol");
+        query.notStatus = "Failed";
+        query.portRange = List.of(1, 100);
+        query.hasAddress = true;
+        query.noOwner = true;
+        query.tag = "tee";
+        ((BaseQuery) query).page = 1;
+        assertSameCalls(query);
+    }
+
+    @Test
+    void blurryOrAndJoin() {
+        JoinQuery query = new JoinQuery();
+        query.search = "alice";
+        query.key = "bob";
+        query.ownerName = "ant";
+        query.ownerId = 1L;
+        query.orgName = "secretflow";
+        query.parentName = "root";
+        assertSameCalls(query);
+    }
+
+    @Test
+    void emptyValues() {
+        TypeQuery query = new TypeQuery();
+        query.name = "";
+        query.nodeIds = List.of();
+        query.portRange = List.of(1);
+        assertSameCalls(query);
+        assertSameCalls(new JoinQuery());
+        assertSameCalls(null);
+    }
+
+    private void assertSameCalls(Object query) {
+        Recorder expected = record(LegacyJpaQueryHelper::getPredicate, query);
+        Recorder actual = record(JpaQueryHelper::getPredicate, query);
+        Assertions.assertEquals(expected.result, actual.result);
+        Assertions.assertEquals(expected.calls, actual.calls);
+    }
+
+    private Recorder record(PredicateBuilder builder, Object query) {
+        Recorder recorder = new Recorder();
+        Root<Object> root = recorder.proxy(Root.class, "root");
+        CriteriaBuilder cb = recorder.proxy(CriteriaBuilder.class, "cb");
+        recorder.result = builder.apply(root, query, cb).toString();
+        return recorder;
+    }
+
+    private interface PredicateBuilder {
+        Predicate apply(Root<Object> root, Object query, CriteriaBuilder cb);
+    }
+
+    /**
+     * proxies of criteria interfaces, each call is recorded and returns a proxy describing the call
+     */
+    private static final class Recorder {
+        private final List<String> calls = new ArrayList<>();
+        private String result;
+
+        private <T> T proxy(Class<?> type, String desc) {
+            return (T) Proxy.newProxyInstance(JpaQueryPlanTest.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "toString":
+                        return desc;
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    case "equals":
+                        return proxy == args[0];
+                    default:
+                        break;
+                }
+                String call = desc + "." + method.getName() + "(" + describe(args) + ")";
+                calls.add(call);
+                Class<?> returnType = method.getReturnType();
+                if (returnType.isInterface()) {
+                    return proxy(returnType, call);
+                }
+                return returnType == boolean.class ? Boolean.FALSE : null;
+            });
+        }
+
+        private static String describe(Object[] args) {
+            if (args == null) {
+                return "";
+            }
+            return Arrays.stream(args).map(Recorder::describe).collect(Collectors.joining(", "));
+        }
+
+        private static String describe(Object arg) {
+            if (arg instanceof Class<?> clazz) {
+                return clazz.getSimpleName();
+            }
+            if (arg != null && arg.getClass().isArray()) {
+                Object[] items = new Object[Array.getLength(arg)];
+                for (int i = 0; i < items.length; i++) {
+                    items[i] = Array.get(arg, i);
+                }
+                return "[" + describe(items) + "]";
+            }
+            return String.valueOf(arg);
+        }
+    }
+
+    public static class BaseQuery {
+        @JpaQuery(type = JpaQuery.Type.GREATER_THAN, propName = "page")
+        private Integer page;
+    }
+
+    public static class TypeQuery extends BaseQuery {
+        @JpaQuery
+        private String status;
+        @JpaQuery(type = JpaQuery.Type.GREATER_THAN, propName = "port")
+        private Integer minPort;
+        @JpaQuery(type = JpaQuery.Type.LESS_THAN, propName = "port")
+        private Integer maxPort;
+        @JpaQuery(type = JpaQuery.Type.LESS_THAN_NQ, propName = "gmtCreate")
+        private LocalDateTime before;
+        @JpaQuery(type = JpaQuery.Type.INNER_LIKE)
+        private String name;
+        @JpaQuery(type = JpaQuery.Type.OR_INNER_LIKE)
+        private String description;
+        @JpaQuery(type = JpaQuery.Type.LEFT_LIKE, propName = "name")
+        private String leftName;
+        @JpaQuery(type = JpaQuery.Type.RIGHT_LIKE, propName = "name")
+        private String rightName;
+        @JpaQuery(type = JpaQuery.Type.IN, propName = "nodeId")
+        private List<String> nodeIds;
+        @JpaQuery(type = JpaQuery.Type.NOT_IN, propName = "nodeId")
+        private List<String> excludeNodeIds;
+        @JpaQuery(type = JpaQuery.Type.NOT_EQUAL, propName = "status")
+        private String notStatus;
+        @JpaQuery(type = JpaQuery.Type.BETWEEN, propName = "port")
+        private List<Integer> portRange;
+        @JpaQuery(type = JpaQuery.Type.NOT_NULL, propName = "netAddress")
+        private Boolean hasAddress;
+        @JpaQuery(type = JpaQuery.Type.IS_NULL, propName = "owner")
+        private Boolean noOwner;
+        @JpaQuery(type = JpaQuery.Type.FIND_IN_SET, propName = "tags")
+        private String tag;
+        private String sort;
+    }
+
+    public static class JoinQuery {
+        @JpaQuery(type = JpaQuery.Type.INNER_LIKE, blurry = "name,nodeId,netAddress")
+        private String search;
+        @JpaQuery(or = "nodeId,name")
+        private String key;
+        @JpaQuery(type = JpaQuery.Type.INNER_LIKE, propName = "name", joinName = "owner", join = JpaQuery.Join.INNER)
+        private String ownerName;
+        @JpaQuery(propName = "id", joinName = "owner", join = JpaQuery.Join.INNER)
+        private Long ownerId;
+        @JpaQuery(propName = "name", joinName = "owner>org")
+        private String orgName;
+        @JpaQuery(propName = "name", joinName = "owner>org>parent", join = JpaQuery.Join.RIGHT)
+        private String parentName;
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.persistence.repository;
+
+import org.secretflow.secretpad.common.annotation.JpaQuery;
+import org.secretflow.secretpad.common.util.JpaQueryHelper;
+
+import jakarta.persistence.criteria.*;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.util.CollectionUtils;
+
+import java.lang.reflect.Field;
+import java.util.*;
+
+/**
+ * Copy of {@link JpaQueryHelper} before query plans were cached, which reflects over the query class on every call.
+ * Kept as the reference of {@link JpaQueryPlanTest} and the baseline of {@link JpaQueryHelperBenchmark}.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+@SuppressWarnings("unchecked")
+final class LegacyJpaQueryHelper {
+
+    static <R, Q> Predicate getPredicate(Root<R> root, Q query, CriteriaBuilder cb) {
+        List<Predicate> list = new ArrayList<>();
+        if (query == null) {
+            return cb.and(list.toArray(new Predicate[0]));
+        }
+        try {
+            Map<String, Join> joinKey = new HashMap<>();
+            List<Field> fields = getAllFields(query.getClass(), new ArrayList<>());
+            for (Field field : fields) {
+                field.setAccessible(true);
+                JpaQuery q = field.getAnnotation(JpaQuery.class);
+                if (q != null) {
+                    String propName = q.propName();
+                    String joinName = q.joinName();
+                    String blurry = q.blurry();
+                    String or = q.or();
+                    String attributeName = isBlank(propName) ? field.getName() : propName;
+                    Class<?> fieldType = field.getType();
+                    Object val = field.get(query);
+                    if (ObjectUtils.isEmpty(val) || "".equals(val)) {
+                        continue;
+                    }
+                    Join join = null;
+                    // inner like multiple fields
+                    if (ObjectUtils.isNotEmpty(blurry)) {
+                        String[] blurrys = blurry.split(",");
+                        List<Predicate> orPredicate = new ArrayList<>();
+                        for (String s : blurrys) {
+                            orPredicate.add(cb.like(root.get(s).as(String.class), "%" + val + "%"));
+                        }
+                        Predicate[] p = new Predicate[orPredicate.size()];
+                        list.add(cb.or(orPredicate.toArray(p)));
+                        continue;
+                    }
+                    // or multiple fields append by eq
+                    if (ObjectUtils.isNotEmpty(or)) {
+                        String[] ors = or.split(",");
+                        List<Predicate> orPredicate = new ArrayList<>();
+                        for (String s : ors) {
+                            orPredicate.add(cb.equal(root.get(s).as(String.class), val.toString()));
+                        }
+                        Predicate[] p = new Predicate[orPredicate.size()];
+                        list.add(cb.or(orPredicate.toArray(p)));
+                        continue;
+                    }
+                    if (ObjectUtils.isNotEmpty(joinName)) {
+                        join = joinKey.get(joinName);
+                        if (join == null) {
+                            String[] joinNames = joinName.split(">");
+                            for (String name : joinNames) {
+                                switch (q.join()) {
+                                    case LEFT:
+                                        if (ObjectUtils.isNotEmpty(join) && ObjectUtils.isNotEmpty(val)) {
+                                            join = join.join(name, JoinType.LEFT);
+                                        } else {
+                                            join = root.join(name, JoinType.LEFT);
+                                        }
+                                        break;
+                                    case RIGHT:
+                                        if (ObjectUtils.isNotEmpty(join) && ObjectUtils.isNotEmpty(val)) {
+                                            join = join.join(name, JoinType.RIGHT);
+                                        } else {
+                                            join = root.join(name, JoinType.RIGHT);
+                                        }
+                                        break;
+                                    case INNER:
+                                        if (ObjectUtils.isNotEmpty(join) && ObjectUtils.isNotEmpty(val)) {
+                                            join = join.join(name, JoinType.INNER);
+                                        } else {
+                                            join = root.join(name, JoinType.INNER);
+                                        }
+                                        break;
+                                    default:
+                                        break;
+                                }
+                            }
+                            joinKey.put(joinName, join);
+                        }
+                    }
+                    switch (q.type()) {
+                        case EQUAL:
+                            list.add(cb.equal(
+                                    getExpression(attributeName, join, root).as((Class<? extends Comparable>) fieldType),
+                                    val));
+                            break;
+                        case GREATER_THAN:
+                            list.add(cb.greaterThanOrEqualTo(
+                                    getExpression(attributeName, join, root).as((Class<? extends Comparable>) fieldType),
+                                    (Comparable) val));
+                            break;
+                        case LESS_THAN:
+                            list.add(cb.lessThanOrEqualTo(
+                                    getExpression(attributeName, join, root).as((Class<? extends Comparable>) fieldType),
+                                    (Comparable) val));
+                            break;
+                        case LESS_THAN_NQ:
+                            list.add(cb.lessThan(
+                                    getExpression(attributeName, join, root).as((Class<? extends Comparable>) fieldType),
+                                    (Comparable) val));
+                            break;
+                        case INNER_LIKE:
+                            list.add(
+                                    cb.like(getExpression(attributeName, join, root).as(String.class), "%" + val + "%"));
+                            break;
+                        case LEFT_LIKE:
+                            list.add(cb.like(getExpression(attributeName, join, root).as(String.class), "%" + val));
+                            break;
+                        case RIGHT_LIKE:
+                            list.add(cb.like(getExpression(attributeName, join, root).as(String.class), val + "%"));
+                            break;
+                        case IN:
+                            if (!CollectionUtils.isEmpty((Collection<Object>) val)) {
+                                list.add(getExpression(attributeName, join, root).in((Collection<Object>) val));
+                            }
+                            break;
+                        case NOT_IN:
+                            if (!CollectionUtils.isEmpty((Collection<Object>) val)) {
+                                list.add(getExpression(attributeName, join, root).in((Collection<Object>) val).not());
+                            }
+                            break;
+                        case NOT_EQUAL:
+                            list.add(cb.notEqual(getExpression(attributeName, join, root), val));
+                            break;
+                        case NOT_NULL:
+                            list.add(cb.isNotNull(getExpression(attributeName, join, root)));
+                            break;
+                        case IS_NULL:
+                            list.add(cb.isNull(getExpression(attributeName, join, root)));
+                            break;
+                        case BETWEEN:
+                            List<Object> between = new ArrayList<>((List<Object>) val);
+                            if (between.size() == 2) {
+                                list.add(cb.between(
+                                        getExpression(attributeName, join, root)
+                                                .as((Class<? extends Comparable>) between.get(0).getClass()),
+                                        (Comparable) between.get(0), (Comparable) between.get(1)));
+                            }
+                            break;
+                        case FIND_IN_SET:
+                            list.add(cb.greaterThan(cb.function("FIND_IN_SET", Integer.class,
+                                    cb.literal(val.toString()), root.get(attributeName)), 0));
+                            break;
+                        default:
+                            break;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.error(e.getMessage(), e);
+        }
+        int size = list.size();
+        return cb.and(list.toArray(new Predicate[size]));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T, R> Expression<T> getExpression(String attributeName, Join join, Root<R> root) {
+        if (ObjectUtils.isNotEmpty(join)) {
+            return join.get(attributeName);
+        } else {
+            return root.get(attributeName);
+        }
+    }
+
+    private static boolean isBlank(final CharSequence cs) {
+        int strLen;
+        if (cs == null || (strLen = cs.length()) == 0) {
+            return true;
+        }
+        for (int i = 0; i < strLen; i++) {
+            if (!Character.isWhitespace(cs.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<Field> getAllFields(Class clazz, List<Field> fields) {
+        if (clazz != null) {
+            fields.addAll(Arrays.asList(clazz.getDeclaredFields()));
+            getAllFields(clazz.getSuperclass(), fields);
+        }
+        return fields;
+    }
+}
\ No newline at end of file
@@ -36,6 +36,13 @@ import java.util.concurrent.ConcurrentHashMap;
 public interface ComponentService {
     Map<String, ComponentDef> SF_HIDE_COMPONENTS = new ConcurrentHashMap<>();
 
+    /**
+     * Version of the component catalog, changes whenever the components or their international config change
+     *
+     * @return catalog version
+     */
+    String getCatalogVersion();
+
     /**
      * List components and build component list view object
      *
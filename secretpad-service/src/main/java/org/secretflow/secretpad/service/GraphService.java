@@ -20,6 +20,7 @@ import org.secretflow.secretpad.service.model.graph.*;
 import org.secretflow.secretpad.service.model.project.GetProjectJobTaskOutputRequest;
 
 import com.secretflow.spec.v1.ComponentDef;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
@@ -32,6 +33,13 @@ import java.util.Map;
  */
 public interface GraphService {
 
+    /**
+     * Version of the component catalog, used as etag of the component responses
+     *
+     * @return catalog version
+     */
+    String getComponentCatalogVersion();
+
     /**
      * List components
      *
@@ -131,6 +139,14 @@ public interface GraphService {
      */
     GraphStatus listGraphNodeStatus(ListGraphNodeStatusRequest request);
 
+    /**
+     * Stream graph node status, pushed when the status of graph nodes changes
+     *
+     * @param request list graph node status request
+     * @return sse emitter of graph node status
+     */
+    SseEmitter streamGraphNodeStatus(ListGraphNodeStatusRequest request);
+
     /**
      * Stop graph node by stop graph node request
      *
@@ -46,6 +46,14 @@ public interface ProjectService {
      */
     List<ProjectVO> listProject();
 
+    /**
+     * Paging list current projects
+     *
+     * @param request list project request
+     * @return paging project view object
+     */
+    PageResponse<ProjectVO> pageProject(ListProjectRequest request);
+
     /**
      * Query project by projectId
      *
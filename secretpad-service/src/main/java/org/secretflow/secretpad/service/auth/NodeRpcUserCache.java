@@ -0,0 +1,131 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.auth;
+
+import org.secretflow.secretpad.common.enums.PermissionUserTypeEnum;
+import org.secretflow.secretpad.common.enums.ResourceTypeEnum;
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.entity.ProjectNodeDO;
+import org.secretflow.secretpad.persistence.entity.SysResourceDO;
+import org.secretflow.secretpad.persistence.entity.SysRoleDO;
+import org.secretflow.secretpad.persistence.entity.SysRoleResourceRelDO;
+import org.secretflow.secretpad.persistence.entity.SysUserPermissionRelDO;
+import org.secretflow.secretpad.persistence.repository.ProjectNodeRepository;
+import org.secretflow.secretpad.service.SysResourcesBizService;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * In memory cache of the identity of nodes calling the inner port: the projects a node takes part in and the api
+ * resources granted to it.
+ * <p>
+ * A node is evicted on changes of its project_node or sys_user_permission_rel records, and every node on changes
+ * of roles or resources. Entries are reloaded after the ttl so changes made out of jpa are picked up as well.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Component
+@RequiredArgsConstructor
+public class NodeRpcUserCache {
+
+    private final ProjectNodeRepository projectNodeRepository;
+    private final SysResourcesBizService sysResourcesBizService;
+
+    @Value("${secretpad.auth.node-rpc-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private final Map<String, NodeRpcUser> nodes = new ConcurrentHashMap<>();
+
+    /**
+     * Query the identity of the node
+     *
+     * @param nodeId source node id
+     * @return project ids and api resource codes of the node
+     */
+    public NodeRpcUser get(String nodeId) {
+        LocalDateTime now = LocalDateTime.now();
+        NodeRpcUser cached = nodes.get(nodeId);
+        if (cached != null && cached.loadedAt().plusSeconds(ttlSeconds).isAfter(now)) {
+            return cached;
+        }
+        Set<String> projectIds = projectNodeRepository.findByNodeId(nodeId).stream()
+                .map(t -> t.getUpk().getProjectId())
+                .collect(Collectors.toUnmodifiableSet());
+        Set<String> apiResources = Set.copyOf(sysResourcesBizService.queryResourceCodeByUsername(PermissionUserTypeEnum.NODE, ResourceTypeEnum.API, nodeId));
+        NodeRpcUser loaded = new NodeRpcUser(projectIds, apiResources, now);
+        nodes.put(nodeId, loaded);
+        return loaded;
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        Object entity = event.getEntity();
+        if (entity instanceof ProjectNodeDO projectNodeDO && projectNodeDO.getUpk() != null) {
+            evict(projectNodeDO.getUpk().getNodeId());
+        } else if (entity instanceof SysUserPermissionRelDO permissionRelDO && permissionRelDO.getUpk() != null) {
+            evict(permissionRelDO.getUpk().getUserKey());
+        } else if (entity instanceof SysRoleResourceRelDO || entity instanceof SysResourceDO || entity instanceof SysRoleDO) {
+            evict(null);
+        }
+    }
+
+    /**
+     * Evict the node now and again when the current transaction completes, so that a load racing with the
+     * uncommitted change doesn't keep the old identity
+     *
+     * @param nodeId node id, null for every node
+     */
+    public void evict(String nodeId) {
+        evictNow(nodeId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evictNow(nodeId);
+                }
+            });
+        }
+    }
+
+    private void evictNow(String nodeId) {
+        if (nodeId == null) {
+            nodes.clear();
+        } else {
+            nodes.remove(nodeId);
+        }
+    }
+
+    /**
+     * @param projectIds   projects the node takes part in
+     * @param apiResources api resource codes granted to the node
+     * @param loadedAt     load time
+     */
+    public record NodeRpcUser(Set<String> projectIds, Set<String> apiResources, LocalDateTime loadedAt) {
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.auth;
+
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.entity.TokensDO;
+import org.secretflow.secretpad.persistence.repository.UserTokensRepository;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In memory cache of user tokens in front of user_tokens.
+ * <p>
+ * The last use of a token is kept in memory and written behind, only once it has moved more than the refresh
+ * interval past the persisted gmtToken. Tokens are evicted on every change of their record, e.g. logout or
+ * password reset, and reloaded after the ttl so changes made by other instances are seen.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserTokenCache {
+
+    private final UserTokensRepository userTokensRepository;
+
+    @Value("${secretpad.auth.token-cache.ttl-seconds:60}")
+    private long ttlSeconds;
+
+    @Value("${secretpad.auth.token-cache.refresh-interval-seconds:60}")
+    private long refreshIntervalSeconds;
+
+    private final Map<String, CachedToken> tokens = new ConcurrentHashMap<>();
+
+    /**
+     * Query user token, gmtToken of the result is the last use of the token
+     *
+     * @param token user token
+     * @return user token, tokens without session data are returned but not cached
+     */
+    public Optional<TokensDO> findByToken(String token) {
+        if (StringUtils.isBlank(token)) {
+            return Optional.empty();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        CachedToken cached = tokens.get(token);
+        if (cached != null && cached.loadedAt.plusSeconds(ttlSeconds).isAfter(now)) {
+            return Optional.of(cached.view());
+        }
+        Optional<TokensDO> tokensDO = userTokensRepository.findByToken(token);
+        if (tokensDO.isEmpty() || StringUtils.isBlank(tokensDO.get().getSessionData())) {
+            tokens.remove(token);
+            return tokensDO;
+        }
+        CachedToken loaded = new CachedToken(tokensDO.get(), now);
+        if (cached != null && cached.lastUsed.isAfter(loaded.lastUsed)) {
+            loaded.lastUsed = cached.lastUsed;
+        }
+        tokens.put(token, loaded);
+        return Optional.of(loaded.view());
+    }
+
+    /**
+     * Record a use of the token, persisted later
+     */
+    public void touch(String token, LocalDateTime now) {
+        CachedToken cached = tokens.get(token);
+        if (cached != null && now.isAfter(cached.lastUsed)) {
+            cached.lastUsed = now;
+        }
+    }
+
+    /**
+     * Evict the token now and again when the current transaction completes, so that a load racing with the
+     * uncommitted change doesn't keep the old record
+     */
+    public void evict(String token) {
+        if (StringUtils.isBlank(token)) {
+            return;
+        }
+        tokens.remove(token);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    tokens.remove(token);
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntity() instanceof TokensDO tokensDO) {
+            evict(tokensDO.getToken());
+        }
+    }
+
+    /**
+     * Write behind the last use of tokens, and drop tokens past the ttl
+     */
+    @Scheduled(fixedDelay = 5000)
+    public void flush() {
+        LocalDateTime now = LocalDateTime.now();
+        tokens.forEach((token, cached) -> {
+            boolean expired = !cached.loadedAt.plusSeconds(ttlSeconds).isAfter(now);
+            LocalDateTime lastUsed = cached.lastUsed;
+            if (lastUsed.isAfter(cached.persisted)
+                    && (expired || !lastUsed.isBefore(cached.persisted.plusSeconds(refreshIntervalSeconds)))) {
+                persist(token, cached, lastUsed);
+            }
+            if (expired) {
+                tokens.remove(token, cached);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        tokens.forEach((token, cached) -> {
+            if (cached.lastUsed.isAfter(cached.persisted)) {
+                persist(token, cached, cached.lastUsed);
+            }
+        });
+    }
+
+    private void persist(String token, CachedToken cached, LocalDateTime lastUsed) {
+        try {
+            userTokensRepository.refreshGmtToken(token, lastUsed);
+            cached.persisted = lastUsed;
+        } catch (Exception e) {
+            log.warn("refresh gmtToken of user {} error", cached.name, e);
+        }
+    }
+
+    private static final class CachedToken {
+        private final String token;
+        private final String name;
+        private final String sessionData;
+        private final LocalDateTime loadedAt;
+        private volatile LocalDateTime persisted;
+        private volatile LocalDateTime lastUsed;
+
+        private CachedToken(TokensDO tokensDO, LocalDateTime loadedAt) {
+            this.token = tokensDO.getToken();
+            this.name = tokensDO.getName();
+            this.sessionData = tokensDO.getSessionData();
+            this.loadedAt = loadedAt;
+            this.persisted = tokensDO.getGmtToken() == null ? loadedAt : tokensDO.getGmtToken();
+            this.lastUsed = this.persisted;
+        }
+
+        private TokensDO view() {
+            return TokensDO.builder().token(token).name(name).gmtToken(lastUsed).sessionData(sessionData).build();
+        }
+    }
+}
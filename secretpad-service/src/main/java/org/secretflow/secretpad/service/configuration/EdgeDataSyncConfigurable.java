@@ -30,12 +30,14 @@ import org.secretflow.secretpad.persistence.datasync.retry.impl.ThrowDataSyncRet
 import org.secretflow.secretpad.persistence.datasync.retry.impl.TryDataSyncRetry;
 import org.secretflow.secretpad.persistence.model.DataSyncConfig;
 import org.secretflow.secretpad.persistence.repository.*;
-import org.secretflow.secretpad.service.listener.DbChangeEventListener;
+import org.secretflow.secretpad.service.sync.center.CenterDataSyncDispatcher;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.channel.ChannelOption;
 import io.netty.handler.timeout.ReadTimeoutHandler;
 import io.netty.handler.timeout.WriteTimeoutHandler;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cache.CacheManager;
@@ -66,6 +68,10 @@ public class EdgeDataSyncConfigurable {
     private String kusciaLiteGateway;
     @Value("${secretpad.datasync.retry:fastFailedPolicy}")
     private String retry;
+    @Value("${secretpad.datasync.dispatch.workers:4}")
+    private int dispatchWorkers;
+    @Value("${secretpad.datasync.dispatch.queue-capacity:10000}")
+    private int dispatchQueueCapacity;
 
     @Bean("p2pPaddingNodeService")
     public PaddingNodeService p2pPaddingNodeServiceImpl(ProjectInstRepository projectInstRepository, ProjectApprovalConfigRepository projectApprovalConfigRepository, VoteRequestRepository voteRequestRepository, CacheManager cacheManager, NodeRepository nodeRepository) {
@@ -98,8 +104,10 @@ public class EdgeDataSyncConfigurable {
     }
 
     @Bean
-    public DbChangeEventListener dbChangeEventListener(ProjectNodeRepository projectNodeRepository, FeatureTableRepository featureTableRepository, DataSyncDataBufferTemplate dataSyncDataBufferTemplate) {
-        return new DbChangeEventListener(projectNodeRepository, featureTableRepository, dataSyncDataBufferTemplate);
+    public CenterDataSyncDispatcher centerDataSyncDispatcher(ProjectNodeRepository projectNodeRepository, FeatureTableRepository featureTableRepository,
+                                                             DataSyncDataBufferTemplate dataSyncDataBufferTemplate, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new CenterDataSyncDispatcher(projectNodeRepository, featureTableRepository, dataSyncDataBufferTemplate, meterRegistry.getIfAvailable(),
+                dispatchWorkers, dispatchQueueCapacity);
     }
 
     @Bean
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.graph;
+
+import org.secretflow.secretpad.common.util.FileUtils;
+import org.secretflow.secretpad.common.util.JsonUtils;
+import org.secretflow.secretpad.common.util.Sha256Utils;
+import org.secretflow.secretpad.service.constant.ComponentConstants;
+import org.secretflow.secretpad.service.model.graph.CompListVO;
+import org.secretflow.secretpad.service.model.graph.ComponentKey;
+import org.secretflow.secretpad.service.model.graph.ComponentSummaryDef;
+
+import com.secretflow.spec.v1.CompListDef;
+import com.secretflow.spec.v1.ComponentDef;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.CollectionUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Immutable index of the component specs and their i18n config, built once when the components are loaded.
+ * <p>
+ * Component lookups are a map get, and the component list and i18n responses are built here instead of per request.
+ * The version is a hash of the specs, the i18n config and the hidden components, and serves as the etag of the
+ * responses.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+public final class ComponentCatalog {
+
+    @Getter
+    private final String version;
+    private final Map<ComponentKey, ComponentDef> components;
+    @Getter
+    private final Map<String, CompListVO> summaries;
+    private final Map<String, Map<String, Object>> i18n;
+    private final IOException i18nError;
+    /**
+     * hidden secretflow components by name
+     */
+    @Getter
+    private final Map<String, ComponentDef> hidden;
+
+    private ComponentCatalog(List<CompListDef> compListDefs, Set<String> hide, File i18nDir) {
+        Map<ComponentKey, ComponentDef> components = new HashMap<>();
+        Map<String, CompListVO> summaries = new HashMap<>();
+        Map<String, ComponentDef> hidden = new HashMap<>();
+        StringBuilder digest = new StringBuilder();
+        for (CompListDef compListDef : compListDefs) {
+            List<ComponentDef> comps = compListDef.getCompsList();
+            if (CollectionUtils.isEmpty(comps)) {
+                continue;
+            }
+            digest.append(Sha256Utils.hash(compListDef.toString()));
+            List<ComponentSummaryDef> summaryDefs = new ArrayList<>(comps.size());
+            for (ComponentDef componentDef : comps) {
+                components.put(new ComponentKey(compListDef.getName(), componentDef.getDomain(), componentDef.getName()), componentDef);
+                //secretflow/domain/name:version
+                String hideKey = compListDef.getName() + "/" + componentDef.getDomain() + "/" + componentDef.getName() + ":" + componentDef.getVersion();
+                if (hide.contains(hideKey)) {
+                    log.info("hide {}", hideKey);
+                    hidden.put(componentDef.getName(), componentDef);
+                    continue;
+                }
+                summaryDefs.add(ComponentSummaryDef.builder()
+                        .domain(componentDef.getDomain())
+                        .name(componentDef.getName())
+                        .version(componentDef.getVersion())
+                        .desc(componentDef.getDesc())
+                        .build());
+            }
+            summaries.put(compListDef.getName(), CompListVO.builder()
+                    .name(compListDef.getName())
+                    .version(compListDef.getVersion())
+                    .desc(compListDef.getDesc())
+                    .comps(Collections.unmodifiableList(summaryDefs)).build());
+        }
+        summaries.remove(ComponentConstants.SECRETPAD);
+        summaries.remove(ComponentConstants.SCQL);
+
+        Map<String, Map<String, Object>> i18n = new HashMap<>();
+        IOException i18nError = null;
+        try {
+            i18n = loadI18n(i18nDir, hide);
+            digest.append(Sha256Utils.hash(JsonUtils.toJSONString(new TreeMap<>(i18n))));
+        } catch (IOException e) {
+            log.error("load component i18n from {} error", i18nDir, e);
+            i18nError = e;
+        }
+        digest.append(Sha256Utils.hash(String.join(",", new TreeSet<>(hide))));
+
+        this.components = Collections.unmodifiableMap(components);
+        this.summaries = Collections.unmodifiableMap(summaries);
+        this.hidden = Collections.unmodifiableMap(hidden);
+        this.i18n = Collections.unmodifiableMap(i18n);
+        this.i18nError = i18nError;
+        this.version = Sha256Utils.hash(digest.toString()).substring(0, 32);
+    }
+
+    /**
+     * @param compListDefs component specs
+     * @param hide         hidden components, as app/domain/name:version for specs and app/key for i18n
+     * @param i18nDir      directory of the i18n json files, one per app
+     */
+    public static ComponentCatalog build(List<CompListDef> compListDefs, Collection<String> hide, File i18nDir) {
+        return new ComponentCatalog(compListDefs, hide == null ? Set.of() : new HashSet<>(hide), i18nDir);
+    }
+
+    /**
+     * @return component of the key, null if there is none
+     */
+    public ComponentDef get(ComponentKey key) {
+        return components.get(key);
+    }
+
+    /**
+     * @return i18n config by app
+     * @throws IOException if the i18n config failed to load
+     */
+    public Map<String, Map<String, Object>> getI18n() throws IOException {
+        if (i18nError != null) {
+            throw i18nError;
+        }
+        return i18n;
+    }
+
+    private static Map<String, Map<String, Object>> loadI18n(File dir, Set<String> hide) throws IOException {
+        Map<String, Map<String, Object>> config = new HashMap<>();
+        Map<String, Object> secretpad = new HashMap<>();
+        Map<String, Object> scql = new HashMap<>();
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return config;
+        }
+        for (File file : files) {
+            String fileName = file.getName();
+            String app = fileName.substring(0, fileName.lastIndexOf('.'));
+            Map<String, Object> content = JsonUtils.toJavaMap(FileUtils.readFile2String(file), Object.class);
+            if (!CollectionUtils.isEmpty(content)) {
+                if (app.equals(ComponentConstants.SECRETPAD)) {
+                    secretpad = content;
+                } else if (app.equals(ComponentConstants.SCQL)) {
+                    scql = content;
+                } else {
+                    config.put(app, new HashMap<>(content));
+                }
+            }
+        }
+        for (Map<String, Object> content : config.values()) {
+            content.putAll(secretpad);
+        }
+        Map<String, Object> secretflow = config.get(ComponentConstants.SECRETFLOW);
+        if (secretflow != null) {
+            secretflow.putAll(scql);
+        }
+        config.forEach((app, content) -> content.keySet().removeIf(key -> hide.contains(app + "/" + key)));
+        config.replaceAll((app, content) -> Collections.unmodifiableMap(content));
+        return config;
+    }
+}
@@ -0,0 +1,326 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.service.graph;
+
+import org.secretflow.secretpad.manager.integration.job.event.JobStatusChangedEvent;
+import org.secretflow.secretpad.persistence.entity.NodeDO;
+import org.secretflow.secretpad.persistence.entity.ProjectGraphDO;
+import org.secretflow.secretpad.persistence.entity.ProjectGraphNodeDO;
+import org.secretflow.secretpad.persistence.entity.ProjectTaskDO;
+import org.secretflow.secretpad.persistence.model.GraphNodeTaskStatus;
+import org.secretflow.secretpad.persistence.projection.ProjectJobStatus;
+import org.secretflow.secretpad.persistence.repository.NodeRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectGraphRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectJobRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectJobTaskRepository;
+import org.secretflow.secretpad.service.model.graph.GraphNodeStatusVO;
+import org.secretflow.secretpad.service.model.graph.GraphStatus;
+import org.secretflow.secretpad.service.model.node.NodeSimpleInfo;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.CollectionUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Node status of graphs, kept per graph and pushed to the status streams of the graph.
+ * <p>
+ * A status is served from memory within ttl-seconds as long as the graph has the same nodes, a job status synced
+ * from kuscia or a graph started or stopped here evicts it. Graphs with open streams are loaded again on those
+ * events and every refresh-interval-ms, the nodes whose status changed are pushed as a status event.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GraphStatusSnapshot {
+
+    public static final String STATUS_EVENT = "status";
+
+    private final ProjectGraphRepository graphRepository;
+    private final ProjectJobTaskRepository taskRepository;
+    private final ProjectJobRepository jobRepository;
+    private final NodeRepository nodeRepository;
+
+    @Value("${secretpad.graph.status.ttl-seconds:3}")
+    private long ttlSeconds;
+    @Value("${secretpad.graph.status.stream-timeout-ms:600000}")
+    private long streamTimeoutMillis;
+
+    private final Map<ProjectGraphDO.UPK, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<ProjectGraphDO.UPK, Set<SseEmitter>> streams = new ConcurrentHashMap<>();
+    /**
+     * status last pushed to the streams of a graph, only touched by the push thread
+     */
+    private final Map<ProjectGraphDO.UPK, GraphStatus> pushed = new ConcurrentHashMap<>();
+    private ExecutorService pushExecutor;
+
+    @PostConstruct
+    public void init() {
+        pushExecutor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "graph-status-push");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (pushExecutor != null) {
+            pushExecutor.shutdownNow();
+        }
+        streams.values().forEach(emitters -> emitters.forEach(SseEmitter::complete));
+    }
+
+    /**
+     * status of the graph, from memory unless it is stale or the graph nodes have changed
+     */
+    public GraphStatus get(ProjectGraphDO graphDO) {
+        Set<String> graphNodeIds = graphNodeIds(graphDO);
+        Entry entry = entries.get(graphDO.getUpk());
+        long now = System.currentTimeMillis();
+        if (entry != null && entry.expireAt() > now && entry.graphNodeIds().equals(graphNodeIds)) {
+            return entry.status();
+        }
+        GraphStatus status = load(graphDO);
+        if (ttlSeconds > 0) {
+            entries.put(graphDO.getUpk(), new Entry(status, graphNodeIds, now + ttlSeconds * 1000));
+        }
+        return status;
+    }
+
+    /**
+     * Load the latest task status of every graph node with one query for the tasks and one for their parties
+     *
+     * @param graphDO target graph data object
+     * @return latest graph task status
+     */
+    public GraphStatus load(ProjectGraphDO graphDO) {
+        String projectId = graphDO.getUpk().getProjectId();
+        List<ProjectGraphNodeDO> nodes = graphDO.getNodes();
+        GraphStatus graphStatus = new GraphStatus();
+        List<GraphNodeStatusVO> nodeStatus = new ArrayList<>();
+        List<String> jobIds = new ArrayList<>();
+        if (!CollectionUtils.isEmpty(nodes)) {
+            List<String> graphNodeIds = nodes.stream().map(node -> node.getUpk().getGraphNodeId()).toList();
+            Map<String, ProjectTaskDO> latestTasks = taskRepository.findLatestTasksByGraphNodeIds(projectId, graphNodeIds).stream()
+                    .collect(Collectors.toMap(ProjectTaskDO::getGraphNodeId, Function.identity(), (a, b) -> a));
+            Set<String> partyIds = latestTasks.values().stream().filter(task -> task.getParties() != null)
+                    .flatMap(task -> task.getParties().stream()).collect(Collectors.toSet());
+            Map<String, NodeDO> parties = partyIds.isEmpty() ? Map.of()
+                    : nodeRepository.findByNodeIdIn(partyIds).stream().collect(Collectors.toMap(NodeDO::getNodeId, Function.identity(), (a, b) -> a));
+            for (String graphNodeId : graphNodeIds) {
+                GraphNodeStatusVO nodeStatusVO = new GraphNodeStatusVO();
+                nodeStatusVO.setGraphNodeId(graphNodeId);
+                ProjectTaskDO task = latestTasks.get(graphNodeId);
+                GraphNodeTaskStatus status = GraphNodeTaskStatus.STAGING;
+                if (task != null) {
+                    status = task.getStatus();
+                    nodeStatusVO.setTaskId(task.getUpk().getTaskId());
+                    nodeStatusVO.setJobId(task.getUpk().getJobId());
+                    nodeStatusVO.setParties(task.getParties() == null ? List.of() : task.getParties().stream().map(parties::get).filter(Objects::nonNull)
+                            .map(e -> NodeSimpleInfo.builder().nodeName(e.getName()).nodeId(e.getNodeId()).build()).collect(Collectors.toList()));
+                    nodeStatusVO.setProgress(task.getExtraInfo().getProgress());
+                    jobIds.add(task.getUpk().getJobId());
+                }
+                nodeStatusVO.setStatus(status);
+                nodeStatus.add(nodeStatusVO);
+            }
+        }
+
+        // resolve job status
+        boolean finished = true;
+        if (!CollectionUtils.isEmpty(jobIds)) {
+            List<ProjectJobStatus> jobStatuses = jobRepository.findStatusByJobIds(projectId, jobIds.stream().distinct().toList());
+            for (ProjectJobStatus job : jobStatuses) {
+                if (!job.isFinished()) {
+                    finished = false;
+                    break;
+                }
+            }
+        }
+
+        graphStatus.setNodes(nodeStatus);
+        graphStatus.setFinished(finished);
+        return graphStatus;
+    }
+
+    /**
+     * Open a status stream of the graph, the first status event carries every node and later ones the changed nodes.
+     * The stream fails if the graph is gone or its status can't be loaded.
+     */
+    public SseEmitter subscribe(ProjectGraphDO.UPK upk) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        Runnable remove = () -> {
+            Set<SseEmitter> emitters = streams.get(upk);
+            if (emitters != null) {
+                emitters.remove(emitter);
+            }
+        };
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        pushExecutor.execute(() -> {
+            GraphStatus status = push(upk);
+            if (status == null) {
+                emitter.completeWithError(new IllegalStateException("status of graph " + upk + " is not available"));
+                return;
+            }
+            if (send(emitter, status)) {
+                streams.computeIfAbsent(upk, k -> ConcurrentHashMap.newKeySet()).add(emitter);
+            }
+        });
+        return emitter;
+    }
+
+    /**
+     * forget the status of the graph, after commit if a transaction is active
+     */
+    public void evict(ProjectGraphDO.UPK upk) {
+        changed(upk);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    changed(upk);
+                }
+            });
+        }
+    }
+
+    @EventListener
+    public void onJobStatusChanged(JobStatusChangedEvent event) {
+        if (event.getProjectId() != null && event.getGraphId() != null) {
+            changed(new ProjectGraphDO.UPK(event.getProjectId(), event.getGraphId()));
+        }
+    }
+
+    /**
+     * push changes which have not come with an event, e.g. synced from other nodes
+     */
+    @Scheduled(fixedDelayString = "${secretpad.graph.status.refresh-interval-ms:5000}")
+    public void refresh() {
+        streams.forEach((upk, emitters) -> {
+            if (emitters.isEmpty()) {
+                streams.remove(upk, emitters);
+                pushed.remove(upk);
+            } else {
+                pushExecutor.execute(() -> push(upk));
+            }
+        });
+    }
+
+    private void changed(ProjectGraphDO.UPK upk) {
+        entries.remove(upk);
+        if (streams.containsKey(upk)) {
+            pushExecutor.execute(() -> push(upk));
+        }
+    }
+
+    /**
+     * load the graph and push the nodes changed since the last push to its streams
+     *
+     * @return status of the graph, null if the graph is gone or failed to load
+     */
+    private GraphStatus push(ProjectGraphDO.UPK upk) {
+        try {
+            Optional<ProjectGraphDO> graphDO = graphRepository.findById(upk);
+            if (graphDO.isEmpty()) {
+                Set<SseEmitter> emitters = streams.remove(upk);
+                if (emitters != null) {
+                    emitters.forEach(SseEmitter::complete);
+                }
+                pushed.remove(upk);
+                return null;
+            }
+            GraphStatus current = load(graphDO.get());
+            if (ttlSeconds > 0) {
+                entries.put(upk, new Entry(current, graphNodeIds(graphDO.get()), System.currentTimeMillis() + ttlSeconds * 1000));
+            }
+            GraphStatus previous = pushed.put(upk, current);
+            GraphStatus delta = delta(previous, current);
+            Set<SseEmitter> emitters = streams.get(upk);
+            if (emitters != null && delta != null) {
+                emitters.removeIf(emitter -> !send(emitter, delta));
+            }
+            return current;
+        } catch (Exception e) {
+            log.error("push graph status of {} failed", upk, e);
+            return null;
+        }
+    }
+
+    /**
+     * nodes whose status differs from the previous one, null if nothing has changed
+     */
+    private GraphStatus delta(GraphStatus previous, GraphStatus current) {
+        if (previous == null) {
+            return current;
+        }
+        Map<String, GraphNodeStatusVO> before = previous.getNodes().stream()
+                .collect(Collectors.toMap(GraphNodeStatusVO::getGraphNodeId, Function.identity(), (a, b) -> a));
+        List<GraphNodeStatusVO> changed = current.getNodes().stream()
+                .filter(node -> !node.equals(before.get(node.getGraphNodeId())))
+                .toList();
+        if (changed.isEmpty() && Objects.equals(previous.getFinished(), current.getFinished())) {
+            return null;
+        }
+        return new GraphStatus(current.getFinished(), changed);
+    }
+
+    private boolean send(SseEmitter emitter, GraphStatus status) {
+        try {
+            emitter.send(SseEmitter.event().name(STATUS_EVENT).data(status));
+            return true;
+        } catch (Exception e) {
+            log.debug("graph status stream closed: {}", e.getMessage());
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+
+    private static Set<String> graphNodeIds(ProjectGraphDO graphDO) {
+        return CollectionUtils.isEmpty(graphDO.getNodes()) ? Set.of()
+                : graphDO.getNodes().stream().map(node -> node.getUpk().getGraphNodeId()).collect(Collectors.toSet());
+    }
+
+    private record Entry(GraphStatus status, Set<String> graphNodeIds, long expireAt) {
+    }
+}
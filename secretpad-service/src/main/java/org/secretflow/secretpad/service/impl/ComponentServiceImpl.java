@@ -18,21 +18,20 @@ package org.secretflow.secretpad.service.impl;
 
 import org.secretflow.secretpad.common.errorcode.GraphErrorCode;
 import org.secretflow.secretpad.common.exception.SecretpadException;
-import org.secretflow.secretpad.common.util.FileUtils;
-import org.secretflow.secretpad.common.util.JsonUtils;
 import org.secretflow.secretpad.service.ComponentService;
 import org.secretflow.secretpad.service.configuration.ScqlConfig;
 import org.secretflow.secretpad.service.configuration.SecretFlowVersionConfig;
 import org.secretflow.secretpad.service.configuration.SecretpadComponentConfig;
 import org.secretflow.secretpad.service.constant.ComponentConstants;
+import org.secretflow.secretpad.service.graph.ComponentCatalog;
 import org.secretflow.secretpad.service.graph.ComponentTools;
 import org.secretflow.secretpad.service.model.component.ComponentVersion;
 import org.secretflow.secretpad.service.model.graph.CompListVO;
 import org.secretflow.secretpad.service.model.graph.ComponentKey;
-import org.secretflow.secretpad.service.model.graph.ComponentSummaryDef;
 import org.secretflow.secretpad.service.model.graph.GraphNodeInfo;
 import com.secretflow.spec.v1.CompListDef;
 import com.secretflow.spec.v1.ComponentDef;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.secretflow.proto.pipeline.Pipeline;
@@ -43,7 +42,9 @@ import org.springframework.util.ResourceUtils;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 
 import static org.secretflow.secretpad.common.constant.DeployModeConstants.*;
 
@@ -72,40 +73,34 @@ public class ComponentServiceImpl implements ComponentService {
     @Resource
     private ScqlConfig scqlConfig;
 
+    private volatile ComponentCatalog catalog;
+
+    /**
+     * build the component catalog from the loaded components, to be called again once they are reloaded
+     */
+    @PostConstruct
+    public void reloadCatalog() {
+        File i18nDir;
+        try {
+            i18nDir = ResourceUtils.getFile(i18nLocation);
+        } catch (IOException e) {
+            log.error("component i18n location {} not found", i18nLocation, e);
+            i18nDir = new File(i18nLocation);
+        }
+        ComponentCatalog built = ComponentCatalog.build(components, secretpadComponentConfig.getHide(), i18nDir);
+        SF_HIDE_COMPONENTS.putAll(built.getHidden());
+        catalog = built;
+        log.info("component catalog {} built", built.getVersion());
+    }
+
+    @Override
+    public String getCatalogVersion() {
+        return catalog.getVersion();
+    }
+
     @Override
     public Map<String, CompListVO> listComponents() {
-        Map<String, CompListVO> resp = new HashMap<>();
-        components.forEach(compListDef -> {
-            List<ComponentDef> comps = compListDef.getCompsList();
-            if (!CollectionUtils.isEmpty(comps)) {
-                CompListVO compListVO = CompListVO.builder()
-                        .name(compListDef.getName())
-                        .version(compListDef.getVersion())
-                        .desc(compListDef.getDesc())
-                        .comps(new ArrayList<>()).build();
-                compListVO.getComps().addAll(comps.stream()
-                        .map(componentDef -> {
-                            //secretflow/domain/name:version
-                            String hide = compListDef.getName() + "/" + componentDef.getDomain() + "/" + componentDef.getName() + ":" + componentDef.getVersion();
-                            if (secretpadComponentConfig.getHide().contains(hide)) {
-                                log.info("hide {}", hide);
-                                SF_HIDE_COMPONENTS.put(componentDef.getName(), componentDef);
-                                return null;
-                            }
-                            return ComponentSummaryDef.builder()
-                                    .domain(componentDef.getDomain())
-                                    .name(componentDef.getName())
-                                    .version(componentDef.getVersion())
-                                    .desc(componentDef.getDesc())
-                                    .build();
-                        })
-                        .filter(Objects::nonNull).toList());
-                resp.put(compListVO.getName(), compListVO);
-            }
-        });
-        resp.remove(ComponentConstants.SECRETPAD);
-        resp.remove(ComponentConstants.SCQL);
-        return resp;
+        return catalog.getSummaries();
     }
 
     @Override
@@ -116,14 +111,14 @@ public class ComponentServiceImpl implements ComponentService {
     @Override
     public List<ComponentDef> batchGetComponent(List<ComponentKey> keys) {
         List<ComponentDef> result = new ArrayList<>();
-        Map<ComponentKey, ComponentDef> componentMap = new HashMap<>();
-        components.stream().filter(compListDef -> !CollectionUtils.isEmpty(compListDef.getCompsList())).forEach(compListDef -> compListDef.getCompsList().forEach(componentDef -> componentMap.put(new ComponentKey(compListDef.getName(), componentDef.getDomain(), componentDef.getName()), componentDef)));
         if (!CollectionUtils.isEmpty(keys)) {
+            ComponentCatalog current = catalog;
             keys.forEach(key -> {
-                if (!componentMap.containsKey(key)) {
+                ComponentDef componentDef = current.get(key);
+                if (componentDef == null) {
                     throw SecretpadException.of(GraphErrorCode.COMPONENT_NOT_EXISTS, key.toString());
                 }
-                result.add(componentMap.get(key));
+                result.add(componentDef);
             });
         }
         return result;
@@ -131,50 +126,11 @@ public class ComponentServiceImpl implements ComponentService {
 
     @Override
     public Object listComponentI18n() {
-        Map<String, Map<String, Object>> config = new HashMap<>();
-        Map<String, Object> secretpad = new HashMap<>();
-        Map<String, Object> scql = new HashMap<>();
         try {
-            File dir = ResourceUtils.getFile(i18nLocation);
-            File[] files = dir.listFiles();
-            if (files != null) {
-                for (File file : files) {
-                    String fileName = file.getName();
-                    String app = fileName.substring(0, fileName.lastIndexOf('.'));
-                    String str = FileUtils.readFile2String(file);
-                    Map<String, Object> content = JsonUtils.toJavaMap(str, Object.class);
-                    if (!CollectionUtils.isEmpty(content)) {
-                        if (app.equals(ComponentConstants.SECRETPAD)) {
-                            secretpad = content;
-                        }else if (app.equals(ComponentConstants.SCQL)){
-                            scql = content;
-                        } else {
-                            config.put(app, content);
-                        }
-                    }
-                }
-                Map<String, Object> finalSecretpad = secretpad;
-                Map<String, Object> finalScql = scql;
-                config.keySet().forEach(k -> {
-                    config.get(k).putAll(finalSecretpad);
-                    config.get(ComponentConstants.SECRETFLOW).putAll(finalScql);
-                });
-            }
+            return catalog.getI18n();
         } catch (IOException e) {
             throw SecretpadException.of(GraphErrorCode.COMPONENT_18N_ERROR, e);
         }
-        config.keySet().forEach(key -> {
-            Map<String, Object> map = config.get(key);
-            Iterator<Map.Entry<String, Object>> iterator = map.entrySet().iterator();
-            while (iterator.hasNext()) {
-                Map.Entry<String, Object> entry = iterator.next();
-                String hide = key + "/" + entry.getKey();
-                if (secretpadComponentConfig.getHide().contains(hide)) {
-                    iterator.remove();
-                }
-            }
-        });
-        return config;
     }
 
     @Override
@@ -35,7 +35,6 @@ import org.secretflow.secretpad.manager.integration.noderoute.AbstractNodeRouteM
 import org.secretflow.secretpad.persistence.datasync.producer.p2p.P2pDataSyncProducerTemplate;
 import org.secretflow.secretpad.persistence.entity.*;
 import org.secretflow.secretpad.persistence.model.*;
-import org.secretflow.secretpad.persistence.projection.ProjectJobStatus;
 import org.secretflow.secretpad.persistence.repository.*;
 import org.secretflow.secretpad.service.ComponentService;
 import org.secretflow.secretpad.service.GraphService;
@@ -44,9 +43,9 @@ import org.secretflow.secretpad.service.constant.ComponentConstants;
 import org.secretflow.secretpad.service.enums.VoteTypeEnum;
 import org.secretflow.secretpad.service.graph.ComponentTools;
 import org.secretflow.secretpad.service.graph.GraphContext;
+import org.secretflow.secretpad.service.graph.GraphStatusSnapshot;
 import org.secretflow.secretpad.service.graph.JobChain;
 import org.secretflow.secretpad.service.model.graph.*;
-import org.secretflow.secretpad.service.model.node.NodeSimpleInfo;
 import org.secretflow.secretpad.service.model.project.GetProjectJobTaskOutputRequest;
 import org.secretflow.secretpad.service.model.project.StopProjectJobTaskRequest;
 import org.secretflow.secretpad.service.model.report.ScqlReport;
@@ -67,12 +66,14 @@ import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.jetbrains.annotations.NotNull;
 import org.secretflow.proto.kuscia.TaskConfig;
+import org.secretflow.v1alpha1.kusciaapi.DomainRoute;
 import org.secretflow.v1alpha1.kusciaapi.Domaindata;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.CollectionUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.*;
 import java.util.function.Function;
@@ -152,6 +153,13 @@ public class GraphServiceImpl implements GraphService {
     private ProjectModelPackRepository projectModelPackRepository;
     @Resource
     private ProjectScheduleJobRepository projectScheduleJobRepository;
+    @Resource
+    private GraphStatusSnapshot graphStatusSnapshot;
+
+    @Override
+    public String getComponentCatalogVersion() {
+        return componentService.getCatalogVersion();
+    }
 
     @Override
     public Map<String, CompListVO> listComponents() {
@@ -703,6 +711,7 @@ public class GraphServiceImpl implements GraphService {
         verifyNodeAndRouteHealthy(parties.values().stream().flatMap(Set::stream).collect(Collectors.toSet()), request.getProjectId());
         ProjectJob projectJob = ProjectJob.genProjectJob(graphDO, selectedNodes, parties);
         jobChain.proceed(projectJob);
+        graphStatusSnapshot.evict(graphDO.getUpk());
         if (!GraphContext.isScheduled()) {
             GraphContext.remove();
         }
@@ -737,61 +746,28 @@ public class GraphServiceImpl implements GraphService {
         if (graphDOOptional.isEmpty()) {
             throw SecretpadException.of(GraphErrorCode.GRAPH_NOT_EXISTS);
         }
-        return getLatestTaskStatus(graphDOOptional.get());
+        return graphStatusSnapshot.get(graphDOOptional.get());
     }
 
     /**
      * Find latest task status
-     * Todo: find latest task with one sql
      *
      * @param graphDO target graph data object
      * @return latest graph task status
      */
     public GraphStatus getLatestTaskStatus(ProjectGraphDO graphDO) {
-        String projectId = graphDO.getUpk().getProjectId();
-        List<ProjectGraphNodeDO> nodes = graphDO.getNodes();
-        GraphStatus graphStatus = new GraphStatus();
-        List<GraphNodeStatusVO> nodeStatus = new ArrayList<>();
-        List<String> jobIds = new ArrayList<>();
-        // find the latest task associated with graphNode
-        if (!CollectionUtils.isEmpty(nodes)) {
-            List<String> graphNodeIds = nodes.stream().map(node -> node.getUpk().getGraphNodeId()).toList();
-            for (String graphNodeId : graphNodeIds) {
-                GraphNodeStatusVO nodeStatusVO = new GraphNodeStatusVO();
-                nodeStatusVO.setGraphNodeId(graphNodeId);
-                Optional<ProjectTaskDO> taskDOOptional = taskRepository.findLatestTasks(projectId, graphNodeId);
-                GraphNodeTaskStatus status = GraphNodeTaskStatus.STAGING;
-                if (taskDOOptional.isPresent()) {
-                    status = taskDOOptional.get().getStatus();
-                    nodeStatusVO.setTaskId(taskDOOptional.get().getUpk().getTaskId());
-                    nodeStatusVO.setJobId(taskDOOptional.get().getUpk().getJobId());
-                    nodeStatusVO.setParties(nodeRepository.findByNodeIdIn(taskDOOptional.get().getParties()).stream().map(e -> NodeSimpleInfo.builder().nodeName(e.getName()).nodeId(e.getNodeId()).build()).collect(Collectors.toList()));
-                    nodeStatusVO.setProgress(taskDOOptional.get().getExtraInfo().getProgress());
-                    jobIds.add(taskDOOptional.get().getUpk().getJobId());
-                }
-                nodeStatusVO.setStatus(status);
-                nodeStatus.add(nodeStatusVO);
-            }
-        }
+        return graphStatusSnapshot.load(graphDO);
+    }
 
-        // resolve job status
-        boolean finished = true;
-        if (!CollectionUtils.isEmpty(jobIds)) {
-            List<ProjectJobStatus> jobStatuses = jobRepository.findStatusByJobIds(projectId, jobIds);
-            for (ProjectJobStatus job : jobStatuses) {
-                if (!job.isFinished()) {
-                    finished = false;
-                    break;
-                }
-            }
+    @Override
+    public SseEmitter streamGraphNodeStatus(ListGraphNodeStatusRequest request) {
+        ProjectGraphDO.UPK upk = new ProjectGraphDO.UPK(request.getProjectId(), request.getGraphId());
+        if (!graphRepository.existsById(upk)) {
+            throw SecretpadException.of(GraphErrorCode.GRAPH_NOT_EXISTS);
         }
-
-        graphStatus.setNodes(nodeStatus);
-        graphStatus.setFinished(finished);
-        return graphStatus;
+        return graphStatusSnapshot.subscribe(upk);
     }
 
-
     @Override
     public GraphNodeTaskLogsVO getGraphNodeLogs(GraphNodeLogsRequest request) {
         Optional<ProjectTaskDO> taskDOOptional = taskRepository.findLatestTasks(request.getProjectId(), request.getGraphNodeId());
@@ -840,6 +816,7 @@ public class GraphServiceImpl implements GraphService {
         }
         if (!CollectionUtils.isEmpty(stopRequests)) {
             stopRequests.forEach(req -> projectService.stopProjectJob(req));
+            graphStatusSnapshot.evict(new ProjectGraphDO.UPK(projectId, graphId));
         }
     }
 
@@ -912,24 +889,32 @@ public class GraphServiceImpl implements GraphService {
 
             return;
         }
+        Map<String, Boolean> nodesReady = nodeManager.checkNodesReady(parties);
         parties.forEach(node -> {
-            if (!nodeManager.checkNodeReady(node)) {
+            if (!nodesReady.getOrDefault(node, false)) {
                 NodeDO nodeDO = nodeRepository.findByNodeId(node);
                 String msg = ObjectUtils.isEmpty(nodeDO) ? node : nodeDO.getName();
                 throw SecretpadException.of(GraphErrorCode.GRAPH_NODE_NOT_EXISTS, msg);
             }
         });
+        List<DomainRoute.DomainRouteKey> routes = new ArrayList<>();
         for (String partySrc : parties) {
             for (String partyDst : parties) {
-                if (!partySrc.equals(partyDst) && !nodeRouteManager.checkNodeRouteReady(partySrc, partyDst, localNodeId)) {
-                    NodeDO partySrcNodeDO = nodeRepository.findByNodeId(partySrc);
-                    NodeDO partyDstNodeDO = nodeRepository.findByNodeId(partyDst);
-                    String msg1 = ObjectUtils.isEmpty(partySrcNodeDO) ? partySrc : partySrcNodeDO.getName();
-                    String msg2 = ObjectUtils.isEmpty(partyDstNodeDO) ? partyDst : partyDstNodeDO.getName();
-                    throw SecretpadException.of(GraphErrorCode.GRAPH_NODE_ROUTE_NOT_EXISTS, msg1 + "->" + msg2);
+                if (!partySrc.equals(partyDst)) {
+                    routes.add(DomainRoute.DomainRouteKey.newBuilder().setSource(partySrc).setDestination(partyDst).build());
                 }
             }
         }
+        Map<DomainRoute.DomainRouteKey, Boolean> routesReady = nodeRouteManager.checkNodeRoutesReady(routes, localNodeId);
+        for (DomainRoute.DomainRouteKey route : routes) {
+            if (!routesReady.getOrDefault(route, false)) {
+                NodeDO partySrcNodeDO = nodeRepository.findByNodeId(route.getSource());
+                NodeDO partyDstNodeDO = nodeRepository.findByNodeId(route.getDestination());
+                String msg1 = ObjectUtils.isEmpty(partySrcNodeDO) ? route.getSource() : partySrcNodeDO.getName();
+                String msg2 = ObjectUtils.isEmpty(partyDstNodeDO) ? route.getDestination() : partyDstNodeDO.getName();
+                throw SecretpadException.of(GraphErrorCode.GRAPH_NODE_ROUTE_NOT_EXISTS, msg1 + "->" + msg2);
+            }
+        }
     }
 
 
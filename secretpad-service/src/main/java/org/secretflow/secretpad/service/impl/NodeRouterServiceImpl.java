@@ -21,10 +21,12 @@ import org.secretflow.secretpad.common.enums.PlatformTypeEnum;
 import org.secretflow.secretpad.common.errorcode.AuthErrorCode;
 import org.secretflow.secretpad.common.errorcode.NodeRouteErrorCode;
 import org.secretflow.secretpad.common.exception.SecretpadException;
+import org.secretflow.secretpad.common.util.AsyncTaskExecutionUtils;
 import org.secretflow.secretpad.common.util.DateTimes;
 import org.secretflow.secretpad.common.util.JsonUtils;
 import org.secretflow.secretpad.common.util.UserContext;
 import org.secretflow.secretpad.manager.integration.model.CreateNodeRouteParam;
+import org.secretflow.secretpad.manager.integration.model.NodeDTO;
 import org.secretflow.secretpad.manager.integration.model.UpdateNodeRouteParam;
 import org.secretflow.secretpad.manager.integration.node.NodeManager;
 import org.secretflow.secretpad.manager.integration.noderoute.AbstractNodeRouteManager;
@@ -56,6 +58,8 @@ import org.springframework.util.CollectionUtils;
 import org.springframework.util.ObjectUtils;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -154,40 +158,61 @@ public class NodeRouterServiceImpl implements NodeRouterService {
         }
         Page<NodeRouteDO> page = nodeRouteRepository.pageQuery(allNodes, "%".concat(request.getSearch()).concat("%"), pageable);
         SecretPadPageResponse<NodeRouterVO> data = SecretPadPageResponse.toPage(page.map(NodeRouterVO::fromDo));
-        // query if running project job exists
-        // this version is srcNodeId, later version will be dstNodeId
-        List<String> nodeIds = data.getList().stream().map(NodeRouterVO::getSrcNodeId).toList();
-        Map<String, List<ProjectNodeDO>> projectNodeMap = new HashMap<>(nodeIds.size());
-        if (!CollectionUtils.isEmpty(nodeIds)) {
-            List<ProjectNodeDO> projectNodeDOList = projectNodeRepository.findByNodeIds(nodeIds);
-            projectNodeMap = projectNodeDOList.stream().collect(Collectors.groupingBy(ProjectNodeDO::getNodeId));
+        List<NodeRouterVO> rows = data.getList();
+        if (CollectionUtils.isEmpty(rows)) {
+            return data;
         }
-        Map<String, List<ProjectNodeDO>> finalProjectNodeMap = projectNodeMap;
-        data.getList().forEach(d -> {
-            d.setSrcNode(NodeVO.from(nodeManager.getNode(d.getSrcNodeId()), null, null, null));
-            d.setDstNode(NodeVO.from(nodeManager.getNode(d.getDstNodeId()), null, null, null));
+        boolean autonomy = UserContext.getUser().getPlatformType().equals(PlatformTypeEnum.AUTONOMY);
+        boolean autonomyPlatform = PlatformTypeEnum.AUTONOMY.equals(envService.getPlatformType());
+        // route status of the page, one batch query per kuscia channel, the channels queried concurrently
+        Map<String, List<DomainRoute.DomainRouteKey>> channelRoutes = new HashMap<>();
+        rows.forEach(d -> {
             // if platformType is AUTONOMY, save opposite result this version. later version will delete
-
-            String srcNodeId = UserContext.getUser().getPlatformType().equals(PlatformTypeEnum.AUTONOMY) ? d.getDstNodeId() : d.getSrcNodeId();
-            String dstNodeId = UserContext.getUser().getPlatformType().equals(PlatformTypeEnum.AUTONOMY) ? d.getSrcNodeId() : d.getDstNodeId();
-
+            String srcNodeId = autonomy ? d.getDstNodeId() : d.getSrcNodeId();
+            String dstNodeId = autonomy ? d.getSrcNodeId() : d.getDstNodeId();
             log.info("NodeRouterServiceImpl queryPage srcNodeId,{},dstNodeId,{}", srcNodeId, dstNodeId);
-            String channelNodeId = PlatformTypeEnum.AUTONOMY.equals(envService.getPlatformType()) ? srcNodeId : null;
-            DomainRoute.RouteStatus routeStatus = nodeRouteManager.getRouteStatus(srcNodeId, dstNodeId, channelNodeId);
+            String channelNodeId = autonomyPlatform ? srcNodeId : "";
+            channelRoutes.computeIfAbsent(channelNodeId, k -> new ArrayList<>())
+                    .add(DomainRoute.DomainRouteKey.newBuilder().setSource(srcNodeId).setDestination(dstNodeId).build());
+        });
+        Map<String, String> failedRecords = new ConcurrentHashMap<>();
+        List<CompletableFuture<Map<DomainRoute.DomainRouteKey, DomainRoute.RouteStatus>>> routeStatusFutures = channelRoutes.entrySet().stream()
+                .map(e -> AsyncTaskExecutionUtils.executeUnDecoratedOperation(e.getValue(),
+                        (List<DomainRoute.DomainRouteKey> routes) -> nodeRouteManager.getRouteStatuses(routes, e.getKey()), e.getKey(), failedRecords))
+                .toList();
+        // nodes of the page, one query and the kuscia information filled concurrently
+        Map<String, NodeDTO> nodes = nodeManager.getNodes(rows.stream().flatMap(d -> Stream.of(d.getSrcNodeId(), d.getDstNodeId())).collect(Collectors.toSet()));
+        // query if running project job exists, nodes of every project of the page in one query
+        // this version is srcNodeId, later version will be dstNodeId
+        Map<String, List<ProjectNodeDO>> projectNodeMap = projectNodeRepository.findByNodeIds(rows.stream().map(NodeRouterVO::getSrcNodeId).distinct().toList())
+                .stream().collect(Collectors.groupingBy(ProjectNodeDO::getNodeId));
+        Set<String> projectIds = projectNodeMap.values().stream().flatMap(List::stream).map(ProjectNodeDO::getProjectId).collect(Collectors.toSet());
+        Map<String, Set<String>> projectMembers = projectIds.isEmpty() ? Collections.emptyMap()
+                : projectNodeRepository.findProjectNodesByProjectIds(projectIds).stream()
+                .collect(Collectors.groupingBy(ProjectNodeDO::getProjectId, Collectors.mapping(ProjectNodeDO::getNodeId, Collectors.toSet())));
+        Map<DomainRoute.DomainRouteKey, DomainRoute.RouteStatus> routeStatuses = new HashMap<>();
+        routeStatusFutures.forEach(future -> {
+            Map<DomainRoute.DomainRouteKey, DomainRoute.RouteStatus> statuses = future.join();
+            if (statuses != null) {
+                routeStatuses.putAll(statuses);
+            }
+        });
+        if (!failedRecords.isEmpty()) {
+            log.warn("NodeRouterServiceImpl queryPage route status failed {}", failedRecords);
+        }
+        rows.forEach(d -> {
+            d.setSrcNode(NodeVO.from(nodes.get(d.getSrcNodeId()), null, null, null));
+            d.setDstNode(NodeVO.from(nodes.get(d.getDstNodeId()), null, null, null));
+            String srcNodeId = autonomy ? d.getDstNodeId() : d.getSrcNodeId();
+            String dstNodeId = autonomy ? d.getSrcNodeId() : d.getDstNodeId();
+            DomainRoute.RouteStatus routeStatus = routeStatuses.get(DomainRoute.DomainRouteKey.newBuilder().setSource(srcNodeId).setDestination(dstNodeId).build());
             if (!ObjectUtils.isEmpty(routeStatus)) {
                 d.setStatus(routeStatus.getStatus());
             }
             // this version is srcNodeId, later version will be dstNodeId
-            boolean maybeRunning = !CollectionUtils.isEmpty(finalProjectNodeMap) && finalProjectNodeMap.containsKey(d.getSrcNodeId());
-            d.setIsProjectJobRunning(maybeRunning);
-            if(maybeRunning){
-                List<ProjectNodeDO> projectNodeDOS = finalProjectNodeMap.get(d.getSrcNodeId());
-                Set<String> allDestNodes = projectNodeDOS
-                        .stream()
-                        .flatMap(nodeDO -> projectNodeRepository.findProjectNodesByProjectId(nodeDO.getProjectId()).stream())
-                        .collect(Collectors.toSet());
-                d.setIsProjectJobRunning(allDestNodes.contains(d.getDstNodeId()));
-            }
+            List<ProjectNodeDO> projectNodeDOS = projectNodeMap.get(d.getSrcNodeId());
+            d.setIsProjectJobRunning(!CollectionUtils.isEmpty(projectNodeDOS) && projectNodeDOS.stream()
+                    .anyMatch(nodeDO -> projectMembers.getOrDefault(nodeDO.getProjectId(), Collections.emptySet()).contains(d.getDstNodeId())));
         });
         return data;
     }
@@ -207,17 +207,50 @@ public class ProjectServiceImpl implements ProjectService {
         } else {
             projects = projectRepository.findAll();
         }
-        // TODO: merge find.
+        return toProjectVOs(projects);
+    }
+
+    @Override
+    public PageResponse<ProjectVO> pageProject(ListProjectRequest request) {
+        PageRequest pageRequest = PageRequest.of(request.getPageNum() - 1, request.getPageSize(), Sort.Direction.DESC, DatabaseConstants.GMT_CREATE);
+        Page<ProjectDO> page;
+        // filter edge user list project
+        if (UserOwnerTypeEnum.EDGE.equals(UserContext.getUser().getOwnerType())) {
+            List<ProjectNodeDO> projectNodeDOList = projectNodeRepository.findByNodeId(UserContext.getUser().getOwnerId());
+            if (CollectionUtils.isEmpty(projectNodeDOList)) {
+                return PageResponse.of(1, request.getPageSize(), Collections.emptyList());
+            }
+            page = projectRepository.findByProjectIdIn(projectNodeDOList.stream().map(pn -> pn.getUpk().getProjectId()).collect(Collectors.toSet()), pageRequest);
+        } else {
+            page = projectRepository.findAll(pageRequest);
+        }
+        return PageResponse.of(page.getTotalPages(), request.getPageSize(), toProjectVOs(page.getContent()));
+    }
+
+    /**
+     * Build project view objects with the nodes, graph count and job count of all projects queried at once
+     *
+     * @param projects project data objects
+     * @return project view object list
+     */
+    private List<ProjectVO> toProjectVOs(List<ProjectDO> projects) {
+        if (CollectionUtils.isEmpty(projects)) {
+            return Collections.emptyList();
+        }
+        Set<String> projectIds = projects.stream().map(ProjectDO::getProjectId).collect(Collectors.toSet());
+        Map<String, List<ProjectNodeProjection>> projectNodes = projectNodeRepository.findProjectionByProjectIds(projectIds).stream()
+                .collect(Collectors.groupingBy(pnp -> pnp.getProjectNodeDO().getUpk().getProjectId()));
+        Map<String, Long> graphCounts = CountProjection.toMap(projectGraphDORepository.countByProjectIds(projectIds));
+        Map<String, Long> jobCounts = CountProjection.toMap(projectJobRepository.countByProjectIds(projectIds));
         return projects.stream().map(projectDO -> {
-            List<ProjectNodeProjection> pnps =
-                    projectNodeRepository.findProjectionByProjectId(projectDO.getProjectId());
-            Integer graphCount = projectGraphDORepository.countByProjectId(projectDO.getProjectId());
-            Integer jobCount = projectJobRepository.countByProjectId(projectDO.getProjectId());
-            return ProjectVO.builder().projectId(projectDO.getProjectId()).projectName(projectDO.getName())
+            String projectId = projectDO.getProjectId();
+            return ProjectVO.builder().projectId(projectId).projectName(projectDO.getName())
                     .description(projectDO.getDescription()).computeMode(projectDO.getComputeMode())
                     .teeNodeId(ObjectUtils.isEmpty(projectDO.getProjectInfo()) ? null : projectDO.getProjectInfo().getTeeDomainId())
-                    .nodes(pnps.stream().map(it -> ProjectNodeVO.from(it, null)).collect(Collectors.toList()))
-                    .graphCount(graphCount).jobCount(jobCount).gmtCreate(DateTimes.toRfc3339(projectDO.getGmtCreate()))
+                    .nodes(projectNodes.getOrDefault(projectId, Collections.emptyList()).stream().map(it -> ProjectNodeVO.from(it, null)).collect(Collectors.toList()))
+                    .graphCount(graphCounts.getOrDefault(projectId, 0L).intValue())
+                    .jobCount(jobCounts.getOrDefault(projectId, 0L).intValue())
+                    .gmtCreate(DateTimes.toRfc3339(projectDO.getGmtCreate()))
                     .build();
         }).collect(Collectors.toList());
     }
@@ -625,22 +658,31 @@ public class ProjectServiceImpl implements ProjectService {
         Map<String, String> projectIdVoteId = allProjectVote.stream().collect(Collectors.toMap(ProjectApprovalConfigDO::getProjectId, ProjectApprovalConfigDO::getVoteID));
         List<VoteRequestDO> voteRequestDOS = voteRequestRepository.findAllById(projectIdVoteId.values());
         Map<String, Set<VoteRequestDO.PartyVoteInfo>> voteIdPartyInfoMap = voteRequestDOS.stream().collect(Collectors.toMap(VoteRequestDO::getVoteID, VoteRequestDO::getPartyVoteInfos));
-        // TODO: merge find.
+        if (CollectionUtils.isEmpty(projects)) {
+            return Collections.emptyList();
+        }
+        Set<String> projectIds = projects.stream().map(ProjectDO::getProjectId).collect(Collectors.toSet());
+        Map<String, List<ProjectNodeProjection>> projectNodes = projectNodeRepository.findProjectionByProjectIds(projectIds).stream()
+                .collect(Collectors.groupingBy(pnp -> pnp.getProjectNodeDO().getUpk().getProjectId()));
+        Map<String, List<ProjectInstProjection>> projectInsts = projectInstRepository.findProjectionByProjectIds(projectIds).stream()
+                .collect(Collectors.groupingBy(pip -> pip.getProjectInstDO().getUpk().getProjectId()));
+        Map<String, Long> graphCounts = CountProjection.toMap(projectGraphDORepository.countByProjectIds(projectIds));
+        Map<String, Long> jobCounts = CountProjection.toMap(projectJobRepository.countByProjectIds(projectIds));
+        Set<String> partyIds = projectIds.stream().map(projectIdVoteId::get).filter(Objects::nonNull).map(voteIdPartyInfoMap::get).filter(Objects::nonNull)
+                .flatMap(Set::stream).map(VoteRequestDO.PartyVoteInfo::getPartyId).collect(Collectors.toSet());
+        Map<String, String> instMap = partyIds.isEmpty() ? Collections.emptyMap()
+                : instRepository.findByInstIdIn(partyIds).stream().collect(Collectors.toMap(InstDO::getInstId, InstDO::getName, (a, b) -> a));
         return projects.stream().map(projectDO -> {
             String projectId = projectDO.getProjectId();
-            List<ProjectNodeProjection> pnps =
-                    projectNodeRepository.findProjectionByProjectId(projectId);
-            List<ProjectInstProjection> pips =
-                    projectInstRepository.findProjectionByProjectId(projectDO.getProjectId());
-            Integer graphCount = projectGraphDORepository.countByProjectId(projectId);
-            Integer jobCount = projectJobRepository.countByProjectId(projectId);
+            List<ProjectNodeProjection> pnps = projectNodes.getOrDefault(projectId, Collections.emptyList());
+            List<ProjectInstProjection> pips = projectInsts.getOrDefault(projectId, Collections.emptyList());
+            Integer graphCount = graphCounts.getOrDefault(projectId, 0L).intValue();
+            Integer jobCount = jobCounts.getOrDefault(projectId, 0L).intValue();
             if (!projectIdVoteId.containsKey(projectId)) {
                 throw SecretpadException.of(VoteErrorCode.PROJECT_VOTE_NOT_EXISTS, projectDO.getName());
             }
             Set<VoteRequestDO.PartyVoteInfo> partyVoteInfos = voteIdPartyInfoMap.get(projectIdVoteId.get(projectId));
             Set<PartyVoteInfoVO> partyVoteInfoVOS = JsonUtils.toJavaSet(partyVoteInfos, PartyVoteInfoVO.class);
-            List<String> instIds = partyVoteInfoVOS.stream().map(PartyVoteInfoVO::getPartyId).collect(Collectors.toList());
-            Map<String, String> instMap = instRepository.findByInstIdIn(instIds).stream().collect(Collectors.toMap(InstDO::getInstId, InstDO::getName));
             partyVoteInfoVOS = partyVoteInfoVOS.stream().filter(e -> !StringUtils.equals(e.getPartyId(), projectDO.getOwnerId())).collect(Collectors.toSet());
             partyVoteInfoVOS.forEach(e -> e.setPartyName(instMap.get(e.getPartyId())));
             return ProjectVO.builder().projectId(projectId).projectName(projectDO.getName())
@@ -27,6 +27,7 @@ import lombok.*;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@EqualsAndHashCode
 public class NodeSimpleInfo {
 
     private String nodeId;
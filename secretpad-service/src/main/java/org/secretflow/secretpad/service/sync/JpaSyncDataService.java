@@ -17,11 +17,9 @@
 package org.secretflow.secretpad.service.sync;
 
 import org.secretflow.secretpad.common.dto.SyncDataDTO;
-import org.secretflow.secretpad.common.dto.UserContextDTO;
 import org.secretflow.secretpad.common.errorcode.SystemErrorCode;
 import org.secretflow.secretpad.common.exception.SecretpadException;
 import org.secretflow.secretpad.common.util.DataSyncConsumerContext;
-import org.secretflow.secretpad.common.util.UserContext;
 import org.secretflow.secretpad.persistence.entity.*;
 import org.secretflow.secretpad.persistence.model.DbChangeAction;
 import org.secretflow.secretpad.persistence.repository.*;
@@ -32,10 +30,14 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
 import jakarta.persistence.Table;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.ObjectUtils;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.stereotype.Service;
@@ -49,7 +51,10 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * @author yutu
@@ -99,9 +104,15 @@ public class JpaSyncDataService {
     private final ProjectScheduleRepository projectScheduleRepository;
     private final ProjectScheduleJobRepository projectScheduleJobRepository;
     private final ProjectScheduleTaskRepository projectScheduleTaskRepository;
+    private final SyncDataApplyExecutor syncDataApplyExecutor;
     @PersistenceContext
     private final EntityManager entityManager;
 
+    @Value("${secretpad.datasync.resync.chunk-size:500}")
+    private int resyncChunkSize;
+    @Value("${secretpad.datasync.resync.frame-size:100}")
+    private int resyncFrameSize;
+
     @PostConstruct
     public void init() {
         doAndRepository = new ConcurrentHashMap<>();
@@ -141,13 +152,49 @@ public class JpaSyncDataService {
         doAndRepository.put(ProjectScheduleTaskDO.class.getTypeName(), projectScheduleTaskRepository);
     }
 
+    /**
+     * apply sync data from center asynchronously, changes of one entity keep their order
+     *
+     * @return completed once the sync data is committed
+     */
+    @SuppressWarnings(value = {"rawtypes"})
+    public CompletableFuture<Void> syncData(SyncDataDTO dto) {
+        return syncDataApplyExecutor.submit(dto, this::applyCenter);
+    }
+
     @SuppressWarnings(value = {"rawtypes"})
-    public synchronized void syncData(SyncDataDTO dto) {
+    public void syncDataP2p(SyncDataDTO dto) {
+        await(syncDataApplyExecutor.submit(dto, d -> applyP2p(d, true)));
+    }
+
+    /**
+     * apply an ordered batch of p2p sync data in one transaction, returns once the batch is committed
+     */
+    @SuppressWarnings(value = {"rawtypes"})
+    public void syncDataP2p(List<SyncDataDTO> dtoList) {
+        if (CollectionUtils.isEmpty(dtoList)) {
+            return;
+        }
+        await(syncDataApplyExecutor.submit(dtoList, d -> applyP2p(d, true)));
+    }
+
+    private void await(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw SecretpadException.of(SystemErrorCode.SYNC_ERROR, e.getCause());
+        }
+    }
+
+    @SuppressWarnings(value = {"rawtypes"})
+    private void applyCenter(SyncDataDTO dto) {
         if (ignore(dto)) {
             log.info(" ****** sync ignore dto {}", dto);
             return;
         }
-        UserContext.setBaseUser(UserContextDTO.builder().name("admin").build());
         String action = dto.getAction();
         Object data = dto.getData();
         BaseRepository baseRepository = doAndRepository.get(dto.getTableName());
@@ -156,12 +203,14 @@ public class JpaSyncDataService {
             case "remove" -> baseRepository.delete(data);
             default -> log.error("can not find action:{}", action);
         }
-        UserContext.remove();
     }
 
+    /**
+     * @param flush flush inside the consumer context, so entity listeners of a batch transaction
+     *              still see the data as synced and do not push it back
+     */
     @SuppressWarnings(value = {"rawtypes"})
-    public synchronized void syncDataP2p(SyncDataDTO dto) {
-        UserContext.setBaseUser(UserContextDTO.builder().name("admin").build());
+    private void applyP2p(SyncDataDTO dto, boolean flush) {
         String action = dto.getAction();
         Object data = dto.getData();
         BaseRepository baseRepository = doAndRepository.get(dto.getTableName());
@@ -169,22 +218,27 @@ public class JpaSyncDataService {
         if (!(data instanceof VoteRequestDO || data instanceof VoteInviteDO || data instanceof ProjectApprovalConfigDO)) {
             DataSyncConsumerContext.setConsumerSync();
         }
-        if (data instanceof ProjectJobDO projectJobDO) {
-            Optional<ProjectJobDO> byJobId = projectJobRepository.findByJobId(projectJobDO.getUpk().getJobId());
-            if (byJobId.isPresent()) {
-                if (byJobId.get().isFinished()) {
-                    log.info("ignore sync by local job is finished {}", byJobId.get().getUpk().getJobId());
-                    return;
+        try {
+            if (data instanceof ProjectJobDO projectJobDO) {
+                Optional<ProjectJobDO> byJobId = projectJobRepository.findByJobId(projectJobDO.getUpk().getJobId());
+                if (byJobId.isPresent()) {
+                    if (byJobId.get().isFinished()) {
+                        log.info("ignore sync by local job is finished {}", byJobId.get().getUpk().getJobId());
+                        return;
+                    }
                 }
             }
+            switch (action) {
+                case "create", "update" -> baseRepository.save(data);
+                case "remove" -> baseRepository.delete(data);
+                default -> log.warn("can not find action:{}", action);
+            }
+            if (flush) {
+                entityManager.flush();
+            }
+        } finally {
+            DataSyncConsumerContext.remove();
         }
-        switch (action) {
-            case "create", "update" -> baseRepository.save(data);
-            case "remove" -> baseRepository.delete(data);
-            default -> log.warn("can not find action:{}", action);
-        }
-        UserContext.remove();
-        DataSyncConsumerContext.remove();
     }
 
     private boolean ignore(@SuppressWarnings(value = {"rawtypes"}) SyncDataDTO dto) {
@@ -217,74 +271,168 @@ public class JpaSyncDataService {
         return lastUpdateTime;
     }
 
+    /**
+     * full resync of the tables requested by an edge, tables are streamed in chunks ordered by (gmtModified, id)
+     * starting after the checkpoint (lastUpdateTime, lastId) of each table
+     *
+     * @param nodeId     edge node id
+     * @param batchFrame the edge accepts batch frames and resync end events
+     */
     @Async
-    public void syncByLastUpdateTime(String nodeId) {
+    public void syncByLastUpdateTime(String nodeId, boolean batchFrame) {
         @SuppressWarnings(value = {"rawtypes"})
         List<SyncDataDTO> syncDataDTOList = SseSession.sessionTableMap.get(nodeId);
-        if (!CollectionUtils.isEmpty(syncDataDTOList)) {
-            syncDataDTOList.forEach(s -> {
-                String tableName = s.getTableName();
-                String lastUpdateTime = s.getLastUpdateTime();
-                List<ProjectNodesInfo> resultList = findDoByTime(s);
-                resultList.forEach(r -> {
-                    try {
-                        if (r instanceof ProjectFeatureTableDO) {
-                            Optional<FeatureTableDO> featureTableDOOptional = featureTableRepository.findById(new FeatureTableDO.UPK(((ProjectFeatureTableDO) r).getUpk().getFeatureTableId(), ((ProjectFeatureTableDO) r).getUpk().getNodeId(), ((ProjectFeatureTableDO) r).getUpk().getDatasourceId()));
-                            if (featureTableDOOptional.isEmpty()) {
-                                log.warn("featureTableDOOptional is empty");
-                            }
-                            ((ProjectFeatureTableDO) r).setFeatureTable(featureTableDOOptional.get());
-                        }
-                        if (SseSendFlag(r, nodeId)) {
-                            SseSession.send(nodeId, SyncDataDTO.builder()
-                                    .data(r)
-                                    .action(DbChangeAction.CREATE.val)
-                                    .tableName(tableName)
-                                    .lastUpdateTime(lastUpdateTime)
-                                    .build());
-                        }
-                    } catch (IOException e) {
-                        log.error("sse sync error ", e);
+        if (CollectionUtils.isEmpty(syncDataDTOList)) {
+            return;
+        }
+        int frameSize = batchFrame ? Math.max(1, resyncFrameSize) : 1;
+        for (@SuppressWarnings(value = {"rawtypes"}) SyncDataDTO s : syncDataDTOList) {
+            if (!SseSession.exists(nodeId)) {
+                log.info("sse session {} closed, stop data sync", nodeId);
+                return;
+            }
+            syncTable(nodeId, s.getTableName(), s.getLastUpdateTime(), s.getLastId(), frameSize);
+            if (batchFrame) {
+                try {
+                    SseSession.sendResyncEnd(nodeId, s.getTableName());
+                } catch (IOException e) {
+                    log.error("sse sync error ", e);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings(value = {"rawtypes"})
+    private void syncTable(String nodeId, String tableName, String lastUpdateTime, Long lastId, int frameSize) {
+        LocalDateTime afterTime = "0".equals(lastUpdateTime) ? null : LocalDateTime.parse(lastUpdateTime, DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+        // gmtModified has seconds only, a row of lower id may have changed in the second of the checkpoint after it was taken,
+        // so that whole second is read again and the edge skips the rows it has applied
+        Long afterId = lastId == null ? null : Long.MIN_VALUE;
+        log.info("data sync start table: {} ,lastUpdateTime:{}, lastId:{}", tableName, lastUpdateTime, lastId);
+        List<SyncDataDTO<?>> frame = new ArrayList<>(frameSize);
+        long num = 0;
+        while (true) {
+            List<BaseAggregationRoot> chunk = findChunk(tableName, afterTime, afterId);
+            Map<String, List<String>> projectNodeIds = findProjectNodeIds(chunk);
+            for (BaseAggregationRoot r : chunk) {
+                if (r instanceof ProjectFeatureTableDO projectFeatureTableDO) {
+                    ProjectFeatureTableDO.UPK upk = projectFeatureTableDO.getUpk();
+                    Optional<FeatureTableDO> featureTableDOOptional = featureTableRepository.findById(new FeatureTableDO.UPK(upk.getFeatureTableId(), upk.getNodeId(), upk.getDatasourceId()));
+                    if (featureTableDOOptional.isEmpty()) {
+                        log.warn("featureTableDOOptional is empty");
+                    } else {
+                        projectFeatureTableDO.setFeatureTable(featureTableDOOptional.get());
+                    }
+                }
+                if (SseSendFlag(r, nodeId, projectNodeIds)) {
+                    frame.add(SyncDataDTO.builder()
+                            .data(r)
+                            .action(DbChangeAction.CREATE.val)
+                            .tableName(tableName)
+                            .lastUpdateTime(lastUpdateTime)
+                            .build());
+                    if (frame.size() >= frameSize) {
+                        sendFrame(nodeId, tableName, frame, frameSize);
+                        frame = new ArrayList<>(frameSize);
                     }
-                });
-            });
+                }
+            }
+            num += chunk.size();
+            if (chunk.size() < resyncChunkSize || !SseSession.exists(nodeId)) {
+                break;
+            }
+            BaseAggregationRoot last = chunk.get(chunk.size() - 1);
+            afterTime = last.getGmtModified();
+            afterId = last.getId();
         }
+        if (!frame.isEmpty()) {
+            sendFrame(nodeId, tableName, frame, frameSize);
+        }
+        log.info("data sync end table: {} ,lastUpdateTime:{}, num: {}", tableName, lastUpdateTime, num);
     }
 
+    /**
+     * @param frameSize 1 if the edge doesn't accept batch frames
+     */
+    private void sendFrame(String nodeId, String tableName, List<SyncDataDTO<?>> frame, int frameSize) {
+        try {
+            if (frameSize == 1) {
+                SseSession.sendResync(nodeId, frame.get(0));
+            } else {
+                SseSession.sendBatch(nodeId, tableName, frame);
+            }
+        } catch (IOException e) {
+            log.error("sse sync error ", e);
+        }
+    }
+
+    /**
+     * next chunk of a table after (afterTime, afterId), keyset paging keeps every query cheap on large tables
+     *
+     * @param afterTime null to start from the first row
+     * @param afterId   null to skip every row at afterTime
+     */
     @SuppressWarnings(value = {"rawtypes"})
-    public List<ProjectNodesInfo> findDoByTime(SyncDataDTO s) {
-        String tableName = s.getTableName();
-        String lastUpdateTime = s.getLastUpdateTime();
-        BaseRepository baseRepository = doAndRepository.get(tableName);
-        Specification<BaseAggregationRoot> gmtModified = null;
-        if (!"0".equals(lastUpdateTime)) {
-            LocalDateTime parse = LocalDateTime.parse(s.getLastUpdateTime(), DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-            gmtModified = (root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(root.get("gmtModified"), parse);
+    private List<BaseAggregationRoot> findChunk(String tableName, LocalDateTime afterTime, Long afterId) {
+        Class<BaseAggregationRoot> entityClass = entityClass(tableName);
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BaseAggregationRoot> query = criteriaBuilder.createQuery(entityClass);
+        Root<BaseAggregationRoot> root = query.from(entityClass);
+        List<Predicate> predicates = new ArrayList<>();
+        if (afterTime != null && afterId == null) {
+            predicates.add(criteriaBuilder.greaterThan(root.get("gmtModified"), afterTime));
+        } else if (afterTime != null) {
+            predicates.add(criteriaBuilder.or(
+                    criteriaBuilder.greaterThan(root.get("gmtModified"), afterTime),
+                    criteriaBuilder.and(
+                            criteriaBuilder.equal(root.get("gmtModified"), afterTime),
+                            criteriaBuilder.greaterThan(root.get("id"), afterId))));
         }
-        List<ProjectNodesInfo> resultList = ObjectUtils.isEmpty(gmtModified) ? baseRepository.findAll() : baseRepository.findAll(gmtModified);
-        log.info("data sync start table: {} ,lastUpdateTime:{}, num: {}", tableName, lastUpdateTime, resultList.size());
-        return resultList;
+        query.select(root)
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(criteriaBuilder.asc(root.get("gmtModified")), criteriaBuilder.asc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(resyncChunkSize).getResultList();
     }
 
-    public boolean SseSendFlag(ProjectNodesInfo p, String nodeId) {
+    /**
+     * node ids of the projects in one chunk, resolved with one query
+     */
+    @SuppressWarnings(value = {"rawtypes"})
+    private Map<String, List<String>> findProjectNodeIds(List<BaseAggregationRoot> chunk) {
+        List<String> projectIds = chunk.stream()
+                .filter(r -> !(r instanceof NodeDO) && CollectionUtils.isEmpty(r.getNodeIds()) && r.getProjectId() != null)
+                .map(BaseAggregationRoot::getProjectId)
+                .distinct()
+                .toList();
+        if (projectIds.isEmpty()) {
+            return Map.of();
+        }
+        return projectNodeRepository.findByProjectIds(projectIds).stream()
+                .collect(Collectors.groupingBy(p -> p.getUpk().getProjectId(),
+                        Collectors.mapping(p -> p.getUpk().getNodeId(), Collectors.toList())));
+    }
+
+    public boolean SseSendFlag(ProjectNodesInfo p, String nodeId, Map<String, List<String>> projectNodeIds) {
         if (p instanceof NodeDO) {
             return true;
         }
         List<String> nodeIds = p.getNodeIds();
-        String projectId = p.getProjectId();
         if (CollectionUtils.isEmpty(nodeIds)) {
-            nodeIds = new ArrayList<>();
-            List<ProjectNodeDO> byProjectId = projectNodeRepository.findByProjectId(projectId);
-            if (!CollectionUtils.isEmpty(byProjectId)) {
-                for (ProjectNodeDO b : byProjectId) {
-                    nodeIds.add(b.getNodeId());
-                }
-            }
+            nodeIds = projectNodeIds.getOrDefault(p.getProjectId(), List.of());
         }
         return nodeIds.contains(nodeId);
     }
 
-    private String getRealTableName(String tableName) {
+    @SuppressWarnings(value = {"rawtypes"})
+    private Class<BaseAggregationRoot> entityClass(String tableName) {
+        try {
+            return (Class<BaseAggregationRoot>) Class.forName(tableName);
+        } catch (ClassNotFoundException e) {
+            throw SecretpadException.of(SystemErrorCode.SSE_ERROR, "no such table " + tableName);
+        }
+    }
+
+    public String getRealTableName(String tableName) {
         Class<?> aClass;
         try {
             aClass = Class.forName(tableName);
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.sync;
+
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.common.dto.UserContextDTO;
+import org.secretflow.secretpad.common.util.UserContext;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+
+/**
+ * Applies inbound sync data on partitioned workers.
+ * <p>
+ * Sync data is routed by (tableName, entity primary key), so changes of one entity are applied in order
+ * by one worker, while unrelated entities are applied on other workers. Each worker drains its queue into
+ * batches applied in one transaction; a failed batch is retried task by task.
+ * <p>
+ * An ordered batch of sync data is one task, applied in order in one transaction on the partition of its
+ * first item, so the batch stays atomic.
+ * <p>
+ * Each task is applied with the user context of the thread submitting it, e.g. the p2p user of the source node,
+ * and with admin if there is none.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@SuppressWarnings(value = {"rawtypes"})
+public class SyncDataApplyExecutor {
+
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+    @Value("${secretpad.datasync.apply.partitions:4}")
+    private int partitions;
+    @Value("${secretpad.datasync.apply.batch-size:64}")
+    private int batchSize;
+    @Value("${secretpad.datasync.apply.queue-capacity:10000}")
+    private int queueCapacity;
+
+    private TransactionTemplate transactionTemplate;
+    private final List<BlockingQueue<ApplyTask>> queues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        running = true;
+        for (int i = 0; i < partitions; i++) {
+            BlockingQueue<ApplyTask> queue = new LinkedBlockingQueue<>(queueCapacity);
+            Thread worker = new Thread(() -> work(queue), "sync-data-apply-" + i);
+            worker.setDaemon(true);
+            queues.add(queue);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        running = false;
+        workers.forEach(Thread::interrupt);
+        List<ApplyTask> pending = new ArrayList<>();
+        queues.forEach(queue -> queue.drainTo(pending));
+        pending.forEach(task -> task.future().completeExceptionally(shutdown()));
+        if (!pending.isEmpty()) {
+            log.warn("sync data apply executor shut down with {} pending tasks", pending.size());
+        }
+    }
+
+    /**
+     * queue sync data on its partition, blocks while the partition is full
+     *
+     * @param dto   sync data
+     * @param apply apply the sync data, called inside a transaction
+     * @return completed once the transaction containing the sync data is committed
+     */
+    public CompletableFuture<Void> submit(SyncDataDTO dto, Consumer<SyncDataDTO> apply) {
+        return submit(List.of(dto), apply);
+    }
+
+    /**
+     * queue an ordered batch of sync data as one task, applied in order in one transaction
+     *
+     * @param dtoList sync data, not empty
+     * @param apply   apply one sync data, called inside the transaction
+     * @return completed once the transaction containing the batch is committed
+     */
+    public CompletableFuture<Void> submit(List<SyncDataDTO> dtoList, Consumer<SyncDataDTO> apply) {
+        ApplyTask task = new ApplyTask(dtoList, apply, UserContext.getUserOrNotExist(), new CompletableFuture<>());
+        if (!running) {
+            task.future().completeExceptionally(shutdown());
+            return task.future();
+        }
+        try {
+            queues.get(partition(dtoList.get(0))).put(task);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            task.future().completeExceptionally(e);
+        }
+        return task.future();
+    }
+
+    private static IllegalStateException shutdown() {
+        return new IllegalStateException("sync data apply executor is shut down");
+    }
+
+    private int partition(SyncDataDTO dto) {
+        Object id = null;
+        try {
+            id = entityManagerFactory.getPersistenceUnitUtil().getIdentifier(dto.getData());
+        } catch (Exception e) {
+            log.debug("sync data apply can not get identifier of {}, partition by table", dto.getTableName());
+        }
+        return Math.floorMod(Objects.hash(dto.getTableName(), id), queues.size());
+    }
+
+    private void work(BlockingQueue<ApplyTask> queue) {
+        List<ApplyTask> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            applyBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void applyBatch(List<ApplyTask> batch) {
+        try {
+            applyInTransaction(batch);
+            batch.forEach(task -> task.future().complete(null));
+            return;
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                log.error("sync data apply error {}", batch.get(0).tableName(), e);
+                batch.get(0).future().completeExceptionally(e);
+                return;
+            }
+            log.warn("sync data apply batch of {} error, apply one by one", batch.size(), e);
+        }
+        for (ApplyTask task : batch) {
+            try {
+                applyInTransaction(List.of(task));
+                task.future().complete(null);
+            } catch (Exception e) {
+                log.error("sync data apply error {}", task.tableName(), e);
+                task.future().completeExceptionally(e);
+            }
+        }
+    }
+
+    private void applyInTransaction(List<ApplyTask> tasks) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> tasks.forEach(task -> {
+                UserContext.setBaseUser(task.user() != null ? task.user() : UserContextDTO.builder().name("admin").build());
+                task.dtoList().forEach(task.apply());
+            }));
+        } finally {
+            UserContext.remove();
+        }
+    }
+
+    /**
+     * @param user user context of the submitting thread, null if it has none
+     */
+    private record ApplyTask(List<SyncDataDTO> dtoList, Consumer<SyncDataDTO> apply, UserContextDTO user,
+                             CompletableFuture<Void> future) {
+        String tableName() {
+            return dtoList.get(0).getTableName();
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.sync;
+
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.common.errorcode.SystemErrorCode;
+import org.secretflow.secretpad.common.exception.SecretpadException;
+import org.secretflow.secretpad.common.util.JsonUtils;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compact encoding of center to edge sync data frames.
+ * <p>
+ * The edge asks for an encoding with the {@link #ENCODING_HEADER} header when opening the sse, and the center sends
+ * every data frame in it under an event name with the {@link #SMILE_EVENT_SUFFIX} suffix. A center that doesn't know
+ * the header keeps sending json frames, which the edge still accepts.
+ * <p>
+ * Encoded data is base64 of one flag byte followed by smile bytes, gzipped when the flag is {@link #FLAG_GZIP}.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+public final class SyncDataCodec {
+
+    public static final String ENCODING_HEADER = "secretpad-sync-encoding";
+    public static final String ENCODING_JSON = "json";
+    public static final String ENCODING_SMILE = "smile";
+    public static final String SMILE_EVENT_SUFFIX = "." + ENCODING_SMILE;
+
+    private static final byte FLAG_PLAIN = 0;
+    private static final byte FLAG_GZIP = 1;
+    /**
+     * smaller payloads are not worth the gzip header
+     */
+    private static final int GZIP_MIN_BYTES = 512;
+
+    private static final ObjectMapper SMILE = JsonUtils.copyWith(new SmileFactory());
+    private static final Map<String, JavaType> TYPES = new ConcurrentHashMap<>();
+    private static final Map<String, JavaType> LIST_TYPES = new ConcurrentHashMap<>();
+
+    private SyncDataCodec() {
+    }
+
+    public static boolean isSmile(String encoding) {
+        return ENCODING_SMILE.equals(encoding);
+    }
+
+    /**
+     * SyncDataDTO type of the table, cached so the class is resolved once per table
+     */
+    public static JavaType syncDataType(String tableName) {
+        return TYPES.computeIfAbsent(tableName, t -> JsonUtils.makeJavaType(SyncDataDTO.class, tableClass(t)));
+    }
+
+    public static JavaType syncDataListType(String tableName) {
+        return LIST_TYPES.computeIfAbsent(tableName, t -> JsonUtils.makeJavaType(List.class, syncDataType(t)));
+    }
+
+    public static String encode(Object value) {
+        try {
+            byte[] bytes = SMILE.writeValueAsBytes(value);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 1);
+            if (bytes.length < GZIP_MIN_BYTES) {
+                out.write(FLAG_PLAIN);
+                out.write(bytes);
+            } else {
+                out.write(FLAG_GZIP);
+                try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                    gzip.write(bytes);
+                }
+            }
+            return Base64.getEncoder().encodeToString(out.toByteArray());
+        } catch (IOException e) {
+            throw SecretpadException.of(SystemErrorCode.SSE_ERROR, e);
+        }
+    }
+
+    public static <T> T decode(String data, JavaType javaType) {
+        byte[] bytes = Base64.getDecoder().decode(data);
+        InputStream in = new ByteArrayInputStream(bytes, 1, bytes.length - 1);
+        try {
+            if (bytes[0] == FLAG_GZIP) {
+                in = new GZIPInputStream(in);
+            }
+            try (InputStream body = in) {
+                return SMILE.readValue(body, javaType);
+            }
+        } catch (IOException e) {
+            throw SecretpadException.of(SystemErrorCode.SSE_ERROR, e);
+        }
+    }
+
+    private static Class<?> tableClass(String tableName) {
+        try {
+            return Class.forName(tableName);
+        } catch (ClassNotFoundException e) {
+            throw SecretpadException.of(SystemErrorCode.SSE_ERROR, "no such table " + tableName);
+        }
+    }
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.sync.center;
+
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.persistence.datasync.buffer.DataSyncDataBufferTemplate;
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.FeatureTableDO;
+import org.secretflow.secretpad.persistence.entity.NodeDO;
+import org.secretflow.secretpad.persistence.entity.ProjectFeatureTableDO;
+import org.secretflow.secretpad.persistence.entity.ProjectNodeDO;
+import org.secretflow.secretpad.persistence.repository.FeatureTableRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectNodeRepository;
+import org.secretflow.secretpad.service.sync.SyncDataCodec;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.CollectionUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dispatcher of center data sync events to the sse sessions of edges.
+ * <p>
+ * One dispatcher thread takes events from the buffer, resolves the receiving nodes through a cached project to nodes
+ * membership and encodes the event once, then hands the delivery to the worker lane of each node. A node always
+ * maps to the same lane, so events reach it in buffer order.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+@SuppressWarnings(value = {"rawtypes", "unchecked"})
+public class CenterDataSyncDispatcher implements SmartLifecycle {
+
+    private static final String BUFFER_DEPTH_METRIC = "datasync.center.buffer.depth";
+    private static final String LANE_DEPTH_METRIC = "datasync.center.dispatch.lane.depth";
+    private static final long SHUTDOWN_TIMEOUT_MS = 5000;
+
+    private final ProjectNodeRepository projectNodeRepository;
+    private final FeatureTableRepository featureTableRepository;
+    private final DataSyncDataBufferTemplate dataSyncDataBufferTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int workers;
+    private final int laneCapacity;
+
+    /**
+     * project id -> ids of the nodes of the project, used to route the changes of a project to the edges of its nodes.
+     * Nodes removed from the project stay in it as they still need the removal. Loaded on first use, dropped when a
+     * project node changes and again once that transaction completes, so the next change loads it again.
+     */
+    private final Map<String, List<String>> projectNodes = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread dispatcher;
+    private Lane[] lanes;
+
+    public CenterDataSyncDispatcher(ProjectNodeRepository projectNodeRepository, FeatureTableRepository featureTableRepository,
+                                    DataSyncDataBufferTemplate dataSyncDataBufferTemplate, MeterRegistry meterRegistry,
+                                    int workers, int laneCapacity) {
+        this.projectNodeRepository = projectNodeRepository;
+        this.featureTableRepository = featureTableRepository;
+        this.dataSyncDataBufferTemplate = dataSyncDataBufferTemplate;
+        this.meterRegistry = meterRegistry;
+        this.workers = Math.max(1, workers);
+        this.laneCapacity = Math.max(1, laneCapacity);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        lanes = new Lane[workers];
+        for (int i = 0; i < workers; i++) {
+            lanes[i] = new Lane(i, new LinkedBlockingQueue<>(laneCapacity));
+            lanes[i].thread.start();
+        }
+        dispatcher = new Thread(this::dispatch, "center-data-sync-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        registerMetrics();
+        log.info("center data sync dispatcher started with {} workers", workers);
+    }
+
+    /**
+     * stop taking events and let the lanes deliver what has been dispatched
+     */
+    @Override
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        dispatcher.interrupt();
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MS;
+        try {
+            dispatcher.join(SHUTDOWN_TIMEOUT_MS);
+            for (Lane lane : lanes) {
+                lane.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Lane lane : lanes) {
+            if (lane.thread.isAlive()) {
+                log.warn("center data sync lane {} stopped with {} pending deliveries", lane.index, lane.queue.size());
+                lane.thread.interrupt();
+            }
+        }
+        log.info("center data sync dispatcher stopped, {} events left in buffer", dataSyncDataBufferTemplate.size(null));
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.getEntity() instanceof ProjectNodeDO projectNodeDO && projectNodeDO.getUpk() != null) {
+            String projectId = projectNodeDO.getUpk().getProjectId();
+            projectNodes.remove(projectId);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        projectNodes.remove(projectId);
+                    }
+                });
+            }
+        }
+    }
+
+    private void dispatch() {
+        while (running) {
+            EntityChangeListener.DbChangeEvent event;
+            try {
+                event = dataSyncDataBufferTemplate.peek(null);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                dispatch(event);
+            } catch (InterruptedException e) {
+                return;
+            } catch (Exception e) {
+                log.error("center data sync dispatch error {}", event, e);
+            }
+        }
+    }
+
+    private void dispatch(EntityChangeListener.DbChangeEvent event) throws InterruptedException {
+        if (event.getSource() instanceof ProjectFeatureTableDO projectFeatureTableDO) {
+            ProjectFeatureTableDO.UPK upk = projectFeatureTableDO.getUpk();
+            Optional<FeatureTableDO> featureTableDO = featureTableRepository.findById(new FeatureTableDO.UPK(upk.getFeatureTableId(), upk.getNodeId(), upk.getDatasourceId()));
+            if (featureTableDO.isEmpty()) {
+                log.warn("feature table of {} is empty", upk);
+            } else {
+                projectFeatureTableDO.setFeatureTable(featureTableDO.get());
+            }
+        }
+        SyncDataDTO content = SyncDataDTO.builder()
+                .tableName(event.getDType())
+                .action(event.getAction())
+                .data(event.getSource()).build();
+        if (event.getSource() instanceof NodeDO) {
+            log.info("*** get data sync , filter {} will be send", SseSession.sessionMap.keySet());
+            SseSession.sendAll(content);
+            return;
+        }
+        List<String> nodeIds = event.getNodeIds();
+        if (CollectionUtils.isEmpty(nodeIds)) {
+            nodeIds = nodesOfProject(event.getProjectId());
+        }
+        log.info("*** get data sync , filter {} will be send", nodeIds);
+        String encoded = null;
+        for (String nodeId : nodeIds) {
+            if (!subscribed(nodeId, event.getDType())) {
+                continue;
+            }
+            if (encoded == null && SyncDataCodec.isSmile(SseSession.sessionEncodingMap.get(nodeId))) {
+                encoded = SyncDataCodec.encode(content);
+            }
+            String frame = encoded;
+            lanes[Math.floorMod(nodeId.hashCode(), lanes.length)].queue.put(() -> SseSession.send(nodeId, content, frame));
+        }
+    }
+
+    private List<String> nodesOfProject(String projectId) {
+        if (StringUtils.isEmpty(projectId)) {
+            return List.of();
+        }
+        return projectNodes.computeIfAbsent(projectId, id -> List.copyOf(projectNodeRepository.findProjectNodesByProjectId(id)));
+    }
+
+    private boolean subscribed(String nodeId, String tableName) {
+        List<SyncDataDTO> tables = SseSession.sessionTableMap.get(nodeId);
+        return tables != null && tables.stream().anyMatch(t -> tableName.equals(t.getTableName()));
+    }
+
+    private void registerMetrics() {
+        if (meterRegistry == null) {
+            return;
+        }
+        Gauge.builder(BUFFER_DEPTH_METRIC, dataSyncDataBufferTemplate, b -> b.size(null)).register(meterRegistry);
+        for (Lane lane : lanes) {
+            Gauge.builder(LANE_DEPTH_METRIC, lane.queue, BlockingQueue::size).tag("lane", String.valueOf(lane.index)).register(meterRegistry);
+        }
+    }
+
+    /**
+     * worker delivering to the nodes mapped to it, runs until stopped and its queue is drained
+     */
+    private class Lane {
+        private final int index;
+        private final BlockingQueue<Runnable> queue;
+        private final Thread thread;
+
+        private Lane(int index, BlockingQueue<Runnable> queue) {
+            this.index = index;
+            this.queue = queue;
+            this.thread = new Thread(this::run, "center-data-sync-lane-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        private void run() {
+            while (running || !queue.isEmpty()) {
+                try {
+                    Runnable delivery = queue.poll(100, TimeUnit.MILLISECONDS);
+                    if (delivery != null) {
+                        delivery.run();
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    log.error("center data sync lane {} delivery error", index, e);
+                }
+            }
+        }
+    }
+}
@@ -17,17 +17,26 @@
 package org.secretflow.secretpad.service.sync.center;
 
 import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.service.sync.SyncDataCodec;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.lang3.ObjectUtils;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * Sse sessions of edges, every session writes through its own bounded queue, see {@link SseSessionWriter}
+ *
  * @author yutu
  * @date 2023/10/23
  */
@@ -35,8 +44,43 @@ import java.util.concurrent.ConcurrentHashMap;
 @SuppressWarnings(value = {"rawtypes"})
 public class SseSession {
     public static final String SSE_PING_MSG = "ping";
+    /**
+     * event name of a frame carrying a json array of sync data of one table
+     */
+    public static final String SSE_BATCH_EVENT = "batch";
+    /**
+     * event name of the frame telling every row of a table before the resync has been sent
+     */
+    public static final String SSE_RESYNC_END_EVENT = "resync-end";
+    /**
+     * event name of an encoded frame carrying one sync data, json frames of one sync data have no event name
+     */
+    public static final String SSE_SYNC_EVENT = "sync";
+    private static final String QUEUE_DEPTH_METRIC = "sse.session.queue.depth";
+    private static final String QUEUE_OVERFLOW_METRIC = "sse.session.queue.overflow";
     public static Map<String, SseEmitter> sessionMap = new ConcurrentHashMap<>();
     public static Map<String, List<SyncDataDTO>> sessionTableMap = new ConcurrentHashMap<>();
+    public static Map<String, String> sessionEncodingMap = new ConcurrentHashMap<>();
+    private static final Map<String, SseSessionWriter> sessionWriterMap = new ConcurrentHashMap<>();
+
+    private static final ExecutorService WRITER_EXECUTOR = Executors.newCachedThreadPool(new WriterThreadFactory());
+    private static volatile int queueCapacity = 10000;
+    private static volatile int resyncWindow = 4;
+    private static volatile SseSessionWriter.OverflowPolicy overflowPolicy = SseSessionWriter.OverflowPolicy.COALESCE;
+    private static volatile MeterRegistry meterRegistry;
+
+    /**
+     * @param capacity capacity of the live change queue of every session
+     * @param window   resync frames queued ahead of the writer of every session
+     * @param overflow coalesce or disconnect
+     * @param registry registry of queue depth and overflow metrics, nullable
+     */
+    public static void configure(int capacity, int window, String overflow, MeterRegistry registry) {
+        queueCapacity = capacity;
+        resyncWindow = window;
+        overflowPolicy = SseSessionWriter.OverflowPolicy.of(overflow);
+        meterRegistry = registry;
+    }
 
     public static void add(String sessionKey, SseEmitter sseEmitter, List<SyncDataDTO> syncDataDTOList) {
         add(sessionKey, sseEmitter);
@@ -44,10 +88,29 @@ public class SseSession {
     }
 
     public static void add(String sessionKey, SseEmitter sseEmitter) {
+        SseSessionWriter writer = new SseSessionWriter(sessionKey, sseEmitter, queueCapacity, resyncWindow, overflowPolicy, WRITER_EXECUTOR);
+        SseSessionWriter prev = sessionWriterMap.put(sessionKey, writer);
+        if (prev != null) {
+            prev.close(false);
+        }
         sessionMap.put(sessionKey, sseEmitter);
+        registerMetrics(sessionKey);
         log.info("received node :{}", sessionKey);
     }
 
+    /**
+     * frame format negotiated with the session
+     *
+     * @param encoding encoding of data frames, see {@link SyncDataCodec}
+     */
+    public static void negotiate(String sessionKey, String encoding) {
+        if (SyncDataCodec.isSmile(encoding)) {
+            sessionEncodingMap.put(sessionKey, encoding);
+        } else {
+            sessionEncodingMap.remove(sessionKey);
+        }
+    }
+
     public static boolean exists(String sessionKey) {
         return sessionMap.get(sessionKey) != null;
     }
@@ -58,51 +121,173 @@ public class SseSession {
 
     public static boolean remove(String sessionKey, boolean close) {
         SseEmitter sseEmitter = sessionMap.remove(sessionKey);
-        if (close && sseEmitter != null) {
-            sseEmitter.complete();
+        SseSessionWriter writer = sessionWriterMap.remove(sessionKey);
+        if (writer != null) {
+            writer.close(close && sseEmitter != null);
         }
         sessionTableMap.remove(sessionKey);
+        sessionEncodingMap.remove(sessionKey);
+        removeMetrics(sessionKey);
         return false;
     }
 
     public static void onError(String sessionKey, Throwable throwable) {
         sessionMap.remove(sessionKey);
+        SseSessionWriter writer = sessionWriterMap.remove(sessionKey);
+        if (writer != null) {
+            writer.close(false);
+        }
         sessionTableMap.remove(sessionKey);
+        sessionEncodingMap.remove(sessionKey);
+        removeMetrics(sessionKey);
         log.error("sse connection error ", throwable);
     }
 
+    /**
+     * queue a live change, never blocks
+     */
     public static void send(String sessionKey, SyncDataDTO<?> content) throws IOException {
-        SseEmitter.SseEventBuilder build = SseEmitter.event().id(content.getTableName()).data(content);
-        SseEmitter sseEmitter = sessionMap.get(sessionKey);
-        if (ObjectUtils.isNotEmpty(sseEmitter)) {
+        send(sessionKey, content, null);
+    }
+
+    /**
+     * queue a live change, never blocks
+     *
+     * @param encoded content already encoded with {@link SyncDataCodec}, used if the session negotiated it, null to encode it here
+     */
+    public static void send(String sessionKey, SyncDataDTO<?> content, String encoded) {
+        SseSessionWriter writer = sessionWriterMap.get(sessionKey);
+        if (writer != null) {
             log.info("*** get data sync , sse send to {} , data is  {} ", sessionKey, content);
-            try {
-                sseEmitter.send(build);
-            } catch (Exception e) {
-                sseEmitter.completeWithError(e);
-                log.warn("sse send data error {}", sessionKey, e);
-            }
+            writer.offer(coalesceKey(content), event(sessionKey, content, encoded));
         }
     }
 
+    /**
+     * queue one sync data of resync, waits while the resync window is full
+     */
+    public static void sendResync(String sessionKey, SyncDataDTO<?> content) throws IOException {
+        put(sessionKey, event(sessionKey, content, null));
+    }
+
+    /**
+     * queue a batch frame of resync, waits while the resync window is full
+     */
+    public static void sendBatch(String sessionKey, String tableName, List<SyncDataDTO<?>> contents) throws IOException {
+        SseEmitter.SseEventBuilder build = SseEmitter.event().id(tableName);
+        if (SyncDataCodec.isSmile(sessionEncodingMap.get(sessionKey))) {
+            build.name(SSE_BATCH_EVENT + SyncDataCodec.SMILE_EVENT_SUFFIX).data(SyncDataCodec.encode(contents));
+        } else {
+            build.name(SSE_BATCH_EVENT).data(contents);
+        }
+        log.info("*** get data sync , sse send to {} , table is {} , size is {} ", sessionKey, tableName, contents.size());
+        put(sessionKey, build);
+    }
+
+    public static void sendResyncEnd(String sessionKey, String tableName) throws IOException {
+        put(sessionKey, SseEmitter.event().name(SSE_RESYNC_END_EVENT).id(tableName).data(tableName));
+    }
+
     public static void ping(String sessionKey) throws IOException {
         SseEmitter.SseEventBuilder build = SseEmitter.event().id(SSE_PING_MSG).comment(SSE_PING_MSG).data(SSE_PING_MSG);
-        SseEmitter sseEmitter = sessionMap.get(sessionKey);
-        if (ObjectUtils.isNotEmpty(sseEmitter)) {
-            sseEmitter.send(build);
+        SseSessionWriter writer = sessionWriterMap.get(sessionKey);
+        if (writer != null) {
+            writer.tryOffer(build);
         }
     }
 
     public static void sendAll(SyncDataDTO<?> content) {
-        sessionMap.keySet().forEach(k -> {
-            try {
-                send(k, content);
-            } catch (IOException e) {
-                SseEmitter sseEmitter = sessionMap.get(k);
-                sseEmitter.completeWithError(e);
-                log.error("sse send data error {}", k, e);
-            }
-        });
-    }
-
-}
\ No newline at end of file
+        String encoded = sessionEncodingMap.isEmpty() ? null : SyncDataCodec.encode(content);
+        sessionMap.keySet().forEach(k -> send(k, content, encoded));
+    }
+
+    private static void put(String sessionKey, SseEmitter.SseEventBuilder event) throws IOException {
+        SseSessionWriter writer = sessionWriterMap.get(sessionKey);
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("sse send interrupted " + sessionKey, e);
+        }
+    }
+
+    private static SseEmitter.SseEventBuilder event(String sessionKey, SyncDataDTO<?> content, String encoded) {
+        SseEmitter.SseEventBuilder build = SseEmitter.event().id(content.getTableName());
+        if (SyncDataCodec.isSmile(sessionEncodingMap.get(sessionKey))) {
+            build.name(SSE_SYNC_EVENT + SyncDataCodec.SMILE_EVENT_SUFFIX).data(encoded != null ? encoded : SyncDataCodec.encode(content));
+        } else {
+            build.data(content);
+        }
+        return build;
+    }
+
+    /**
+     * changes of an entity with db id can be coalesced, the last one carries the latest data
+     */
+    private static Object coalesceKey(SyncDataDTO<?> content) {
+        if (content.getData() instanceof BaseAggregationRoot data && data.getId() != null) {
+            return content.getTableName() + ":" + data.getId();
+        }
+        return null;
+    }
+
+    /**
+     * forget a session closed on overflow, unless the edge has already reconnected with a new session
+     */
+    static void overflowed(String sessionKey, SseSessionWriter writer) {
+        if (sessionWriterMap.remove(sessionKey, writer)) {
+            sessionMap.remove(sessionKey);
+            sessionTableMap.remove(sessionKey);
+            sessionEncodingMap.remove(sessionKey);
+            removeMetrics(sessionKey);
+        }
+    }
+
+    private static void registerMetrics(String sessionKey) {
+        MeterRegistry registry = meterRegistry;
+        if (registry == null) {
+            return;
+        }
+        try {
+            Gauge.builder(QUEUE_DEPTH_METRIC, sessionWriterMap, m -> {
+                        SseSessionWriter writer = m.get(sessionKey);
+                        return writer == null ? 0 : writer.depth();
+                    })
+                    .tag("node", sessionKey)
+                    .register(registry);
+        } catch (Exception e) {
+            log.error("register sse metrics error", e);
+        }
+    }
+
+    private static void removeMetrics(String sessionKey) {
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            registry.find(QUEUE_DEPTH_METRIC).tag("node", sessionKey).meters().forEach(registry::remove);
+        }
+    }
+
+    /**
+     * count an overflow of the session
+     */
+    static void recordOverflow(String sessionKey) {
+        MeterRegistry registry = meterRegistry;
+        if (registry != null) {
+            registry.counter(QUEUE_OVERFLOW_METRIC, "node", sessionKey).increment();
+        }
+    }
+
+    private static class WriterThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "sse-session-writer-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.sync.center;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Send queue settings of sse sessions
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Component
+@RequiredArgsConstructor
+public class SseSessionConfig {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Value("${secretpad.datasync.sse.queue-capacity:10000}")
+    private int queueCapacity;
+    @Value("${secretpad.datasync.sse.resync-window:4}")
+    private int resyncWindow;
+    @Value("${secretpad.datasync.sse.overflow:coalesce}")
+    private String overflow;
+
+    @PostConstruct
+    public void init() {
+        SseSession.configure(queueCapacity, resyncWindow, overflow, meterRegistry.getIfAvailable());
+    }
+}
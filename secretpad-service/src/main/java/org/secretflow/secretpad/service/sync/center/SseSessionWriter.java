@@ -0,0 +1,234 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.sync.center;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+
+/**
+ * Bounded outbound queue of one sse session, drained by a writer task so that callers never block on a slow edge.
+ * <p>
+ * Live changes are offered without blocking and the {@link OverflowPolicy} applies when the live queue is full.
+ * Resync frames go to a separate window of a few frames and their producer, the resync task of the session, waits
+ * while it is full, so the next keyset page is only read once the previous one has drained. A resync backlog never
+ * counts towards live overflow. Frames of both queues are written in the order they were queued.
+ * <p>
+ * A full queue is never dropped in place: queued frames may be resync or batch frames the edge checkpoint would
+ * advance past. The session is closed instead, and the edge reconnects and resyncs from its last applied checkpoint.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+class SseSessionWriter {
+
+    enum OverflowPolicy {
+        /**
+         * a queued change of the same entity is dropped for the new one, a full queue without such change disconnects
+         */
+        COALESCE,
+        /**
+         * close the session, the edge reconnects and resyncs from its checkpoint
+         */
+        DISCONNECT;
+
+        static OverflowPolicy of(String value) {
+            return valueOf(value.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private final String sessionKey;
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final int resyncWindow;
+    private final OverflowPolicy policy;
+    private final Executor executor;
+    /**
+     * live frames keyed by entity for coalescing, frames which can't be coalesced get a key of their own
+     */
+    private final LinkedHashMap<Object, Frame> queue = new LinkedHashMap<>();
+    /**
+     * resync frames, at most resyncWindow
+     */
+    private final ArrayDeque<Frame> resyncQueue = new ArrayDeque<>();
+    private long nextSeq;
+    private boolean draining;
+    private boolean closed;
+
+    SseSessionWriter(String sessionKey, SseEmitter emitter, int capacity, int resyncWindow, OverflowPolicy policy, Executor executor) {
+        this.sessionKey = sessionKey;
+        this.emitter = emitter;
+        this.capacity = capacity;
+        this.resyncWindow = Math.max(1, resyncWindow);
+        this.policy = policy;
+        this.executor = executor;
+    }
+
+    /**
+     * queue a live change without blocking
+     *
+     * @param key entity of the change for coalescing, null if it can't be coalesced
+     * @return false if the frame is dropped
+     */
+    synchronized boolean offer(Object key, SseEmitter.SseEventBuilder event) {
+        if (closed) {
+            return false;
+        }
+        if (key != null && policy == OverflowPolicy.COALESCE) {
+            queue.remove(key);
+        }
+        if (queue.size() >= capacity) {
+            overflow();
+            return false;
+        }
+        queue.put(key != null ? key : new Object(), new Frame(nextSeq++, event));
+        schedule();
+        return true;
+    }
+
+    /**
+     * queue a resync frame, waiting while the resync window is full
+     *
+     * @return false if the session is closed
+     */
+    synchronized boolean put(SseEmitter.SseEventBuilder event) throws InterruptedException {
+        while (!closed && resyncQueue.size() >= resyncWindow) {
+            wait();
+        }
+        if (closed) {
+            return false;
+        }
+        resyncQueue.add(new Frame(nextSeq++, event));
+        schedule();
+        return true;
+    }
+
+    /**
+     * queue a frame only if there is room, e.g. ping
+     */
+    synchronized boolean tryOffer(SseEmitter.SseEventBuilder event) {
+        if (closed || queue.size() >= capacity) {
+            return false;
+        }
+        queue.put(new Object(), new Frame(nextSeq++, event));
+        schedule();
+        return true;
+    }
+
+    /**
+     * queued live and resync frames
+     */
+    synchronized int depth() {
+        return queue.size() + resyncQueue.size();
+    }
+
+    /**
+     * stop writing, pending frames are dropped
+     *
+     * @param complete complete the emitter
+     */
+    void close(boolean complete) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.clear();
+            resyncQueue.clear();
+            notifyAll();
+        }
+        if (complete) {
+            emitter.complete();
+        }
+    }
+
+    private void fail(Throwable error) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            queue.clear();
+            resyncQueue.clear();
+            notifyAll();
+        }
+        emitter.completeWithError(error);
+    }
+
+    private void overflow() {
+        SseSession.recordOverflow(sessionKey);
+        log.warn("sse send queue of {} is full ({}), close the session to resync from the edge checkpoint", sessionKey, capacity);
+        closed = true;
+        queue.clear();
+        resyncQueue.clear();
+        notifyAll();
+        executor.execute(() -> {
+            SseSession.overflowed(sessionKey, this);
+            emitter.completeWithError(new IOException("sse send queue overflow " + sessionKey));
+        });
+    }
+
+    private void schedule() {
+        if (!draining) {
+            draining = true;
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            SseEmitter.SseEventBuilder event;
+            synchronized (this) {
+                Iterator<Frame> iterator = queue.values().iterator();
+                Frame live = iterator.hasNext() ? iterator.next() : null;
+                Frame resync = resyncQueue.peek();
+                if (closed || (live == null && resync == null)) {
+                    draining = false;
+                    return;
+                }
+                if (resync == null || (live != null && live.seq() < resync.seq())) {
+                    iterator.remove();
+                    event = live.event();
+                } else {
+                    resyncQueue.poll();
+                    event = resync.event();
+                    notifyAll();
+                }
+            }
+            try {
+                emitter.send(event);
+            } catch (Exception e) {
+                log.warn("sse send data error {}", sessionKey, e);
+                synchronized (this) {
+                    draining = false;
+                }
+                fail(e);
+                return;
+            }
+        }
+    }
+
+    private record Frame(long seq, SseEmitter.SseEventBuilder event) {
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.sync.edge;
+
+import org.secretflow.secretpad.common.constant.SystemConstants;
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.persistence.entity.BaseAggregationRoot;
+import org.secretflow.secretpad.persistence.entity.EdgeDataSyncLogDO;
+import org.secretflow.secretpad.persistence.repository.EdgeDataSyncLogRepository;
+import org.secretflow.secretpad.service.sync.JpaSyncDataService;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per table checkpoint (gmtModified, id) of the sync data applied on edge, persisted in edge_data_sync_log.
+ * <p>
+ * The checkpoint only advances once every row submitted before has been applied. Rows of the resync come
+ * in checkpoint order; live changes advance the checkpoint only after the resync of their table has ended,
+ * before that they may be newer than rows still to be resynced.
+ * <p>
+ * gmtModified has seconds only, so the resync reads the second of the checkpoint again. The ids of the rows applied
+ * in the newest second are remembered, a row of the same (id, gmtModified) coming again is skipped.
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@Slf4j
+@Component
+@Profile(value = {SystemConstants.EDGE, SystemConstants.TEST})
+@RequiredArgsConstructor
+@SuppressWarnings(value = {"rawtypes"})
+public class EdgeDataSyncCheckpoint {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final String NODE_TABLE = "node";
+
+    private final EdgeDataSyncLogRepository edgeDataSyncLogRepository;
+    private final JpaSyncDataService jpaSyncDataService;
+
+    private final Map<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final Map<String, Mark> marks = new ConcurrentHashMap<>();
+    private final Set<String> resyncEnded = ConcurrentHashMap.newKeySet();
+    private final Map<String, Second> seconds = new ConcurrentHashMap<>();
+
+    /**
+     * forget the state of previous connection
+     */
+    public void reset() {
+        tails.clear();
+        resyncEnded.clear();
+    }
+
+    /**
+     * checkpoint of the table to resync from, falls back to the latest local row if none has been recorded
+     */
+    public SyncDataDTO load(String tableName) {
+        String name = jpaSyncDataService.getRealTableName(tableName);
+        if (!NODE_TABLE.equals(name)) {
+            Optional<EdgeDataSyncLogDO> checkpoint = edgeDataSyncLogRepository.findById(name);
+            if (checkpoint.isPresent() && checkpoint.get().getLastId() != null) {
+                EdgeDataSyncLogDO logDO = checkpoint.get();
+                marks.put(name, new Mark(LocalDateTime.parse(logDO.getLastUpdateTime(), FORMATTER), logDO.getLastId()));
+                return SyncDataDTO.builder().tableName(tableName).lastUpdateTime(logDO.getLastUpdateTime()).lastId(logDO.getLastId()).build();
+            }
+        }
+        Object lastUpdateTime = jpaSyncDataService.logTableLastUpdateTime(tableName);
+        return SyncDataDTO.builder().tableName(tableName).lastUpdateTime(lastUpdateTime.toString()).build();
+    }
+
+    /**
+     * @return the sync data without the rows which have been applied already
+     */
+    public List<SyncDataDTO> dedup(String tableName, List<SyncDataDTO> dtoList) {
+        Second second = seconds.get(jpaSyncDataService.getRealTableName(tableName));
+        if (second == null) {
+            return dtoList;
+        }
+        return dtoList.stream().filter(dto -> !second.contains(dto.getData())).toList();
+    }
+
+    public void resyncEnd(String tableName) {
+        resyncEnded.add(jpaSyncDataService.getRealTableName(tableName));
+    }
+
+    /**
+     * advance the checkpoint of the table once the sync data and everything tracked before are applied,
+     * the rows applied are remembered for dedup
+     *
+     * @param dtoList sync data of one table
+     * @param applied futures of applying the sync data
+     * @param resync  the sync data is part of the resync
+     */
+    public void track(String tableName, List<SyncDataDTO> dtoList, List<CompletableFuture<Void>> applied, boolean resync) {
+        String name = jpaSyncDataService.getRealTableName(tableName);
+        if (NODE_TABLE.equals(name)) {
+            return;
+        }
+        for (int i = 0; i < dtoList.size() && i < applied.size(); i++) {
+            Object data = dtoList.get(i).getData();
+            applied.get(i).thenRun(() -> remember(name, data));
+        }
+        if (!resync && !resyncEnded.contains(name)) {
+            return;
+        }
+        Optional<Mark> mark = dtoList.stream()
+                .map(SyncDataDTO::getData)
+                .filter(BaseAggregationRoot.class::isInstance)
+                .map(BaseAggregationRoot.class::cast)
+                .filter(data -> data.getGmtModified() != null && data.getId() != null)
+                .map(data -> new Mark(data.getGmtModified(), data.getId()))
+                .max(Comparator.naturalOrder());
+        if (mark.isEmpty()) {
+            return;
+        }
+        CompletableFuture<Void> all = CompletableFuture.allOf(applied.toArray(new CompletableFuture[0]));
+        tails.compute(name, (k, tail) -> {
+            if (tail != null && tail.isCompletedExceptionally()) {
+                // some data failed to apply, keep the checkpoint before it until reconnect
+                return tail;
+            }
+            CompletableFuture<Void> prev = tail == null ? all : CompletableFuture.allOf(tail, all);
+            return prev.thenRun(() -> advance(name, mark.get()));
+        });
+    }
+
+    private void advance(String name, Mark mark) {
+        Mark current = marks.get(name);
+        if (current != null && current.compareTo(mark) >= 0) {
+            return;
+        }
+        edgeDataSyncLogRepository.save(EdgeDataSyncLogDO.builder().tableName(name).lastUpdateTime(FORMATTER.format(mark.time())).lastId(mark.id()).build());
+        marks.put(name, mark);
+        log.debug("edge data sync checkpoint {} advanced to {}", name, mark);
+    }
+
+    /**
+     * remember the row applied if it is of the newest second of the table
+     */
+    private void remember(String name, Object data) {
+        if (!(data instanceof BaseAggregationRoot root) || root.getGmtModified() == null || root.getId() == null) {
+            return;
+        }
+        seconds.compute(name, (k, second) -> {
+            int c = second == null ? 1 : root.getGmtModified().compareTo(second.time());
+            if (c < 0) {
+                return second;
+            }
+            Second next = c > 0 ? new Second(root.getGmtModified(), ConcurrentHashMap.newKeySet()) : second;
+            next.ids().add(root.getId());
+            return next;
+        });
+    }
+
+    /**
+     * ids of the rows applied in one second
+     */
+    private record Second(LocalDateTime time, Set<Long> ids) {
+        boolean contains(Object data) {
+            return data instanceof BaseAggregationRoot root && time.equals(root.getGmtModified()) && ids.contains(root.getId());
+        }
+    }
+
+    private record Mark(LocalDateTime time, long id) implements Comparable<Mark> {
+        @Override
+        public int compareTo(Mark o) {
+            int c = time.compareTo(o.time);
+            return c != 0 ? c : Long.compare(id, o.id);
+        }
+    }
+}
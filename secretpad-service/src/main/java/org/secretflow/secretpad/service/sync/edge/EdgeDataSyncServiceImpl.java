@@ -21,20 +21,23 @@ import org.secretflow.secretpad.common.dto.SyncDataDTO;
 import org.secretflow.secretpad.common.util.JsonUtils;
 import org.secretflow.secretpad.persistence.model.DataSyncConfig;
 import org.secretflow.secretpad.service.sync.JpaSyncDataService;
+import org.secretflow.secretpad.service.sync.SyncDataCodec;
 
 import com.fasterxml.jackson.databind.JavaType;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import okhttp3.HttpUrl;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.util.CollectionUtils;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.util.retry.Retry;
 
@@ -42,10 +45,14 @@ import javax.annotation.PreDestroy;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.secretflow.secretpad.service.sync.center.SseSession.SSE_BATCH_EVENT;
 import static org.secretflow.secretpad.service.sync.center.SseSession.SSE_PING_MSG;
+import static org.secretflow.secretpad.service.sync.center.SseSession.SSE_RESYNC_END_EVENT;
 
 /**
  * @author yutu
@@ -62,6 +69,7 @@ public class EdgeDataSyncServiceImpl implements EdgeDataSyncService {
     private final static String HTTP_PREFIX = "http://";
     public static AtomicInteger sseSate = new AtomicInteger(-1);
     private final JpaSyncDataService jpaSyncDataService;
+    private final EdgeDataSyncCheckpoint edgeDataSyncCheckpoint;
     private final DataSyncConfig dataSyncConfig;
     @Value("${secretpad.gateway}")
     private String kusciaLiteGateway;
@@ -69,44 +77,73 @@ public class EdgeDataSyncServiceImpl implements EdgeDataSyncService {
     private String routeHeader;
     @Value("${secretpad.node-id}")
     private String nodeId;
+    /**
+     * encoding of data frames asked from center, smile or json
+     */
+    @Value("${secretpad.datasync.sse-encoding:smile}")
+    private String encoding;
+    /**
+     * centers of old versions which only serve the get subscription with checkpoints in query
+     */
+    private final Set<String> getOnlyCenters = ConcurrentHashMap.newKeySet();
 
     @SuppressWarnings(value = {"rawtypes"})
     @Override
     public void start() {
+        edgeDataSyncCheckpoint.reset();
         List<SyncDataDTO> params = log();
         if (!kusciaLiteGateway.startsWith(HTTP_PREFIX)) {
             kusciaLiteGateway = HTTP_PREFIX + kusciaLiteGateway;
         }
-        HttpUrl.Builder urlBuilder = Objects.requireNonNull(HttpUrl.parse(kusciaLiteGateway + "/sync")).newBuilder();
-        String s = JsonUtils.toJSONString(params);
-        urlBuilder.addQueryParameter("p", s);
-        String url = urlBuilder.build().toString();
-        useWebClientSse(url);
+        useWebClientSse(kusciaLiteGateway + "/sync", params);
         EdgeDataSyncServiceImpl.sseSate.set(1);
     }
 
-    private void useWebClientSse(String url) {
+    @SuppressWarnings(value = {"rawtypes"})
+    private void useWebClientSse(String url, List<SyncDataDTO> params) {
         WebClient webClient = WebClient.create(url);
-        Flux<ServerSentEvent<String>> eventStream = webClient.get()
-                .header("host", routeHeader)
-                .header("kuscia-origin-source", nodeId)
-                .retrieve()
-                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
-                })
+        String center = routeHeader;
+        Flux<ServerSentEvent<String>> eventStream = (getOnlyCenters.contains(center) ? subscribeGet(webClient, params) :
+                subscribePost(webClient, params).onErrorResume(WebClientResponseException.class, e -> {
+                    if (e.getStatusCode().value() != HttpStatus.METHOD_NOT_ALLOWED.value() && e.getStatusCode().value() != HttpStatus.NOT_FOUND.value()) {
+                        return Flux.error(e);
+                    }
+                    log.warn("center {} answers {} to post sync, subscribe with get from now on", center, e.getStatusCode().value());
+                    getOnlyCenters.add(center);
+                    return subscribeGet(webClient, params);
+                }))
                 .retryWhen(Retry.fixedDelay(3, Duration.ofSeconds(2)));
         eventStream.subscribe(
                 event -> {
-                    log.info("id :{} ,data: {}", event.id(), event.data());
+                    log.debug("id :{} ,data: {}", event.id(), event.data());
                     String id = event.id();
                     String data = event.data();
-                    if (!SSE_PING_MSG.equals(id)) {
-                        log.info("sync data DO - {}  Data - {}", id, data);
+                    if (SSE_RESYNC_END_EVENT.equals(event.event())) {
+                        log.info("sync data resync end - {}", id);
+                        edgeDataSyncCheckpoint.resyncEnd(id);
+                    } else if (!SSE_PING_MSG.equals(id)) {
+                        log.debug("sync data DO - {}  Data - {}", id, data);
                         try {
-                            Class<?> cls = Class.forName(id);
-                            JavaType javaType = JsonUtils.makeJavaType(SyncDataDTO.class, cls);
-                            @SuppressWarnings(value = {"rawtypes"})
-                            SyncDataDTO o = JsonUtils.toJavaObject(data, javaType);
-                            jpaSyncDataService.syncData(o);
+                            String name = event.event();
+                            boolean smile = name != null && name.endsWith(SyncDataCodec.SMILE_EVENT_SUFFIX);
+                            if (smile) {
+                                name = name.substring(0, name.length() - SyncDataCodec.SMILE_EVENT_SUFFIX.length());
+                            }
+                            if (SSE_BATCH_EVENT.equals(name)) {
+                                JavaType listType = SyncDataCodec.syncDataListType(id);
+                                @SuppressWarnings(value = {"rawtypes"})
+                                List<SyncDataDTO> decoded = smile ? SyncDataCodec.decode(data, listType) : JsonUtils.toJavaObject(data, listType);
+                                // the resync starts at the second of the checkpoint, which may have been applied in part
+                                @SuppressWarnings(value = {"rawtypes"})
+                                List<SyncDataDTO> list = edgeDataSyncCheckpoint.dedup(id, decoded);
+                                List<CompletableFuture<Void>> applied = list.stream().map(jpaSyncDataService::syncData).toList();
+                                edgeDataSyncCheckpoint.track(id, list, applied, true);
+                            } else {
+                                JavaType javaType = SyncDataCodec.syncDataType(id);
+                                @SuppressWarnings(value = {"rawtypes"})
+                                SyncDataDTO o = smile ? SyncDataCodec.decode(data, javaType) : JsonUtils.toJavaObject(data, javaType);
+                                edgeDataSyncCheckpoint.track(id, List.of(o), List.of(jpaSyncDataService.syncData(o)), false);
+                            }
                         } catch (Exception e) {
                             log.error("sse onEvent sync error {} ", id, e);
                         }
@@ -123,6 +160,33 @@ public class EdgeDataSyncServiceImpl implements EdgeDataSyncService {
         );
     }
 
+    @SuppressWarnings(value = {"rawtypes"})
+    private Flux<ServerSentEvent<String>> subscribePost(WebClient webClient, List<SyncDataDTO> params) {
+        return webClient.post()
+                .header("host", routeHeader)
+                .header("kuscia-origin-source", nodeId)
+                .header(SyncDataCodec.ENCODING_HEADER, encoding)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(params)
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                });
+    }
+
+    /**
+     * subscription of old centers, the checkpoints are in query and frames carry one row each
+     */
+    @SuppressWarnings(value = {"rawtypes"})
+    private Flux<ServerSentEvent<String>> subscribeGet(WebClient webClient, List<SyncDataDTO> params) {
+        return webClient.get()
+                .uri(builder -> builder.queryParam("p", "{p}").build(JsonUtils.toJSONString(params)))
+                .header("host", routeHeader)
+                .header("kuscia-origin-source", nodeId)
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                });
+    }
+
     @PreDestroy
     @Override
     public void close() {
@@ -135,10 +199,7 @@ public class EdgeDataSyncServiceImpl implements EdgeDataSyncService {
         List<String> sync = dataSyncConfig.getSync();
         List<SyncDataDTO> syncDataDTOList = new ArrayList<>();
         if (!CollectionUtils.isEmpty(sync)) {
-            sync.forEach(t -> {
-                Object s = jpaSyncDataService.logTableLastUpdateTime(t);
-                syncDataDTOList.add(SyncDataDTO.builder().tableName(t).lastUpdateTime(s.toString()).build());
-            });
+            sync.forEach(t -> syncDataDTOList.add(edgeDataSyncCheckpoint.load(t)));
         }
         return syncDataDTOList;
     }
@@ -36,6 +36,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -63,13 +64,36 @@ public class DataSyncConsumerTemplate {
 
     public SyncDataDTO consumer(String nodeId, SyncDataDTO syncDataDTO) {
         checkSourceNodeId(nodeId, syncDataDTO);
+        setP2pUser(nodeId);
+        jpaSyncDataService.syncDataP2p(syncDataDTO);
+        afterConsumer(syncDataDTO);
+        UserContext.remove();
+        return syncDataDTO;
+    }
+
+    /**
+     * consume an ordered batch, the batch is applied in one transaction
+     */
+    @SuppressWarnings(value = {"rawtypes"})
+    public List<SyncDataDTO> consumer(String nodeId, List<SyncDataDTO> syncDataDTOList) {
+        syncDataDTOList.forEach(syncDataDTO -> checkSourceNodeId(nodeId, syncDataDTO));
+        setP2pUser(nodeId);
+        jpaSyncDataService.syncDataP2p(syncDataDTOList);
+        syncDataDTOList.forEach(this::afterConsumer);
+        UserContext.remove();
+        return syncDataDTOList;
+    }
+
+    private void setP2pUser(String nodeId) {
         UserContext.setBaseUser(UserContextDTO.builder()
                 .name(SystemConstants.USER_ADMIN)
                 .ownerId(nodeId)
                 .platformType(PlatformTypeEnum.AUTONOMY)
                 .ownerType(UserOwnerTypeEnum.P2P)
                 .build());
-        jpaSyncDataService.syncDataP2p(syncDataDTO);
+    }
+
+    private void afterConsumer(SyncDataDTO syncDataDTO) {
         Object data = syncDataDTO.getData();
         if (data instanceof BaseAggregationRoot) {
             log.debug("consumer data instanceof BaseAggregationRoot");
@@ -96,8 +120,6 @@ public class DataSyncConsumerTemplate {
                 });
             }
         }
-        UserContext.remove();
-        return syncDataDTO;
     }
 
     private void checkSourceNodeId(String nodeId, SyncDataDTO syncDataDTO) {
@@ -26,6 +26,7 @@ import org.secretflow.secretpad.persistence.repository.NodeRouteRepository;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import org.secretflow.v1alpha1.kusciaapi.DomainRoute;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
@@ -58,11 +59,19 @@ public class AutonomyNodeRouteUtil {
         List<String> nodeIds = nodeDOS.stream().map(NodeDO::getNodeId).collect(Collectors.toList());
         List<NodeRouteDO> dstRouteDOList = nodeRouteRepository.findByDstNodeIdIn(nodeIds);
         if (!CollectionUtils.isEmpty(dstRouteDOList)) {
+            // routes are queried through the channel of their destination, one batch per destination
+            Map<String, Map<DomainRoute.DomainRouteKey, Boolean>> readyByDst = new HashMap<>();
+            dstRouteDOList.stream()
+                    .collect(Collectors.groupingBy(NodeRouteDO::getDstNodeId, Collectors.mapping(
+                            route -> DomainRoute.DomainRouteKey.newBuilder().setSource(route.getSrcNodeId()).setDestination(route.getDstNodeId()).build(),
+                            Collectors.toList())))
+                    .forEach((dstNodeId, routes) -> readyByDst.put(dstNodeId, nodeRouteManager.checkNodeRoutesReady(routes, dstNodeId)));
             for (NodeRouteDO nodeRouteDO : dstRouteDOList) {
                 String dstNodeId = nodeRouteDO.getDstNodeId();
                 String srcNodeId = nodeRouteDO.getSrcNodeId();
-                log.info("AutonomyNodeRouteUtil checkNodeRouteReady: srcNodeId: {}, dstNodeId: {}", srcNodeId, dstNodeId);
-                boolean ready = nodeRouteManager.checkNodeRouteReady(srcNodeId, dstNodeId, dstNodeId);
+                boolean ready = readyByDst.get(dstNodeId).getOrDefault(
+                        DomainRoute.DomainRouteKey.newBuilder().setSource(srcNodeId).setDestination(dstNodeId).build(), false);
+                log.info("AutonomyNodeRouteUtil checkNodeRouteReady: srcNodeId: {}, dstNodeId: {}, ready: {}", srcNodeId, dstNodeId, ready);
                 AutonomySourceNodeRouteInfo autonomySourceNodeRouteInfo = new AutonomySourceNodeRouteInfo();
                 autonomySourceNodeRouteInfo.setSourceNodeId(srcNodeId);
                 autonomySourceNodeRouteInfo.setSourceToDstIsAvailable(ready);
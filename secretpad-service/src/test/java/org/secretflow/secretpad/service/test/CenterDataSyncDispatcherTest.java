@@ -0,0 +1,84 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.persistence.datasync.buffer.DataSyncDataBufferTemplate;
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.datasync.listener.EntityChangeListener;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.persistence.entity.ProjectNodeDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+import org.secretflow.secretpad.persistence.repository.FeatureTableRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectNodeRepository;
+import org.secretflow.secretpad.service.sync.center.CenterDataSyncDispatcher;
+import org.secretflow.secretpad.service.sync.center.SseSession;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * CenterDataSyncDispatcher test
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@SuppressWarnings(value = {"rawtypes", "unchecked"})
+public class CenterDataSyncDispatcherTest {
+
+    private static final String NODE = "dispatcher-test-node";
+
+    @AfterEach
+    public void tearDown() {
+        SseSession.remove(NODE, false);
+    }
+
+    @Test
+    public void testDispatchToProjectNodes() throws Exception {
+        LinkedBlockingQueue<EntityChangeListener.DbChangeEvent> queue = new LinkedBlockingQueue<>();
+        DataSyncDataBufferTemplate buffer = Mockito.mock(DataSyncDataBufferTemplate.class);
+        Mockito.when(buffer.peek(Mockito.any())).thenAnswer(invocation -> queue.take());
+        ProjectNodeRepository projectNodeRepository = Mockito.mock(ProjectNodeRepository.class);
+        Mockito.when(projectNodeRepository.findProjectNodesByProjectId("p1")).thenReturn(List.of(NODE));
+
+        SseEmitter emitter = Mockito.mock(SseEmitter.class);
+        SseSession.add(NODE, emitter, List.of(SyncDataDTO.builder().tableName(ProjectDO.class.getTypeName()).build()));
+
+        CenterDataSyncDispatcher dispatcher = new CenterDataSyncDispatcher(projectNodeRepository, Mockito.mock(FeatureTableRepository.class), buffer, null, 2, 16);
+        dispatcher.start();
+        try {
+            ProjectDO projectDO = ProjectDO.builder().projectId("p1").name("p1").build();
+            queue.put(EntityChangeListener.DbChangeEvent.of(DbChangeAction.UPDATE, projectDO));
+            queue.put(EntityChangeListener.DbChangeEvent.of(DbChangeAction.UPDATE, ProjectDO.builder().projectId("p1").name("p1-2").build()));
+            Mockito.verify(emitter, Mockito.timeout(2000).times(2)).send(Mockito.any(SseEmitter.SseEventBuilder.class));
+            // membership is cached until a project node of the project changes
+            Mockito.verify(projectNodeRepository, Mockito.times(1)).findProjectNodesByProjectId("p1");
+
+            dispatcher.onEntityChanged(new EntityChangedEvent(this, DbChangeAction.CREATE, ProjectNodeDO.builder().upk(new ProjectNodeDO.UPK("p1", NODE)).build()));
+            queue.put(EntityChangeListener.DbChangeEvent.of(DbChangeAction.UPDATE, projectDO));
+            Mockito.verify(emitter, Mockito.timeout(2000).times(3)).send(Mockito.any(SseEmitter.SseEventBuilder.class));
+            Mockito.verify(projectNodeRepository, Mockito.times(2)).findProjectNodesByProjectId("p1");
+        } finally {
+            dispatcher.stop();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.service.graph.ComponentCatalog;
+import org.secretflow.secretpad.service.model.graph.CompListVO;
+import org.secretflow.secretpad.service.model.graph.ComponentKey;
+
+import com.secretflow.spec.v1.CompListDef;
+import com.secretflow.spec.v1.ComponentDef;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ComponentCatalog test
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+public class ComponentCatalogTest {
+
+    private static final List<String> HIDE = List.of("secretflow/data_prep/psi:0.0.1", "secretflow/psi");
+
+    @TempDir
+    Path i18nDir;
+
+    @Test
+    public void testIndex() throws IOException {
+        writeI18n();
+        ComponentCatalog catalog = ComponentCatalog.build(components(), HIDE, i18nDir.toFile());
+
+        Assertions.assertEquals("train", catalog.get(new ComponentKey("secretflow", "ml.train", "train")).getName());
+        Assertions.assertEquals("psi", catalog.get(new ComponentKey("secretflow", "data_prep", "psi")).getName());
+        Assertions.assertNull(catalog.get(new ComponentKey("secretflow", "ml.train", "predict")));
+
+        Map<String, CompListVO> summaries = catalog.getSummaries();
+        Assertions.assertEquals(1, summaries.size());
+        Assertions.assertEquals(1, summaries.get("secretflow").getComps().size());
+        Assertions.assertTrue(catalog.getHidden().containsKey("psi"));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> summaries.remove("secretflow"));
+
+        Map<String, Object> secretflow = catalog.getI18n().get("secretflow");
+        Assertions.assertEquals("train", secretflow.get("train"));
+        Assertions.assertEquals("pad", secretflow.get("pad"));
+        Assertions.assertEquals("scql", secretflow.get("scql"));
+        Assertions.assertFalse(secretflow.containsKey("psi"));
+        Assertions.assertFalse(catalog.getI18n().containsKey("secretpad"));
+    }
+
+    @Test
+    public void testVersion() throws IOException {
+        writeI18n();
+        String version = ComponentCatalog.build(components(), HIDE, i18nDir.toFile()).getVersion();
+        Assertions.assertEquals(version, ComponentCatalog.build(components(), HIDE, i18nDir.toFile()).getVersion());
+        Assertions.assertNotEquals(version, ComponentCatalog.build(components(), List.of(), i18nDir.toFile()).getVersion());
+        Files.writeString(i18nDir.resolve("secretflow.json"), "{\"train\":\"training\"}");
+        Assertions.assertNotEquals(version, ComponentCatalog.build(components(), HIDE, i18nDir.toFile()).getVersion());
+    }
+
+    @Test
+    public void testMissingI18nDir() throws IOException {
+        File notDir = new File(i18nDir.toFile(), "missing");
+        Assertions.assertTrue(ComponentCatalog.build(components(), HIDE, notDir).getI18n().isEmpty());
+    }
+
+    private List<CompListDef> components() {
+        return List.of(
+                CompListDef.newBuilder().setName("secretflow").setVersion("1.0.0")
+                        .addComps(ComponentDef.newBuilder().setDomain("ml.train").setName("train").setVersion("0.0.1"))
+                        .addComps(ComponentDef.newBuilder().setDomain("data_prep").setName("psi").setVersion("0.0.1"))
+                        .build(),
+                CompListDef.newBuilder().setName("secretpad").setVersion("1.0.0")
+                        .addComps(ComponentDef.newBuilder().setDomain("read_data").setName("datatable").setVersion("0.0.1"))
+                        .build());
+    }
+
+    private void writeI18n() throws IOException {
+        Files.writeString(i18nDir.resolve("secretflow.json"), "{\"train\":\"train\",\"psi\":\"psi\"}");
+        Files.writeString(i18nDir.resolve("secretpad.json"), "{\"pad\":\"pad\"}");
+        Files.writeString(i18nDir.resolve("scql.json"), "{\"scql\":\"scql\"}");
+    }
+}
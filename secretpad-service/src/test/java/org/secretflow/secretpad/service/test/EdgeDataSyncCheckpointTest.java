@@ -0,0 +1,78 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.persistence.repository.EdgeDataSyncLogRepository;
+import org.secretflow.secretpad.service.sync.JpaSyncDataService;
+import org.secretflow.secretpad.service.sync.edge.EdgeDataSyncCheckpoint;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * EdgeDataSyncCheckpoint test
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@ExtendWith(MockitoExtension.class)
+public class EdgeDataSyncCheckpointTest {
+
+    private static final LocalDateTime SECOND = LocalDateTime.of(2024, 11, 20, 12, 0, 0);
+
+    @Mock
+    private EdgeDataSyncLogRepository edgeDataSyncLogRepository;
+    @Mock
+    private JpaSyncDataService jpaSyncDataService;
+
+    @SuppressWarnings(value = {"rawtypes"})
+    @Test
+    public void testDedupRowsOfCheckpointSecond() {
+        when(jpaSyncDataService.getRealTableName(anyString())).thenReturn("project");
+        EdgeDataSyncCheckpoint checkpoint = new EdgeDataSyncCheckpoint(edgeDataSyncLogRepository, jpaSyncDataService);
+        List<SyncDataDTO> applied = List.of(row(5L, SECOND.minusSeconds(1)), row(7L, SECOND), row(9L, SECOND));
+        checkpoint.track("ProjectDO", applied, applied.stream().map(r -> CompletableFuture.<Void>completedFuture(null)).toList(), true);
+
+        // the resync reads the second of the checkpoint again, row 3 changed in that second after the checkpoint was taken
+        List<SyncDataDTO> resync = checkpoint.dedup("ProjectDO", List.of(row(3L, SECOND), row(7L, SECOND), row(9L, SECOND),
+                row(9L, SECOND.plusSeconds(1))));
+
+        Assertions.assertEquals(2, resync.size());
+        Assertions.assertEquals(3L, ((ProjectDO) resync.get(0).getData()).getId());
+        Assertions.assertEquals(SECOND.plusSeconds(1), ((ProjectDO) resync.get(1).getData()).getGmtModified());
+    }
+
+    @SuppressWarnings(value = {"rawtypes"})
+    private SyncDataDTO row(Long id, LocalDateTime gmtModified) {
+        ProjectDO projectDO = ProjectDO.builder().projectId("p" + id).build();
+        projectDO.setId(id);
+        projectDO.setGmtModified(gmtModified);
+        return SyncDataDTO.builder().tableName("ProjectDO").action("create").data(projectDO).build();
+    }
+}
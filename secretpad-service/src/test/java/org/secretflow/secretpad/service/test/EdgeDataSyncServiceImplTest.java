@@ -0,0 +1,97 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.persistence.model.DataSyncConfig;
+import org.secretflow.secretpad.service.sync.JpaSyncDataService;
+import org.secretflow.secretpad.service.sync.edge.EdgeDataSyncCheckpoint;
+import org.secretflow.secretpad.service.sync.edge.EdgeDataSyncServiceImpl;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EdgeDataSyncServiceImpl test
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@ExtendWith(MockitoExtension.class)
+public class EdgeDataSyncServiceImplTest {
+
+    @Mock
+    private JpaSyncDataService jpaSyncDataService;
+    @Mock
+    private EdgeDataSyncCheckpoint edgeDataSyncCheckpoint;
+
+    private MockWebServer mockWebServer;
+    private EdgeDataSyncServiceImpl edgeDataSyncService;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+        edgeDataSyncService = new EdgeDataSyncServiceImpl(jpaSyncDataService, edgeDataSyncCheckpoint, new DataSyncConfig());
+        edgeDataSyncService.setKusciaLiteGateway(mockWebServer.url("").toString().replaceAll("/$", ""));
+        edgeDataSyncService.setRouteHeader("secretpad.center.svc");
+        edgeDataSyncService.setNodeId("alice");
+        edgeDataSyncService.setEncoding("json");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void testFallbackToGetForOldCenter() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(405));
+        mockWebServer.enqueue(sse());
+        edgeDataSyncService.start();
+
+        RecordedRequest post = mockWebServer.takeRequest(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(post);
+        Assertions.assertEquals("POST", post.getMethod());
+        RecordedRequest get = mockWebServer.takeRequest(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(get);
+        Assertions.assertEquals("GET", get.getMethod());
+        Assertions.assertEquals("/sync", get.getRequestUrl().encodedPath());
+        Assertions.assertEquals("[]", get.getRequestUrl().queryParameter("p"));
+
+        // the choice is kept for the center, the next subscription goes with get directly
+        mockWebServer.enqueue(sse());
+        edgeDataSyncService.start();
+        RecordedRequest again = mockWebServer.takeRequest(5, TimeUnit.SECONDS);
+        Assertions.assertNotNull(again);
+        Assertions.assertEquals("GET", again.getMethod());
+    }
+
+    private MockResponse sse() {
+        return new MockResponse().setResponseCode(200).setHeader("Content-Type", "text/event-stream").setBody("");
+    }
+}
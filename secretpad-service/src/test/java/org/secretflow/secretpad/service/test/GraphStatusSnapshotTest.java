@@ -0,0 +1,204 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.manager.integration.job.event.JobStatusChangedEvent;
+import org.secretflow.secretpad.persistence.entity.NodeDO;
+import org.secretflow.secretpad.persistence.entity.ProjectGraphDO;
+import org.secretflow.secretpad.persistence.entity.ProjectGraphNodeDO;
+import org.secretflow.secretpad.persistence.entity.ProjectTaskDO;
+import org.secretflow.secretpad.persistence.model.GraphJobStatus;
+import org.secretflow.secretpad.persistence.model.GraphNodeTaskStatus;
+import org.secretflow.secretpad.persistence.projection.ProjectJobStatus;
+import org.secretflow.secretpad.persistence.repository.NodeRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectGraphRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectJobRepository;
+import org.secretflow.secretpad.persistence.repository.ProjectJobTaskRepository;
+import org.secretflow.secretpad.service.graph.GraphStatusSnapshot;
+import org.secretflow.secretpad.service.model.graph.GraphNodeStatusVO;
+import org.secretflow.secretpad.service.model.graph.GraphStatus;
+import org.secretflow.secretpad.service.model.node.NodeSimpleInfo;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * GraphStatusSnapshot test
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@ExtendWith(MockitoExtension.class)
+public class GraphStatusSnapshotTest {
+
+    private static final String PROJECT_ID = "p1";
+    private static final String GRAPH_ID = "g1";
+
+    @Mock
+    private ProjectGraphRepository graphRepository;
+    @Mock
+    private ProjectJobTaskRepository taskRepository;
+    @Mock
+    private ProjectJobRepository jobRepository;
+    @Mock
+    private NodeRepository nodeRepository;
+
+    private GraphStatusSnapshot snapshot;
+
+    @BeforeEach
+    public void setUp() {
+        snapshot = new GraphStatusSnapshot(graphRepository, taskRepository, jobRepository, nodeRepository);
+        ReflectionTestUtils.setField(snapshot, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(snapshot, "streamTimeoutMillis", 1000L);
+        snapshot.init();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        snapshot.destroy();
+    }
+
+    @Test
+    public void testLoadWithOneQuery() {
+        when(taskRepository.findLatestTasksByGraphNodeIds(eq(PROJECT_ID), anyCollection()))
+                .thenReturn(List.of(task("n1", "j1", GraphNodeTaskStatus.RUNNING, List.of("alice", "bob"))));
+        when(nodeRepository.findByNodeIdIn(anyCollection())).thenReturn(List.of(node("alice"), node("bob")));
+        when(jobRepository.findStatusByJobIds(eq(PROJECT_ID), anyList()))
+                .thenReturn(List.of(new ProjectJobStatus(PROJECT_ID, "j1", GraphJobStatus.RUNNING)));
+
+        GraphStatus status = snapshot.load(graph("n1", "n2"));
+
+        Assertions.assertFalse(status.getFinished());
+        Assertions.assertEquals(2, status.getNodes().size());
+        Assertions.assertEquals(GraphNodeTaskStatus.RUNNING, status.getNodes().get(0).getStatus());
+        Assertions.assertEquals(2, status.getNodes().get(0).getParties().size());
+        Assertions.assertEquals(GraphNodeTaskStatus.STAGING, status.getNodes().get(1).getStatus());
+        verify(taskRepository, times(1)).findLatestTasksByGraphNodeIds(eq(PROJECT_ID), anyCollection());
+        verify(nodeRepository, times(1)).findByNodeIdIn(anyCollection());
+    }
+
+    @Test
+    public void testGetFromMemoryUntilJobStatusChanged() {
+        when(taskRepository.findLatestTasksByGraphNodeIds(eq(PROJECT_ID), anyCollection())).thenReturn(List.of());
+
+        ProjectGraphDO graphDO = graph("n1");
+        Assertions.assertTrue(snapshot.get(graphDO).getFinished());
+        snapshot.get(graphDO);
+        verify(taskRepository, times(1)).findLatestTasksByGraphNodeIds(eq(PROJECT_ID), anyCollection());
+
+        // nodes of the graph have changed
+        snapshot.get(graph("n1", "n2"));
+        verify(taskRepository, times(2)).findLatestTasksByGraphNodeIds(eq(PROJECT_ID), anyCollection());
+
+        snapshot.onJobStatusChanged(new JobStatusChangedEvent(this, PROJECT_ID, GRAPH_ID, "j1"));
+        snapshot.get(graphDO);
+        verify(taskRepository, times(3)).findLatestTasksByGraphNodeIds(eq(PROJECT_ID), anyCollection());
+        verify(nodeRepository, never()).findByNodeIdIn(any());
+    }
+
+    @Test
+    public void testSubscribeFailsWithoutGraph() throws Exception {
+        when(graphRepository.findById(any())).thenReturn(Optional.empty());
+
+        SseEmitter emitter = snapshot.subscribe(new ProjectGraphDO.UPK(PROJECT_ID, GRAPH_ID));
+
+        awaitPush();
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> emitter.send("status"));
+        Assertions.assertTrue(e.getMessage().contains("with error"));
+    }
+
+    @Test
+    public void testSubscribeFailsIfLoadFails() throws Exception {
+        when(graphRepository.findById(any())).thenReturn(Optional.of(graph("n1")));
+        when(taskRepository.findLatestTasksByGraphNodeIds(eq(PROJECT_ID), anyCollection())).thenThrow(new IllegalStateException("db"));
+
+        SseEmitter emitter = snapshot.subscribe(new ProjectGraphDO.UPK(PROJECT_ID, GRAPH_ID));
+
+        awaitPush();
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class, () -> emitter.send("status"));
+        Assertions.assertTrue(e.getMessage().contains("with error"));
+    }
+
+    @Test
+    public void testDeltaHasChangedNodesOnly() {
+        GraphStatus previous = new GraphStatus(false, List.of(
+                nodeStatus("n1", GraphNodeTaskStatus.RUNNING), nodeStatus("n2", GraphNodeTaskStatus.RUNNING)));
+        // rebuilt from the db, equal by value only
+        GraphStatus current = new GraphStatus(false, List.of(
+                nodeStatus("n1", GraphNodeTaskStatus.RUNNING), nodeStatus("n2", GraphNodeTaskStatus.SUCCEED)));
+
+        GraphStatus delta = ReflectionTestUtils.invokeMethod(snapshot, "delta", previous, current);
+
+        Assertions.assertNotNull(delta);
+        Assertions.assertEquals(1, delta.getNodes().size());
+        Assertions.assertEquals("n2", delta.getNodes().get(0).getGraphNodeId());
+        Assertions.assertNull(ReflectionTestUtils.invokeMethod(snapshot, "delta", current,
+                new GraphStatus(false, List.of(nodeStatus("n1", GraphNodeTaskStatus.RUNNING), nodeStatus("n2", GraphNodeTaskStatus.SUCCEED)))));
+    }
+
+    private void awaitPush() throws Exception {
+        ExecutorService pushExecutor = (ExecutorService) ReflectionTestUtils.getField(snapshot, "pushExecutor");
+        pushExecutor.submit(() -> {
+        }).get();
+    }
+
+    private ProjectGraphDO graph(String... graphNodeIds) {
+        List<ProjectGraphNodeDO> nodes = new ArrayList<>();
+        for (String graphNodeId : graphNodeIds) {
+            nodes.add(ProjectGraphNodeDO.builder().upk(new ProjectGraphNodeDO.UPK(PROJECT_ID, GRAPH_ID, graphNodeId)).build());
+        }
+        return ProjectGraphDO.builder().upk(new ProjectGraphDO.UPK(PROJECT_ID, GRAPH_ID)).nodes(nodes).build();
+    }
+
+    private ProjectTaskDO task(String graphNodeId, String jobId, GraphNodeTaskStatus status, List<String> parties) {
+        return ProjectTaskDO.builder().upk(new ProjectTaskDO.UPK(PROJECT_ID, jobId, jobId + "-" + graphNodeId))
+                .graphNodeId(graphNodeId).status(status).parties(parties).build();
+    }
+
+    private GraphNodeStatusVO nodeStatus(String graphNodeId, GraphNodeTaskStatus status) {
+        GraphNodeStatusVO node = new GraphNodeStatusVO();
+        node.setGraphNodeId(graphNodeId);
+        node.setJobId("j1");
+        node.setStatus(status);
+        node.setParties(List.of(NodeSimpleInfo.builder().nodeId("alice").nodeName("alice").build(),
+                NodeSimpleInfo.builder().nodeId("bob").nodeName("bob").build()));
+        return node;
+    }
+
+    private NodeDO node(String nodeId) {
+        return NodeDO.builder().nodeId(nodeId).name(nodeId).build();
+    }
+}
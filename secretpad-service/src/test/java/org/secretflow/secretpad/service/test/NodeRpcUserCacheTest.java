@@ -0,0 +1,79 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.common.enums.PermissionUserTypeEnum;
+import org.secretflow.secretpad.common.enums.ResourceTypeEnum;
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.entity.ProjectNodeDO;
+import org.secretflow.secretpad.persistence.entity.SysRoleResourceRelDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+import org.secretflow.secretpad.persistence.repository.ProjectNodeRepository;
+import org.secretflow.secretpad.service.SysResourcesBizService;
+import org.secretflow.secretpad.service.auth.NodeRpcUserCache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * NodeRpcUserCache test
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+public class NodeRpcUserCacheTest {
+
+    private ProjectNodeRepository projectNodeRepository;
+    private SysResourcesBizService sysResourcesBizService;
+    private NodeRpcUserCache nodeRpcUserCache;
+
+    @BeforeEach
+    public void setUp() {
+        projectNodeRepository = Mockito.mock(ProjectNodeRepository.class);
+        sysResourcesBizService = Mockito.mock(SysResourcesBizService.class);
+        nodeRpcUserCache = new NodeRpcUserCache(projectNodeRepository, sysResourcesBizService);
+        ReflectionTestUtils.setField(nodeRpcUserCache, "ttlSeconds", 300L);
+        Mockito.when(projectNodeRepository.findByNodeId("alice")).thenReturn(List.of(ProjectNodeDO.builder().upk(new ProjectNodeDO.UPK("p1", "alice")).build()));
+        Mockito.when(sysResourcesBizService.queryResourceCodeByUsername(PermissionUserTypeEnum.NODE, ResourceTypeEnum.API, "alice")).thenReturn(Set.of("API_A"));
+    }
+
+    @Test
+    public void testCached() {
+        NodeRpcUserCache.NodeRpcUser user = nodeRpcUserCache.get("alice");
+        Assertions.assertEquals(Set.of("p1"), user.projectIds());
+        Assertions.assertEquals(Set.of("API_A"), user.apiResources());
+        nodeRpcUserCache.get("alice");
+        Mockito.verify(projectNodeRepository, Mockito.times(1)).findByNodeId("alice");
+    }
+
+    @Test
+    public void testEvictedOnChange() {
+        nodeRpcUserCache.get("alice");
+        ProjectNodeDO projectNodeDO = ProjectNodeDO.builder().upk(new ProjectNodeDO.UPK("p2", "alice")).build();
+        nodeRpcUserCache.onEntityChanged(new EntityChangedEvent(this, DbChangeAction.CREATE, projectNodeDO));
+        nodeRpcUserCache.get("alice");
+        nodeRpcUserCache.onEntityChanged(new EntityChangedEvent(this, DbChangeAction.REMOVE, new SysRoleResourceRelDO()));
+        nodeRpcUserCache.get("alice");
+        Mockito.verify(projectNodeRepository, Mockito.times(3)).findByNodeId("alice");
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.service.sync.center.SseSession;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Overflow of the sse send queue closes the session instead of dropping queued frames, a resync backlog doesn't
+ * overflow it
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+public class SseSessionOverflowTest {
+
+    private static final String NODE = "overflow-test-node";
+
+    @AfterEach
+    public void tearDown() {
+        SseSession.remove(NODE, false);
+        SseSession.configure(10000, 4, "coalesce", null);
+    }
+
+    @Test
+    public void testOverflowClosesSession() throws Exception {
+        SseSession.configure(2, 4, "coalesce", null);
+        CountDownLatch release = new CountDownLatch(1);
+        SseEmitter emitter = Mockito.mock(SseEmitter.class);
+        Mockito.doAnswer(invocation -> release.await(5, TimeUnit.SECONDS)).when(emitter).send(Mockito.any(SseEmitter.SseEventBuilder.class));
+        SseSession.add(NODE, emitter, List.of());
+        try {
+            // the first frame is taken by the writer and blocks in send, the next two fill the queue
+            SseSession.send(NODE, build("l1"), null);
+            Mockito.verify(emitter, Mockito.timeout(2000)).send(Mockito.any(SseEmitter.SseEventBuilder.class));
+            SseSession.send(NODE, build("l2"), null);
+            SseSession.send(NODE, build("l3"), null);
+            SseSession.send(NODE, build("l4"), null);
+
+            Mockito.verify(emitter, Mockito.timeout(2000)).completeWithError(Mockito.any(IOException.class));
+            Assertions.assertFalse(SseSession.exists(NODE));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    public void testResyncDoesNotOverflowLiveQueue() throws Exception {
+        SseSession.configure(10, 2, "coalesce", null);
+        AtomicInteger sent = new AtomicInteger();
+        SseEmitter emitter = Mockito.mock(SseEmitter.class);
+        Mockito.doAnswer(invocation -> {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(50));
+            sent.incrementAndGet();
+            return null;
+        }).when(emitter).send(Mockito.any(SseEmitter.SseEventBuilder.class));
+        SseSession.add(NODE, emitter, List.of());
+
+        int resyncFrames = 2000;
+        int liveFrames = 200;
+        AtomicReference<Exception> resyncError = new AtomicReference<>();
+        Thread resync = new Thread(() -> {
+            try {
+                for (int i = 0; i < resyncFrames; i++) {
+                    SseSession.sendBatch(NODE, "table", List.of(build("r" + i)));
+                }
+            } catch (Exception e) {
+                resyncError.set(e);
+            }
+        });
+        resync.start();
+        for (int i = 0; i < liveFrames; i++) {
+            SseSession.send(NODE, build("l" + i), null);
+            Thread.sleep(1);
+        }
+        resync.join(30000);
+
+        Assertions.assertNull(resyncError.get());
+        Assertions.assertFalse(resync.isAlive());
+        Mockito.verify(emitter, Mockito.timeout(5000).times(resyncFrames + liveFrames)).send(Mockito.any(SseEmitter.SseEventBuilder.class));
+        Mockito.verify(emitter, Mockito.never()).completeWithError(Mockito.any());
+        Assertions.assertTrue(SseSession.exists(NODE));
+        Assertions.assertEquals(resyncFrames + liveFrames, sent.get());
+    }
+
+    private SyncDataDTO<String> build(String data) {
+        return SyncDataDTO.<String>builder().tableName("table").action("update").data(data).build();
+    }
+}
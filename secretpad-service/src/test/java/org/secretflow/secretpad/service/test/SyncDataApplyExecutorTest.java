@@ -0,0 +1,143 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.common.dto.UserContextDTO;
+import org.secretflow.secretpad.common.util.UserContext;
+import org.secretflow.secretpad.service.sync.SyncDataApplyExecutor;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceUnitUtil;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * SyncDataApplyExecutor test
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+@SuppressWarnings(value = {"rawtypes"})
+public class SyncDataApplyExecutorTest {
+
+    private PlatformTransactionManager transactionManager;
+    private SyncDataApplyExecutor executor;
+
+    @BeforeEach
+    public void setUp() {
+        transactionManager = mock(PlatformTransactionManager.class);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        EntityManagerFactory entityManagerFactory = mock(EntityManagerFactory.class);
+        PersistenceUnitUtil persistenceUnitUtil = mock(PersistenceUnitUtil.class);
+        when(entityManagerFactory.getPersistenceUnitUtil()).thenReturn(persistenceUnitUtil);
+        when(persistenceUnitUtil.getIdentifier(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        executor = new SyncDataApplyExecutor(transactionManager, entityManagerFactory);
+        ReflectionTestUtils.setField(executor, "partitions", 4);
+        ReflectionTestUtils.setField(executor, "batchSize", 64);
+        ReflectionTestUtils.setField(executor, "queueCapacity", 100);
+        executor.init();
+    }
+
+    @Test
+    public void testBatchInOneTransaction() {
+        List<String> applied = Collections.synchronizedList(new ArrayList<>());
+        List<SyncDataDTO> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(build("id-" + i));
+        }
+        executor.submit(batch, dto -> applied.add((String) dto.getData())).join();
+        Assertions.assertEquals(batch.stream().map(SyncDataDTO::getData).toList(), applied);
+        verify(transactionManager, times(1)).getTransaction(any());
+        verify(transactionManager, times(1)).commit(any(TransactionStatus.class));
+        executor.destroy();
+    }
+
+    @Test
+    public void testBatchRolledBackAsWhole() {
+        CompletableFuture<Void> future = executor.submit(List.of(build("a"), build("b")), dto -> {
+            if ("b".equals(dto.getData())) {
+                throw new IllegalArgumentException("b");
+            }
+        });
+        Assertions.assertThrows(CompletionException.class, future::join);
+        verify(transactionManager, never()).commit(any(TransactionStatus.class));
+        verify(transactionManager, times(1)).rollback(any(TransactionStatus.class));
+        executor.destroy();
+    }
+
+    @Test
+    public void testApplyWithCallerUserContext() {
+        UserContextDTO caller = UserContextDTO.builder().name("admin").ownerId("alice").build();
+        List<UserContextDTO> users = Collections.synchronizedList(new ArrayList<>());
+        UserContext.setBaseUser(caller);
+        try {
+            executor.submit(build("a"), dto -> users.add(UserContext.getUserOrNotExist())).join();
+        } finally {
+            UserContext.remove();
+        }
+        executor.submit(build("b"), dto -> users.add(UserContext.getUserOrNotExist())).join();
+        Assertions.assertSame(caller, users.get(0));
+        Assertions.assertNull(users.get(1).getOwnerId());
+        Assertions.assertEquals("admin", users.get(1).getName());
+        executor.destroy();
+    }
+
+    @Test
+    public void testDestroyCompletesPending() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        SyncDataDTO dto = build("same");
+        executor.submit(dto, d -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Assertions.assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> pending = executor.submit(dto, d -> {
+        });
+        executor.destroy();
+        release.countDown();
+        CompletionException e = Assertions.assertThrows(CompletionException.class, pending::join);
+        Assertions.assertInstanceOf(IllegalStateException.class, e.getCause());
+        Assertions.assertTrue(executor.submit(dto, d -> {
+        }).isCompletedExceptionally());
+    }
+
+    private SyncDataDTO build(String id) {
+        return SyncDataDTO.builder().tableName("table").action("update").data(id).build();
+    }
+}
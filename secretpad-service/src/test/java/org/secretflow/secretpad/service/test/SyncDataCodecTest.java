@@ -0,0 +1,68 @@
+/*
+ * Copyright 2024 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.common.dto.SyncDataDTO;
+import org.secretflow.secretpad.common.util.JsonUtils;
+import org.secretflow.secretpad.persistence.entity.ProjectDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+import org.secretflow.secretpad.service.sync.SyncDataCodec;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SyncDataCodec test
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+public class SyncDataCodecTest {
+
+    private static final String TABLE = ProjectDO.class.getTypeName();
+
+    @Test
+    public void testSingle() {
+        SyncDataDTO<ProjectDO> dto = build("p1");
+        SyncDataDTO<ProjectDO> decoded = SyncDataCodec.decode(SyncDataCodec.encode(dto), SyncDataCodec.syncDataType(TABLE));
+        Assertions.assertEquals(DbChangeAction.UPDATE.val, decoded.getAction());
+        Assertions.assertEquals("p1", decoded.getData().getProjectId());
+        Assertions.assertEquals(dto.getData().getGmtModified(), decoded.getData().getGmtModified());
+    }
+
+    @Test
+    public void testBatchCompressed() {
+        List<SyncDataDTO<ProjectDO>> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add(build("p" + i));
+        }
+        String encoded = SyncDataCodec.encode(list);
+        Assertions.assertTrue(encoded.length() < JsonUtils.toJSONString(list).length());
+        List<SyncDataDTO<ProjectDO>> decoded = SyncDataCodec.decode(encoded, SyncDataCodec.syncDataListType(TABLE));
+        Assertions.assertEquals(100, decoded.size());
+        Assertions.assertEquals("p99", decoded.get(99).getData().getProjectId());
+    }
+
+    private SyncDataDTO<ProjectDO> build(String projectId) {
+        ProjectDO projectDO = ProjectDO.builder().projectId(projectId).name("name").description("description").build();
+        projectDO.setId(1L);
+        return SyncDataDTO.<ProjectDO>builder().tableName(TABLE).action(DbChangeAction.UPDATE.val).data(projectDO).build();
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2023 Ant Group Co., Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.secretflow.secretpad.service.test;
+
+import org.secretflow.secretpad.persistence.datasync.event.EntityChangedEvent;
+import org.secretflow.secretpad.persistence.entity.TokensDO;
+import org.secretflow.secretpad.persistence.model.DbChangeAction;
+import org.secretflow.secretpad.persistence.repository.UserTokensRepository;
+import org.secretflow.secretpad.service.auth.UserTokenCache;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * UserTokenCache test
+ *
+ * @author yutu
+ * @date 2024/11/20
+ */
+public class UserTokenCacheTest {
+
+    private UserTokensRepository userTokensRepository;
+    private UserTokenCache userTokenCache;
+    private TokensDO tokensDO;
+
+    @BeforeEach
+    public void setUp() {
+        userTokensRepository = Mockito.mock(UserTokensRepository.class);
+        userTokenCache = new UserTokenCache(userTokensRepository);
+        ReflectionTestUtils.setField(userTokenCache, "ttlSeconds", 60L);
+        ReflectionTestUtils.setField(userTokenCache, "refreshIntervalSeconds", 60L);
+        tokensDO = TokensDO.builder().token("t").name("admin").gmtToken(LocalDateTime.now().minusMinutes(5)).sessionData("{}").build();
+        Mockito.when(userTokensRepository.findByToken("t")).thenReturn(Optional.of(tokensDO));
+    }
+
+    @Test
+    public void testCachedAndWrittenBehind() {
+        Assertions.assertTrue(userTokenCache.findByToken("t").isPresent());
+        LocalDateTime now = LocalDateTime.now();
+        userTokenCache.touch("t", now);
+        Assertions.assertEquals(now, userTokenCache.findByToken("t").get().getGmtToken());
+        Mockito.verify(userTokensRepository, Mockito.times(1)).findByToken("t");
+
+        userTokenCache.flush();
+        Mockito.verify(userTokensRepository).refreshGmtToken("t", now);
+        userTokenCache.flush();
+        Mockito.verify(userTokensRepository, Mockito.times(1)).refreshGmtToken(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void testEvictedOnChange() {
+        userTokenCache.findByToken("t");
+        userTokenCache.onEntityChanged(new EntityChangedEvent(this, DbChangeAction.REMOVE, tokensDO));
+        Mockito.when(userTokensRepository.findByToken("t")).thenReturn(Optional.empty());
+        Assertions.assertTrue(userTokenCache.findByToken("t").isEmpty());
+    }
+
+    @Test
+    public void testSessionDataMissingNotCached() {
+        tokensDO.setSessionData(null);
+        userTokenCache.findByToken("t");
+        userTokenCache.findByToken("t");
+        Mockito.verify(userTokensRepository, Mockito.times(2)).findByToken("t");
+    }
+}
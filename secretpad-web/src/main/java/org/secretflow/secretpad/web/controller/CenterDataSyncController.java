@@ -19,13 +19,17 @@ package org.secretflow.secretpad.web.controller;
 import org.secretflow.secretpad.common.dto.SyncDataDTO;
 import org.secretflow.secretpad.common.util.JsonUtils;
 import org.secretflow.secretpad.service.sync.JpaSyncDataService;
+import org.secretflow.secretpad.service.sync.SyncDataCodec;
 import org.secretflow.secretpad.service.sync.center.SseServer;
+import org.secretflow.secretpad.service.sync.center.SseSession;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -48,12 +52,28 @@ public class CenterDataSyncController {
     private final JpaSyncDataService jpaSyncDataService;
 
     @GetMapping(value = "/sync", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter sync(@RequestHeader("kuscia-origin-source") String nodeId, @RequestParam String p) throws UnsupportedEncodingException {
+    public SseEmitter sync(@RequestHeader("kuscia-origin-source") String nodeId, @RequestParam String p,
+                           @RequestParam(required = false, defaultValue = "false") boolean batch) throws UnsupportedEncodingException {
         p = URLDecoder.decode(p, StandardCharsets.UTF_8);
         @SuppressWarnings(value = {"rawtypes"})
         List<SyncDataDTO> syncDataDTOList = JsonUtils.toJavaList(p, SyncDataDTO.class);
         SseEmitter sseEmitter = sseServer.open(nodeId, syncDataDTOList);
-        jpaSyncDataService.syncByLastUpdateTime(nodeId);
+        SseSession.negotiate(nodeId, null);
+        jpaSyncDataService.syncByLastUpdateTime(nodeId, batch);
+        log.debug("CenterDataSyncController sync sseEmitter {}", sseEmitter);
+        return sseEmitter;
+    }
+
+    /**
+     * open sync with the per table checkpoints of the edge in request body
+     */
+    @PostMapping(value = "/sync", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter sync(@RequestHeader("kuscia-origin-source") String nodeId,
+                           @RequestHeader(value = SyncDataCodec.ENCODING_HEADER, required = false) String encoding,
+                           @RequestBody @SuppressWarnings(value = {"rawtypes"}) List<SyncDataDTO> syncDataDTOList) {
+        SseEmitter sseEmitter = sseServer.open(nodeId, syncDataDTOList);
+        SseSession.negotiate(nodeId, encoding);
+        jpaSyncDataService.syncByLastUpdateTime(nodeId, true);
         log.debug("CenterDataSyncController sync sseEmitter {}", sseEmitter);
         return sseEmitter;
     }
@@ -21,20 +21,29 @@ import org.secretflow.secretpad.common.annotation.resource.DataResource;
 import org.secretflow.secretpad.common.constant.resource.ApiResourceCodeConstants;
 import org.secretflow.secretpad.common.enums.DataResourceTypeEnum;
 import org.secretflow.secretpad.common.util.ProtoUtils;
+import org.secretflow.secretpad.common.util.Sha256Utils;
 import org.secretflow.secretpad.service.GraphService;
 import org.secretflow.secretpad.service.model.common.SecretPadResponse;
 import org.secretflow.secretpad.service.model.graph.*;
 
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * Graph controller
@@ -52,24 +61,30 @@ public class GraphController {
     /**
      * List component international config api
      *
-     * @return successful SecretPadResponse with component international config
+     * @return successful SecretPadResponse with component international config, no body if the etag is not modified
      */
     @PostMapping("/component/i18n")
     @Operation(summary = "component international config")
     @ApiResource(code = ApiResourceCodeConstants.GRAPH_COMM_I18N)
-    public SecretPadResponse<Object> listComponentI18n() {
+    public SecretPadResponse<Object> listComponentI18n(HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        if (catalogNotModified(httpRequest, httpResponse, "i18n", "")) {
+            return null;
+        }
         return SecretPadResponse.success(graphService.listComponentI18n());
     }
 
     /**
      * List component api
      *
-     * @return successful SecretPadResponse with component list view object
+     * @return successful SecretPadResponse with component list view object, no body if the etag is not modified
      */
     @PostMapping("/component/list")
     @Operation(summary = "component list")
     @ApiResource(code = ApiResourceCodeConstants.GRAPH_COMM_LIST)
-    public SecretPadResponse<Map<String, CompListVO>> listComponents() {
+    public SecretPadResponse<Map<String, CompListVO>> listComponents(HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        if (catalogNotModified(httpRequest, httpResponse, "list", "")) {
+            return null;
+        }
         return SecretPadResponse.success(graphService.listComponents());
     }
 
@@ -77,12 +92,17 @@ public class GraphController {
      * Batch query component detail list api
      *
      * @param request get component request list
-     * @return successful SecretPadResponse with component detail list
+     * @return successful SecretPadResponse with component detail list, no body if the etag is not modified
      */
     @Operation(summary = "component detail list")
     @PostMapping("/component/batch")
     @ApiResource(code = ApiResourceCodeConstants.GRAPH_COMM_BATH)
-    public SecretPadResponse<Object> batchGetComponent(@Valid @RequestBody List<GetComponentRequest> request) {
+    public SecretPadResponse<Object> batchGetComponent(@Valid @RequestBody List<GetComponentRequest> request,
+                                                       HttpServletRequest httpRequest, HttpServletResponse httpResponse) {
+        String keys = request.stream().map(r -> r.getApp() + "/" + r.getDomain() + "/" + r.getName()).collect(Collectors.joining(","));
+        if (catalogNotModified(httpRequest, httpResponse, "batch", "-" + Sha256Utils.hash(keys).substring(0, 16))) {
+            return null;
+        }
         return SecretPadResponse.success(ProtoUtils.protosToListMap(graphService.batchGetComponent(request)));
     }
 
@@ -202,6 +222,20 @@ public class GraphController {
         return SecretPadResponse.success(graphService.listGraphNodeStatus(request));
     }
 
+    /**
+     * Stream graph node status api, the first status event carries every graph node and later ones the changed graph nodes
+     *
+     * @param request list graph node status request
+     * @return sse emitter of graph status
+     */
+    @Operation(summary = "graph node status stream")
+    @PostMapping(value = "/graph/node/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @DataResource(field = "projectId", resourceType = DataResourceTypeEnum.PROJECT_ID)
+    @ApiResource(code = ApiResourceCodeConstants.GRAPH_NODE_STATUS)
+    public SseEmitter streamGraphNodeStatus(@Valid @RequestBody ListGraphNodeStatusRequest request) {
+        return graphService.streamGraphNodeStatus(request);
+    }
+
     /**
      * Stop graph node api
      *
@@ -273,4 +307,34 @@ public class GraphController {
         GraphNodeMaxIndexRefreshVO vo = graphService.refreshNodeMaxIndex(request);
         return SecretPadResponse.success(vo);
     }
+
+    /**
+     * Component responses only change with the component catalog and the request, so the etag is the resource and
+     * the catalog version followed by a digest of the request. The check is done here as these apis are posted, for
+     * which spring answers a matching If-None-Match with 412 instead of 304.
+     *
+     * @param resource      name of the api, keeps the etags of different responses apart
+     * @param requestDigest digest of the request body, empty for apis without input
+     * @return true if the client already has the current response and the response is set to 304
+     */
+    private boolean catalogNotModified(HttpServletRequest httpRequest, HttpServletResponse httpResponse, String resource, String requestDigest) {
+        String eTag = "\"" + resource + "-" + graphService.getComponentCatalogVersion() + requestDigest + "\"";
+        httpResponse.setHeader(HttpHeaders.ETAG, eTag);
+        httpResponse.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        String ifNoneMatch = httpRequest.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals(eTag) || "*".equals(tag)) {
+                httpResponse.setStatus(HttpStatus.NOT_MODIFIED.value());
+                return true;
+            }
+        }
+        return false;
+    }
 }
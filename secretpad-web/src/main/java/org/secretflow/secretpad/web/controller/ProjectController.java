@@ -81,6 +81,20 @@ public class ProjectController {
         return SecretPadResponse.success(projectService.listProject());
     }
 
+    /**
+     * Paging list project api
+     *
+     * @param request list project request
+     * @return successful SecretPadResponse with paging project view object
+     */
+    @ResponseBody
+    @PostMapping(value = "/page", consumes = "application/json")
+    @Operation(summary = "paging list project", description = "paging list project")
+    @ApiResource(code = ApiResourceCodeConstants.PRJ_LIST)
+    public SecretPadResponse<PageResponse<ProjectVO>> pageProject(@Valid @RequestBody ListProjectRequest request) {
+        return SecretPadResponse.success(projectService.pageProject(request));
+    }
+
     /**
      * Query project detail api
      *
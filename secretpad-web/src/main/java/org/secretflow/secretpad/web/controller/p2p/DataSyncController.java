@@ -22,10 +22,14 @@ import org.secretflow.secretpad.common.util.JsonUtils;
 import org.secretflow.secretpad.service.sync.p2p.DataSyncConsumerTemplate;
 
 import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * @author yutu
  * @date 2023/12/10
@@ -47,4 +51,25 @@ public class DataSyncController {
         syncDataDTO = JsonUtils.toJavaObject(p, javaType);
         return SecretPadResponse.success(consumerTemplate.consumer(nodeId, syncDataDTO));
     }
+
+    /**
+     * apply an ordered batch of sync data in one transaction
+     *
+     * @param nodeId source node id
+     * @param p      json array of SyncDataDTO
+     * @return number of applied sync data
+     */
+    @PostMapping("sync/batch")
+    @SuppressWarnings(value = {"rawtypes"})
+    public SecretPadResponse<Integer> syncBatch(@RequestHeader("kuscia-origin-source") String nodeId, @RequestBody String p) throws ClassNotFoundException {
+        JsonNode jsonNodes = JsonUtils.parseObject(p);
+        List<SyncDataDTO> syncDataDTOList = new ArrayList<>(jsonNodes.size());
+        for (JsonNode jsonNode : jsonNodes) {
+            Class<?> cls = Class.forName(jsonNode.get("tableName").asText());
+            JavaType javaType = JsonUtils.makeJavaType(SyncDataDTO.class, cls);
+            syncDataDTOList.add(JsonUtils.toJavaObject(jsonNode, javaType));
+        }
+        consumerTemplate.consumer(nodeId, syncDataDTOList);
+        return SecretPadResponse.success(syncDataDTOList.size());
+    }
 }
\ No newline at end of file
@@ -17,19 +17,15 @@
 package org.secretflow.secretpad.web.interceptor;
 
 import org.secretflow.secretpad.common.dto.UserContextDTO;
-import org.secretflow.secretpad.common.enums.PermissionUserTypeEnum;
 import org.secretflow.secretpad.common.enums.PlatformTypeEnum;
-import org.secretflow.secretpad.common.enums.ResourceTypeEnum;
 import org.secretflow.secretpad.common.enums.UserOwnerTypeEnum;
 import org.secretflow.secretpad.common.errorcode.AuthErrorCode;
 import org.secretflow.secretpad.common.exception.SecretpadException;
 import org.secretflow.secretpad.common.util.UserContext;
-import org.secretflow.secretpad.persistence.entity.ProjectNodeDO;
 import org.secretflow.secretpad.persistence.entity.TokensDO;
-import org.secretflow.secretpad.persistence.repository.ProjectNodeRepository;
-import org.secretflow.secretpad.persistence.repository.UserTokensRepository;
 import org.secretflow.secretpad.service.EnvService;
-import org.secretflow.secretpad.service.SysResourcesBizService;
+import org.secretflow.secretpad.service.auth.NodeRpcUserCache;
+import org.secretflow.secretpad.service.auth.UserTokenCache;
 import org.secretflow.secretpad.web.util.AuthUtils;
 
 import jakarta.annotation.Resource;
@@ -48,10 +44,7 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
-import java.util.List;
 import java.util.Optional;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Login interceptor
@@ -69,13 +62,11 @@ public class LoginInterceptor implements HandlerInterceptor {
      */
     private static final long EXPIRE = 60 * 60 * 24;
 
-    private final UserTokensRepository userTokensRepository;
+    private final UserTokenCache userTokenCache;
 
-    private final ProjectNodeRepository projectNodeRepository;
+    private final NodeRpcUserCache nodeRpcUserCache;
     private final EnvService envService;
 
-    private final SysResourcesBizService sysResourcesBizService;
-
     @Value("${secretpad.auth.enabled:true}")
     private boolean enable;
 
@@ -89,12 +80,10 @@ public class LoginInterceptor implements HandlerInterceptor {
     private InnerPortPathConfig innerPortPathConfig;
 
     @Autowired
-    public LoginInterceptor(UserTokensRepository userTokensRepository, EnvService envService,
-                            SysResourcesBizService sysResourcesBizService, ProjectNodeRepository projectNodeRepository) {
-        this.userTokensRepository = userTokensRepository;
+    public LoginInterceptor(UserTokenCache userTokenCache, EnvService envService, NodeRpcUserCache nodeRpcUserCache) {
+        this.userTokenCache = userTokenCache;
         this.envService = envService;
-        this.sysResourcesBizService = sysResourcesBizService;
-        this.projectNodeRepository = projectNodeRepository;
+        this.nodeRpcUserCache = nodeRpcUserCache;
     }
 
     private UserContextDTO createTmpUserForPlatformType(PlatformTypeEnum platformType) {
@@ -167,17 +156,10 @@ public class LoginInterceptor implements HandlerInterceptor {
         virtualUser.setPlatformNodeId(envService.getPlatformNodeId());
         virtualUser.setDeployMode(deployMode);
 
-
-        // TODO cache
-
-        // fill project id
-        List<ProjectNodeDO> byNodeId = projectNodeRepository.findByNodeId(sourceNodeId);
-        Set<String> projectIds = byNodeId.stream().map(t -> t.getUpk().getProjectId()).collect(Collectors.toSet());
-        virtualUser.setProjectIds(projectIds);
-
-        // fill interface resource
-        Set<String> resourceCodeSet = sysResourcesBizService.queryResourceCodeByUsername(PermissionUserTypeEnum.NODE, ResourceTypeEnum.API, sourceNodeId);
-        virtualUser.setApiResources(resourceCodeSet);
+        // fill project id and interface resource
+        NodeRpcUserCache.NodeRpcUser nodeRpcUser = nodeRpcUserCache.get(sourceNodeId);
+        virtualUser.setProjectIds(nodeRpcUser.projectIds());
+        virtualUser.setApiResources(nodeRpcUser.apiResources());
 
         UserContext.setBaseUser(virtualUser);
     }
@@ -185,7 +167,7 @@ public class LoginInterceptor implements HandlerInterceptor {
     private void processByUserRequest(HttpServletRequest request, HttpServletResponse response) {
         refuseByOutPortInvokeInnerPort(request, response);
         String token = AuthUtils.findTokenInHeader(request);
-        Optional<TokensDO> tokensDO = userTokensRepository.findByToken(token);
+        Optional<TokensDO> tokensDO = userTokenCache.findByToken(token);
         if (tokensDO.isEmpty()) {
             throw SecretpadException.of(AuthErrorCode.AUTH_FAILED, "login is required");
         }
@@ -195,14 +177,8 @@ public class LoginInterceptor implements HandlerInterceptor {
         if (until > EXPIRE) {
             throw SecretpadException.of(AuthErrorCode.AUTH_FAILED, "login is expire, please login again.");
         }
-        userTokensRepository.saveAndFlush(
-                TokensDO.builder()
-                        .name(tokensDO.get().getName())
-                        .token(tokensDO.get().getToken())
-                        .gmtToken(LocalDateTime.now())
-                        .sessionData(tokensDO.get().getSessionData())
-                        .build()
-        );
+        // gmtToken is written behind by the cache
+        userTokenCache.touch(token, now);
 
         String sessionData = tokensDO.get().getSessionData();
         if (StringUtils.isBlank(sessionData)) {
@@ -37,6 +37,9 @@ import org.secretflow.secretpad.web.utils.FakerUtils;
 
 import com.google.common.collect.Lists;
 import jakarta.annotation.Resource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -44,7 +47,10 @@ import org.secretflow.v1alpha1.common.Common;
 import org.secretflow.v1alpha1.kusciaapi.DomainOuterClass;
 import org.secretflow.v1alpha1.kusciaapi.Domaindatasource;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import org.springframework.test.web.servlet.result.MockMvcResultMatchers;
 
 import java.util.List;
 import java.util.Optional;
@@ -113,7 +119,7 @@ class GraphControllerTest extends ControllerTest {
     void listComponentI18n() throws Exception {
         assertResponse(() -> {
             doNothing().when(dataProxyService).updateDataSourceUseDataProxyInMaster();
-            return MockMvcRequestBuilders.post(getMappingUrl(GraphController.class, "listComponentI18n"));
+            return MockMvcRequestBuilders.post(getMappingUrl(GraphController.class, "listComponentI18n", HttpServletRequest.class, HttpServletResponse.class));
         });
     }
 
@@ -121,10 +127,55 @@ class GraphControllerTest extends ControllerTest {
     void listComponents() throws Exception {
         assertResponse(() -> {
             doNothing().when(dataProxyService).updateDataSourceUseDataProxyInMaster();
-            return MockMvcRequestBuilders.post(getMappingUrl(GraphController.class, "listComponents"));
+            return MockMvcRequestBuilders.post(getMappingUrl(GraphController.class, "listComponents", HttpServletRequest.class, HttpServletResponse.class));
         });
     }
 
+    @Test
+    void listComponentsNotModified() throws Exception {
+        doNothing().when(dataProxyService).updateDataSourceUseDataProxyInMaster();
+        String url = getMappingUrl(GraphController.class, "listComponents", HttpServletRequest.class, HttpServletResponse.class);
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.post(url).contentType(MediaType.APPLICATION_JSON))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andExpect(MockMvcResultMatchers.header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(MockMvcRequestBuilders.post(url).contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified())
+                .andExpect(MockMvcResultMatchers.content().string(""));
+    }
+
+    @Test
+    void listComponentI18nETagOfResource() throws Exception {
+        doNothing().when(dataProxyService).updateDataSourceUseDataProxyInMaster();
+        String url = getMappingUrl(GraphController.class, "listComponentI18n", HttpServletRequest.class, HttpServletResponse.class);
+        String listUrl = getMappingUrl(GraphController.class, "listComponents", HttpServletRequest.class, HttpServletResponse.class);
+        String listETag = mockMvc.perform(MockMvcRequestBuilders.post(listUrl).contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.post(url).contentType(MediaType.APPLICATION_JSON)
+                        .header(HttpHeaders.IF_NONE_MATCH, listETag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertTrue(listETag.startsWith("\"list-"));
+        Assertions.assertTrue(eTag.startsWith("\"i18n-"));
+    }
+
+    @Test
+    void batchGetComponentETagOfKeys() throws Exception {
+        doNothing().when(dataProxyService).updateDataSourceUseDataProxyInMaster();
+        String url = getMappingUrl(GraphController.class, "batchGetComponent", List.class, HttpServletRequest.class, HttpServletResponse.class);
+        String listUrl = getMappingUrl(GraphController.class, "listComponents", HttpServletRequest.class, HttpServletResponse.class);
+        String listETag = mockMvc.perform(MockMvcRequestBuilders.post(listUrl).contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        String eTag = mockMvc.perform(MockMvcRequestBuilders.post(url).contentType(MediaType.APPLICATION_JSON).content("[]")
+                        .header(HttpHeaders.IF_NONE_MATCH, listETag))
+                .andExpect(MockMvcResultMatchers.status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Assertions.assertNotEquals(listETag, eTag);
+        mockMvc.perform(MockMvcRequestBuilders.post(url).contentType(MediaType.APPLICATION_JSON).content("[]")
+                        .header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(MockMvcResultMatchers.status().isNotModified());
+    }
+
     @Test
     void createGraph() throws Exception {
         assertResponse(() -> {
@@ -53,6 +53,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -216,15 +217,14 @@ class NodeRouteControllerTest extends ControllerTest {
             a1Node.setNodeId("a1");
             NodeDO b1Node  =  new NodeDO();
             b1Node.setNodeId("b1");
-            List<String> nodeIds = List.of("a1","b1");
 
             Mockito.when(nodeRouteRepository.pageQuery(Mockito.anyCollection(), Mockito.anyString(), Mockito.any())).thenReturn(page);
             Mockito.when(projectNodeRepository.findByNodeIds(Mockito.anyList())).thenReturn(projectNodeDOList);
-            Mockito.when(nodeRepository.findByNodeId("a1")).thenReturn(a1Node);
-            Mockito.when(nodeRepository.findByNodeId("b1")).thenReturn(b1Node);
+            Mockito.when(nodeRepository.findByNodeIdIn(Mockito.anyCollection())).thenReturn(List.of(a1Node, b1Node));
             DomainRoute.RouteStatus status = DomainRoute.RouteStatus.newBuilder().setStatus("Ready").build();
-            Mockito.when(nodeRouteManager.getRouteStatus(Mockito.any(),Mockito.any(),Mockito.any())).thenReturn(status);
-            Mockito.when(projectNodeRepository.findProjectNodesByProjectId(Mockito.any())).thenReturn(nodeIds);
+            Mockito.when(nodeRouteManager.getRouteStatuses(Mockito.anyCollection(), Mockito.any()))
+                    .thenReturn(Map.of(DomainRoute.DomainRouteKey.newBuilder().setSource("a1").setDestination("b1").build(), status));
+            Mockito.when(projectNodeRepository.findProjectNodesByProjectIds(Mockito.anyCollection())).thenReturn(projectNodeDOList);
             DomainOuterClass.QueryDomainResponse queryDomainResponse = buildQueryDomainResponse(0);
             Mockito.when(kusciaGrpcClientAdapter.queryDomain(Mockito.any())).thenReturn(queryDomainResponse);
 
@@ -117,10 +117,10 @@ public class P2PProjectControllerTest extends ControllerTest {
                     voteRequestDO1, voteRequestDO2
             );
             Mockito.when(voteRequestRepository.findAllById(anyCollection())).thenReturn(voteRequestDOS);
-            Mockito.when(projectNodeRepository.findProjectionByProjectId(anyString())).thenReturn(Collections.emptyList());
-            Mockito.when(projectInstRepository.findProjectionByProjectId(anyString())).thenReturn(Collections.emptyList());
-            Mockito.when(projectGraphDORepository.countByProjectId(anyString())).thenReturn(0);
-            Mockito.when(projectJobRepository.countByProjectId(anyString())).thenReturn(0);
+            Mockito.when(projectNodeRepository.findProjectionByProjectIds(anyCollection())).thenReturn(Collections.emptyList());
+            Mockito.when(projectInstRepository.findProjectionByProjectIds(anyCollection())).thenReturn(Collections.emptyList());
+            Mockito.when(projectGraphDORepository.countByProjectIds(anyCollection())).thenReturn(Collections.emptyList());
+            Mockito.when(projectJobRepository.countByProjectIds(anyCollection())).thenReturn(Collections.emptyList());
             Mockito.when(nodeRepository.findByNodeIdIn(anyList())).thenReturn(Collections.emptyList());
             return MockMvcRequestBuilders.post(getMappingUrl(P2PProjectController.class, "listP2PProject"));
 
@@ -163,10 +163,10 @@ public class P2PProjectControllerTest extends ControllerTest {
                     voteRequestDO1, voteRequestDO2
             );
             Mockito.when(voteRequestRepository.findAllById(anyCollection())).thenReturn(voteRequestDOS);
-            Mockito.when(projectNodeRepository.findProjectionByProjectId(anyString())).thenReturn(Collections.emptyList());
-            Mockito.when(projectInstRepository.findProjectionByProjectId(anyString())).thenReturn(Collections.emptyList());
-            Mockito.when(projectGraphDORepository.countByProjectId(anyString())).thenReturn(0);
-            Mockito.when(projectJobRepository.countByProjectId(anyString())).thenReturn(0);
+            Mockito.when(projectNodeRepository.findProjectionByProjectIds(anyCollection())).thenReturn(Collections.emptyList());
+            Mockito.when(projectInstRepository.findProjectionByProjectIds(anyCollection())).thenReturn(Collections.emptyList());
+            Mockito.when(projectGraphDORepository.countByProjectIds(anyCollection())).thenReturn(Collections.emptyList());
+            Mockito.when(projectJobRepository.countByProjectIds(anyCollection())).thenReturn(Collections.emptyList());
             Mockito.when(nodeRepository.findByNodeIdIn(anyList())).thenReturn(Collections.emptyList());
             return MockMvcRequestBuilders.post(getMappingUrl(P2PProjectController.class, "listP2PProject"));
 
@@ -27,7 +27,12 @@ import org.secretflow.secretpad.service.sync.p2p.DataSyncConsumerTemplate;
 
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.test.context.TestPropertySource;
 
 import java.io.IOException;
@@ -71,7 +76,7 @@ public class P2pDataSyncControllerTest extends ControllerTest {
     private ProjectGraphRepository projectGraphRepository;
     @Resource
     private ProjectGraphNodeRepository projectGraphNodeRepository;
-    @Resource
+    @SpyBean
     private ProjectJobRepository projectJobRepository;
     @Resource
     private ProjectJobTaskRepository projectJobTaskRepository;
@@ -327,6 +332,65 @@ public class P2pDataSyncControllerTest extends ControllerTest {
                         .editEnable(true)
                         .build())
                 .build());
+        dataSyncConsumerTemplate.consumer("alice", List.of(SyncDataDTO.builder()
+                        .action("update")
+                        .tableName(ProjectJobDO.class.getTypeName())
+                        .data(ProjectJobDO.builder()
+                                .upk(new ProjectJobDO.UPK("test2", "test2"))
+                                .name("test2")
+                                .status(GraphJobStatus.RUNNING)
+                                .build())
+                        .build(),
+                SyncDataDTO.builder()
+                        .action("update")
+                        .tableName(ProjectJobDO.class.getTypeName())
+                        .data(ProjectJobDO.builder()
+                                .upk(new ProjectJobDO.UPK("test2", "test2"))
+                                .name("test2")
+                                .status(GraphJobStatus.SUCCEED)
+                                .build())
+                        .build()));
+        InOrder inOrder = Mockito.inOrder(projectJobRepository);
+        inOrder.verify(projectJobRepository).save(ArgumentMatchers.<ProjectJobDO>argThat(job ->
+                "test2".equals(job.getUpk().getJobId()) && job.getStatus() == GraphJobStatus.RUNNING));
+        inOrder.verify(projectJobRepository).save(ArgumentMatchers.<ProjectJobDO>argThat(job ->
+                "test2".equals(job.getUpk().getJobId()) && job.getStatus() == GraphJobStatus.SUCCEED));
+        Assertions.assertEquals(GraphJobStatus.SUCCEED,
+                projectJobRepository.findByJobId("test2").orElseThrow().getStatus());
+
+        // a failed batch applies nothing, the producer sends it again ahead of the batch after it
+        List<SyncDataDTO> failedBatch = List.of(SyncDataDTO.builder()
+                .action("update")
+                .tableName(ProjectJobDO.class.getTypeName())
+                .data(ProjectJobDO.builder()
+                        .upk(new ProjectJobDO.UPK("test3", "test3"))
+                        .name("test3")
+                        .status(GraphJobStatus.RUNNING)
+                        .build())
+                .build());
+        List<SyncDataDTO> laterBatch = List.of(SyncDataDTO.builder()
+                .action("update")
+                .tableName(ProjectJobDO.class.getTypeName())
+                .data(ProjectJobDO.builder()
+                        .upk(new ProjectJobDO.UPK("test3", "test3"))
+                        .name("test3")
+                        .status(GraphJobStatus.SUCCEED)
+                        .build())
+                .build());
+        Mockito.doThrow(new IllegalStateException("save failed")).doCallRealMethod().when(projectJobRepository)
+                .save(ArgumentMatchers.<ProjectJobDO>argThat(job -> job != null && "test3".equals(job.getUpk().getJobId())));
+        Assertions.assertThrows(RuntimeException.class, () -> dataSyncConsumerTemplate.consumer("alice", failedBatch));
+        Assertions.assertTrue(projectJobRepository.findByJobId("test3").isEmpty());
+        Mockito.clearInvocations(projectJobRepository);
+        dataSyncConsumerTemplate.consumer("alice", failedBatch);
+        dataSyncConsumerTemplate.consumer("alice", laterBatch);
+        inOrder = Mockito.inOrder(projectJobRepository);
+        inOrder.verify(projectJobRepository).save(ArgumentMatchers.<ProjectJobDO>argThat(job ->
+                "test3".equals(job.getUpk().getJobId()) && job.getStatus() == GraphJobStatus.RUNNING));
+        inOrder.verify(projectJobRepository).save(ArgumentMatchers.<ProjectJobDO>argThat(job ->
+                "test3".equals(job.getUpk().getJobId()) && job.getStatus() == GraphJobStatus.SUCCEED));
+        Assertions.assertEquals(GraphJobStatus.SUCCEED,
+                projectJobRepository.findByJobId("test3").orElseThrow().getStatus());
         projectNodeRepository.deleteAllAuthentic();
     }
 }
\ No newline at end of file
@@ -27,6 +27,7 @@ import org.secretflow.secretpad.manager.integration.node.NodeManager;
 import org.secretflow.secretpad.persistence.entity.*;
 import org.secretflow.secretpad.persistence.model.ParticipantNodeInstVO;
 import org.secretflow.secretpad.persistence.model.ResultKind;
+import org.secretflow.secretpad.persistence.projection.CountProjection;
 import org.secretflow.secretpad.persistence.repository.*;
 import org.secretflow.secretpad.service.constant.ComponentConstants;
 import org.secretflow.secretpad.service.model.project.*;
@@ -40,6 +41,8 @@ import org.secretflow.v1alpha1.common.Common;
 import org.secretflow.v1alpha1.kusciaapi.Domaindata;
 import org.secretflow.v1alpha1.kusciaapi.Domaindatasource;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
@@ -277,6 +280,24 @@ class ProjectControllerTest extends ControllerTest {
         UserContext.remove();
     }
 
+    @Test
+    void pageProject() throws Exception {
+        assertResponse(() -> {
+            ListProjectRequest request = new ListProjectRequest();
+            request.setPageNum(1);
+            request.setPageSize(10);
+            UserContext.getUser().setApiResources(Set.of(ApiResourceCodeConstants.PRJ_LIST));
+            Mockito.when(projectRepository.findAll(Mockito.any(Pageable.class))).thenReturn(new PageImpl<>(List.of(buildProjectDO())));
+            Mockito.when(projectNodeRepository.findProjectionByProjectIds(Mockito.anyCollection())).thenReturn(Collections.emptyList());
+            Mockito.when(graphRepository.countByProjectIds(Mockito.anyCollection())).thenReturn(List.of(new CountProjection(PROJECT_ID, 2L)));
+            Mockito.when(projectJobRepository.countByProjectIds(Mockito.anyCollection())).thenReturn(List.of(new CountProjection(PROJECT_ID, 3L)));
+            return MockMvcRequestBuilders.post(getMappingUrl(ProjectController.class, "pageProject", ListProjectRequest.class))
+                    .content(JsonUtils.toJSONString(request));
+        });
+        Mockito.verify(graphRepository, Mockito.never()).countByProjectId(Mockito.anyString());
+        Mockito.verify(projectJobRepository, Mockito.never()).countByProjectId(Mockito.anyString());
+    }
+
     @Test
     void getProject() throws Exception {
         assertResponse(() -> {